@@ -28,7 +28,15 @@ import javax.swing.UnsupportedLookAndFeelException;
 import net.zeddev.litelogger.Logger;
 import net.zeddev.zedlog.gui.ZedLogFrame;
 import net.zeddev.zedlog.logger.impl.CompositeDataLogger;
+import net.zeddev.zedlog.logger.DataLogger;
 import net.zeddev.zedlog.logger.impl.DataLoggers;
+import net.zeddev.zedlog.logger.impl.LogHistory;
+import net.zeddev.zedlog.logger.impl.ColumnarLogHistory;
+import net.zeddev.zedlog.logger.impl.CommitPolicy;
+import net.zeddev.zedlog.logger.impl.MotionFilter;
+import net.zeddev.zedlog.logger.impl.MotionLogger;
+import net.zeddev.zedlog.logger.impl.OffHeapLogHistory;
+import net.zeddev.zedlog.logger.impl.SpillingLogHistory;
 
 import org.jnativehook.GlobalScreen;
 import org.jnativehook.NativeHookException;
@@ -55,6 +63,22 @@ public final class ZedLog implements UncaughtExceptionHandler {
 	
 	// whether to run the gui or not
 	private boolean runGui = true;
+
+	// the mouse motion filter settings given on the command line
+	private MotionFilter.Mode motionMode = MotionFilter.Mode.NONE;
+	private int motionTolerance = MotionFilter.DEFAULT_TOLERANCE;
+	private long motionInterval = MotionFilter.DEFAULT_INTERVAL;
+
+	// the log file commit settings given on the command line
+	private long commitEntries = CommitPolicy.DEFAULT_MAX_ENTRIES;
+	private long commitDelay = CommitPolicy.DEFAULT_MAX_DELAY;
+	private long commitIdle = CommitPolicy.DEFAULT_IDLE_DELAY;
+	private boolean commitForce = false;
+
+	// the log history settings given on the command line
+	private String historyMode = "spill";
+	private long historyEntries = SpillingLogHistory.DEFAULT_MAX_ENTRIES;
+	private long historyBytes = SpillingLogHistory.DEFAULT_MAX_BYTES;
 	
 	private void die() {
 		logger.info("Dying!");
@@ -169,9 +193,16 @@ public final class ZedLog implements UncaughtExceptionHandler {
 			
 			try {
 				
-				loggers.addLogger(
-					DataLoggers.newDataLogger(type)
-				);
+				DataLogger dataLogger = DataLoggers.newDataLogger(type);
+
+				// apply the motion filter settings
+				if (dataLogger instanceof MotionLogger) {
+					((MotionLogger) dataLogger).getMotionFilter().configure(
+						motionMode, motionTolerance, motionInterval
+					);
+				}
+
+				loggers.addLogger(dataLogger);
 				
 			} catch (IOException ex) {
 				logger.error("Failed to add data logger %s.", ex, type);
@@ -200,6 +231,29 @@ public final class ZedLog implements UncaughtExceptionHandler {
 		"    Sets the file to store logged data. \n" +
 		"-log-file <filename> \n" + 
 		"    Sets the program/message log file. \n" +
+		"-motion <mode> \n" + 
+		"    Sets how mouse movements/drags are reduced; none, time_bucket, \n" + 
+		"    distance or simplify. \n" +
+		"-motion-tolerance <pixels> \n" + 
+		"    Sets how far the reduced mouse path may stray. \n" +
+		"-motion-interval <milliseconds> \n" + 
+		"    Sets the time between reduced mouse samples. \n" +
+		"-commit-entries <count> \n" + 
+		"    Sets the number of entries written before committing the log file. \n" +
+		"-commit-delay <milliseconds> \n" + 
+		"    Sets the longest an entry waits to be committed (0 for no limit). \n" +
+		"-commit-idle <milliseconds> \n" + 
+		"    Sets the quiet time after which entries are committed (0 for never). \n" +
+		"-commit-force \n" + 
+		"    Forces each commit to the storage device. \n" +
+		"-history <mode> \n" + 
+		"    Sets how the log history is stored; spill (recent entries in \n" + 
+		"    memory, the rest on disk), compact (all in memory, packed), \n" + 
+		"    offheap (outside the java heap) or mapped (in a mapped file). \n" +
+		"-history-entries <count> \n" + 
+		"    Sets the number of recent entries kept in memory when spilling. \n" +
+		"-history-bytes <bytes> \n" + 
+		"    Sets the memory used by the recent entries when spilling. \n" +
 		" \n"
 		);
 		
@@ -259,6 +313,80 @@ public final class ZedLog implements UncaughtExceptionHandler {
 		
 	}
 	
+	// sets the mouse motion filter mode
+	private void setMotionMode(String mode) {
+
+		try {
+			motionMode = MotionFilter.Mode.valueOf(mode.toUpperCase());
+		} catch (IllegalArgumentException ex) {
+			logger.warning("Unknown motion mode %s", null, mode);
+		}
+
+	}
+
+	// sets the log history, as given on the command line
+	private void setHistory() {
+
+		LogHistory history;
+
+		switch (historyMode) {
+
+			case "spill":
+				history = new SpillingLogHistory(
+					(int) Math.min(Integer.MAX_VALUE, historyEntries), historyBytes
+				);
+			break;
+
+			case "compact":
+				history = new ColumnarLogHistory();
+			break;
+
+			case "offheap":
+				history = new OffHeapLogHistory();
+			break;
+
+			case "mapped":
+				try {
+					history = new OffHeapLogHistory(null);
+				} catch (IOException ex) {
+					logger.error("Failed to create the log history file!", ex);
+					return;
+				}
+			break;
+
+			default:
+				logger.warning("Unknown history mode %s", null, historyMode);
+				return;
+
+		}
+
+		try {
+			loggers.setHistory(history);
+		} catch (IOException ex) {
+			logger.error("Failed to set the log history!", ex);
+		}
+
+	}
+
+	// parses a non-negative number argument, or returns the default
+	private long parseCount(String arg, String value, long defaultValue) {
+
+		try {
+
+			long count = Long.parseLong(value);
+
+			if (count >= 0)
+				return count;
+
+		} catch (NumberFormatException ex) {
+			// REPORTED BELOW
+		}
+
+		logger.warning("%s requires a non-negative number, not %s", null, arg, value);
+		return defaultValue;
+
+	}
+
 	// handles command line arguments
 	private void handleArgs(String[] args) {
 		
@@ -323,6 +451,49 @@ public final class ZedLog implements UncaughtExceptionHandler {
 				setLogFile(filename);
 				
 			} break;
+
+			// set the mouse motion filter
+			case "-motion":
+				setMotionMode(args[i++]);
+			break;
+
+			case "-motion-tolerance":
+				motionTolerance = (int) parseCount(arg, args[i++], motionTolerance);
+			break;
+
+			case "-motion-interval":
+				motionInterval = parseCount(arg, args[i++], motionInterval);
+			break;
+
+			// set when the log file is committed
+			case "-commit-entries":
+				commitEntries = Math.max(1, parseCount(arg, args[i++], commitEntries));
+			break;
+
+			case "-commit-delay":
+				commitDelay = parseCount(arg, args[i++], commitDelay);
+			break;
+
+			case "-commit-idle":
+				commitIdle = parseCount(arg, args[i++], commitIdle);
+			break;
+
+			case "-commit-force":
+				commitForce = true;
+			break;
+
+			// set how the log history is stored
+			case "-history":
+				historyMode = args[i++];
+			break;
+
+			case "-history-entries":
+				historyEntries = Math.max(1, parseCount(arg, args[i++], historyEntries));
+			break;
+
+			case "-history-bytes":
+				historyBytes = Math.max(1, parseCount(arg, args[i++], historyBytes));
+			break;
 				
 			default:
 				logger.warning("Unknown argument %s", null, arg);
@@ -332,6 +503,12 @@ public final class ZedLog implements UncaughtExceptionHandler {
 			
 		}
 		
+		loggers.setCommitPolicy(new CommitPolicy(
+			(int) Math.min(Integer.MAX_VALUE, commitEntries), commitDelay, commitIdle, commitForce
+		));
+		
+		setHistory();
+		
 	}
 
 	// starts the gui
@@ -16,15 +16,16 @@ package net.zeddev.zedlog.gui;
  */
 
 import java.awt.GridLayout;
+import java.util.Collections;
+import java.util.List;
 
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 
+import net.zeddev.zedlog.logger.BatchDataLoggerObserver;
 import net.zeddev.zedlog.logger.DataLogger;
-import net.zeddev.zedlog.logger.DataLoggerObserver;
 import net.zeddev.zedlog.logger.LogEntry;
-import net.zeddev.zedlog.logger.LogEvent;
 import net.zeddev.zedlog.logger.impl.event.MouseEvent;
 import static net.zeddev.zedlog.util.Assertions.*;
 
@@ -33,7 +34,7 @@ import static net.zeddev.zedlog.util.Assertions.*;
  *
  * @author Zachary Scott <zscott.dev@gmail.com>
  */
-public final class LoggerPanel extends JPanel implements DataLoggerObserver {
+public final class LoggerPanel extends JPanel implements BatchDataLoggerObserver {
 
 	private final DataLogger logger;
 
@@ -97,22 +98,30 @@ public final class LoggerPanel extends JPanel implements DataLoggerObserver {
 		shutdown();
 	}
 
-	private LogEvent lastToNotify = null;
+	// the type of the last event shown
+	// NOTE not the event itself, as pooled events are reused once released
+	private String lastToNotify = null;
 
-	private void addLog(final DataLogger logger, final LogEntry logEntry) {
+	// whether the text area text ends with a newline
+	private boolean endsWithNewline = true;
 
-		StringBuilder logEntries = new StringBuilder(getTxtLogEntries().getText());
+	// appends the log entry to the given text
+	private void addLog(final StringBuilder logEntries, final LogEntry logEntry) {
 
 		// add newline to separate different logger messages
 		if (lastToNotify == null) {
-			lastToNotify = logEntry.getEvent();
-		} else if (lastToNotify.type().equals(logEntry.getEvent().type())) {
+			lastToNotify = logEntry.getEvent().type();
+		} else if (lastToNotify.equals(logEntry.getEvent().type())) {
 
 			// dont append if already a newline
-			if (logEntries.charAt(logEntries.length()-1) != '\n')
+			boolean newline = logEntries.length() == 0
+				? endsWithNewline
+				: logEntries.charAt(logEntries.length()-1) == '\n';
+
+			if (!newline)
 				logEntries.append("\n");
 
-			lastToNotify = logEntry.getEvent();
+			lastToNotify = logEntry.getEvent().type();
 
 		}
 
@@ -122,15 +131,30 @@ public final class LoggerPanel extends JPanel implements DataLoggerObserver {
 			entryText += "\n";
 		
 		logEntries.append(entryText);
-		
-		getTxtLogEntries().setText(logEntries.toString());
+
+	}
+
+	// adds the log entries to the text area
+	private void addLogs(final List<LogEntry> logEntries) {
+
+		StringBuilder text = new StringBuilder();
+
+		for (LogEntry logEntry : logEntries)
+			addLog(text, logEntry);
+
+		if (text.length() == 0)
+			return;
+
+		endsWithNewline = text.charAt(text.length()-1) == '\n';
+
+		// NOTE only append the new text, rewriting all of it is O(n) per event
+		getTxtLogEntries().append(text.toString());
 
 		// move the end of the text area
 		getTxtLogEntries().setCaretPosition(
-			getTxtLogEntries().getText().length() - 1
+			getTxtLogEntries().getDocument().getLength()
 		);
 
-
 	}
 
 	@Override
@@ -143,10 +167,15 @@ public final class LoggerPanel extends JPanel implements DataLoggerObserver {
 		//	}
 		//});
 
-		addLog(logger, logEntry);
+		addLogs(Collections.singletonList(logEntry));
 
 	}
 
+	@Override
+	public void notifyLogBatch(final DataLogger logger, final List<LogEntry> logEntries) {
+		addLogs(logEntries);
+	}
+
 	// form elements
 	private JTextArea txtLogEntries = new JTextArea();
 	
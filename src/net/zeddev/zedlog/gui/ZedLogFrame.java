@@ -27,6 +27,8 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
@@ -39,6 +41,8 @@ import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JTabbedPane;
 import javax.swing.JToolBar;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingWorker;
 import javax.swing.WindowConstants;
 
 import net.zeddev.litelogger.LogLevel;
@@ -54,19 +58,22 @@ import net.zeddev.zedlog.gui.dialog.ReplayToolDialog;
 import net.zeddev.zedlog.gui.dialog.SimpleDialog;
 import net.zeddev.zedlog.logger.DataLogger;
 import net.zeddev.zedlog.logger.impl.CompositeDataLogger;
+import net.zeddev.zedlog.logger.impl.LogLoadMonitor;
+import net.zeddev.zedlog.logger.impl.NativeEventHandler;
+import net.zeddev.zedlog.logger.impl.NativeEventType;
+import net.zeddev.zedlog.logger.impl.NativeHookDemultiplexer;
 
 import static net.zeddev.zedlog.util.Assertions.*;
 
-import org.jnativehook.GlobalScreen;
+import org.jnativehook.NativeInputEvent;
 import org.jnativehook.mouse.NativeMouseEvent;
-import org.jnativehook.mouse.NativeMouseListener;
 
 /**
  * The main GUI frame.
  *
  * @author Zachary Scott <zscott.dev@gmail.com>
  */
-public final class ZedLogFrame extends JFrame implements NativeMouseListener {
+public final class ZedLogFrame extends JFrame implements NativeEventHandler {
 
 	private final Logger logger = Logger.getLogger(this);
 	private final WindowLogHandler logWindow = new WindowLogHandler();
@@ -107,7 +114,9 @@ public final class ZedLogFrame extends JFrame implements NativeMouseListener {
 		Logger.addObserver(new MsgBoxLogHandler(LogLevel.WARNING));
 		Logger.addObserver(logWindow);
 		
-		GlobalScreen.getInstance().addNativeMouseListener(this);
+		NativeHookDemultiplexer.getInstance().addHandler(
+			NativeEventType.MOUSE_CLICKED, this
+		);
 
 	}
 	
@@ -604,6 +613,9 @@ public final class ZedLogFrame extends JFrame implements NativeMouseListener {
 
 				}
 
+				// NOTE the logger is no longer used, so release its hook
+				dataLogger.shutdown();
+
 				tabs.remove(tabs.getSelectedIndex());
 
 			}
@@ -645,26 +657,91 @@ public final class ZedLogFrame extends JFrame implements NativeMouseListener {
 	
 	private void openLogFile() {
 
-		File logFile = SimpleDialog.openFile(this);
+		final File logFile = SimpleDialog.openFile(this);
 		if (logFile == null) return;
 
-		// select and set the new log file
-		try {
+		logger.info("Opening log file %s.", null, logFile.toString());
 
-			logger.info("Opening log file %s.", null, logFile.toString());
+		final ProgressMonitor progress = new ProgressMonitor(
+			this, "Opening log file " + logFile.getName(), null, 0, 100
+		);
 
-			loggers.openLogFile(logFile);
-			
-			// re-initialise the composite logger
-			removeLoggerTabs();
-			loggers.clearAll();
-			initLoggerTabs();
+		// whether the user cancelled the load
+		final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+		// load in the background, so the gui remains responsive
+		new SwingWorker<Boolean, Void>() {
+
+			@Override
+			protected Boolean doInBackground() throws Exception {
+
+				return loggers.openLogFile(logFile, new LogLoadMonitor() {
+
+					@Override
+					public boolean loadProgress(long position, long size, final long entryCount) {
+
+						final int percent = size == 0 ? 100 : (int) Math.min(100, position * 100 / size);
+
+						EventQueue.invokeLater(new Runnable() {
+							@Override
+							public void run() {
+
+								progress.setNote(String.format("%d entries loaded", entryCount));
+								progress.setProgress(percent);
+
+								if (progress.isCanceled())
+									cancelled.set(true);
+
+							}
+						});
+
+						return !cancelled.get();
+
+					}
+
+				});
+
+			}
+
+			@Override
+			protected void done() {
+
+				progress.close();
+
+				try {
 
-		} catch (FileNotFoundException ex) {
+					boolean completed = get();
+
+					// re-initialise the composite logger
+					removeLoggerTabs();
+					loggers.clearAll();
+					initLoggerTabs();
+
+					if (completed)
+						logger.info("Log file %s opened successfully.", null, logFile.getPath());
+					else
+						logger.warning("Opening log file %s cancelled.", null, logFile.getPath());
+
+				} catch (ExecutionException ex) {
+					logOpenError(logFile, ex.getCause());
+				} catch (Exception ex) {
+					logOpenError(logFile, ex);
+				}
+
+			}
+
+		}.execute();
+
+	}
+
+	// reports the failure to open the log file
+	private void logOpenError(File logFile, Throwable ex) {
+
+		if (ex instanceof FileNotFoundException) {
 			logger.error("Log file %s does not exist!", ex, logFile.getPath());
-		} catch (IOException ex) {
+		} else if (ex instanceof IOException) {
 			logger.error("Failed to open log file %s.", ex, logFile.getPath());
-		} catch (Exception ex) {
+		} else {
 
 			logger.error(
 				"Failed to read the log file %s.  It may be corrupt.",
@@ -673,8 +750,6 @@ public final class ZedLogFrame extends JFrame implements NativeMouseListener {
 
 		}
 
-		logger.info("Log file %s opened successfully.", null, logFile.getPath());
-
 	}
 
 	private void userQuit() {
@@ -877,7 +952,9 @@ public final class ZedLogFrame extends JFrame implements NativeMouseListener {
 	}
 
 	@Override
-	public void nativeMouseClicked(NativeMouseEvent event) {
+	public void handleNativeEvent(NativeInputEvent nativeEvent, long captureTime, long sequence) {
+
+		NativeMouseEvent event = (NativeMouseEvent) nativeEvent;
 
 		if (event.getButton() == 3 && event.getPoint().equals(new Point(0, 0))) {
 			// FIXME This really needs to be done better.
@@ -888,16 +965,6 @@ public final class ZedLogFrame extends JFrame implements NativeMouseListener {
 
 	}
 
-	@Override
-	public void nativeMousePressed(NativeMouseEvent event) {
-		// IGNORED
-	}
-
-	@Override
-	public void nativeMouseReleased(NativeMouseEvent nme) {
-		// IGNORED
-	}
-
 	/* --------  END EVENT HANDLERS  -------- */
 	
 	/* --------  FORM ELEMENTS  -------- */
@@ -15,8 +15,6 @@ package net.zeddev.zedlog.logger;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
-import java.util.ArrayList;
-import java.util.List;
 import static net.zeddev.zedlog.util.Assertions.*;
 
 /**
@@ -27,19 +25,40 @@ import static net.zeddev.zedlog.util.Assertions.*;
  */
 public abstract class AbstractDataLogger implements DataLogger {
 
-	private final List<DataLoggerObserver> observers = new ArrayList<>();
+	// the observers, each with its own mailbox
+	private final ObserverRegistry observers = new ObserverRegistry();
 
-	// the thread responsible for notificating observers of log events
-	private final DataLoggerNotificationThread notifyThread;
+	// the scheduler responsible for notificating observers of log events
+	private final DispatchScheduler scheduler;
+
+	private volatile OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+
+	// the statistics of the removed observers
+	private final DispatchStatistics retiredStatistics =
+		new DispatchStatistics(overflowPolicy, ObserverMailbox.QUEUE_SIZE);
 
 	// whether or not to record the log entries
 	private boolean recording = true;
 
+	// the sequence number of the latest entry passed to the observers
+	private volatile long lastSequence = 0;
+
+	/** Creates a {@code DataLogger} dispatching on the default scheduler. */
 	protected AbstractDataLogger() {
+		this(DispatchSchedulers.getDefault());
+	}
 
-		// start the notification thread
-		notifyThread = new DataLoggerNotificationThread(this, observers);
-		notifyThread.start();
+	/**
+	 * Creates a {@code DataLogger} dispatching on the given scheduler.
+	 *
+	 * @param scheduler The scheduler which notifies the observers (must not
+	 * be {@code null}).
+	 */
+	protected AbstractDataLogger(DispatchScheduler scheduler) {
+
+		requireNotNull(scheduler);
+
+		this.scheduler = scheduler;
 
 	}
 
@@ -53,8 +72,11 @@ public abstract class AbstractDataLogger implements DataLogger {
 	@Override
 	public void shutdown() {
 
-		// stop the notify thread
-		notifyThread.shutdown();
+		// deliver the queued events, then stop the observer mailboxes
+		for (ObserverMailbox mailbox : observers.snapshot()) {
+			mailbox.drain();
+			mailbox.shutdown();
+		}
 
 	}
 
@@ -63,9 +85,7 @@ public abstract class AbstractDataLogger implements DataLogger {
 
 		requireNotNull(observer);
 		
-		synchronized (observers) {
-			observers.add(observer);
-		}
+		observers.add(new ObserverMailbox(this, observer, scheduler, overflowPolicy));
 
 	}
 
@@ -74,8 +94,16 @@ public abstract class AbstractDataLogger implements DataLogger {
 
 		requireNotNull(observer);
 		
-		synchronized (observers) {
-			observers.remove(observer);
+		ObserverMailbox mailbox = observers.remove(observer);
+
+		if (mailbox != null) {
+
+			mailbox.shutdown();
+
+			synchronized (retiredStatistics) {
+				retiredStatistics.add(mailbox.getStatistics());
+			}
+
 		}
 
 	}
@@ -93,12 +121,63 @@ public abstract class AbstractDataLogger implements DataLogger {
 		if (isRecording()) {
 			// XXX notify observers only if recording
 
-			notifyThread.notifyEvent(logEntry);
+			// NOTE set before queued, so is seen before the entry arrives
+			if (logEntry.getSequence() > lastSequence)
+				lastSequence = logEntry.getSequence();
+
+			for (ObserverMailbox mailbox : observers.snapshot())
+				mailbox.notifyEvent(logEntry);
 
 		}
 
 	}
 
+	@Override
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	@Override
+	public void setOverflowPolicy(OverflowPolicy policy) {
+
+		requireNotNull(policy);
+
+		overflowPolicy = policy;
+
+		for (ObserverMailbox mailbox : observers.snapshot())
+			mailbox.setOverflowPolicy(policy);
+
+	}
+
+	@Override
+	public DispatchStatistics getDispatchStatistics() {
+
+		DispatchStatistics stats = new DispatchStatistics(
+			overflowPolicy, ObserverMailbox.QUEUE_SIZE
+		);
+
+		synchronized (retiredStatistics) {
+			stats.add(retiredStatistics);
+		}
+
+		for (ObserverMailbox mailbox : observers.snapshot())
+			stats.add(mailbox.getStatistics());
+
+		return stats;
+
+	}
+
+	@Override
+	public DispatchStatistics getDispatchStatistics(DataLoggerObserver observer) {
+
+		requireNotNull(observer);
+
+		ObserverMailbox mailbox = observers.find(observer);
+
+		return mailbox == null ? null : mailbox.getStatistics();
+
+	}
+
 	@Override
 	public boolean isRecording() {
 		return recording;
@@ -109,6 +188,16 @@ public abstract class AbstractDataLogger implements DataLogger {
 		this.recording = recording;
 	}
 
+	@Override
+	public long getLastSequence() {
+		return lastSequence;
+	}
+
+	@Override
+	public long getHeldSequence() {
+		return 0;
+	}
+
 	@Override
 	public String toString() {
 		return type();
@@ -0,0 +1,41 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.List;
+
+/**
+ * A {@code DataLoggerObserver} which can be notified of several log entries
+ * at once.
+ * When a logger has more than one entry waiting, it notifies these
+ * observers once for the whole batch, instead of once per entry.  Plain
+ * {@code DataLoggerObserver}s keep receiving single entries.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public interface BatchDataLoggerObserver extends DataLoggerObserver {
+
+	/**
+	 * Notifies the observer that several data logs/records have been made.
+	 * The list is only valid for the duration of the call and must not be
+	 * modified, copy it if the entries must be kept.
+	 *
+	 * @param logger The logger which made the notification.
+	 * @param logEntries The log entries, in the order they were made.
+	 */
+	public void notifyLogBatch(final DataLogger logger, final List<LogEntry> logEntries);
+
+}
@@ -0,0 +1,154 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * Decodes the values written by a {@code BinaryEncoder}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class BinaryDecoder {
+
+	private final ByteBuffer buffer;
+
+	/**
+	 * Creates a {@code BinaryDecoder} reading from the given buffer.
+	 *
+	 * @param buffer The buffer to decode, from its current position (must
+	 * not be {@code null}).
+	 */
+	public BinaryDecoder(ByteBuffer buffer) {
+
+		requireNotNull(buffer);
+
+		this.buffer = buffer;
+
+	}
+
+	/** Returns the position of the next byte to be read. */
+	public int position() {
+		return buffer.position();
+	}
+
+	/** Moves to the given position. */
+	public void position(int position) {
+		buffer.position(position);
+	}
+
+	/** Whether there are bytes left to read. */
+	public boolean hasRemaining() {
+		return buffer.hasRemaining();
+	}
+
+	/**
+	 * Reads a single (unsigned) byte.
+	 *
+	 * @throws EOFException If the end of the buffer was reached.
+	 */
+	public int readByte() throws IOException {
+
+		try {
+			return buffer.get() & 0xFF;
+		} catch (BufferUnderflowException ex) {
+			throw new EOFException("Unexpected end of binary log!");
+		}
+
+	}
+
+	/**
+	 * Reads a variable length quantity.
+	 *
+	 * @throws IOException If the value is malformed or truncated.
+	 */
+	public long readVarLong() throws IOException {
+
+		long value = 0;
+
+		for (int shift = 0; shift < 64; shift += 7) {
+
+			int b = readByte();
+			value |= (long) (b & 0x7F) << shift;
+
+			if ((b & 0x80) == 0)
+				return value;
+
+		}
+
+		throw new IOException("Malformed variable length value in binary log!");
+
+	}
+
+	/**
+	 * Reads a variable length quantity.
+	 *
+	 * @throws IOException If the value is malformed or truncated.
+	 */
+	public int readVarInt() throws IOException {
+		return (int) readVarLong();
+	}
+
+	/**
+	 * Reads a zig-zag encoded signed value.
+	 *
+	 * @throws IOException If the value is malformed or truncated.
+	 */
+	public long readSignedVarLong() throws IOException {
+
+		long value = readVarLong();
+
+		return (value >>> 1) ^ -(value & 1);
+
+	}
+
+	/**
+	 * Reads a zig-zag encoded signed value.
+	 *
+	 * @throws IOException If the value is malformed or truncated.
+	 */
+	public int readSignedVarInt() throws IOException {
+		return (int) readSignedVarLong();
+	}
+
+	/**
+	 * Reads a string.
+	 *
+	 * @throws IOException If the string is malformed or truncated.
+	 */
+	public String readString() throws IOException {
+
+		int length = readVarInt();
+
+		if (length < 0)
+			throw new IOException("Malformed string length in binary log!");
+		if (length > buffer.remaining())
+			throw new EOFException("Unexpected end of binary log!");
+
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+
+	}
+
+}
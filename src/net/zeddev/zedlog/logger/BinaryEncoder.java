@@ -0,0 +1,170 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * Encodes values in the compact binary log format.
+ * Integers are written as variable length quantities (7 bits per byte, least
+ * significant first), so small values take a single byte.
+ * Signed values are zig-zag encoded first, so small negative values are
+ * also small.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class BinaryEncoder {
+
+	// the encoded bytes
+	private byte[] buffer;
+	private int length = 0;
+
+	/** Creates a new, empty {@code BinaryEncoder}. */
+	public BinaryEncoder() {
+		buffer = new byte[256];
+	}
+
+	// makes room for the given number of bytes
+	private void ensureCapacity(int count) {
+
+		if (length + count > buffer.length)
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+
+	}
+
+	/** Returns the number of bytes encoded. */
+	public int length() {
+		return length;
+	}
+
+	/** Discards the encoded bytes. */
+	public void clear() {
+		length = 0;
+	}
+
+	/**
+	 * Writes the encoded bytes to the given stream.
+	 *
+	 * @param output The stream to write to (must not be {@code null}).
+	 * @throws IOException If the bytes could not be written.
+	 */
+	public void writeTo(OutputStream output) throws IOException {
+
+		requireNotNull(output);
+
+		output.write(buffer, 0, length);
+
+	}
+
+	/**
+	 * Writes the encoded bytes to the given channel, at the given position.
+	 *
+	 * @param channel The channel to write to (must not be {@code null}).
+	 * @param position The file position to write at.
+	 * @return The number of bytes written.
+	 * @throws IOException If the bytes could not be written.
+	 */
+	public int writeTo(FileChannel channel, long position) throws IOException {
+
+		requireNotNull(channel);
+
+		ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, length);
+
+		while (bytes.hasRemaining())
+			position += channel.write(bytes, position);
+
+		return length;
+
+	}
+
+	/** Returns a copy of the encoded bytes. */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(buffer, length);
+	}
+
+	/** Writes the given bytes, as is. */
+	public void writeBytes(byte[] bytes) {
+
+		requireNotNull(bytes);
+
+		ensureCapacity(bytes.length);
+
+		System.arraycopy(bytes, 0, buffer, length, bytes.length);
+		length += bytes.length;
+
+	}
+
+	/** Writes a single byte. */
+	public void writeByte(int value) {
+
+		ensureCapacity(1);
+
+		buffer[length++] = (byte) value;
+
+	}
+
+	/** Writes a non-negative value as a variable length quantity. */
+	public void writeVarLong(long value) {
+
+		ensureCapacity(10);
+
+		while ((value & ~0x7FL) != 0) {
+			buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		buffer[length++] = (byte) value;
+
+	}
+
+	/** Writes a non-negative value as a variable length quantity. */
+	public void writeVarInt(int value) {
+		writeVarLong(value & 0xFFFFFFFFL);
+	}
+
+	/** Writes a signed value, zig-zag encoded. */
+	public void writeSignedVarLong(long value) {
+		writeVarLong((value << 1) ^ (value >> 63));
+	}
+
+	/** Writes a signed value, zig-zag encoded. */
+	public void writeSignedVarInt(int value) {
+		writeSignedVarLong(value);
+	}
+
+	/** Writes a string as its UTF-8 length and bytes. */
+	public void writeString(String value) {
+
+		requireNotNull(value);
+
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+		writeVarInt(bytes.length);
+
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, buffer, length, bytes.length);
+		length += bytes.length;
+
+	}
+
+}
@@ -0,0 +1,118 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The monotonic clock log entries are captured by.
+ * Capture times are the nanoseconds since the clock started (as measured by
+ * {@code System.nanoTime()}), so are unaffected by changes to the wall-clock
+ * but only comparable within a single run.  A capture time of zero means the
+ * capture time is unknown.
+ * The clock is periodically checked against the wall-clock, and
+ * re-calibrated if they have drifted apart (see {@code getCalibration()}).
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class CaptureClock {
+
+	/** How often the clock is checked against the wall-clock (in milliseconds). */
+	public static final long CHECK_INTERVAL = 60 * 1000;
+
+	/** The drift from the wall-clock tolerated before re-calibrating (in milliseconds). */
+	public static final long DRIFT_TOLERANCE = 2;
+
+	// the nano time the clock started at
+	private static final long START = System.nanoTime();
+
+	// the current calibration, and when it is next checked
+	private static volatile ClockCalibration calibration = measure();
+	private static volatile long nextCheck = calibration.getCaptureTime()
+		+ TimeUnit.MILLISECONDS.toNanos(CHECK_INTERVAL);
+
+	private CaptureClock() {
+	}
+
+	/**
+	 * Returns the current capture time.
+	 *
+	 * @return The nanoseconds since the clock started (always positive).
+	 */
+	public static long now() {
+		return System.nanoTime() - START + 1;
+	}
+
+	/**
+	 * Returns the current calibration of the clock against the wall-clock.
+	 * The calibration is replaced only when the wall-clock has drifted more
+	 * than {@code DRIFT_TOLERANCE} from it (e.g. when the wall-clock is
+	 * adjusted), so the wall-clock times derived from it are monotonic
+	 * between re-calibrations.
+	 *
+	 * @return The current calibration (never {@code null}).
+	 */
+	public static ClockCalibration getCalibration() {
+
+		long now = now();
+
+		if (now - nextCheck >= 0)
+			check(now);
+
+		return calibration;
+
+	}
+
+	/**
+	 * Converts the given capture time to a wall-clock time, with the current
+	 * calibration.
+	 *
+	 * @param captureTime The capture time (in nanoseconds).
+	 * @return The wall-clock time (in milliseconds since the epoch).
+	 */
+	public static long toWallClock(long captureTime) {
+		return getCalibration().toWallClock(captureTime);
+	}
+
+	// measures the wall-clock against the capture clock
+	private static ClockCalibration measure() {
+
+		long before = now();
+		long wallClock = System.currentTimeMillis();
+		long after = now();
+
+		return new ClockCalibration(before + (after - before) / 2, wallClock);
+
+	}
+
+	// re-calibrates the clock if drifted from the wall-clock
+	private static synchronized void check(long now) {
+
+		// NOTE may have been checked by another thread meanwhile
+		if (now - nextCheck < 0)
+			return;
+
+		ClockCalibration measured = measure();
+		long drift = calibration.toWallClock(measured.getCaptureTime()) - measured.getWallClock();
+
+		if (Math.abs(drift) > DRIFT_TOLERANCE)
+			calibration = measured;
+
+		nextCheck = measured.getCaptureTime() + TimeUnit.MILLISECONDS.toNanos(CHECK_INTERVAL);
+
+	}
+
+}
@@ -0,0 +1,86 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import net.zeddev.zedlog.util.HashUtil;
+
+/**
+ * Anchors the monotonic capture clock (see {@code CaptureClock}) to the
+ * wall-clock, at a single instant.
+ * Logs record a calibration before the entries it applies to, so the capture
+ * times of the entries may be converted to wall-clock times.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class ClockCalibration {
+
+	private final long captureTime;
+	private final long wallClock;
+
+	/**
+	 * Creates a new {@code ClockCalibration}.
+	 *
+	 * @param captureTime The capture time of the instant (in nanoseconds).
+	 * @param wallClock The wall-clock time of the instant (in milliseconds
+	 * since the epoch).
+	 */
+	public ClockCalibration(long captureTime, long wallClock) {
+		this.captureTime = captureTime;
+		this.wallClock = wallClock;
+	}
+
+	/** Returns the capture time of the instant (in nanoseconds). */
+	public long getCaptureTime() {
+		return captureTime;
+	}
+
+	/** Returns the wall-clock time of the instant (in milliseconds since the epoch). */
+	public long getWallClock() {
+		return wallClock;
+	}
+
+	/**
+	 * Converts the given capture time to a wall-clock time.
+	 *
+	 * @param captureTime The capture time (in nanoseconds).
+	 * @return The wall-clock time (in milliseconds since the epoch).
+	 */
+	public long toWallClock(long captureTime) {
+		return wallClock + TimeUnit.NANOSECONDS.toMillis(captureTime - this.captureTime);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof ClockCalibration)) {
+			return false;
+		}
+		final ClockCalibration other = (ClockCalibration) obj;
+		return captureTime == other.captureTime && wallClock == other.wallClock;
+	}
+
+	@Override
+	public int hashCode() {
+		return HashUtil.hashAll(captureTime, wallClock);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d ns = %d ms", captureTime, wallClock);
+	}
+
+}
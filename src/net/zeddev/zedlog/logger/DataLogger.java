@@ -55,6 +55,39 @@ public interface DataLogger {
 	 */
 	public void removeObserver(final DataLoggerObserver observer);
 
+	/**
+	 * Returns the policy used when an observer's notification queue is full.
+	 *
+	 * @return The overflow policy (never {@code null}).
+	 */
+	public OverflowPolicy getOverflowPolicy();
+
+	/**
+	 * Sets the policy used when an observer's notification queue is full.
+	 *
+	 * @param policy The overflow policy (must not be {@code null}).
+	 */
+	public void setOverflowPolicy(OverflowPolicy policy);
+
+	/**
+	 * Returns a snapshot of the observer notification counters, including
+	 * the number of events dropped or coalesced by the overflow policy.
+	 * Sums the counters of all observers (including removed observers).
+	 *
+	 * @return The dispatch statistics (never {@code null}).
+	 */
+	public DispatchStatistics getDispatchStatistics();
+
+	/**
+	 * Returns a snapshot of the notification counters of the given observer,
+	 * including how far it lags behind and how long its notifications take.
+	 *
+	 * @param observer The observer (must not be {@code null}).
+	 * @return The observer's dispatch statistics, or {@code null} if it is
+	 * not an observer of this logger.
+	 */
+	public DispatchStatistics getDispatchStatistics(final DataLoggerObserver observer);
+
 	/**
 	 * Returns whether the log entries are being recorded.
 	 *
@@ -69,6 +102,25 @@ public interface DataLogger {
 	 */
 	public void setRecording(boolean record);
 
+	/**
+	 * Returns the sequence number (see {@code LogEntry.getSequence()}) of
+	 * the latest entry passed to the observers.
+	 * Set before the entry is queued to the observers, so an observer which
+	 * has not yet received it knows more entries are on their way.
+	 *
+	 * @return The sequence number, or {@code 0} if no entry was logged.
+	 */
+	public long getLastSequence();
+
+	/**
+	 * Returns the sequence number of the oldest event captured but not yet
+	 * logged (e.g. a motion sample held by a filter), which may still be
+	 * passed to the observers.
+	 *
+	 * @return The sequence number, or {@code 0} if no event is held.
+	 */
+	public long getHeldSequence();
+
 	@Override
 	public String toString();
 
@@ -0,0 +1,38 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Runs the event dispatch work submitted by {@code DataLogger}s.
+ * See {@code DispatchSchedulers} for the available implementations.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public interface DispatchScheduler {
+
+	/**
+	 * Schedules the given dispatch task to be run.
+	 * Tasks from the same {@code ObserverMailbox} are never submitted
+	 * concurrently, so the scheduler need not order them itself.
+	 *
+	 * @param task The task to run (must not be {@code null}).
+	 */
+	public void schedule(final Runnable task);
+
+	/** Shuts-down the scheduler (and any threads it may consume). */
+	public void shutdown();
+
+}
@@ -0,0 +1,166 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * A simple factory which produces {@code DispatchScheduler}s.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class DispatchSchedulers {
+
+	/** The number of threads in the shared dispatch pool. */
+	public static final int SHARED_POOL_SIZE =
+		Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+	// the scheduler used by newly created data loggers
+	private static DispatchScheduler defaultScheduler = null;
+
+	private DispatchSchedulers() {
+	}
+
+	/**
+	 * Returns the scheduler used by newly created {@code DataLogger}s.
+	 * Defaults to a shared pool of {@code SHARED_POOL_SIZE} threads,
+	 * created on first use.
+	 *
+	 * @return The default scheduler (never {@code null}).
+	 */
+	public static synchronized DispatchScheduler getDefault() {
+
+		if (defaultScheduler == null)
+			defaultScheduler = newPool(SHARED_POOL_SIZE);
+
+		return defaultScheduler;
+
+	}
+
+	/**
+	 * Sets the scheduler used by newly created {@code DataLogger}s.
+	 * Existing loggers keep their current scheduler.
+	 *
+	 * @param scheduler The new default scheduler (must not be {@code null}).
+	 */
+	public static synchronized void setDefault(DispatchScheduler scheduler) {
+
+		requireNotNull(scheduler);
+
+		defaultScheduler = scheduler;
+
+	}
+
+	/**
+	 * Creates a scheduler backed by a fixed pool of daemon threads.
+	 *
+	 * @param threads The number of threads in the pool (must be positive).
+	 * @return The new scheduler.
+	 */
+	public static DispatchScheduler newPool(int threads) {
+
+		require(threads > 0);
+
+		return new PoolScheduler(threads);
+
+	}
+
+	/**
+	 * Returns a scheduler which runs the tasks immediately, in the
+	 * thread which scheduled them.
+	 *
+	 * @return The direct scheduler.
+	 */
+	public static DispatchScheduler direct() {
+		return DIRECT;
+	}
+
+	// runs the tasks in the calling thread
+	private static final DispatchScheduler DIRECT = new DispatchScheduler() {
+
+		@Override
+		public void schedule(Runnable task) {
+			requireNotNull(task);
+			task.run();
+		}
+
+		@Override
+		public void shutdown() {
+			// NOTHING TO RELEASE
+		}
+
+	};
+
+	// runs the tasks on a fixed pool of threads
+	private static final class PoolScheduler implements DispatchScheduler {
+
+		// distinguishes the pools in the thread names
+		private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+		private final ExecutorService executor;
+
+		public PoolScheduler(int threads) {
+
+			final int poolNumber = POOL_COUNT.incrementAndGet();
+
+			executor = new ThreadPoolExecutor(
+				threads, threads, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+
+					private final AtomicInteger threadCount = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable task) {
+
+						Thread thread = new Thread(task, String.format(
+							"dispatch pool %d thread %d",
+							poolNumber, threadCount.incrementAndGet()
+						));
+
+						thread.setPriority(Thread.MIN_PRIORITY);
+						thread.setDaemon(true);
+
+						return thread;
+
+					}
+
+				}
+			);
+
+		}
+
+		@Override
+		public void schedule(Runnable task) {
+			requireNotNull(task);
+			executor.execute(task);
+		}
+
+		@Override
+		public void shutdown() {
+			executor.shutdown();
+		}
+
+	}
+
+}
@@ -0,0 +1,158 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A snapshot of the event dispatch counters of a {@code DataLogger}, or of
+ * one of its observers.
+ * All counts are since the observer (or logger) was created.  The
+ * statistics of a logger sum those of its observers, past and present.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class DispatchStatistics {
+
+	// NOTE set by ObserverMailbox when taking the snapshot
+	OverflowPolicy overflowPolicy;
+	int queueCapacity;
+	int queueSize;
+	int peakQueueSize;
+	long delivered;
+	long dropped;
+	long coalesced;
+	long spilled;
+	long blocked;
+	long batches;
+	long totalWaitNanos;
+	long maxWaitNanos;
+	long totalServiceNanos;
+	long maxServiceNanos;
+
+	DispatchStatistics(OverflowPolicy overflowPolicy, int queueCapacity) {
+		this.overflowPolicy = overflowPolicy;
+		this.queueCapacity = queueCapacity;
+	}
+
+	// adds the given statistics to these
+	void add(DispatchStatistics other) {
+
+		queueSize += other.queueSize;
+		peakQueueSize = Math.max(peakQueueSize, other.peakQueueSize);
+		delivered += other.delivered;
+		dropped += other.dropped;
+		coalesced += other.coalesced;
+		spilled += other.spilled;
+		blocked += other.blocked;
+		batches += other.batches;
+		totalWaitNanos += other.totalWaitNanos;
+		maxWaitNanos = Math.max(maxWaitNanos, other.maxWaitNanos);
+		totalServiceNanos += other.totalServiceNanos;
+		maxServiceNanos = Math.max(maxServiceNanos, other.maxServiceNanos);
+
+	}
+
+	/** Returns the overflow policy in effect. */
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/** Returns the maximum number of events a dispatch queue can hold. */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 * Returns the number of events waiting in the dispatch queue(s), i.e.
+	 * how far the observer(s) lag behind.
+	 */
+	public int getQueueSize() {
+		return queueSize;
+	}
+
+	/** Returns the most events ever waiting in a dispatch queue at once. */
+	public int getPeakQueueSize() {
+		return peakQueueSize;
+	}
+
+	/** Returns the number of events delivered to the observer(s). */
+	public long getDelivered() {
+		return delivered;
+	}
+
+	/** Returns the number of events discarded because a queue was full. */
+	public long getDropped() {
+		return dropped;
+	}
+
+	/** Returns the number of queued events replaced by a newer event. */
+	public long getCoalesced() {
+		return coalesced;
+	}
+
+	/** Returns the number of events written to a spill file. */
+	public long getSpilled() {
+		return spilled;
+	}
+
+	/** Returns the number of times the logging thread waited for room. */
+	public long getBlocked() {
+		return blocked;
+	}
+
+	/** Returns the number of batches delivered. */
+	public long getBatches() {
+		return batches;
+	}
+
+	/**
+	 * Returns the mean time the oldest event of each batch waited in the
+	 * queue before delivery (in nanoseconds).
+	 */
+	public long getMeanWaitNanos() {
+		return batches == 0 ? 0 : totalWaitNanos / batches;
+	}
+
+	/** Returns the longest time an event waited in the queue (in nanoseconds). */
+	public long getMaxWaitNanos() {
+		return maxWaitNanos;
+	}
+
+	/** Returns the mean time taken to deliver a batch (in nanoseconds). */
+	public long getMeanServiceNanos() {
+		return batches == 0 ? 0 : totalServiceNanos / batches;
+	}
+
+	/** Returns the longest time taken to deliver a batch (in nanoseconds). */
+	public long getMaxServiceNanos() {
+		return maxServiceNanos;
+	}
+
+	@Override
+	public String toString() {
+
+		return String.format(
+			"%s queue %d/%d (peak %d), %d delivered, %d dropped, " +
+			"%d coalesced, %d spilled, %d blocked, " +
+			"wait %.3f/%.3f ms, service %.3f/%.3f ms (mean/max)",
+			overflowPolicy, queueSize, queueCapacity, peakQueueSize,
+			delivered, dropped, coalesced, spilled, blocked,
+			getMeanWaitNanos() / 1e6, getMaxWaitNanos() / 1e6,
+			getMeanServiceNanos() / 1e6, getMaxServiceNanos() / 1e6
+		);
+
+	}
+
+}
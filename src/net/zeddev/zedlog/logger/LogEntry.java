@@ -15,9 +15,13 @@ package net.zeddev.zedlog.logger;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import java.io.IOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.zeddev.litelogger.Logger;
 import net.zeddev.zedlog.logger.impl.LogEvents;
@@ -28,6 +32,8 @@ import org.w3c.dom.*;
 
 /**
  * A single log record by a {@code DataLogger}.
+ * Entries captured by the native loggers are pooled (see
+ * {@code LogEntryPool}), so are recycled once released by all their owners.
  *
  * @author Zachary Scott <zscott.dev@gmail.com>
  */
@@ -35,10 +41,35 @@ public class LogEntry {
 	
 	private static final Logger logger = Logger.getLogger(LogEntry.class);
 
+	// the last sequence number given to a captured entry
+	private static final AtomicLong lastSequence = new AtomicLong();
+
+	private static final AtomicIntegerFieldUpdater<LogEntry> REFERENCES =
+		AtomicIntegerFieldUpdater.newUpdater(LogEntry.class, "references");
+
+	// the pool the entry is recycled to, or null if not pooled
+	private final LogEntryPool pool;
+
+	// the number of owners of a pooled entry (see LogEntryPool)
+	private volatile int references = 0;
+
+	// the next free entry in the pool (guarded by the pool)
+	LogEntry nextFree = null;
+
 	private DataLogger parent = null;
+
+	// the logged message, or null until derived from the event
 	private String message = null;
+	private boolean messageDerived = false;
 	private LogEvent event = null;
-	private long timestamp = System.currentTimeMillis();
+	private long timestamp;
+
+	// when the entry was captured (see CaptureClock), or 0 if unknown
+	private long captureTime = 0;
+
+	// the order the entry was captured in, across all loggers (or 0 if not
+	// captured, e.g. read from a log file)
+	private long sequence = 0;
 
 	/**
 	 * Creates a new {@code LogEntry} with the given details.
@@ -53,14 +84,175 @@ public class LogEntry {
 		requireNotEquals(message, "");
 		requireNotNull(event);
 		
+		this.pool = null;
 		this.parent = parent;
 		this.message = message;
 		this.event = event;
+		this.sequence = lastSequence.incrementAndGet();
+		
+		setCaptured(CaptureClock.now());
+		
+	}
+
+	/**
+	 * Creates a new {@code LogEntry} whose message is derived from the event
+	 * (see {@code LogEvent.message()}) when first requested.
+	 *
+	 * @param parent the parent logger, which created the {@code LogEntry}.
+	 * @param event The logged event.
+	 */
+	public LogEntry(final DataLogger parent, final LogEvent event) {
+		this(parent, event, CaptureClock.now());
+	}
+
+	/**
+	 * Creates a new {@code LogEntry} whose message is derived from the event,
+	 * captured at the given time.
+	 * The timestamp is the wall-clock time of the capture time.
+	 *
+	 * @param parent the parent logger, which created the {@code LogEntry}.
+	 * @param event The logged event.
+	 * @param captureTime When the event was captured (see
+	 * {@code CaptureClock.now()}, must be positive).
+	 */
+	public LogEntry(final DataLogger parent, final LogEvent event, final long captureTime) {
+		
+		requireNotNull(parent);
+		requireNotNull(event);
+		require(captureTime > 0);
+		
+		this.pool = null;
+		this.parent = parent;
+		this.event = event;
+		this.sequence = lastSequence.incrementAndGet();
+		
+		setCaptured(captureTime);
 		
 	}
 
 	/** Creates a new, empty {@code LogEntry}. */
 	public LogEntry() {
+		pool = null;
+		timestamp = System.currentTimeMillis();
+	}
+
+	// creates an entry of the given pool, claimed with reclaim()
+	LogEntry(final LogEntryPool pool, final DataLogger parent, final LogEvent event) {
+		
+		this.pool = pool;
+		this.parent = parent;
+		this.event = event;
+		
+	}
+
+	// readies the pooled entry for a new capture, with a single reference
+	void reclaim(long captureTime, long sequence) {
+		
+		message = null;
+		messageDerived = false;
+		this.sequence = sequence;
+		
+		setCaptured(captureTime);
+		
+		references = 1;
+		
+	}
+
+	/** Returns whether the entry is pooled (see {@code LogEntryPool}). */
+	public boolean isPooled() {
+		return pool != null;
+	}
+
+	/**
+	 * Takes a reference to a pooled entry, so it is not recycled until the
+	 * reference is released (see {@code LogEntryPool}).
+	 * Does nothing if the entry is not pooled.
+	 */
+	public void retain() {
+		
+		if (pool == null)
+			return;
+		
+		int previous = REFERENCES.getAndIncrement(this);
+		
+		// NOTE an entry already recycled can not be revived
+		require(previous > 0);
+		
+	}
+
+	/**
+	 * Releases a reference to a pooled entry, returning it to the pool once
+	 * no references remain (so it must not be used afterwards).
+	 * Does nothing if the entry is not pooled.
+	 */
+	public void release() {
+		
+		if (pool == null)
+			return;
+		
+		int remaining = REFERENCES.decrementAndGet(this);
+		
+		require(remaining >= 0);
+		
+		if (remaining == 0)
+			pool.recycle(this);
+		
+	}
+
+	/**
+	 * Returns an entry which may be kept indefinitely; an (unpooled) copy if
+	 * the entry is pooled, otherwise the entry itself.
+	 *
+	 * @return The entry, or a copy of it.
+	 */
+	public LogEntry detach() {
+		
+		if (pool == null)
+			return this;
+		
+		LogEntry copy = new LogEntry();
+		
+		copy.parent = parent;
+		copy.message = getExplicitMessage();
+		copy.event = copyOf(event);
+		copy.timestamp = timestamp;
+		copy.captureTime = captureTime;
+		copy.sequence = sequence;
+		
+		return copy;
+		
+	}
+
+	// copies the given event, by packing its fields (or encoding it)
+	private static LogEvent copyOf(LogEvent event) {
+		
+		LogEvent copy = LogEvents.newLogEvent(event.type());
+		int[] fields = new int[LogEvent.PACKED_FIELDS];
+		
+		if (event.packFields(fields)) {
+			copy.unpackFields(fields);
+			return copy;
+		}
+		
+		BinaryEncoder output = new BinaryEncoder();
+		event.encode(output);
+		
+		try {
+			copy.decode(new BinaryDecoder(ByteBuffer.wrap(output.toByteArray())));
+		} catch (IOException ex) {
+			throw new IllegalStateException("Failed to copy pooled log event!", ex);
+		}
+		
+		return copy;
+		
+	}
+	
+	// sets the capture time, and the timestamp from it
+	private void setCaptured(long captureTime) {
+		
+		this.captureTime = captureTime;
+		this.timestamp = CaptureClock.toWallClock(captureTime);
+		
 	}
 
 	public DataLogger getParent() {
@@ -77,6 +269,12 @@ public class LogEntry {
 
 	public String getMessage() {
 		
+		// derive (and cache) the message on first request
+		if (message == null && event != null) {
+			message = event.message();
+			messageDerived = true;
+		}
+		
 		ensureNotNull(message);
 		ensureNotEquals(message, "");
 		
@@ -84,12 +282,34 @@ public class LogEntry {
 		
 	}
 
+	// returns the message, deriving it (without caching) if not yet known
+	// NOTE Used when persisting, so persisted entries dont retain messages.
+	private String peekMessage() {
+		
+		if (message == null && event != null)
+			return event.message();
+		
+		return getMessage();
+		
+	}
+
+	/**
+	 * Returns the message if it was given explicitly, rather than derived
+	 * from the event (so need not be stored).
+	 *
+	 * @return The explicit message, or {@code null} if derived.
+	 */
+	public String getExplicitMessage() {
+		return messageDerived ? null : message;
+	}
+
 	public void setMessage(String message) {
 		
 		requireNotNull(message);
 		requireNotEquals(message, "");
 		
 		this.message = message;
+		this.messageDerived = false;
 		
 	}
 
@@ -106,6 +326,12 @@ public class LogEntry {
 		requireNotNull(event);
 		
 		this.event = event;
+
+		// re-derive the message from the new event
+		if (messageDerived) {
+			message = null;
+			messageDerived = false;
+		}
 		
 	}
 
@@ -124,6 +350,58 @@ public class LogEntry {
 		this.timestamp = timestamp;
 		
 	}
+
+	/**
+	 * Returns when the entry was captured, on the monotonic capture clock
+	 * (see {@code CaptureClock}).
+	 * Unlike the timestamp it has nanosecond resolution and is unaffected by
+	 * changes to the wall-clock, so is used to measure the time between
+	 * entries.
+	 *
+	 * @return The capture time (in nanoseconds), or {@code 0} if unknown.
+	 */
+	public long getCaptureTime() {
+		return captureTime;
+	}
+
+	public void setCaptureTime(long captureTime) {
+		
+		require(captureTime >= 0);
+		
+		this.captureTime = captureTime;
+		
+	}
+
+	/**
+	 * Returns a new sequence number (see {@code getSequence()}), for an
+	 * event captured now.
+	 *
+	 * @return The sequence number (always positive).
+	 */
+	public static long nextSequence() {
+		return lastSequence.incrementAndGet();
+	}
+
+	/**
+	 * Returns the order the entry was captured in, across all loggers.
+	 * Sequence numbers are given (increasing from 1) when events are
+	 * captured, so the entries of a single native event share its number
+	 * and an entry logged later (e.g. held by a filter) keeps its place.
+	 *
+	 * @return The sequence number, or {@code 0} if the entry was not
+	 * captured (e.g. read from a log file).
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	public void setSequence(long sequence) {
+		
+		require(sequence >= 0);
+		
+		this.sequence = sequence;
+		
+	}
 	
 	public void toXML(Element parent) throws Exception {
 		
@@ -132,8 +410,10 @@ public class LogEntry {
 		Document doc = parent.getOwnerDocument();
 		Element entry = doc.createElement("entry");
 		
-		entry.setAttribute("msg", getMessage().replace("\n", ""));
+		entry.setAttribute("msg", peekMessage().replace("\n", ""));
 		entry.setAttribute("timestamp", Long.toString(getTimestamp()));
+		if (captureTime != 0)
+			entry.setAttribute("capture", Long.toString(captureTime));
 		entry.setAttribute("type", getEvent().type());
 		
 		// add the logged event
@@ -162,6 +442,12 @@ public class LogEntry {
 			parent.getAttribute("timestamp")
 		));
 		
+		if (parent.hasAttribute("capture")) {
+			setCaptureTime(Long.parseLong(
+				parent.getAttribute("capture")
+			));
+		}
+		
 		// handle the log event
 		NodeList events = parent.getElementsByTagName("event");
 		if (events.getLength() >= 1) {
@@ -203,7 +489,7 @@ public class LogEntry {
 
 		requireNotNull(output);
 
-		output.write(getMessage().replace("\n", ""));
+		output.write(peekMessage().replace("\n", ""));
 		output.write("|");
 		output.write(Long.toString(getTimestamp()));
 		output.write("|");
@@ -257,7 +543,7 @@ public class LogEntry {
 			return false;
 		}
 		final LogEntry other = (LogEntry) obj;
-		if (!Objects.equals(this.message, other.message)) {
+		if (!Objects.equals(getMessage(), other.getMessage())) {
 			return false;
 		}
 		if (!Objects.equals(this.event, other.event)) {
@@ -0,0 +1,201 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * A pool of recyclable {@code LogEntry}s, each with its own (reused) event,
+ * so capturing an event need not allocate once the pool has warmed up.
+ * <p>
+ * The ownership of a pooled entry is counted by references:
+ * <ul>
+ * <li>{@code claim()} returns an entry with a single reference, owned by
+ * the caller (the logger capturing the event), which fills in the event
+ * and releases its reference once it has notified its observers.</li>
+ * <li>Whoever keeps an entry after a call returns, or hands it to another
+ * thread, must take a reference with {@code LogEntry.retain()} and give it
+ * back with {@code LogEntry.release()} once done.  Each
+ * {@code ObserverMailbox} holds a reference while the entry is queued and
+ * being delivered, so an observer need only retain the entries it keeps
+ * after being notified (or keep a copy, see {@code LogEntry.detach()}).</li>
+ * <li>The last release returns the entry to the pool, after which it must
+ * not be used (nor its event).</li>
+ * </ul>
+ * An entry which is never released is simply garbage collected, and the
+ * pool allocates a replacement.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class LogEntryPool {
+
+	// the logger of the entries and the constructor of their events
+	private final DataLogger parent;
+	private final Constructor<? extends LogEvent> eventConstructor;
+
+	// the released entries, a stack linked through the entries themselves
+	// NOTE pushed by any thread, but only ever taken whole so is free of ABA
+	private final AtomicReference<LogEntry> released = new AtomicReference<>();
+
+	// the free entries taken from the released stack, guarded by this
+	private LogEntry free = null;
+
+	// the pool counters
+	private final AtomicLong claimed = new AtomicLong();
+	private final AtomicLong allocated = new AtomicLong();
+	private final AtomicLong recycled = new AtomicLong();
+
+	/**
+	 * Creates a new, empty {@code LogEntryPool}.
+	 *
+	 * @param parent The logger which claims the entries (must not be
+	 * {@code null}).
+	 * @param eventClass The class of the entries' events (must not be
+	 * {@code null}), which must have a public no-argument constructor.
+	 */
+	public LogEntryPool(DataLogger parent, Class<? extends LogEvent> eventClass) {
+
+		requireNotNull(parent);
+		requireNotNull(eventClass);
+
+		this.parent = parent;
+
+		try {
+			eventConstructor = eventClass.getConstructor();
+		} catch (NoSuchMethodException ex) {
+			throw new IllegalArgumentException(String.format(
+				"Pooled %s event has no public no-argument constructor!", eventClass.getSimpleName()
+			), ex);
+		}
+
+	}
+
+	/**
+	 * Claims an entry, captured at the given time, with a new sequence number.
+	 * The entry's event still holds the fields of its previous use, so
+	 * must be filled in by the caller before notifying any observers.
+	 *
+	 * @param captureTime When the event was captured (see
+	 * {@code CaptureClock.now()}, must be positive).
+	 * @return The claimed entry, with a single reference owned by the caller.
+	 */
+	public LogEntry claim(long captureTime) {
+		return claim(captureTime, LogEntry.nextSequence());
+	}
+
+	/**
+	 * Claims an entry, captured at the given time with the given sequence
+	 * number.
+	 * The entry's event still holds the fields of its previous use, so
+	 * must be filled in by the caller before notifying any observers.
+	 *
+	 * @param captureTime When the event was captured (see
+	 * {@code CaptureClock.now()}, must be positive).
+	 * @param sequence The sequence number of the event (see
+	 * {@code LogEntry.nextSequence()}, must be positive).
+	 * @return The claimed entry, with a single reference owned by the caller.
+	 */
+	public LogEntry claim(long captureTime, long sequence) {
+
+		require(captureTime > 0);
+		require(sequence > 0);
+
+		LogEntry logEntry = take();
+
+		if (logEntry == null) {
+			logEntry = new LogEntry(this, parent, newEvent());
+			allocated.incrementAndGet();
+		}
+
+		logEntry.reclaim(captureTime, sequence);
+		claimed.incrementAndGet();
+
+		return logEntry;
+
+	}
+
+	// takes a free entry (if any)
+	private synchronized LogEntry take() {
+
+		if (free == null)
+			free = released.getAndSet(null);
+
+		LogEntry logEntry = free;
+
+		if (logEntry != null) {
+			free = logEntry.nextFree;
+			logEntry.nextFree = null;
+		}
+
+		return logEntry;
+
+	}
+
+	// creates an event for a new entry
+	private LogEvent newEvent() {
+
+		try {
+			return eventConstructor.newInstance();
+		} catch (ReflectiveOperationException ex) {
+			throw new IllegalStateException(String.format(
+				"Cannot create pooled %s event!", eventConstructor.getDeclaringClass().getSimpleName()
+			), ex);
+		}
+
+	}
+
+	/**
+	 * Returns the given entry to the pool, once its last reference is
+	 * released (see {@code LogEntry.release()}).
+	 *
+	 * @param logEntry The released entry.
+	 */
+	void recycle(LogEntry logEntry) {
+
+		LogEntry head;
+
+		do {
+			head = released.get();
+			logEntry.nextFree = head;
+		} while (!released.compareAndSet(head, logEntry));
+
+		recycled.incrementAndGet();
+
+	}
+
+	/** Returns the number of entries claimed. */
+	public long getClaimed() {
+		return claimed.get();
+	}
+
+	/**
+	 * Returns the number of entries allocated, as no free entry was
+	 * available when claimed.
+	 */
+	public long getAllocated() {
+		return allocated.get();
+	}
+
+	/** Returns the number of entries returned to the pool. */
+	public long getRecycled() {
+		return recycled.get();
+	}
+
+}
@@ -0,0 +1,356 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * A bounded, preallocated ring buffer of {@code LogEntry}s.
+ * Consumers block (without polling) until entries are available and drain
+ * all queued entries at once.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class LogEntryRingBuffer {
+
+	// the preallocated entry slots, and when each was filled
+	private final LogEntry[] slots;
+	private final long[] enqueueTimes;
+	private final int mask;
+
+	// the index of the oldest entry and the number of queued entries
+	private int head = 0;
+	private int size = 0;
+
+	// the most entries ever queued at once
+	private int peakSize = 0;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition notFull = lock.newCondition();
+
+	/**
+	 * Creates a new {@code LogEntryRingBuffer}.
+	 *
+	 * @param capacity The minimum capacity of the buffer (must be positive).
+	 * Rounded up to the next power of two.
+	 */
+	public LogEntryRingBuffer(int capacity) {
+
+		require(capacity > 0 && capacity <= (1 << 30));
+
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity)
+			size <<= 1;
+
+		slots = new LogEntry[size];
+		enqueueTimes = new long[size];
+		mask = size - 1;
+
+	}
+
+	/** Returns the maximum number of entries the buffer can hold. */
+	public int capacity() {
+		return slots.length;
+	}
+
+	/** Returns the number of queued entries. */
+	public int size() {
+
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+	/** Returns the most entries ever queued at once. */
+	public int peakSize() {
+
+		lock.lock();
+		try {
+			return peakSize;
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+	/**
+	 * Returns when the oldest queued entry was added (as given by
+	 * {@code System.nanoTime()}).
+	 *
+	 * @return The time the oldest entry was added, or the current time if
+	 * the buffer is empty.
+	 */
+	public long oldestEnqueueTime() {
+
+		lock.lock();
+		try {
+			return size == 0 ? System.nanoTime() : enqueueTimes[head];
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+	// appends the entry, lock must be held and buffer not full
+	private void enqueue(LogEntry logEntry) {
+
+		int slot = (head + size) & mask;
+		slots[slot] = logEntry;
+		enqueueTimes[slot] = System.nanoTime();
+		size++;
+
+		if (size > peakSize)
+			peakSize = size;
+
+		if (size == 1)
+			notEmpty.signal();
+
+	}
+
+	/**
+	 * Adds the given entry if there is room available.
+	 *
+	 * @param logEntry The entry to add (must not be {@code null}).
+	 * @return Whether the entry was added.
+	 */
+	public boolean offer(LogEntry logEntry) {
+
+		requireNotNull(logEntry);
+
+		lock.lock();
+		try {
+
+			if (size == slots.length)
+				return false;
+
+			enqueue(logEntry);
+			return true;
+
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+	/**
+	 * Adds the given entry, evicting the oldest queued entry if the buffer
+	 * is full.
+	 *
+	 * @param logEntry The entry to add (must not be {@code null}).
+	 * @return The evicted entry, or {@code null} if none was evicted.
+	 */
+	public LogEntry offerEvictingOldest(LogEntry logEntry) {
+
+		requireNotNull(logEntry);
+
+		lock.lock();
+		try {
+
+			LogEntry evicted = null;
+
+			if (size == slots.length) {
+				evicted = slots[head];
+				slots[head] = null;
+				head = (head + 1) & mask;
+				size--;
+			}
+
+			enqueue(logEntry);
+			return evicted;
+
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+	/**
+	 * Adds the given entry if there is room available, otherwise replaces the
+	 * newest queued entry if the new entry's event coalesces it (see
+	 * {@code LogEvent.coalesces()}).
+	 *
+	 * @param logEntry The entry to add (must not be {@code null}).
+	 * @return {@code null} if the entry was added, the replaced entry if it
+	 * was coalesced or {@code logEntry} itself if it was rejected.
+	 */
+	public LogEntry offerCoalescing(LogEntry logEntry) {
+
+		requireNotNull(logEntry);
+
+		lock.lock();
+		try {
+
+			if (size < slots.length) {
+				enqueue(logEntry);
+				return null;
+			}
+
+			int newestSlot = (head + size - 1) & mask;
+			LogEntry newest = slots[newestSlot];
+
+			if (logEntry.getEvent().coalesces(newest.getEvent())) {
+				slots[newestSlot] = logEntry;
+				return newest;
+			}
+
+			return logEntry;
+
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+	/**
+	 * Adds the given entry, waiting up to the given time for room if the
+	 * buffer is full.
+	 *
+	 * @param logEntry The entry to add (must not be {@code null}).
+	 * @param timeout The maximum time to wait.
+	 * @param unit The unit of the timeout.
+	 * @return Whether the entry was added.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public boolean offer(LogEntry logEntry, long timeout, TimeUnit unit)
+			throws InterruptedException {
+
+		requireNotNull(logEntry);
+		requireNotNull(unit);
+
+		long nanos = unit.toNanos(timeout);
+
+		lock.lockInterruptibly();
+		try {
+
+			while (size == slots.length) {
+
+				if (nanos <= 0)
+					return false;
+
+				nanos = notFull.awaitNanos(nanos);
+
+			}
+
+			enqueue(logEntry);
+			return true;
+
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+	/**
+	 * Adds the given entry, waiting for room if the buffer is full.
+	 *
+	 * @param logEntry The entry to add (must not be {@code null}).
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public void put(LogEntry logEntry) throws InterruptedException {
+
+		requireNotNull(logEntry);
+
+		lock.lockInterruptibly();
+		try {
+
+			while (size == slots.length)
+				notFull.await();
+
+			enqueue(logEntry);
+
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+	// moves all queued entries to the batch, lock must be held
+	private int dequeueAll(List<LogEntry> batch) {
+
+		int count = size;
+
+		for (int i = 0; i < count; i++) {
+			int slot = (head + i) & mask;
+			batch.add(slots[slot]);
+			slots[slot] = null; // release for gc
+		}
+
+		head = (head + count) & mask;
+		size = 0;
+
+		if (count > 0)
+			notFull.signalAll();
+
+		return count;
+
+	}
+
+	/**
+	 * Moves all queued entries to the given list, without waiting.
+	 *
+	 * @param batch The list to add the entries to.
+	 * @return The number of entries moved.
+	 */
+	public int drainTo(List<LogEntry> batch) {
+
+		requireNotNull(batch);
+
+		lock.lock();
+		try {
+			return dequeueAll(batch);
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+	/**
+	 * Waits until entries are available, then moves all queued entries to
+	 * the given list.
+	 *
+	 * @param batch The list to add the entries to.
+	 * @return The number of entries moved (at least one).
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public int awaitDrainTo(List<LogEntry> batch) throws InterruptedException {
+
+		requireNotNull(batch);
+
+		lock.lockInterruptibly();
+		try {
+
+			while (size == 0)
+				notEmpty.await();
+
+			return dequeueAll(batch);
+
+		} finally {
+			lock.unlock();
+		}
+
+	}
+
+}
@@ -0,0 +1,212 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.zeddev.zedlog.logger.impl.LogEvents;
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * A temporary file holding the {@code LogEntry}s which overflowed a
+ * dispatch queue.
+ * Entries are read back in the order they were written.  The file is
+ * deleted when closed.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class LogEntrySpillFile implements Closeable {
+
+	private final File path;
+	private final RandomAccessFile file;
+
+	// the position of the next record to write and read
+	private long writePosition = 0;
+	private long readPosition = 0;
+
+	// the number of unread entries
+	private int size = 0;
+
+	// the parent loggers of the written entries, by type
+	private final Map<String, DataLogger> parents = new HashMap<>();
+
+	/**
+	 * Creates a new, empty spill file in the temporary directory.
+	 *
+	 * @throws IOException If the file could not be created.
+	 */
+	public LogEntrySpillFile() throws IOException {
+
+		path = File.createTempFile("zedlog-spill", ".tmp");
+		path.deleteOnExit();
+
+		file = new RandomAccessFile(path, "rw");
+
+	}
+
+	/** Returns the number of unread entries. */
+	public synchronized int size() {
+		return size;
+	}
+
+	/** Returns whether all written entries have been read. */
+	public synchronized boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Appends the given entry to the file.
+	 *
+	 * @param logEntry The entry to write (must not be {@code null}).
+	 * @throws IOException If the entry could not be written.
+	 */
+	public synchronized void write(LogEntry logEntry) throws IOException {
+
+		requireNotNull(logEntry);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+		DataOutputStream record = new DataOutputStream(bytes);
+
+		DataLogger parent = logEntry.getParent();
+		if (parent != null) {
+			parents.put(parent.type(), parent);
+			record.writeUTF(parent.type());
+		} else {
+			record.writeUTF("");
+		}
+
+		record.writeLong(logEntry.getTimestamp());
+		record.writeLong(logEntry.getCaptureTime());
+
+		// NOTE derived messages are derived again when read
+		String message = logEntry.getExplicitMessage();
+		record.writeUTF(message == null ? "" : message);
+		record.writeUTF(logEntry.getEvent().type());
+
+		// encode the event fields, as in a binary log
+		BinaryEncoder fields = new BinaryEncoder();
+		try {
+			logEntry.getEvent().encode(fields);
+		} catch (RuntimeException ex) {
+			throw new IOException("Failed to encode spilled event!", ex);
+		}
+		record.writeInt(fields.length());
+		fields.writeTo(record);
+
+		record.flush();
+
+		// write the length prefixed record
+		file.seek(writePosition);
+		file.writeInt(bytes.size());
+		file.write(bytes.toByteArray());
+
+		writePosition = file.getFilePointer();
+		size++;
+
+	}
+
+	/**
+	 * Reads (and removes) up to the given number of entries.
+	 *
+	 * @param batch The list to add the entries to.
+	 * @param max The maximum number of entries to read.
+	 * @return The number of entries read.
+	 * @throws IOException If an entry could not be read.
+	 */
+	public synchronized int readTo(List<LogEntry> batch, int max) throws IOException {
+
+		requireNotNull(batch);
+
+		int count = 0;
+
+		file.seek(readPosition);
+
+		while (size > 0 && count < max) {
+
+			byte[] bytes = new byte[file.readInt()];
+			file.readFully(bytes);
+
+			batch.add(decode(bytes));
+
+			size--;
+			count++;
+
+		}
+
+		readPosition = file.getFilePointer();
+
+		// reuse the file space once all entries are read
+		if (size == 0) {
+			file.setLength(0);
+			readPosition = writePosition = 0;
+		}
+
+		return count;
+
+	}
+
+	// decodes the given entry record
+	private LogEntry decode(byte[] bytes) throws IOException {
+
+		DataInputStream record = new DataInputStream(new ByteArrayInputStream(bytes));
+
+		LogEntry logEntry = new LogEntry();
+
+		String parentType = record.readUTF();
+		if (parents.containsKey(parentType))
+			logEntry.setParent(parents.get(parentType));
+
+		logEntry.setTimestamp(record.readLong());
+		logEntry.setCaptureTime(record.readLong());
+
+		String message = record.readUTF();
+		if (!message.isEmpty())
+			logEntry.setMessage(message);
+
+		String eventType = record.readUTF();
+		LogEvent event = LogEvents.newLogEvent(eventType);
+		if (event == null)
+			throw new IOException(String.format("Unknown spilled event type %s!", eventType));
+
+		// decode the event fields
+		byte[] fields = new byte[record.readInt()];
+		record.readFully(fields);
+		event.decode(new BinaryDecoder(ByteBuffer.wrap(fields)));
+
+		logEntry.setEvent(event);
+
+		return logEntry;
+
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		file.close();
+		path.delete();
+	}
+
+}
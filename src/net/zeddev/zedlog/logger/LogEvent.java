@@ -15,6 +15,7 @@ package net.zeddev.zedlog.logger;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import java.io.IOException;
 import java.io.Writer;
 import java.util.Scanner;
 
@@ -26,6 +27,18 @@ import org.w3c.dom.Element;
  * @author Zachary Scott <zscott.dev@gmail.com>
  */
 public abstract class LogEvent {
+
+	/** The number of fields set by {@code packFields()}. */
+	public static final int PACKED_FIELDS = 4;
+
+	/** The packed position of mouse events. */
+	public static final int PACKED_X = 0, PACKED_Y = 1;
+
+	/** The packed button, key code or wheel rotation. */
+	public static final int PACKED_CODE = 2;
+
+	/** The packed click count, or key character and type. */
+	public static final int PACKED_DETAIL = 3;
 	
 	/** 
 	 * Converts the {@code LogEvent} to a given DOM XML node.
@@ -75,6 +88,68 @@ public abstract class LogEvent {
 	@Deprecated
 	public abstract void read(final Scanner scanner) throws Exception;
 
+	/**
+	 * Encodes the {@code LogEvent} fields in the compact binary log format.
+	 * The event type is not included (it is given by the log record).
+	 *
+	 * @param output The encoder to write to (must not be {@code null}).
+	 */
+	public abstract void encode(final BinaryEncoder output);
+
+	/**
+	 * Decodes the {@code LogEvent} fields written by {@code encode()}.
+	 *
+	 * @param input The decoder to read from (must not be {@code null}).
+	 * @throws IOException If the fields are malformed or truncated.
+	 */
+	public abstract void decode(final BinaryDecoder input) throws IOException;
+
+	/**
+	 * Packs the {@code LogEvent} fields into {@code PACKED_FIELDS} integers,
+	 * so events may be stored compactly in memory.
+	 * The event type is not included.  Defaults to not packing the event.
+	 *
+	 * @param fields The fields to set (must not be {@code null}).
+	 * @return Whether the event was packed, otherwise it must be stored as
+	 * it is.
+	 */
+	public boolean packFields(final int[] fields) {
+		return false;
+	}
+
+	/**
+	 * Unpacks the {@code LogEvent} fields set by {@code packFields()}.
+	 *
+	 * @param fields The packed fields (must not be {@code null}).
+	 */
+	public void unpackFields(final int[] fields) {
+		// NOTHING PACKED
+	}
+
+	/**
+	 * Returns whether this event supersedes the given (older) event, so the
+	 * older event may be discarded when queues overflow.
+	 * For example, a mouse move supersedes the move before it.
+	 *
+	 * @param older The older event (must not be {@code null}).
+	 * @return Whether the older event may be replaced by this event.
+	 */
+	public boolean coalesces(final LogEvent older) {
+		return false;
+	}
+
+	/**
+	 * Returns the message logged for the event.
+	 * Only called when the message of a {@code LogEntry} is first requested,
+	 * so capturing an event need not format it.
+	 * Defaults to {@code toString()}.
+	 *
+	 * @return The message (must not be empty).
+	 */
+	public String message() {
+		return toString();
+	}
+
 	/**
 	 * Returns a human-readable name for the event type.
 	 * Must be unique among all events.
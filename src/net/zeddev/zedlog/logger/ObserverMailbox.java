@@ -0,0 +1,472 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.zeddev.litelogger.Logger;
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * Queues a {@code DataLogger}'s events for one of its observers and
+ * notifies the observer of them on a {@code DispatchScheduler}.
+ * Each observer has its own bounded mailbox, so a slow observer only
+ * delays (and overflows) its own mailbox, not the other observers.
+ * At most one dispatch task per mailbox is scheduled at any time, so the
+ * observer sees the events in the order they were logged no matter how
+ * many threads the scheduler has.
+ * Each dispatch delivers the waiting events, as a single batch to
+ * {@code BatchDataLoggerObserver}s.
+ * When the mailbox is full, events are handled according to its
+ * {@code OverflowPolicy}, and counted.
+ * The mailbox holds a reference to each pooled entry (see
+ * {@code LogEntryPool}) from when it is queued until the observer returns
+ * from being notified of it, or it is dropped.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class ObserverMailbox implements Runnable {
+
+	/** The size (max) of the event queue of each mailbox. */
+	public static final int QUEUE_SIZE = 1024;
+		// NOTE: Sized to absorb bursts from high poll rate mice (~1000 Hz)
+		//	   while observers catch up.
+
+	/** The longest time the {@code BLOCK} policy waits for room (in milliseconds). */
+	public static final long BLOCK_TIMEOUT = 1000;
+		// NOTE: Bounded so loggers fed from a dispatch thread can not
+		//	   deadlock the scheduler waiting on each other.
+
+	private final Logger logger = Logger.getLogger(this);
+
+	// the associated data logger and the observer
+	private final DataLogger dataLogger;
+	private final DataLoggerObserver observer;
+
+	// the scheduler which runs the dispatch task
+	private final DispatchScheduler scheduler;
+
+	// the event spool
+	private final LogEntryRingBuffer logSpool = new LogEntryRingBuffer(QUEUE_SIZE);
+
+	// whether a dispatch task is currently scheduled or running
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+	// the events taken from the spool by the dispatch task (or a drain),
+	// guarded by itself
+	private final List<LogEntry> batch = new ArrayList<>(QUEUE_SIZE);
+	private final List<LogEntry> readOnlyBatch = Collections.unmodifiableList(batch);
+
+	// whether the queue still accepts events
+	private volatile boolean running = true;
+
+	private volatile OverflowPolicy overflowPolicy;
+
+	// the overflowed events (when using the SPILL policy), created when first
+	// needed and guarded by spillLock
+	private LogEntrySpillFile spill = null;
+	private final Object spillLock = new Object();
+
+	// the dispatch counters
+	private final AtomicLong delivered = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong spilled = new AtomicLong();
+	private final AtomicLong blocked = new AtomicLong();
+
+	// the delivery times
+	private long batches = 0;
+	private long totalWaitNanos = 0;
+	private long maxWaitNanos = 0;
+	private long totalServiceNanos = 0;
+	private long maxServiceNanos = 0;
+
+	/**
+	 * Creates a new {@code ObserverMailbox} which handles asynchronous
+	 * event dispatch for an observer of a {@code DataLogger}.
+	 *
+	 * @param dataLogger The parent data logger (must not be {@code null}).
+	 * @param observer The observer to notify (must not be {@code null}).
+	 * @param scheduler The scheduler which runs the dispatch (must not be
+	 * {@code null}).
+	 * @param overflowPolicy The initial overflow policy (must not be
+	 * {@code null}).
+	 */
+	public ObserverMailbox(DataLogger dataLogger, DataLoggerObserver observer,
+			DispatchScheduler scheduler, OverflowPolicy overflowPolicy) {
+
+		requireNotNull(dataLogger);
+		requireNotNull(observer);
+		requireNotNull(scheduler);
+		requireNotNull(overflowPolicy);
+
+		this.dataLogger = dataLogger;
+		this.observer = observer;
+		this.scheduler = scheduler;
+		this.overflowPolicy = overflowPolicy;
+
+	}
+
+	/** Returns the observer notified by the mailbox. */
+	public DataLoggerObserver getObserver() {
+		return observer;
+	}
+
+	/**
+	 * Notifies the observer of the given {@code LogEntry} asynchronously.
+	 *
+	 * @param logEntry The logged event.
+	 */
+	public void notifyEvent(LogEntry logEntry) {
+
+		requireNotNull(logEntry);
+
+		if (!running)
+			return;
+
+		logEntry.retain();
+
+		switch (overflowPolicy) {
+
+			case BLOCK:
+				offerBlocking(logEntry);
+			break;
+
+			case DROP_OLDEST: {
+
+				LogEntry evicted = logSpool.offerEvictingOldest(logEntry);
+
+				if (evicted != null) {
+					evicted.release();
+					dropped.incrementAndGet();
+				}
+
+			} break;
+
+			case DROP_NEWEST:
+				if (!logSpool.offer(logEntry)) {
+					logEntry.release();
+					dropped.incrementAndGet();
+				}
+			break;
+
+			case COALESCE: {
+
+				LogEntry replaced = logSpool.offerCoalescing(logEntry);
+
+				if (replaced == logEntry) {
+					logEntry.release();
+					dropped.incrementAndGet();
+				} else if (replaced != null) {
+					replaced.release();
+					coalesced.incrementAndGet();
+				}
+
+			} break;
+
+			case SPILL:
+				offerSpilling(logEntry);
+			break;
+
+		}
+
+		scheduleDispatch();
+
+	}
+
+	// adds the entry, waiting for the dispatch task to make room
+	private void offerBlocking(LogEntry logEntry) {
+
+		if (logSpool.offer(logEntry))
+			return;
+
+		blocked.incrementAndGet();
+		scheduleDispatch(); // make sure someone is draining
+
+		try {
+
+			if (!logSpool.offer(logEntry, BLOCK_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				logEntry.release();
+				dropped.incrementAndGet();
+			}
+
+		} catch (InterruptedException ex) {
+			logEntry.release();
+			dropped.incrementAndGet();
+			Thread.currentThread().interrupt();
+		}
+
+	}
+
+	// adds the entry, writing to the spill file while it has unread entries
+	// NOTE the spilled entries are read back as copies, so are released
+	private void offerSpilling(LogEntry logEntry) {
+
+		synchronized (spillLock) {
+
+			// NOTE keep spilling until emptied to preserve order
+			if ((spill == null || spill.isEmpty()) && logSpool.offer(logEntry))
+				return;
+
+			try {
+
+				if (spill == null)
+					spill = new LogEntrySpillFile();
+
+				spill.write(logEntry);
+				spilled.incrementAndGet();
+
+			} catch (IOException ex) {
+				logger.error("Failed to spill %s event to disk!", ex, dataLogger.type());
+				dropped.incrementAndGet();
+			}
+
+			logEntry.release();
+
+		}
+
+	}
+
+	/** Returns the policy used when the queue is full. */
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * Sets the policy used when the queue is full.
+	 *
+	 * @param overflowPolicy The overflow policy (must not be {@code null}).
+	 */
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+
+		requireNotNull(overflowPolicy);
+
+		this.overflowPolicy = overflowPolicy;
+
+	}
+
+	/** Returns a snapshot of the dispatch counters. */
+	public DispatchStatistics getStatistics() {
+
+		DispatchStatistics stats = new DispatchStatistics(overflowPolicy, logSpool.capacity());
+
+		stats.queueSize = logSpool.size();
+		stats.peakQueueSize = logSpool.peakSize();
+		stats.delivered = delivered.get();
+		stats.dropped = dropped.get();
+		stats.coalesced = coalesced.get();
+		stats.spilled = spilled.get();
+		stats.blocked = blocked.get();
+
+		synchronized (this) {
+			stats.batches = batches;
+			stats.totalWaitNanos = totalWaitNanos;
+			stats.maxWaitNanos = maxWaitNanos;
+			stats.totalServiceNanos = totalServiceNanos;
+			stats.maxServiceNanos = maxServiceNanos;
+		}
+
+		return stats;
+
+	}
+
+	/**
+	 * Delivers the queued (and spilled) events on the calling thread,
+	 * rather than waiting for the dispatch task (which may never run once
+	 * the scheduler is stopped).
+	 * Should be called before {@code shutdown()}, so the queued events are
+	 * not lost.
+	 */
+	public void drain() {
+
+		while (logSpool.size() > 0 || hasSpilled())
+			dispatchBatch();
+
+	}
+
+	/** Stops accepting events and releases the spill file. */
+	public void shutdown() {
+
+		running = false;
+
+		synchronized (spillLock) {
+
+			if (spill != null) {
+
+				try {
+					spill.close();
+				} catch (IOException ex) {
+					logger.warning("Failed to remove spill file.", ex);
+				}
+
+				spill = null;
+
+			}
+
+		}
+
+	}
+
+	// whether there are spilled entries waiting
+	private boolean hasSpilled() {
+
+		synchronized (spillLock) {
+			return spill != null && !spill.isEmpty();
+		}
+
+	}
+
+	// takes the queued entries (and spilled entries after them)
+	private void takeBatch() {
+
+		if (overflowPolicy != OverflowPolicy.SPILL && !hasSpilled()) {
+			logSpool.drainTo(batch);
+			return;
+		}
+
+		// NOTE drain both at once so no newer entry can slip in between
+		synchronized (spillLock) {
+
+			logSpool.drainTo(batch);
+
+			if (spill != null && !spill.isEmpty()) {
+
+				try {
+					spill.readTo(batch, QUEUE_SIZE);
+				} catch (IOException ex) {
+
+					logger.error("Failed to read spilled %s events!", ex, dataLogger.type());
+
+					// give up on the spilled events
+					dropped.addAndGet(spill.size());
+					try {
+						spill.close();
+					} catch (IOException closeEx) { }
+					spill = null;
+
+				}
+
+			}
+
+		}
+
+	}
+
+	// schedules the dispatch task, unless already scheduled
+	private void scheduleDispatch() {
+
+		if (scheduled.compareAndSet(false, true))
+			scheduler.schedule(this);
+
+	}
+
+	// notifies the observer of the batch of log entries
+	private void notifyObserver(List<LogEntry> logEntries) {
+
+		requireNotNull(logEntries);
+
+		// dont let a failing observer stop the dispatch
+		try {
+
+			if (observer instanceof BatchDataLoggerObserver && logEntries.size() > 1) {
+
+				((BatchDataLoggerObserver) observer).notifyLogBatch(
+					dataLogger, logEntries
+				);
+
+			} else {
+
+				for (int i = 0; i < logEntries.size(); i++)
+					observer.notifyLog(dataLogger, logEntries.get(i));
+
+			}
+
+		} catch (RuntimeException ex) {
+			logger.error("Observer of %s failed!", ex, dataLogger.type());
+		}
+
+	}
+
+	// records the delivery times of a batch
+	private synchronized void recordBatch(long waitNanos, long serviceNanos) {
+
+		batches++;
+		totalWaitNanos += waitNanos;
+		maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+		totalServiceNanos += serviceNanos;
+		maxServiceNanos = Math.max(maxServiceNanos, serviceNanos);
+
+	}
+
+	@Override
+	public void run() {
+
+		try {
+			dispatchBatch();
+		} finally {
+			scheduled.set(false);
+		}
+
+		// re-schedule (rather than loop) to let other mailboxes have a turn
+		if (running && (logSpool.size() > 0 || hasSpilled()))
+			scheduleDispatch();
+
+	}
+
+	// notifies the observer of a batch of the queued entries
+	// NOTE a batch at a time, so the entries are delivered in order
+	private void dispatchBatch() {
+
+		synchronized (batch) {
+
+			try {
+
+				long enqueued = logSpool.oldestEnqueueTime();
+
+				takeBatch();
+
+				if (!batch.isEmpty()) {
+
+					long start = System.nanoTime();
+					notifyObserver(readOnlyBatch);
+					long end = System.nanoTime();
+
+					delivered.addAndGet(batch.size());
+					recordBatch(start - enqueued, end - start);
+
+				}
+
+			} finally {
+
+				// the observer is done with the entries
+				for (int i = 0; i < batch.size(); i++)
+					batch.get(i).release();
+
+				batch.clear();
+
+			}
+
+		}
+
+	}
+
+}
@@ -0,0 +1,137 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * A lock-free, copy-on-write set of {@code DataLoggerObserver}s (held by
+ * their {@code ObserverMailbox}es).
+ * Adding or removing an observer publishes a new array, so notifying
+ * observers only reads the current snapshot and never waits on (or blocks)
+ * a registration.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class ObserverRegistry {
+
+	private static final ObserverMailbox[] EMPTY = new ObserverMailbox[0];
+
+	// the current observers, replaced (never modified) on change
+	private final AtomicReference<ObserverMailbox[]> mailboxes =
+		new AtomicReference<>(EMPTY);
+
+	/**
+	 * Adds the given observer's mailbox.
+	 *
+	 * @param mailbox The mailbox to add (must not be {@code null}).
+	 */
+	public void add(ObserverMailbox mailbox) {
+
+		requireNotNull(mailbox);
+
+		ObserverMailbox[] current, updated;
+
+		do {
+
+			current = mailboxes.get();
+
+			updated = Arrays.copyOf(current, current.length + 1);
+			updated[current.length] = mailbox;
+
+		} while (!mailboxes.compareAndSet(current, updated));
+
+	}
+
+	/**
+	 * Removes (the first registration of) the given observer.
+	 *
+	 * @param observer The observer to remove (must not be {@code null}).
+	 * @return The observer's mailbox, or {@code null} if not registered.
+	 */
+	public ObserverMailbox remove(DataLoggerObserver observer) {
+
+		requireNotNull(observer);
+
+		ObserverMailbox[] current, updated;
+		int index;
+
+		do {
+
+			current = mailboxes.get();
+
+			index = indexOf(current, observer);
+			if (index < 0)
+				return null;
+
+			updated = new ObserverMailbox[current.length - 1];
+			System.arraycopy(current, 0, updated, 0, index);
+			System.arraycopy(current, index + 1, updated, index, updated.length - index);
+
+		} while (!mailboxes.compareAndSet(current, updated));
+
+		return current[index];
+
+	}
+
+	/**
+	 * Returns the mailbox of (the first registration of) the given observer.
+	 *
+	 * @param observer The observer to find (must not be {@code null}).
+	 * @return The observer's mailbox, or {@code null} if not registered.
+	 */
+	public ObserverMailbox find(DataLoggerObserver observer) {
+
+		requireNotNull(observer);
+
+		ObserverMailbox[] current = mailboxes.get();
+		int index = indexOf(current, observer);
+
+		return index < 0 ? null : current[index];
+
+	}
+
+	// returns the index of the observer in the array, or -1
+	private static int indexOf(ObserverMailbox[] array, DataLoggerObserver observer) {
+
+		for (int i = 0; i < array.length; i++) {
+			if (array[i].getObserver().equals(observer))
+				return i;
+		}
+
+		return -1;
+
+	}
+
+	/**
+	 * Returns the current observers' mailboxes.
+	 * The returned array is shared and must not be modified.
+	 *
+	 * @return The registered mailboxes (never {@code null}).
+	 */
+	public ObserverMailbox[] snapshot() {
+		return mailboxes.get();
+	}
+
+	/** Returns the number of registered observers. */
+	public int size() {
+		return mailboxes.get().length;
+	}
+
+}
@@ -0,0 +1,48 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * What a {@code DataLogger} does with an event when its dispatch queue is
+ * full.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public enum OverflowPolicy {
+
+	/** Waits (in the logging thread) until there is room in the queue. */
+	BLOCK,
+
+	/** Discards the oldest queued event to make room for the new one. */
+	DROP_OLDEST,
+
+	/** Discards the new event. */
+	DROP_NEWEST,
+
+	/**
+	 * Replaces the newest queued event with the new event if the new one
+	 * supersedes it (see {@code LogEvent.coalesces()}), otherwise discards
+	 * the new event.
+	 */
+	COALESCE,
+
+	/**
+	 * Writes events to a temporary file until the queue has drained, so
+	 * no events are lost.
+	 */
+	SPILL
+
+}
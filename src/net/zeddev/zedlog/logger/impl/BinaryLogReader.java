@@ -0,0 +1,436 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.zeddev.zedlog.logger.BinaryDecoder;
+import net.zeddev.zedlog.logger.ClockCalibration;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.LogEvent;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * Reads the log entries written by a {@code BinaryLogWriter}.
+ * The file is read through a small window (with positional reads), so logs
+ * of any size may be read and the file is released when closed.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class BinaryLogReader implements LogReader {
+
+	// the initial size of the read window
+	private static final int WINDOW_SIZE = 64 * 1024;
+
+	private final File file;
+	private final FileChannel channel;
+
+	// the window of the file being decoded, and its file position
+	// NOTE the window grows to fit records larger than it
+	private ByteBuffer window;
+	private BinaryDecoder input;
+	private long windowStart = 0;
+
+	// the size of the log file, and the position of the first record
+	private final long size;
+	private final long recordsStart;
+
+	// the format version of the log
+	private final int version;
+
+	// the index of the log (if read), and whether it was read
+	private LogIndex index = null;
+	private boolean indexRead = false;
+
+	// the logger types read so far
+	private final List<String> loggerTypes = new ArrayList<>();
+
+	// the timestamp and capture time of the previous entry
+	private long lastTimestamp = 0;
+	private long lastCaptureTime = 0;
+
+	// the last calibration read
+	private ClockCalibration calibration = null;
+
+	// the number of the next entry to be decoded
+	private long entryNumber = 0;
+
+	// an entry read ahead by a seek, returned by the next read
+	private LogEntry pending = null;
+
+	// whether the log ended with a partial record
+	private boolean truncated = false;
+
+	/**
+	 * Opens the given binary log and reads its header.
+	 *
+	 * @param file The log file (must exist).
+	 * @throws IOException If the file is not a binary log, or could not be read.
+	 */
+	public BinaryLogReader(File file) throws IOException {
+
+		requireNotNull(file);
+
+		this.file = file;
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+		try {
+
+			size = channel.size();
+
+			window = ByteBuffer.allocate(WINDOW_SIZE);
+			window.limit(0);
+			input = new BinaryDecoder(window);
+
+			version = readHeader();
+			recordsStart = getPosition();
+
+		} catch (IOException ex) {
+			channel.close();
+			throw ex;
+		}
+
+	}
+
+	// reads the header, returning the format version
+	private int readHeader() throws IOException {
+
+		while (true) {
+
+			try {
+
+				window.mark();
+
+				for (byte magic : BinaryLogWriter.MAGIC) {
+					if (input.readByte() != magic)
+						throw new IOException(String.format("%s is not a binary log!", file.getPath()));
+				}
+
+				int version = input.readByte();
+				if (version < 1 || version > BinaryLogWriter.VERSION)
+					throw new IOException(String.format("Unsupported binary log version %d!", version));
+
+				int loggerCount = input.readVarInt();
+				for (int i = 0; i < loggerCount; i++)
+					addLoggerType(input.readString());
+
+				return version;
+
+			} catch (EOFException ex) {
+
+				window.reset();
+				loggerTypes.clear();
+
+				if (!fill())
+					throw new IOException(String.format("%s is not a binary log!", file.getPath()));
+
+			}
+
+		}
+
+	}
+
+	// reads more of the file into the window, returns false at the end
+	private boolean fill() throws IOException {
+
+		// keep the undecoded bytes, growing the window if they fill it
+		windowStart += window.position();
+		window.compact();
+
+		if (!window.hasRemaining()) {
+
+			ByteBuffer larger = ByteBuffer.allocate(window.capacity() * 2);
+			window.flip();
+			larger.put(window);
+
+			window = larger;
+
+		}
+
+		int read = channel.read(window, windowStart + window.position());
+
+		window.flip();
+		input = new BinaryDecoder(window);
+
+		return read > 0;
+
+	}
+
+	// moves to the given file position
+	private void seekTo(long position) {
+
+		long windowEnd = windowStart + window.limit();
+
+		if (position >= windowStart && position <= windowEnd) {
+			window.position((int) (position - windowStart));
+		} else {
+			windowStart = position;
+			window.clear();
+			window.limit(0);
+		}
+
+	}
+
+	// adds the logger type, if not already known
+	private void addLoggerType(String type) {
+
+		if (!loggerTypes.contains(type))
+			loggerTypes.add(type);
+
+	}
+
+	@Override
+	public List<String> getLoggerTypes() {
+		return new ArrayList<>(loggerTypes);
+	}
+
+	/**
+	 * Returns the format version of the log.
+	 * Logs before version {@code BinaryLogWriter.CAPTURE_VERSION} have no
+	 * capture times or calibrations.
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	@Override
+	public ClockCalibration getCalibration() {
+		return calibration;
+	}
+
+	@Override
+	public long getPosition() {
+		return windowStart + window.position();
+	}
+
+	@Override
+	public long getSize() {
+		return size;
+	}
+
+	@Override
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * Returns the index of the log.
+	 *
+	 * @return The index, or {@code null} if the log has no (current) index.
+	 * @throws IOException If the index is malformed.
+	 */
+	public LogIndex getIndex() throws IOException {
+
+		if (!indexRead) {
+			index = LogIndex.read(file);
+			indexRead = true;
+		}
+
+		return index;
+
+	}
+
+	/** Returns the number of the next entry to be read (from zero). */
+	public long getEntryNumber() {
+		return pending == null ? entryNumber : entryNumber - 1;
+	}
+
+	// moves to the start of the given block, or the first record if null
+	private void seek(LogIndex.Block block) {
+
+		pending = null;
+
+		// NOTE the capture times restart from zero at each block
+		lastCaptureTime = 0;
+
+		if (block == null) {
+			seekTo(recordsStart);
+			entryNumber = 0;
+			lastTimestamp = 0;
+		} else {
+			seekTo(block.getOffset());
+			entryNumber = block.getFirstEntry();
+			lastTimestamp = block.getBaseTimestamp();
+		}
+
+	}
+
+	@Override
+	public void seekToTimestamp(long timestamp) throws IOException {
+
+		LogIndex index = getIndex();
+
+		if (index == null || index.getBlockCount() == 0) {
+			seek(null);
+		} else {
+
+			int block = index.findTimestamp(timestamp);
+			if (block < 0)
+				block = index.getBlockCount() - 1; // NOTE all entries are earlier
+
+			seek(index.getBlock(block));
+
+		}
+
+		// read up to the entry
+		LogEntry logEntry;
+		while ((logEntry = readEntry()) != null && logEntry.getTimestamp() < timestamp);
+
+		pending = logEntry;
+
+	}
+
+	/**
+	 * Moves to the given entry, so it is the next entry read.
+	 * Uses the log's index if available, so only the entries in the entry's
+	 * block are decoded.
+	 *
+	 * @param entry The entry number (from zero).
+	 * @throws IOException If the log is malformed.
+	 */
+	public void seekToEntry(long entry) throws IOException {
+
+		require(entry >= 0);
+
+		LogIndex index = getIndex();
+
+		int block = index == null ? -1 : index.findEntry(entry);
+		seek(block < 0 ? null : index.getBlock(block));
+
+		while (entryNumber < entry && readEntry() != null);
+
+	}
+
+	@Override
+	public LogEntry next() throws IOException {
+
+		if (pending != null) {
+
+			LogEntry logEntry = pending;
+			pending = null;
+
+			return logEntry;
+
+		}
+
+		return readEntry();
+
+	}
+
+	// decodes the next entry
+	private LogEntry readEntry() throws IOException {
+
+		while (true) {
+
+			if (!input.hasRemaining() && !fill())
+				return null;
+
+			int start = window.position();
+
+			try {
+
+				int tag = input.readByte();
+
+				if (tag == BinaryLogWriter.LOGGER_RECORD) {
+					addLoggerType(input.readString());
+					continue;
+				}
+
+				if (tag == BinaryLogWriter.CALIBRATION_RECORD && version >= BinaryLogWriter.CAPTURE_VERSION) {
+					calibration = new ClockCalibration(input.readVarLong(), input.readVarLong());
+					continue;
+				}
+
+				if (entryNumber % LogIndex.BLOCK_SIZE == 0)
+					lastCaptureTime = 0;
+
+				LogEntry logEntry = decodeEntry(input, version, tag, lastTimestamp, lastCaptureTime);
+
+				lastTimestamp = logEntry.getTimestamp();
+				lastCaptureTime = logEntry.getCaptureTime();
+				entryNumber++;
+
+				return logEntry;
+
+			} catch (EOFException ex) {
+
+				window.position(start);
+
+				// the record continues past the window, otherwise it is a
+				// partial record at the end (as expected after a crash)
+				if (!fill()) {
+					truncated = true;
+					return null;
+				}
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Decodes a record of the binary log format (see
+	 * {@code BinaryLogWriter.encodeEntry()}), after its tag.
+	 *
+	 * @param input The decoder to read from.
+	 * @param version The format version of the record.
+	 * @param tag The record's tag.
+	 * @param previousTimestamp The timestamp the entry's timestamp is encoded
+	 * relative to.
+	 * @param previousCaptureTime The capture time the entry's capture time is
+	 * encoded relative to.
+	 * @return The decoded entry.
+	 * @throws IOException If the record is malformed or truncated.
+	 */
+	static LogEntry decodeEntry(BinaryDecoder input, int version, int tag,
+			long previousTimestamp, long previousCaptureTime) throws IOException {
+
+		LogEvent event = LogEvents.newLogEvent(tag & ~BinaryLogWriter.MESSAGE_FLAG);
+		if (event == null)
+			throw new IOException(String.format("Unknown event tag %d in binary log!", tag));
+
+		LogEntry logEntry = new LogEntry();
+
+		logEntry.setTimestamp(previousTimestamp + input.readSignedVarLong());
+
+		if (version >= BinaryLogWriter.CAPTURE_VERSION)
+			logEntry.setCaptureTime(previousCaptureTime + input.readSignedVarLong());
+
+		if ((tag & BinaryLogWriter.MESSAGE_FLAG) != 0)
+			logEntry.setMessage(input.readString());
+
+		event.decode(input);
+		logEntry.setEvent(event);
+
+		return logEntry;
+
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
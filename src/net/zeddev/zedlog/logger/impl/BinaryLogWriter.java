@@ -0,0 +1,431 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.zeddev.zedlog.logger.BinaryEncoder;
+import net.zeddev.zedlog.logger.CaptureClock;
+import net.zeddev.zedlog.logger.ClockCalibration;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.LogEvent;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * Writes log entries in the compact binary log format.
+ * The format is;
+ * <ul>
+ *	<li>A header of the magic bytes {@code ZLOG}, the format version and the
+ *	logger types.</li>
+ *	<li>A record per entry; a one byte event type tag (see
+ *	{@code LogEvents.tagOf()}) whose high bit is set if an explicit message
+ *	follows, the (zig-zag variable length) difference to the previous entry's
+ *	timestamp, the difference to the previous entry's capture time (or to
+ *	zero for the first entry of each {@code LogIndex} block), the message
+ *	(if explicit) and the event fields (see {@code LogEvent.encode()}).</li>
+ *	<li>A record (tagged {@code 0}) per logger type added after the header.</li>
+ *	<li>A calibration record (tagged {@code 0x7F}) of the capture clock's
+ *	calibration (see {@code CaptureClock}); its capture time and wall-clock
+ *	time.  Written before the first entry of each {@code LogIndex} block, and
+ *	whenever the clock is re-calibrated, so applies to the entries after
+ *	it.</li>
+ * </ul>
+ * The log needs no closing record, so a log left unfinished (e.g. by a crash)
+ * is still readable up to its last complete record.
+ * Once closed, a {@code LogIndex} of the log is written alongside it.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class BinaryLogWriter implements LogWriter {
+
+	/** The file extension of binary log files. */
+	public static final String EXTENSION = ".zlog";
+
+	// the magic bytes starting a binary log, and the format version
+	static final byte[] MAGIC = {'Z', 'L', 'O', 'G'};
+	static final int VERSION = 2;
+
+	// the first format version with capture times
+	static final int CAPTURE_VERSION = 2;
+
+	// the record tags of a logger type and a calibration, and the flag of
+	// explicit messages
+	static final int LOGGER_RECORD = 0x00;
+	static final int CALIBRATION_RECORD = 0x7F;
+	static final int MESSAGE_FLAG = 0x80;
+
+	// the number of encoded bytes buffered before writing
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final File file;
+	private final FileChannel channel;
+
+	// the file position of the next write
+	private long position = 0;
+
+	// the encoded records not yet written
+	private final BinaryEncoder encoder = new BinaryEncoder();
+
+	// indexes the entries, written alongside the log once closed
+	private final LogIndex index;
+
+	// the logger types already written
+	private final Set<String> loggerTypes = new HashSet<>();
+
+	// the timestamp and capture time of the previous entry
+	private long lastTimestamp = 0;
+	private long lastCaptureTime = 0;
+
+	// the calibration recorded (or null for the capture clock's), and the
+	// last calibration written
+	private ClockCalibration calibration = null;
+	private ClockCalibration lastCalibration = null;
+
+	private long entryCount = 0;
+
+	private boolean closed = false;
+
+	/**
+	 * Creates a new log file (replacing any existing file) and writes the
+	 * header.
+	 *
+	 * @param file The log file (must not be {@code null}).
+	 * @param loggerTypes The types of the loggers whose entries are logged.
+	 * @throws IOException If the file could not be created.
+	 */
+	public BinaryLogWriter(File file, Collection<String> loggerTypes) throws IOException {
+
+		requireNotNull(file);
+		requireNotNull(loggerTypes);
+
+		this.file = file;
+		index = new LogIndex();
+		channel = FileChannel.open(
+			file.toPath(),
+			StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+			StandardOpenOption.TRUNCATE_EXISTING
+		);
+
+		encoder.writeByte(MAGIC[0]);
+		encoder.writeByte(MAGIC[1]);
+		encoder.writeByte(MAGIC[2]);
+		encoder.writeByte(MAGIC[3]);
+		encoder.writeByte(VERSION);
+
+		encoder.writeVarInt(loggerTypes.size());
+		for (String type : loggerTypes) {
+			encoder.writeString(type);
+			this.loggerTypes.add(type);
+		}
+
+		try {
+			writeBuffer();
+		} catch (IOException ex) {
+			channel.close();
+			throw ex;
+		}
+
+	}
+
+	// re-opens the log, to append after the given position
+	private BinaryLogWriter(File file, long end, long lastTimestamp, long lastCaptureTime,
+			LogIndex index, Collection<String> loggerTypes) throws IOException {
+
+		this.file = file;
+		this.index = index;
+
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+
+		try {
+			channel.truncate(end);
+		} catch (IOException ex) {
+			channel.close();
+			throw ex;
+		}
+
+		position = end;
+		this.lastTimestamp = lastTimestamp;
+		this.lastCaptureTime = lastCaptureTime;
+		entryCount = index.getEntryCount();
+		this.loggerTypes.addAll(loggerTypes);
+
+	}
+
+	/**
+	 * Opens an existing binary log to append further entries.
+	 * A partial record at the end of the log (e.g. left by a crash) is
+	 * discarded.
+	 *
+	 * @param file The log file (must be a binary log).
+	 * @return The writer, positioned after the last complete entry.
+	 * @throws IOException If the file is not a binary log (of the current
+	 * version), or could not be opened.
+	 */
+	public static BinaryLogWriter openForAppend(File file) throws IOException {
+
+		requireNotNull(file);
+
+		LogIndex index = new LogIndex();
+
+		long end;
+		long lastTimestamp = 0;
+		long lastCaptureTime = 0;
+		List<String> loggerTypes;
+
+		// NOTE the reader is closed before the writer truncates the file
+		try (BinaryLogReader reader = new BinaryLogReader(file)) {
+
+			if (reader.getVersion() != VERSION) {
+				throw new IOException(String.format(
+					"Cannot append to binary log version %d!", reader.getVersion()
+				));
+			}
+
+			// re-index the existing entries
+			while (true) {
+
+				long offset = reader.getPosition();
+
+				LogEntry logEntry = reader.next();
+				if (logEntry == null)
+					break;
+
+				index.add(offset, lastTimestamp, logEntry.getTimestamp(), LogEvents.tagOf(logEntry.getEvent().type()));
+				lastTimestamp = logEntry.getTimestamp();
+				lastCaptureTime = logEntry.getCaptureTime();
+
+			}
+
+			end = reader.getPosition();
+			loggerTypes = reader.getLoggerTypes();
+
+		}
+
+		return new BinaryLogWriter(
+			file, end, lastTimestamp, lastCaptureTime, index, loggerTypes
+		);
+
+	}
+
+	// writes the buffered records
+	private void writeBuffer() throws IOException {
+
+		position += encoder.writeTo(channel, position);
+		encoder.clear();
+
+	}
+
+	/**
+	 * Whether the given file name has the binary log extension.
+	 *
+	 * @param file The log file.
+	 */
+	public static boolean hasExtension(File file) {
+
+		requireNotNull(file);
+
+		return file.getName().toLowerCase().endsWith(EXTENSION);
+
+	}
+
+	/**
+	 * Whether the given file is a binary log (i.e. starts with the magic bytes).
+	 *
+	 * @param file The file to check (must exist).
+	 * @throws IOException If the file could not be read.
+	 */
+	public static boolean isBinaryLog(File file) throws IOException {
+
+		requireNotNull(file);
+
+		byte[] start = new byte[MAGIC.length];
+
+		try (InputStream input = new FileInputStream(file)) {
+
+			int read = 0;
+			while (read < start.length) {
+
+				int count = input.read(start, read, start.length - read);
+				if (count < 0)
+					return false;
+
+				read += count;
+
+			}
+
+		}
+
+		return Arrays.equals(start, MAGIC);
+
+	}
+
+	@Override
+	public synchronized long getEntryCount() {
+		return entryCount;
+	}
+
+	/** Returns the size of the log written so far (in bytes). */
+	public synchronized long getSize() {
+		return position + encoder.length();
+	}
+
+	/**
+	 * Encodes the given entry as a record of the binary log format.
+	 *
+	 * @param output The encoder to write to.
+	 * @param logEntry The entry to encode.
+	 * @param previousTimestamp The timestamp the entry's timestamp is encoded
+	 * relative to.
+	 * @param previousCaptureTime The capture time the entry's capture time is
+	 * encoded relative to.
+	 * @return The tag of the entry's event type.
+	 * @throws IOException If the event type has no tag.
+	 */
+	static int encodeEntry(BinaryEncoder output, LogEntry logEntry,
+			long previousTimestamp, long previousCaptureTime) throws IOException {
+
+		LogEvent event = logEntry.getEvent();
+
+		int tag = LogEvents.tagOf(event.type());
+		if (tag < 0)
+			throw new IOException(String.format("Unknown event type %s!", event.type()));
+
+		String message = logEntry.getExplicitMessage();
+
+		output.writeByte(message == null ? tag : tag | MESSAGE_FLAG);
+		output.writeSignedVarLong(logEntry.getTimestamp() - previousTimestamp);
+		output.writeSignedVarLong(logEntry.getCaptureTime() - previousCaptureTime);
+
+		if (message != null)
+			output.writeString(message);
+
+		event.encode(output);
+
+		return tag;
+
+	}
+
+	@Override
+	public synchronized void setCalibration(ClockCalibration calibration) {
+		this.calibration = calibration;
+	}
+
+	@Override
+	public synchronized void write(LogEntry logEntry) throws IOException {
+
+		requireNotNull(logEntry);
+		require(!closed);
+
+		long offset = position + encoder.length();
+
+		// NOTE each index block starts with a calibration, and its entries
+		//      capture times relative to zero, so may be read from its start
+		boolean blockStart = entryCount % LogIndex.BLOCK_SIZE == 0;
+		if (blockStart)
+			lastCaptureTime = 0;
+
+		ClockCalibration calibration = this.calibration != null ? this.calibration : CaptureClock.getCalibration();
+		if (blockStart || !calibration.equals(lastCalibration)) {
+
+			encoder.writeByte(CALIBRATION_RECORD);
+			encoder.writeVarLong(calibration.getCaptureTime());
+			encoder.writeVarLong(calibration.getWallClock());
+
+			lastCalibration = calibration;
+
+		}
+
+		int tag = encodeEntry(encoder, logEntry, lastTimestamp, lastCaptureTime);
+
+		index.add(offset, lastTimestamp, logEntry.getTimestamp(), tag);
+
+		if (encoder.length() >= BUFFER_SIZE)
+			writeBuffer();
+
+		lastTimestamp = logEntry.getTimestamp();
+		lastCaptureTime = logEntry.getCaptureTime();
+		entryCount++;
+
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+
+		if (!closed)
+			writeBuffer();
+
+	}
+
+	@Override
+	public synchronized void force() throws IOException {
+
+		if (!closed) {
+			writeBuffer();
+			channel.force(false);
+		}
+
+	}
+
+	@Override
+	public synchronized void close(Collection<String> loggerTypes) throws IOException {
+
+		requireNotNull(loggerTypes);
+
+		if (closed)
+			return;
+
+		closed = true;
+
+		try {
+
+			// record the loggers added since the header
+			for (String type : loggerTypes) {
+
+				if (this.loggerTypes.add(type)) {
+					encoder.writeByte(LOGGER_RECORD);
+					encoder.writeString(type);
+				}
+
+			}
+
+			writeBuffer();
+
+		} finally {
+			channel.close();
+		}
+
+		index.write(file);
+
+	}
+
+	@Override
+	public void close() throws IOException {
+		close(Collections.<String>emptyList());
+	}
+
+}
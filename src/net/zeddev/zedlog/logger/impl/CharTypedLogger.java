@@ -15,25 +15,22 @@ package net.zeddev.zedlog.logger.impl;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
-import net.zeddev.zedlog.logger.AbstractDataLogger;
 import net.zeddev.zedlog.logger.LogEntry;
 import net.zeddev.zedlog.logger.impl.event.KeyEvent;
 
-import org.jnativehook.GlobalScreen;
+import org.jnativehook.NativeInputEvent;
 import org.jnativehook.keyboard.NativeKeyEvent;
-import org.jnativehook.keyboard.NativeKeyListener;
 
 /**
  * A {@code DataLogger} for character typed events.
  *
  * @author Zachary Scott <zscott.dev@gmail.com>
  */
-public final class CharTypedLogger extends AbstractDataLogger implements NativeKeyListener {
+public final class CharTypedLogger extends NativeHookLogger {
 
 	/** Creates a new {@code CharTypedLogger}. */
 	public CharTypedLogger() {
-		super();
-		GlobalScreen.getInstance().addNativeKeyListener(this);
+		super(NativeEventType.KEY_TYPED);
 	}
 
 	@Override
@@ -42,39 +39,19 @@ public final class CharTypedLogger extends AbstractDataLogger implements NativeK
 	}
 
 	@Override
-	public void shutdown() {
-		super.shutdown();
-		GlobalScreen.getInstance().removeNativeKeyListener(this);
-	}
-
-	@Override
-	public void nativeKeyPressed(NativeKeyEvent event) {
-		// IGNORED
-	}
+	public void handleNativeEvent(NativeInputEvent nativeEvent, long captureTime, long sequence) {
 
-	@Override
-	public void nativeKeyReleased(NativeKeyEvent event) {
-		// IGNORED
-	}
-
-	@Override
-	public void nativeKeyTyped(NativeKeyEvent event) {
+		NativeKeyEvent event = (NativeKeyEvent) nativeEvent;
 
-		KeyEvent keyEvent = new KeyEvent(KeyEvent.Type.TYPED, -1, event.getKeyChar());
-		String logMsg;
+		LogEntry logEntry = getEntryPool().claim(captureTime, sequence);
 
-		// add spacing if not alphanumeric char
-		char ch = event.getKeyChar();
-		if (ch == '\n' || ch == '\r') {
-			logMsg = "[Return]";
-		} else if (ch == '\t') {
-			logMsg = "[Tab]";
-		} else {
-			logMsg = Character.toString(ch);
-		}
+		KeyEvent keyEvent = (KeyEvent) logEntry.getEvent();
+		keyEvent.setEventType(KeyEvent.Type.TYPED);
+		keyEvent.setKeyCode(-1);
+		keyEvent.setChar(event.getKeyChar());
 
-		LogEntry logEntry = new LogEntry(this, logMsg, keyEvent);
 		notifyDataLoggerObservers(this, logEntry);
+		logEntry.release();
 
 	}
 
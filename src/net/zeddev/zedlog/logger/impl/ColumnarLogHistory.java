@@ -0,0 +1,253 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.zeddev.zedlog.logger.DataLogger;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.LogEvent;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * A {@code LogHistory} which keeps the entries in memory as columns of
+ * primitive values, rather than as objects.
+ * Each entry is stored as its timestamp, capture time, event type tag, parent logger
+ * number and the event fields given by {@code LogEvent.packFields()};
+ * {@code COLUMN_BYTES} bytes in total.  Entries are created from the
+ * columns as they are accessed.
+ * Explicit messages are kept aside, and entries which cannot be packed
+ * (e.g. unknown event types) are kept as they are.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class ColumnarLogHistory implements LogHistory {
+
+	/** The number of bytes stored per entry in the columns. */
+	public static final int COLUMN_BYTES = 8 + 8 + 1 + 1 + 4 * LogEvent.PACKED_FIELDS;
+
+	// the columns are allocated in chunks of this many entries
+	// NOTE avoids copying (and briefly doubling) large columns when grown
+	private static final int CHUNK_SHIFT = 14;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	// the most parent loggers numbered in the parent column
+	private static final int MAX_PARENTS = 0xFF;
+
+	// the columns, by chunk
+	private long[][] timestamps = new long[0][];
+	private long[][] captureTimes = new long[0][];
+	private byte[][] tags = new byte[0][];
+	private byte[][] parentNumbers = new byte[0][];
+	private int[][][] fields = new int[0][][];
+
+	private int size = 0;
+	private int chunkCount = 0;
+
+	// the parent loggers (by their number, from 1)
+	private final List<DataLogger> parents = new ArrayList<>();
+	private final Map<DataLogger, Integer> parentIndex = new IdentityHashMap<>();
+
+	// the explicit messages, and the entries which could not be packed
+	private final Map<Integer, String> messages = new HashMap<>();
+	private final Map<Integer, LogEntry> unpacked = new HashMap<>();
+
+	// the fields of the event being packed or unpacked
+	private final int[] scratch = new int[LogEvent.PACKED_FIELDS];
+
+	/** Creates a new, empty {@code ColumnarLogHistory}. */
+	public ColumnarLogHistory() {
+	}
+
+	/** Returns the number of bytes allocated to the columns. */
+	public synchronized long getColumnBytes() {
+		return (long) chunkCount * CHUNK_SIZE * COLUMN_BYTES;
+	}
+
+	// allocates another chunk of each column
+	private void addChunk() {
+
+		if (chunkCount == timestamps.length) {
+
+			int length = Math.max(4, chunkCount * 2);
+
+			timestamps = Arrays.copyOf(timestamps, length);
+			captureTimes = Arrays.copyOf(captureTimes, length);
+			tags = Arrays.copyOf(tags, length);
+			parentNumbers = Arrays.copyOf(parentNumbers, length);
+			fields = Arrays.copyOf(fields, length);
+
+		}
+
+		timestamps[chunkCount] = new long[CHUNK_SIZE];
+		captureTimes[chunkCount] = new long[CHUNK_SIZE];
+		tags[chunkCount] = new byte[CHUNK_SIZE];
+		parentNumbers[chunkCount] = new byte[CHUNK_SIZE];
+		fields[chunkCount] = new int[LogEvent.PACKED_FIELDS][CHUNK_SIZE];
+
+		chunkCount++;
+
+	}
+
+	// returns the number of the parent logger (0 for none, -1 if too many)
+	private int parentNumber(DataLogger parent) {
+
+		if (parent == null)
+			return 0;
+
+		Integer number = parentIndex.get(parent);
+
+		if (number == null) {
+
+			if (parents.size() == MAX_PARENTS)
+				return -1;
+
+			parents.add(parent);
+			number = parents.size();
+			parentIndex.put(parent, number);
+
+		}
+
+		return number;
+
+	}
+
+	@Override
+	public synchronized void addAll(List<LogEntry> logEntries) {
+
+		requireNotNull(logEntries);
+
+		for (LogEntry logEntry : logEntries)
+			add(logEntry);
+
+	}
+
+	// appends the entry to the columns
+	private void add(LogEntry logEntry) {
+
+		requireNotNull(logEntry);
+
+		if (size == chunkCount * CHUNK_SIZE)
+			addChunk();
+
+		int chunk = size >>> CHUNK_SHIFT;
+		int offset = size & CHUNK_MASK;
+
+		LogEvent event = logEntry.getEvent();
+
+		int tag = event == null ? -1 : LogEvents.tagOf(event.type());
+		int parent = parentNumber(logEntry.getParent());
+
+		Arrays.fill(scratch, 0);
+
+		if (tag > 0 && parent >= 0 && event.packFields(scratch)) {
+
+			timestamps[chunk][offset] = logEntry.getTimestamp();
+			captureTimes[chunk][offset] = logEntry.getCaptureTime();
+			tags[chunk][offset] = (byte) tag;
+			parentNumbers[chunk][offset] = (byte) parent;
+
+			for (int field = 0; field < LogEvent.PACKED_FIELDS; field++)
+				fields[chunk][field][offset] = scratch[field];
+
+			String message = logEntry.getExplicitMessage();
+			if (message != null)
+				messages.put(size, message);
+
+		} else {
+
+			// NOTE a zero tag marks the entry as kept whole
+			tags[chunk][offset] = 0;
+			unpacked.put(size, logEntry.detach());
+
+		}
+
+		size++;
+
+	}
+
+	@Override
+	public synchronized int size() {
+		return size;
+	}
+
+	@Override
+	public synchronized LogEntry get(int index) {
+
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException(String.format("Index %d of %d entries!", index, size));
+
+		int chunk = index >>> CHUNK_SHIFT;
+		int offset = index & CHUNK_MASK;
+
+		int tag = tags[chunk][offset];
+		if (tag == 0)
+			return unpacked.get(index);
+
+		LogEvent event = LogEvents.newLogEvent(tag);
+
+		for (int field = 0; field < LogEvent.PACKED_FIELDS; field++)
+			scratch[field] = fields[chunk][field][offset];
+		event.unpackFields(scratch);
+
+		LogEntry logEntry = new LogEntry();
+		logEntry.setTimestamp(timestamps[chunk][offset]);
+		logEntry.setCaptureTime(captureTimes[chunk][offset]);
+		logEntry.setEvent(event);
+
+		int parent = parentNumbers[chunk][offset] & 0xFF;
+		if (parent > 0)
+			logEntry.setParent(parents.get(parent - 1));
+
+		String message = messages.get(index);
+		if (message != null)
+			logEntry.setMessage(message);
+
+		return logEntry;
+
+	}
+
+	@Override
+	public synchronized void clear() {
+
+		timestamps = new long[0][];
+		captureTimes = new long[0][];
+		tags = new byte[0][];
+		parentNumbers = new byte[0][];
+		fields = new int[0][][];
+
+		size = chunkCount = 0;
+
+		parents.clear();
+		parentIndex.clear();
+		messages.clear();
+		unpacked.clear();
+
+	}
+
+	@Override
+	public void close() {
+		clear();
+	}
+
+}
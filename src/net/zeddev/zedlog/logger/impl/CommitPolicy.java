@@ -0,0 +1,109 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * When the log entries written to a log file are committed (i.e. flushed
+ * to the file, and optionally forced to the storage device).
+ * Entries are committed once the first of the following occurs;
+ * <ul>
+ *	<li>{@code maxEntries} entries are waiting.</li>
+ *	<li>The oldest waiting entry has waited {@code maxDelay} milliseconds.</li>
+ *	<li>No entries have been written for {@code idleDelay} milliseconds.</li>
+ * </ul>
+ * Larger limits give fewer, larger commits (i.e. better throughput) at the
+ * cost of more entries lost on a crash.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class CommitPolicy {
+
+	/** The default number of entries before committing. */
+	public static final int DEFAULT_MAX_ENTRIES = 256;
+
+	/** The default longest time an entry waits to be committed (in ms). */
+	public static final long DEFAULT_MAX_DELAY = 1000;
+
+	/** The default quiet time after which entries are committed (in ms). */
+	public static final long DEFAULT_IDLE_DELAY = 100;
+
+	/** The default policy, which does not force commits to the device. */
+	public static final CommitPolicy DEFAULT = new CommitPolicy(
+		DEFAULT_MAX_ENTRIES, DEFAULT_MAX_DELAY, DEFAULT_IDLE_DELAY, false
+	);
+
+	private final int maxEntries;
+	private final long maxDelay;
+	private final long idleDelay;
+	private final boolean force;
+
+	/**
+	 * Creates a new {@code CommitPolicy}.
+	 *
+	 * @param maxEntries The number of waiting entries which are committed
+	 * (must be positive).
+	 * @param maxDelay The longest time an entry waits to be committed (in
+	 * milliseconds, or {@code 0} for no limit).
+	 * @param idleDelay The quiet time after which the waiting entries are
+	 * committed (in milliseconds, or {@code 0} to never commit when idle).
+	 * @param force Whether each commit is forced to the storage device.
+	 */
+	public CommitPolicy(int maxEntries, long maxDelay, long idleDelay, boolean force) {
+
+		require(maxEntries > 0);
+		require(maxDelay >= 0);
+		require(idleDelay >= 0);
+
+		this.maxEntries = maxEntries;
+		this.maxDelay = maxDelay;
+		this.idleDelay = idleDelay;
+		this.force = force;
+
+	}
+
+	/** Returns the number of waiting entries which are committed. */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/** Returns the longest time an entry waits to be committed (in ms). */
+	public long getMaxDelay() {
+		return maxDelay;
+	}
+
+	/** Returns the quiet time after which entries are committed (in ms). */
+	public long getIdleDelay() {
+		return idleDelay;
+	}
+
+	/** Whether each commit is forced to the storage device. */
+	public boolean isForced() {
+		return force;
+	}
+
+	@Override
+	public String toString() {
+
+		return String.format(
+			"commit after %d entries, %d ms or %d ms idle%s",
+			maxEntries, maxDelay, idleDelay, force ? " (forced)" : ""
+		);
+
+	}
+
+}
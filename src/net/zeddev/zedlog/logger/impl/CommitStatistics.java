@@ -0,0 +1,125 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A snapshot of the commit counters of a log file (see {@code CommitPolicy}).
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class CommitStatistics {
+
+	/** What caused a commit. */
+	public static enum Trigger {
+
+		/** The entry limit was reached. */
+		ENTRIES,
+
+		/** An entry waited the maximum delay. */
+		DELAY,
+
+		/** No entries were written for the idle delay. */
+		IDLE,
+
+		/** Requested directly (e.g. when the log is closed). */
+		EXPLICIT
+
+	}
+
+	// NOTE set by LogCommitter when taking the snapshot
+	int pendingEntries;
+	long commits;
+	long committedEntries;
+	long forcedCommits;
+	long[] triggerCounts = new long[Trigger.values().length];
+	int lastBatchSize;
+	int maxBatchSize;
+	long lastLatencyNanos;
+	long totalLatencyNanos;
+	long maxLatencyNanos;
+
+	CommitStatistics() {
+	}
+
+	/** Returns the number of written entries waiting to be committed. */
+	public int getPendingEntries() {
+		return pendingEntries;
+	}
+
+	/** Returns the number of commits. */
+	public long getCommits() {
+		return commits;
+	}
+
+	/** Returns the number of entries committed. */
+	public long getCommittedEntries() {
+		return committedEntries;
+	}
+
+	/** Returns the number of commits forced to the storage device. */
+	public long getForcedCommits() {
+		return forcedCommits;
+	}
+
+	/** Returns the number of commits caused by the given trigger. */
+	public long getCommits(Trigger trigger) {
+		return triggerCounts[trigger.ordinal()];
+	}
+
+	/** Returns the number of entries in the last commit. */
+	public int getLastBatchSize() {
+		return lastBatchSize;
+	}
+
+	/** Returns the most entries in a single commit. */
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	/** Returns the mean number of entries in each commit. */
+	public double getMeanBatchSize() {
+		return commits == 0 ? 0 : (double) committedEntries / commits;
+	}
+
+	/** Returns the time taken by the last commit (in nanoseconds). */
+	public long getLastLatencyNanos() {
+		return lastLatencyNanos;
+	}
+
+	/** Returns the mean time taken by a commit (in nanoseconds). */
+	public long getMeanLatencyNanos() {
+		return commits == 0 ? 0 : totalLatencyNanos / commits;
+	}
+
+	/** Returns the longest time taken by a commit (in nanoseconds). */
+	public long getMaxLatencyNanos() {
+		return maxLatencyNanos;
+	}
+
+	@Override
+	public String toString() {
+
+		return String.format(
+			"%d commits (%d forced) of %d entries, %d pending, " +
+			"batch %.1f/%d, latency %.3f/%.3f ms (mean/max)",
+			commits, forcedCommits, committedEntries, pendingEntries,
+			getMeanBatchSize(), maxBatchSize,
+			getMeanLatencyNanos() / 1e6, maxLatencyNanos / 1e6
+		);
+
+	}
+
+}
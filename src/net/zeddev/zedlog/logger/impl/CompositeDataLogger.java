@@ -23,46 +23,86 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
 
-import java.util.Map;
-import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import net.zeddev.litelogger.Logger;
 import net.zeddev.zedlog.logger.AbstractDataLogger;
+import net.zeddev.zedlog.logger.BatchDataLoggerObserver;
 import net.zeddev.zedlog.logger.DataLogger;
-import net.zeddev.zedlog.logger.DataLoggerObserver;
 import net.zeddev.zedlog.logger.LogEntry;
 import static net.zeddev.zedlog.util.Assertions.*;
 
-import javax.xml.parsers.*;
-import javax.xml.transform.*;
-import javax.xml.transform.dom.*;
-import javax.xml.transform.stream.*;
-import org.w3c.dom.*;
-import org.xml.sax.SAXException;
-
 /**
  * A collection of multiple {@code DataLogger}'s.
+ * The children loggers notify the composite concurrently, their entries are
+ * appended to the history and log file by a single writer at a time (see
+ * {@code LogAppender}), so both hold the entries in the same order.  The
+ * entries are first restored to the order they were captured in (see
+ * {@code LogReorderBuffer}).
+ * The composite holds a reference to each pooled entry (see
+ * {@code LogEntryPool}) until it is stored, the history keeps a copy.
+ * The log file is written by its own thread (see {@code LogPersister}), so
+ * disk stalls only delay the children once its queue is full.
  *
  * @author Zachary Scott <zscott.dev@gmail.com>
  */
-public final class CompositeDataLogger extends AbstractDataLogger implements DataLoggerObserver {
+public final class CompositeDataLogger extends AbstractDataLogger implements BatchDataLoggerObserver {
 
 	private final Logger logger = Logger.getLogger(this);
 
 	// each log entry made by the children loggers
-	private final List<LogEntry> logEntries = new ArrayList<>();
+	private volatile LogHistory history = new SpillingLogHistory();
+	
+	// restores the capture order of the entries (used by the appender's writer)
+	private final LogReorderBuffer reorderBuffer = new LogReorderBuffer(
+		LogReorderBuffer.DEFAULT_SKEW_WINDOW, LogReorderBuffer.DEFAULT_MAX_HELD
+	);
+	private final List<LogEntry> releasedEntries = new ArrayList<>();
+	private ScheduledFuture<?> releaseTask = null;
+	
+	// releases the held entries of all composites once they have waited
+	// NOTE not the commit timer, as a release may wait for room in the
+	//	   persister's queue
+	private static ScheduledExecutorService releaseTimer = null;
+	
+	// appends the entries to the history and log file, a thread at a time
+	private final LogAppender appender = new LogAppender(new LogAppender.Target() {
+		@Override
+		public void append(List<LogEntry> logEntries) {
+			appendLogEntries(logEntries);
+		}
+	});
 
 	private final List<DataLogger> loggers = new ArrayList<>();
 
 	// the output file to write log files
 	private File logFile = null;
 
-	// the xml document used to log data logger entries
-	private Document xmlLog = null;
+	// guards the log file and its writer
+	private final Object logFileLock = new Object();
+
+	// appends the log entries to the log file, and when to commit them
+	// NOTE only replaced while holding the appender's lock too, so the
+	//	   appender's writer can check it without the log file lock
+	private volatile LogCommitter logCommitter = null;
+
+	// writes the stored entries to the log file, on its own thread
+	private final LogPersister persister = new LogPersister("log persister", new LogPersister.Target() {
+		@Override
+		public void write(List<LogEntry> logEntries) {
+			writeLogEntries(logEntries);
+		}
+	});
+	private CommitPolicy commitPolicy = CommitPolicy.DEFAULT;
 	
 	/** Creates a new {@code CompositeDataLogger}. */
 	public CompositeDataLogger() {
@@ -71,16 +111,35 @@ public final class CompositeDataLogger extends AbstractDataLogger implements Dat
 
 	@Override
 	public void shutdown() {
+
+		// release the children loggers
+		// NOTE shutdown first, so their held and queued entries are delivered
+		for (DataLogger child : getLoggers()) {
+			child.shutdown();
+			child.removeObserver(this);
+		}
+		
+		releaseHeldEntries();
+		
 		super.shutdown();
 		
-		// flush the log file
+		// finish the log file
+		// NOTE once every entry is stored, as the persister then ignores them
+		persister.close();
+		appender.lock();
 		try {
-			
-			if (getLogFile() != null)
-				flushXmlLog();
+			closeLogWriter();
+		} catch (IOException ex) {
+			logger.error("Failed to write log file!", ex);	
+		} finally {
+			appender.unlock();
+		}
 		
-		} catch (Exception ex) {
-			logger.error("Failed to write xml log file!", ex);	
+		// release the spilled entries
+		try {
+			history.close();
+		} catch (IOException ex) {
+			logger.error("Failed to release log history!", ex);
 		}
 		
 		logger.debug("CompositeLogger shutdown.");
@@ -127,6 +186,13 @@ public final class CompositeDataLogger extends AbstractDataLogger implements Dat
 			loggers.add(logger);
 			
 		}
+		
+		appender.lock();
+		try {
+			reorderBuffer.addLogger(logger);
+		} finally {
+			appender.unlock();
+		}
 
 	}
 
@@ -146,6 +212,8 @@ public final class CompositeDataLogger extends AbstractDataLogger implements Dat
 			loggers.remove(logger);
 
 		}
+		
+		forgetLogger(logger);
 
 	}
 
@@ -155,14 +223,27 @@ public final class CompositeDataLogger extends AbstractDataLogger implements Dat
 	 * @param index The index of the {@code DataLogger} to be removed.
 	 */
 	public void removeLogger(int index) {
-		require(index >= 0 && index < loggers.size());
-		loggers.remove(index);
+		
+		DataLogger logger;
+		
+		synchronized (loggers) {
+			require(index >= 0 && index < loggers.size());
+			logger = loggers.remove(index);
+		}
+		
+		forgetLogger(logger);
+		
 	}
 	
 	/** Whether the {@code CompopsiteDataLogger} contains the given logger. */
 	public boolean containsLogger(DataLogger logger) {
+		
 		requireNotNull(logger);
-		return loggers.contains(logger);
+		
+		synchronized (loggers) {
+			return loggers.contains(logger);
+		}
+		
 	}
 
 	/**
@@ -171,7 +252,20 @@ public final class CompositeDataLogger extends AbstractDataLogger implements Dat
 	 * @throws IOException If an error occurs when the log files are closed.
 	 */
 	public void clearAll() throws IOException {
-		logEntries.clear();
+		
+		appender.lock();
+		try {
+			
+			// NOTE the held entries are older, so cleared too
+			reorderBuffer.releaseAll(releasedEntries);
+			releaseEntries(releasedEntries);
+			
+			history.clear();
+			
+		} finally {
+			appender.unlock();
+		}
+		
 	}
 
 	/**
@@ -180,72 +274,233 @@ public final class CompositeDataLogger extends AbstractDataLogger implements Dat
 	 * @return The children {@code DataLogger}s.
 	 */
 	public List<DataLogger> getLoggers() {
-		return new ArrayList<>(loggers);
+		
+		synchronized (loggers) {
+			return new ArrayList<>(loggers);
+		}
+		
 	}
 	
 	/**
 	 * Returns a list of all entries made by children loggers.
+	 * The entries are loaded as they are accessed (see
+	 * {@code LogHistoryView}), and later entries are not included.
 	 *
 	 * @return A list of all entries made by children loggers.
 	 */
 	public List<LogEntry> logEntries() {
-		return new ArrayList<>(logEntries);
+		return new LogHistoryView(history);
+	}
+	
+	/** Returns the history storing the log entries. */
+	public LogHistory getHistory() {
+		return history;
+	}
+	
+	/**
+	 * Sets the history storing the log entries, moving the existing entries
+	 * to the new history.
+	 * The old history is closed, so views of it can no longer be read.
+	 *
+	 * @param history The new history (must not be {@code null}).
+	 * @throws IOException If the entries could not be moved.
+	 */
+	public void setHistory(LogHistory history) throws IOException {
+		
+		requireNotNull(history);
+		
+		appender.lock();
+		try {
+			
+			LogHistory old = this.history;
+			if (history == old)
+				return;
+			
+			List<LogEntry> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+			
+			for (int i = 0; i < old.size(); i++) {
+				
+				batch.add(old.get(i));
+				
+				if (batch.size() == LOAD_BATCH_SIZE) {
+					history.addAll(batch);
+					batch.clear();
+				}
+				
+			}
+			
+			history.addAll(batch);
+			
+			this.history = history;
+			old.close();
+			
+		} finally {
+			appender.unlock();
+		}
+		
 	}
 
 	/**
 	 * Sets the log file to which log entries are stored.
+	 * Directories (or names with the {@code SegmentedLogStore.EXTENSION})
+	 * are written as a segmented log store, files with the
+	 * {@code BinaryLogWriter.EXTENSION} in the compact binary format and all
+	 * others as xml.
 	 *
-	 * @param file The log file (must be a valid filename and
-	 * cannot be {@code null}).
+	 * @param file The log file or store directory (must be a valid filename
+	 * and cannot be {@code null}).
 	 */
 	public void setLogFile(File file) throws IOException {
 		
 		requireNotNull(file);
 		
-		if (file.exists()) {
-			require(file.isFile());
-		} else {
-			file.createNewFile();
+		// NOTE no entries are stored until the log file is replaced
+		appender.lock();
+		try {
+			
+			// the held (and queued) entries belong in the current log file
+			releaseHeldEntries();
+			persister.flush();
+			
+			replaceLogFile(file);
+			
+		} finally {
+			appender.unlock();
 		}
 		
-		this.logFile = file;
+	}
+	
+	// closes the current log file and opens the given file
+	// NOTE the appender's lock must be held
+	private void replaceLogFile(File file) throws IOException {
+		
+		synchronized (logFileLock) {
+			
+			closeLogWriter();
+			
+			recover(file);
+			
+			LogWriter logWriter;
+			int firstSegment = 0;
+			
+			if (file.isDirectory() || SegmentedLogStore.hasExtension(file)) {
+				
+				SegmentedLogStore store = new SegmentedLogStore(file, loggerTypes());
+				firstSegment = store.getFirstSegment();
+				
+				logWriter = store;
+				
+			} else if (BinaryLogWriter.hasExtension(file)) {
+				logWriter = new BinaryLogWriter(file, loggerTypes());
+			} else {
+				logWriter = new XmlLogWriter(file, loggerTypes());
+			}
+			
+			LogJournal journal;
+			try {
+				journal = new LogJournal(file, firstSegment);
+			} catch (IOException ex) {
+				logWriter.close();
+				throw ex;
+			}
+			
+			logCommitter = new LogCommitter(logWriter, journal, commitPolicy);
+			
+			this.logFile = file;
+			
+		}
+		
+	}
+	
+	// recovers the entries journalled before a crash (if any)
+	private void recover(File file) throws IOException {
+		
+		int recovered = LogJournal.recover(file);
+		
+		if (recovered > 0)
+			logger.warning("Recovered %d entries of log file %s.", null, recovered, file.getPath());
 		
 	}
 	
-	/** Returns the xml log file. */
+	/** Returns the log file. */
 	public File getLogFile() {
 		return logFile;
 	}
 	
-	// returns the xml document used to log data logger entries
-	private Document getXmlLog() throws ParserConfigurationException {
-
-		// create xml document object if does not already exist
-		if (xmlLog == null) {
-			
-			DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
+	/**
+	 * Sets when the log entries are committed to the log file.
+	 * Takes effect immediately, and for any later log files.
+	 *
+	 * @param commitPolicy The commit policy (cannot be {@code null}).
+	 */
+	public void setCommitPolicy(CommitPolicy commitPolicy) {
+		
+		requireNotNull(commitPolicy);
+		
+		synchronized (logFileLock) {
 			
-			xmlLog = docBuilder.newDocument();
+			this.commitPolicy = commitPolicy;
 			
-			// create the root element in the document
-			Element root = xmlLog.createElement("zedlog");
-			xmlLog.appendChild(root);
+			if (logCommitter != null)
+				logCommitter.setPolicy(commitPolicy);
 			
-			// create the loggers element/section
-			Element loggers = xmlLog.createElement("loggers");
-			root.appendChild(loggers);
+		}
+		
+	}
+	
+	/** Returns when the log entries are committed to the log file. */
+	public CommitPolicy getCommitPolicy() {
+		
+		synchronized (logFileLock) {
+			return commitPolicy;
+		}
+		
+	}
+	
+	/** Returns the counters of the thread writing the log file. */
+	public PersistenceStatistics getPersistenceStatistics() {
+		return persister.getStatistics();
+	}
+	
+	/**
+	 * Returns the commit counters of the current log file.
+	 *
+	 * @return The statistics, or {@code null} if there is no log file.
+	 */
+	public CommitStatistics getCommitStatistics() {
+		
+		synchronized (logFileLock) {
+			return logCommitter == null ? null : logCommitter.getStatistics();
+		}
+		
+	}
+	
+	// the types of the children loggers
+	private List<String> loggerTypes() {
+		
+		List<String> loggerTypes = new ArrayList<>();
+		for (DataLogger logger : getLoggers())
+			loggerTypes.add(logger.type());
+		
+		return loggerTypes;
+		
+	}
+	
+	// finishes the current log file (if any)
+	private void closeLogWriter() throws IOException {
+		
+		synchronized (logFileLock) {
 			
-			// create the root element in the document
-			Element entries = xmlLog.createElement("entries");
-			root.appendChild(entries);
+			if (logCommitter != null) {
+				logCommitter.close(loggerTypes());
+				logCommitter = null;
+				
+			}
 			
 		}
 		
-		return xmlLog;
-		
 	}
-
+	
 	/**
 	 * Opens the given log file and reads the log entries.
 	 * Implies clearing of the currently held log entries.
@@ -254,209 +509,346 @@ public final class CompositeDataLogger extends AbstractDataLogger implements Dat
 	 * cannot be {@code null}).
 	 * @throws FileNotFoundException
 	 * @throws IOException
-	 * @throws ClassNotFoundException
-	 * @throws InstantiationException
-	 * @throws IllegalAccessException
 	 * @throws Exception
 	 */
-	public void openLogFile(File file)
-			throws ParserConfigurationException, SAXException,
-			ClassNotFoundException, InstantiationException, 
-			IllegalAccessException, Exception {
+	public void openLogFile(File file) throws Exception {
+		openLogFile(file, null);
+	}
+	
+	/**
+	 * Opens the given log file and reads the log entries.
+	 * The entries are streamed (in batches of {@code LOAD_BATCH_SIZE}), so
+	 * the file is never held in memory.
+	 * Log store directories and binary logs are detected by their content,
+	 * all others are read as xml.
+	 *
+	 * @param file The file (or store directory) in which to read (must exist
+	 * and cannot be {@code null}).
+	 * @param monitor Notified of the progress of the load, and may cancel
+	 * the load (may be {@code null}).
+	 * @return Whether all entries were loaded ({@code false} if cancelled).
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 * @throws Exception
+	 */
+	public boolean openLogFile(File file, LogLoadMonitor monitor) throws Exception {
+		return openLogFile(file, monitor, Long.MIN_VALUE);
+	}
+	
+	/**
+	 * Opens the given log file and reads the log entries from the given
+	 * timestamp.
+	 * Binary logs (and log stores) with an index (see {@code LogIndex}) are
+	 * read from the nearest indexed block, others are read from the start
+	 * and the earlier entries discarded.
+	 *
+	 * @param file The file (or store directory) in which to read (must exist
+	 * and cannot be {@code null}).
+	 * @param monitor Notified of the progress of the load, and may cancel
+	 * the load (may be {@code null}).
+	 * @param fromTimestamp The timestamp of the first entry to load.
+	 * @return Whether all entries were loaded ({@code false} if cancelled).
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 * @throws Exception
+	 */
+	public boolean openLogFile(File file, LogLoadMonitor monitor, long fromTimestamp) throws Exception {
 
 		requireNotNull(file);
 		require(file.exists());
-				
-		DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-		DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
 		
-		Document doc = docBuilder.parse(file);
-		doc.getDocumentElement().normalize();
-		
-		// add each data logger
-		NodeList loggerNodes = doc.getElementsByTagName("logger");
-		for (int i = 0; i < loggerNodes.getLength(); i++) {
-			if (loggerNodes.item(i).getNodeType() == Node.ELEMENT_NODE) {
-				
-				Element loggerElement = (Element) loggerNodes.item(i);
-				
-				String loggerType = loggerElement.getAttribute("type");
-				addLogger(
-					DataLoggers.newDataLogger(loggerType)
-				);
-				
-			}
+		synchronized (logFileLock) {
 			
+			// NOTE is unterminated until closed
+			if (logCommitter != null && file.getCanonicalFile().equals(logFile.getCanonicalFile()))
+				throw new IOException("Cannot open the log file currently being written!");
+			
+		}
+		
+		// replay the entries journalled before a crash (if any)
+		recover(file);
+		
+		LogReader log;
+		
+		if (file.isDirectory()) {
+			log = new SegmentedLogReader(file);
+		} else if (BinaryLogWriter.isBinaryLog(file)) {
+			log = new BinaryLogReader(file);
+		} else {
+			log = new XmlLogReader(file);
 		}
 		
-		// handle each log entry
-		NodeList entries = doc.getElementsByTagName("entry");
-		for (int i = 0; i < entries.getLength(); i++) {
-			if (entries.item(i).getNodeType() == Node.ELEMENT_NODE) {
+		try {
+			
+			if (fromTimestamp != Long.MIN_VALUE)
+				log.seekToTimestamp(fromTimestamp);
+			
+			boolean completed = loadLogEntries(log, monitor);
+			
+			if (log.isTruncated())
+				logger.warning("Ignored partial record at end of log file %s.", null, file.getPath());
+			
+			// add each data logger
+			// NOTE loggers may be declared after the entries
+			for (String loggerType : log.getLoggerTypes()) {
 				
-				Element entry = (Element) entries.item(i);
+				DataLogger dataLogger = DataLoggers.newDataLogger(loggerType);
 				
-				LogEntry logEntry = new LogEntry();
-				logEntry.fromXML(entry);
-
-				notifyLog(null, logEntry);
+				if (dataLogger != null)
+					addLogger(dataLogger);
+				else
+					logger.warning("Ignored unknown logger type %s in log file.", null, loggerType);
 				
 			}
 			
+			return completed;
+			
+		} finally {
+			log.close();
 		}
 		
 	}
 	
-	// updates the list of loggers in the given xml element 
-	private void updateLoggersInXmlLog(Element parent) throws Exception {
-		
-		requireNotNull(parent != null);
-		assert requireEquals(parent.getTagName(), "loggers");
+	/** The number of entries loaded at once by {@code openLogFile()}. */
+	public static final int LOAD_BATCH_SIZE = 1024;
+	
+	// reads the log entries in batches, until done or cancelled
+	private boolean loadLogEntries(LogReader log, LogLoadMonitor monitor) throws IOException {
 		
-		// the set of data loggers currently in the XML document
-		Map<String, Element> dataLoggerSet = new HashMap<>();
+		List<LogEntry> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+		long entryCount = 0;
 		
-		// populate the data logger set
-		NodeList loggerNodes = parent.getElementsByTagName("logger");
-		for (int i = 0; i < loggerNodes.getLength(); i++) {
-			if (loggerNodes.item(i) instanceof Element) { // weed out all non-logger nodes
-				Element loggerElement = (Element) loggerNodes.item(i);
+		LogEntry logEntry;
+		while ((logEntry = log.next()) != null) {
+			
+			batch.add(logEntry);
+			
+			if (batch.size() == LOAD_BATCH_SIZE) {
+				
+				addLoadedEntries(batch);
+				entryCount += batch.size();
+				batch.clear();
 				
-				dataLoggerSet.put(
-					loggerElement.getAttribute("type"),
-					loggerElement
-				);
+				if (monitor != null && !monitor.loadProgress(log.getPosition(), log.getSize(), entryCount))
+					return false;
 				
 			}
 			
 		}
 		
-		// remove loggers not longer in the composite logger
-		for (String loggerType : dataLoggerSet.keySet()) {
-			
-			DataLogger logger = DataLoggers.newDataLogger(loggerType); 
-				// NOTE actually returns cached version 
-			
-			if (!loggers.contains(logger))
-				parent.removeChild(dataLoggerSet.get(loggerType));
-			
+		if (!batch.isEmpty()) {
+			addLoadedEntries(batch);
+			entryCount += batch.size();
 		}
 		
-		// update the logger elements not in the data logger set
-		for (DataLogger logger : loggers) {
+		if (monitor != null)
+			monitor.loadProgress(log.getSize(), log.getSize(), entryCount);
+		
+		return true;
+		
+	}
+	
+	// adds the loaded entries straight to the history
+	// NOTE they are already ordered and persisted, so they skip the reorder
+	// buffer and the log file
+	private void addLoadedEntries(final List<LogEntry> logEntries) {
+		
+		appender.lock();
+		try {
+			history.addAll(logEntries);
+		} catch (IOException ex) {
+			logger.error("Failed to store log entries in history!", ex);
+		} finally {
+			appender.unlock();
+		}
+		
+		for (LogEntry logEntry : logEntries)
+			notifyDataLoggerObservers(null, logEntry);
+		
+	}
+	
+	// writes the log entries to the log file
+	// NOTE only called by the persister's thread
+	private void writeLogEntries(final List<LogEntry> logEntries) {
+
+		requireNotNull(logEntries);
+		
+		synchronized (logFileLock) {
 			
-			if (!dataLoggerSet.containsKey(logger.type())) {
+			// dont write to file if not set
+			if (logCommitter == null)
+				return;
 			
-				Element loggerElement = getXmlLog().createElement("logger");
-				loggerElement.setAttribute("type", logger.type());
-				
-				parent.appendChild(loggerElement);
-				
+			try {
+				logCommitter.write(logEntries);
+			} catch (IOException ex) {
+				 logger.error("Failed to write log entry to log file!", ex);
 			}
 			
 		}
 		
 	}
-	
-	// flushes the XML log document to the disk
-	private void flushXmlLog() throws Exception {
-	
-		requireNotNull(getLogFile());
+
+	@Override
+	public void notifyLog(final DataLogger logger, final LogEntry logEntry) {
+
+		requireNotNull(logEntry);
+
+		notifyLogBatch(logger, Collections.singletonList(logEntry));
+
+	}
+
+	// appends the entries to the history and log file, in capture order
+	// NOTE only called by the appender's single writer
+	private void appendLogEntries(final List<LogEntry> logEntries) {
 		
-		Document doc = getXmlLog();
-		checkNotNull(doc);
+		reorderBuffer.add(logEntries, System.nanoTime(), releasedEntries);
+		storeReleasedEntries();
 		
-		Element root = doc.getDocumentElement();
-		checkNotNull(root);		
-
-		// update the loggers list in 
-		Element loggers = firstXmlElement(root, "loggers");
-		updateLoggersInXmlLog(loggers);
+		scheduleRelease();
+		
+	}
+	
+	// stores the entries released by the reorder buffer
+	private void storeReleasedEntries() {
+		
+		if (releasedEntries.isEmpty())
+			return;
 		
-		// the transformer which will update the XML source on disk
-		TransformerFactory transformerFactory = TransformerFactory.newInstance();
-		Transformer transformer = transformerFactory.newTransformer();
+		try {
+			history.addAll(releasedEntries);
+		} catch (IOException ex) {
+			logger.error("Failed to store log entries in history!", ex);
+		}
 		
-		// the XML input/output objects
-		DOMSource source = new DOMSource(doc);
-		StreamResult result = new StreamResult(getLogFile());
+		// NOTE written by the persister's thread, not the appender's writer
+		if (logCommitter != null)
+			persister.submit(releasedEntries);
 		
-		// update the XML file
-		transformer.transform(source, result);
+		releaseEntries(releasedEntries);
 		
 	}
 	
-	// the number of log entries before flushing to disk
-	private static final int LOG_FLUSH_THRESHOLD = 10;
-	private int logEntrysSinceFlush = 0; // the current count of log entries since last flush
-	
-	// Returns the first XML element with the given name, in the given parent element
-	private static Element firstXmlElement(Element parent, String tagname) {
-	
-		requireNotNull(parent);
-		requireNotNull(tagname);
-		requireNotEquals(tagname, "");
+	// releases the composite's references to the stored entries
+	private static void releaseEntries(List<LogEntry> logEntries) {
 		
-		NodeList elements = parent.getElementsByTagName(tagname);
-		check(elements.getLength() > 0);
-		// TODO check properly
+		for (int i = 0; i < logEntries.size(); i++)
+			logEntries.get(i).release();
 		
-		Element first = (Element) elements.item(0);
-		ensureNotNull(first);
-		
-		return first;
+		logEntries.clear();
 		
 	}
 	
-	// writes the log entry to XML
-	private void writeXmlLogEntry(final LogEntry logEntry) {
-
-		requireNotNull(logEntry);
+	// schedules the release of the entries held by the reorder buffer, once
+	// they have waited the skew window
+	private void scheduleRelease() {
 		
-		// dont write to file if not set
-		if (getLogFile() != null) {
+		if (releaseTask != null || reorderBuffer.size() == 0)
+			return;
 		
-			try {
-				
-				Document doc = getXmlLog();
-				checkNotNull(doc);
-				
-				Element root = doc.getDocumentElement();
-				checkNotNull(root);
+		long delay = reorderBuffer.nextDeadline() - System.nanoTime();
+		
+		releaseTask = releaseTimer().schedule(new Runnable() {
+			
+			@Override
+			public void run() {
 				
-				Element entries = firstXmlElement(root, "entries");
-				checkNotNull(entries);
+				appender.lock();
+				try {
+					
+					releaseTask = null;
+					
+					reorderBuffer.release(System.nanoTime(), releasedEntries);
+					storeReleasedEntries();
+					
+					scheduleRelease();
+					
+				} finally {
+					appender.unlock();
+				}
 				
-				// encode the log entry
-				logEntry.toXML(entries);
-				logEntrysSinceFlush++;
+			}
+			
+		}, Math.max(0, delay), TimeUnit.NANOSECONDS);
+		
+	}
+	
+	// the timer releasing the held entries, created on first use
+	private static synchronized ScheduledExecutorService releaseTimer() {
+		
+		if (releaseTimer == null) {
+			
+			ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
 				
-				// flush log to disk
-				if (logEntrysSinceFlush >= LOG_FLUSH_THRESHOLD) {
-					flushXmlLog();
-					logEntrysSinceFlush = 0;
+				@Override
+				public Thread newThread(Runnable task) {
+					
+					Thread thread = new Thread(task, "log release timer");
+					thread.setDaemon(true);
+					
+					return thread;
+					
 				}
 				
-			} catch (Exception ex) {
-				 logger.error("Failed encode log entry to XML!", ex);
+			});
+			executor.setRemoveOnCancelPolicy(true);
+			
+			releaseTimer = executor;
+			
+		}
+		
+		return releaseTimer;
+		
+	}
+	
+	// stops waiting for the removed logger's entries
+	private void forgetLogger(DataLogger logger) {
+		
+		appender.lock();
+		try {
+			reorderBuffer.removeLogger(logger, releasedEntries);
+			storeReleasedEntries();
+		} finally {
+			appender.unlock();
+		}
+		
+	}
+	
+	// stores all entries held by the reorder buffer
+	private void releaseHeldEntries() {
+		
+		appender.lock();
+		try {
+			
+			if (releaseTask != null) {
+				releaseTask.cancel(false);
+				releaseTask = null;
 			}
 			
+			reorderBuffer.releaseAll(releasedEntries);
+			storeReleasedEntries();
+			
+		} finally {
+			appender.unlock();
 		}
 		
 	}
 
 	@Override
-	public void notifyLog(final DataLogger logger, final LogEntry logEntry) {
+	public void notifyLogBatch(final DataLogger logger, final List<LogEntry> logEntries) {
 
-		requireNotNull(logEntry);
+		requireNotNull(logEntries);
 
 		if (isRecording()) {
 
-			logEntries.add(logEntry); // TODO optimise using fast(er) list implementation
+			// NOTE released once stored
+			for (int i = 0; i < logEntries.size(); i++)
+				logEntries.get(i).retain();
 
-			writeXmlLogEntry(logEntry);
+			appender.append(logEntries);
 
-			notifyDataLoggerObservers(logger, logEntry);
+			for (LogEntry logEntry : logEntries)
+				notifyDataLoggerObservers(logger, logEntry);
 
 		}
 
@@ -483,7 +875,7 @@ public final class CompositeDataLogger extends AbstractDataLogger implements Dat
 		final StringBuilder log = new StringBuilder();
 		DataLogger lastLogger = null;
 
-		for (LogEntry logEntry : logEntries) {
+		for (LogEntry logEntry : logEntries()) {
 
 			// add newline to separate different logger messages
 			if (lastLogger == null) {
@@ -18,10 +18,12 @@ package net.zeddev.zedlog.logger.impl;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
 
 import net.zeddev.litelogger.Logger;
+import net.zeddev.zedlog.logger.BatchDataLoggerObserver;
 import net.zeddev.zedlog.logger.DataLogger;
-import net.zeddev.zedlog.logger.DataLoggerObserver;
 import net.zeddev.zedlog.logger.LogEntry;
 
 /**
@@ -29,7 +31,7 @@ import net.zeddev.zedlog.logger.LogEntry;
  *
  * @author Zachary Scott <zscott.dev@gmail.com>
  */
-public class DataLoggerWriter implements DataLoggerObserver, Closeable {
+public class DataLoggerWriter implements BatchDataLoggerObserver, Closeable {
 
 	private final Logger logger = Logger.getLogger(this);
 
@@ -43,6 +45,11 @@ public class DataLoggerWriter implements DataLoggerObserver, Closeable {
 
 	@Override
 	public void notifyLog(DataLogger dataLogger, LogEntry logEntry) {
+		notifyLogBatch(dataLogger, Collections.singletonList(logEntry));
+	}
+
+	@Override
+	public void notifyLogBatch(DataLogger dataLogger, List<LogEntry> logEntries) {
 
 		try {
 
@@ -54,12 +61,15 @@ public class DataLoggerWriter implements DataLoggerObserver, Closeable {
 				lastToNotify = dataLogger;
 			}
 
-			output.write(logEntry.toString());
+			for (LogEntry logEntry : logEntries)
+				output.write(logEntry.toString());
+
+			// flush once per batch
 			output.flush();
 
 		} catch (IOException ex) {
 			logger.error("Failed to write data logger output to file!", ex);
-			logger.info("Ignoring exception in DataLoggerWriter.notifyLog().");
+			logger.info("Ignoring exception in DataLoggerWriter.notifyLogBatch().");
 		}
 
 	}
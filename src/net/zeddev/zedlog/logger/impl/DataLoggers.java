@@ -16,7 +16,7 @@ package net.zeddev.zedlog.logger.impl;
  */
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -24,60 +24,121 @@ import net.zeddev.zedlog.logger.DataLogger;
 
 /**
  * A simple factory which produces concrete {@code DataLogger}s.
+ * Each request creates a new logger, owned by the caller, so shutting one
+ * logger down does not affect the others.  The loggers are started (see
+ * {@code NativeHookLogger.start()}) once constructed.
  *
  * @author Zachary Scott <zscott.dev@gmail.com>
  */
 public final class DataLoggers {
 
-	// the cached logger instances
-	private static final Map<String, DataLogger> LOGGERS = new HashMap<>();
-		// NOTE They can be cached because cannot be modified during execution.
+	// creates the logger instance of a single type
+	private static abstract class Factory {
+		public abstract DataLogger create();
+	}
 
-	// the available logger types
-	private static final List<String> TYPES = new ArrayList<>();
+	// the factories for the available logger types (in listed order)
+	private static final Map<String, Factory> FACTORIES = new LinkedHashMap<>();
 
 	static {
 
-		// the list of available logger instances
-		final DataLogger[] instances = {
-			new CharTypedLogger(),
-			new KeyPressedLogger(),
-			new KeyReleasedLogger(),
-			new MouseClickLogger(),
-			new MousePressedLogger(),
-			new MouseReleasedLogger(),
-			new MouseMovementLogger(),
-			new MouseDraggedLogger(),
-			new MouseWheelLogger()
-		};
-
-		// set all available loggers
-		for (DataLogger loggerInstance : instances) {
-			LOGGERS.put(loggerInstance.type(), loggerInstance);
-			TYPES.add(loggerInstance.type());
-		}
+		FACTORIES.put("CharTyped", new Factory() {
+			@Override
+			public DataLogger create() {
+				return started(new CharTypedLogger());
+			}
+		});
+
+		FACTORIES.put("KeyPressed", new Factory() {
+			@Override
+			public DataLogger create() {
+				return started(new KeyPressedLogger());
+			}
+		});
+
+		FACTORIES.put("KeyReleased", new Factory() {
+			@Override
+			public DataLogger create() {
+				return started(new KeyReleasedLogger());
+			}
+		});
+
+		FACTORIES.put("MouseClick", new Factory() {
+			@Override
+			public DataLogger create() {
+				return started(new MouseClickLogger());
+			}
+		});
+
+		FACTORIES.put("MousePressed", new Factory() {
+			@Override
+			public DataLogger create() {
+				return started(new MousePressedLogger());
+			}
+		});
+
+		FACTORIES.put("MouseRelease", new Factory() {
+			@Override
+			public DataLogger create() {
+				return started(new MouseReleasedLogger());
+			}
+		});
+
+		FACTORIES.put("MouseMovement", new Factory() {
+			@Override
+			public DataLogger create() {
+				return started(new MouseMovementLogger());
+			}
+		});
+
+		FACTORIES.put("MouseDrag", new Factory() {
+			@Override
+			public DataLogger create() {
+				return started(new MouseDraggedLogger());
+			}
+		});
+
+		FACTORIES.put("MouseWheel", new Factory() {
+			@Override
+			public DataLogger create() {
+				return started(new MouseWheelLogger());
+			}
+		});
 
 	}
 
 	private DataLoggers() {
 	}
 
+	// starts routing the native events to the constructed logger
+	private static DataLogger started(NativeHookLogger logger) {
+
+		logger.start();
+
+		return logger;
+
+	}
+
 	/**
 	 * Produces new {@code DataLogger{@code  instances based on the given type.
 	 * See {@code typeList()} for full list.
+	 * The caller owns the new logger, and should shut it down once it is no
+	 * longer used.
 	 *
 	 * @param type The type of the new {@code DataLogger}.
-	 * @return The new {@code DataLogger} instance.
+	 * @return The new {@code DataLogger} instance, or {@code null} if the
+	 * type is not known.
 	 */
 	public static DataLogger newDataLogger(String type) {
 
 		assert(type != null);
 
-		if (LOGGERS.containsKey(type)) {
-			return LOGGERS.get(type);
-		} else {
+		Factory factory = FACTORIES.get(type);
+
+		if (factory == null)
 			return null;
-		}
+
+		return factory.create();
 
 	}
 
@@ -87,11 +148,11 @@ public final class DataLoggers {
 	 * The currently supported types are;
 	 * <ul>
 	 *	<li>"CharTyped" - {@code CharTypedLogger}.</li>
-	 *	<li>"keyPressed" - {@code KeyPressedLogger}.</li>
-	 *  <li>"KeyReleased" - {@code CharTypedLogger}.</li>
+	 *	<li>"KeyPressed" - {@code KeyPressedLogger}.</li>
+	 *  <li>"KeyReleased" - {@code KeyReleasedLogger}.</li>
 	 *  <li>"MouseClick" - {@code MouseClickLogger}.</li>
 	 *	<li>"MousePressed" - {@code MousePressedLogger}.</li>
-	 *	<li>"MouseReleased" - {@code MouseReleasedLogger}.</li>
+	 *	<li>"MouseRelease" - {@code MouseReleasedLogger}.</li>
 	 *  <li>"MouseMovement" - {@code MouseMovementLogger}.</li>
 	 *  <li>"MouseDrag" - {@code MouseDraggedLogger}.</li>
 	 *  <li>"MouseWheel" - {@code MouseWheelLogger}.</li>
@@ -100,7 +161,7 @@ public final class DataLoggers {
 	 * @return The list of available {@code DataLogger} types.
 	 */
 	public static List<String> typeList() {
-		return new ArrayList<>(TYPES);
+		return new ArrayList<>(FACTORIES.keySet());
 	}
 
 }
@@ -15,25 +15,28 @@ package net.zeddev.zedlog.logger.impl;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
-import net.zeddev.zedlog.logger.AbstractDataLogger;
+import net.zeddev.zedlog.logger.DispatchScheduler;
 import net.zeddev.zedlog.logger.LogEntry;
 import net.zeddev.zedlog.logger.impl.event.KeyEvent;
 
-import org.jnativehook.GlobalScreen;
+import org.jnativehook.NativeInputEvent;
 import org.jnativehook.keyboard.NativeKeyEvent;
-import org.jnativehook.keyboard.NativeKeyListener;
 
 /**
  * A {@code DataLogger} for key pressed events.
  *
  * @author Zachary Scott <zscott.dev@gmail.com>
  */
-public final class KeyPressedLogger extends AbstractDataLogger implements NativeKeyListener {
+public final class KeyPressedLogger extends NativeHookLogger {
 
 	/** Creates a new {@code KeyPressedLogger}. */
 	public KeyPressedLogger() {
-		super();
-		GlobalScreen.getInstance().addNativeKeyListener(this);
+		super(NativeEventType.KEY_PRESSED);
+	}
+
+	// creates a logger routed by the given demultiplexer (for testing)
+	KeyPressedLogger(NativeHookDemultiplexer demultiplexer, DispatchScheduler scheduler) {
+		super(NativeEventType.KEY_PRESSED, demultiplexer, scheduler);
 	}
 
 	@Override
@@ -42,30 +45,20 @@ public final class KeyPressedLogger extends AbstractDataLogger implements Native
 	}
 
 	@Override
-	public void shutdown() {
-		super.shutdown();
-		GlobalScreen.getInstance().removeNativeKeyListener(this);
-	}
+	public void handleNativeEvent(NativeInputEvent nativeEvent, long captureTime, long sequence) {
 
-	@Override
-	public void nativeKeyPressed(NativeKeyEvent event) {
+		NativeKeyEvent event = (NativeKeyEvent) nativeEvent;
 
-		KeyEvent keyEvent = new KeyEvent(KeyEvent.Type.PRESSED, event.getKeyCode(), event.getKeyChar());
-		String key = NativeKeyEvent.getKeyText(event.getKeyCode());
+		LogEntry logEntry = getEntryPool().claim(captureTime, sequence);
 
-		LogEntry logEntry = new LogEntry(this, String.format("%s ", key), keyEvent);
-		notifyDataLoggerObservers(this, logEntry);
+		KeyEvent keyEvent = (KeyEvent) logEntry.getEvent();
+		keyEvent.setEventType(KeyEvent.Type.PRESSED);
+		keyEvent.setKeyCode(event.getKeyCode());
+		keyEvent.setChar(event.getKeyChar());
 
-	}
-
-	@Override
-	public void nativeKeyReleased(NativeKeyEvent event) {
-		// IGNORED
-	}
+		notifyDataLoggerObservers(this, logEntry);
+		logEntry.release();
 
-	@Override
-	public void nativeKeyTyped(NativeKeyEvent event) {
-		// IGNORED
 	}
 
 }
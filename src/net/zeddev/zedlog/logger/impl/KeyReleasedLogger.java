@@ -15,25 +15,22 @@ package net.zeddev.zedlog.logger.impl;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
-import net.zeddev.zedlog.logger.AbstractDataLogger;
 import net.zeddev.zedlog.logger.LogEntry;
 import net.zeddev.zedlog.logger.impl.event.KeyEvent;
 
-import org.jnativehook.GlobalScreen;
+import org.jnativehook.NativeInputEvent;
 import org.jnativehook.keyboard.NativeKeyEvent;
-import org.jnativehook.keyboard.NativeKeyListener;
 
 /**
  * A {@code DataLogger} for key released events.
  *
  * @author Zachary Scott <zscott.dev@gmail.com>
  */
-public final class KeyReleasedLogger extends AbstractDataLogger implements NativeKeyListener {
+public final class KeyReleasedLogger extends NativeHookLogger {
 
-	/** Creates a new {@code KeyPressedLogger}. */
+	/** Creates a new {@code KeyReleasedLogger}. */
 	public KeyReleasedLogger() {
-		super();
-		GlobalScreen.getInstance().addNativeKeyListener(this);
+		super(NativeEventType.KEY_RELEASED);
 	}
 
 	@Override
@@ -42,30 +39,20 @@ public final class KeyReleasedLogger extends AbstractDataLogger implements Nativ
 	}
 
 	@Override
-	public void shutdown() {
-		super.shutdown();
-		GlobalScreen.getInstance().removeNativeKeyListener(this);
-	}
+	public void handleNativeEvent(NativeInputEvent nativeEvent, long captureTime, long sequence) {
 
-	@Override
-	public void nativeKeyPressed(NativeKeyEvent event) {
-		// IGNORED
-	}
+		NativeKeyEvent event = (NativeKeyEvent) nativeEvent;
 
-	@Override
-	public void nativeKeyReleased(NativeKeyEvent event) {
+		LogEntry logEntry = getEntryPool().claim(captureTime, sequence);
 
-		KeyEvent keyEvent = new KeyEvent(KeyEvent.Type.RELEASED, event.getKeyCode(), event.getKeyChar());
-		String key = NativeKeyEvent.getKeyText(event.getKeyCode());
+		KeyEvent keyEvent = (KeyEvent) logEntry.getEvent();
+		keyEvent.setEventType(KeyEvent.Type.RELEASED);
+		keyEvent.setKeyCode(event.getKeyCode());
+		keyEvent.setChar(event.getKeyChar());
 
-		LogEntry logEntry = new LogEntry(this, String.format("%s ", key), keyEvent);
 		notifyDataLoggerObservers(this, logEntry);
+		logEntry.release();
 
 	}
 
-	@Override
-	public void nativeKeyTyped(NativeKeyEvent event) {
-		// IGNORED
-	}
-
 }
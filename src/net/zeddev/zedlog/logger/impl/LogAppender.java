@@ -0,0 +1,174 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.zeddev.zedlog.logger.LogEntry;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * Appends batches of log entries from many threads, with a single writer.
+ * Each thread queues its batch (without locking) and then, if no other
+ * thread is writing, becomes the writer; draining all queued batches, in
+ * the order they were queued, to the {@code Target} as a single batch.
+ * So threads never wait for each other to write, and the target need not
+ * be thread-safe.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+final class LogAppender {
+
+	/** Receives the appended entries, from a single writer at a time. */
+	static interface Target {
+
+		/**
+		 * Appends the given entries.
+		 *
+		 * @param logEntries The entries, in the order they were queued.
+		 */
+		public void append(final List<LogEntry> logEntries);
+
+	}
+
+	private final Target target;
+
+	// the batches waiting to be written
+	private final ConcurrentLinkedQueue<List<LogEntry>> queue = new ConcurrentLinkedQueue<>();
+
+	// held by the writer
+	private final ReentrantLock writer = new ReentrantLock();
+
+	// the entries written to the target (combined into the written batches)
+	private final AtomicLong entriesWritten = new AtomicLong();
+	private final AtomicLong batchesWritten = new AtomicLong();
+
+	/**
+	 * Creates a new {@code LogAppender}.
+	 *
+	 * @param target The target of the appended entries (must not be
+	 * {@code null}).
+	 */
+	LogAppender(Target target) {
+
+		requireNotNull(target);
+
+		this.target = target;
+
+	}
+
+	/**
+	 * Appends the given entries.
+	 * The entries are written before returning, unless another thread is
+	 * writing; which then writes them.
+	 *
+	 * @param logEntries The entries to append (must not be {@code null}),
+	 * copied so may be reused once returned.
+	 */
+	void append(List<LogEntry> logEntries) {
+
+		requireNotNull(logEntries);
+
+		if (logEntries.isEmpty())
+			return;
+
+		queue.offer(new ArrayList<>(logEntries));
+
+		writeQueued();
+
+	}
+
+	// writes the queued batches, unless another thread is writing
+	private void writeQueued() {
+
+		// NOTE checked again once written, as batches may be queued by
+		//      other threads after the queue was drained (but before the
+		//      writer was released)
+		while (!queue.isEmpty() && writer.tryLock()) {
+			try {
+				drain();
+			} finally {
+				writer.unlock();
+			}
+		}
+
+	}
+
+	// writes the queued batches, the writer must be held
+	private void drain() {
+
+		List<LogEntry> combined = queue.poll();
+		if (combined == null)
+			return;
+
+		List<LogEntry> next;
+		while ((next = queue.poll()) != null)
+			combined.addAll(next);
+
+		try {
+			target.append(combined);
+		} finally {
+			entriesWritten.addAndGet(combined.size());
+			batchesWritten.incrementAndGet();
+		}
+
+	}
+
+	/**
+	 * Waits to become the writer, and writes any queued entries; so the
+	 * target may be safely changed while the returned lock is held.
+	 * The lock must be released with {@code unlock()}.
+	 */
+	void lock() {
+
+		writer.lock();
+
+		try {
+			drain();
+		} catch (RuntimeException ex) {
+			writer.unlock();
+			throw ex;
+		}
+
+	}
+
+	/**
+	 * Releases the writer, writing any entries queued while locked.
+	 */
+	void unlock() {
+
+		writer.unlock();
+
+		writeQueued();
+
+	}
+
+	/** Returns the number of entries written to the target. */
+	long getEntriesWritten() {
+		return entriesWritten.get();
+	}
+
+	/** Returns the number of (combined) batches written to the target. */
+	long getBatchesWritten() {
+		return batchesWritten.get();
+	}
+
+}
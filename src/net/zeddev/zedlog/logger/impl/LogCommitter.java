@@ -0,0 +1,321 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import net.zeddev.litelogger.Logger;
+import net.zeddev.zedlog.logger.LogEntry;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * Writes log entries to a {@code LogWriter}, committing them in groups as
+ * given by a {@code CommitPolicy}.
+ * The entries are first appended to a {@code LogJournal} (if any), which is
+ * checkpointed at each commit, so uncommitted entries survive the program
+ * crashing.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+final class LogCommitter {
+
+	private static final Logger logger = Logger.getLogger(LogCommitter.class);
+
+	// the fastest the commit timers are checked (in ms)
+	private static final long MIN_TIMER_PERIOD = 5;
+
+	// checks the commit timers of all committers
+	private static ScheduledExecutorService timer = null;
+
+	private final LogWriter writer;
+	private final LogJournal journal;
+	private CommitPolicy policy;
+
+	// checks this committer's timers (if any)
+	private ScheduledFuture<?> timerTask = null;
+
+	// when the oldest pending entry, and the newest entry, were written
+	private long firstPendingTime = 0;
+	private long lastWriteTime = 0;
+
+	private final CommitStatistics statistics = new CommitStatistics();
+
+	private boolean closed = false;
+
+	/**
+	 * Creates a new {@code LogCommitter}.
+	 *
+	 * @param writer The log written to (must not be {@code null}).
+	 * @param journal The journal of the log (or {@code null} for none).
+	 * @param policy When to commit the entries (must not be {@code null}).
+	 */
+	LogCommitter(LogWriter writer, LogJournal journal, CommitPolicy policy) {
+
+		requireNotNull(writer);
+		requireNotNull(policy);
+
+		this.writer = writer;
+		this.journal = journal;
+
+		setPolicy(policy);
+
+	}
+
+	/**
+	 * Returns the timer checking the commit timers of all committers,
+	 * creating it on first use.
+	 * The timer has a single thread, so its tasks must be brief and never
+	 * wait on other log stages (e.g. for room in a persister's queue).
+	 */
+	static synchronized ScheduledExecutorService timer() {
+
+		if (timer == null) {
+
+			ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable task) {
+
+					Thread thread = new Thread(task, "log commit timer");
+					thread.setDaemon(true);
+
+					return thread;
+
+				}
+
+			});
+			executor.setRemoveOnCancelPolicy(true);
+
+			timer = executor;
+
+		}
+
+		return timer;
+
+	}
+
+	/** Returns the log written to. */
+	LogWriter getWriter() {
+		return writer;
+	}
+
+	/** Returns the commit policy. */
+	synchronized CommitPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Sets the commit policy, taking effect immediately.
+	 *
+	 * @param policy When to commit the entries (must not be {@code null}).
+	 */
+	synchronized void setPolicy(CommitPolicy policy) {
+
+		requireNotNull(policy);
+
+		this.policy = policy;
+
+		if (timerTask != null) {
+			timerTask.cancel(false);
+			timerTask = null;
+		}
+
+		if (closed)
+			return;
+
+		// check the timers often enough to honour the shortest delay
+		long shortest = Long.MAX_VALUE;
+		if (policy.getMaxDelay() > 0)
+			shortest = policy.getMaxDelay();
+		if (policy.getIdleDelay() > 0)
+			shortest = Math.min(shortest, policy.getIdleDelay());
+
+		if (shortest != Long.MAX_VALUE) {
+
+			long period = Math.max(MIN_TIMER_PERIOD, shortest / 4);
+
+			timerTask = timer().scheduleAtFixedRate(new Runnable() {
+
+				@Override
+				public void run() {
+					checkTimers();
+				}
+
+			}, period, period, TimeUnit.MILLISECONDS);
+
+		}
+
+	}
+
+	/** Returns a snapshot of the commit counters. */
+	synchronized CommitStatistics getStatistics() {
+
+		CommitStatistics snapshot = new CommitStatistics();
+
+		snapshot.pendingEntries = statistics.pendingEntries;
+		snapshot.commits = statistics.commits;
+		snapshot.committedEntries = statistics.committedEntries;
+		snapshot.forcedCommits = statistics.forcedCommits;
+		snapshot.triggerCounts = statistics.triggerCounts.clone();
+		snapshot.lastBatchSize = statistics.lastBatchSize;
+		snapshot.maxBatchSize = statistics.maxBatchSize;
+		snapshot.lastLatencyNanos = statistics.lastLatencyNanos;
+		snapshot.totalLatencyNanos = statistics.totalLatencyNanos;
+		snapshot.maxLatencyNanos = statistics.maxLatencyNanos;
+
+		return snapshot;
+
+	}
+
+	/**
+	 * Writes the given entries, committing them if the entry limit is
+	 * reached.
+	 *
+	 * @param logEntries The entries to write (must not be {@code null}).
+	 * @throws IOException If the entries could not be written.
+	 */
+	synchronized void write(List<LogEntry> logEntries) throws IOException {
+
+		requireNotNull(logEntries);
+		require(!closed);
+
+		if (logEntries.isEmpty())
+			return;
+
+		// NOTE journalled first, so never in the log but not the journal
+		if (journal != null)
+			journal.append(logEntries);
+
+		for (LogEntry logEntry : logEntries)
+			writer.write(logEntry);
+
+		lastWriteTime = System.nanoTime();
+
+		if (statistics.pendingEntries == 0)
+			firstPendingTime = lastWriteTime;
+		statistics.pendingEntries += logEntries.size();
+
+		if (statistics.pendingEntries >= policy.getMaxEntries())
+			commit(CommitStatistics.Trigger.ENTRIES);
+
+	}
+
+	// commits the pending entries if a delay has passed
+	private synchronized void checkTimers() {
+
+		if (closed || statistics.pendingEntries == 0)
+			return;
+
+		long now = System.nanoTime();
+
+		try {
+
+			if (policy.getMaxDelay() > 0 &&
+					now - firstPendingTime >= TimeUnit.MILLISECONDS.toNanos(policy.getMaxDelay())) {
+				commit(CommitStatistics.Trigger.DELAY);
+			} else if (policy.getIdleDelay() > 0 &&
+					now - lastWriteTime >= TimeUnit.MILLISECONDS.toNanos(policy.getIdleDelay())) {
+				commit(CommitStatistics.Trigger.IDLE);
+			}
+
+		} catch (IOException ex) {
+			logger.error("Failed to commit log entries!", ex);
+		}
+
+	}
+
+	/**
+	 * Commits the pending entries (if any).
+	 *
+	 * @throws IOException If the entries could not be committed.
+	 */
+	synchronized void commit() throws IOException {
+
+		if (!closed && statistics.pendingEntries > 0)
+			commit(CommitStatistics.Trigger.EXPLICIT);
+
+	}
+
+	// commits the pending entries
+	private void commit(CommitStatistics.Trigger trigger) throws IOException {
+
+		long start = System.nanoTime();
+
+		if (policy.isForced())
+			writer.force();
+		else
+			writer.flush();
+
+		if (journal != null)
+			journal.checkpoint(writer.getEntryCount());
+
+		long latency = System.nanoTime() - start;
+		int batchSize = statistics.pendingEntries;
+
+		statistics.pendingEntries = 0;
+		statistics.commits++;
+		statistics.committedEntries += batchSize;
+		statistics.triggerCounts[trigger.ordinal()]++;
+		if (policy.isForced())
+			statistics.forcedCommits++;
+
+		statistics.lastBatchSize = batchSize;
+		statistics.maxBatchSize = Math.max(statistics.maxBatchSize, batchSize);
+		statistics.lastLatencyNanos = latency;
+		statistics.totalLatencyNanos += latency;
+		statistics.maxLatencyNanos = Math.max(statistics.maxLatencyNanos, latency);
+
+	}
+
+	/**
+	 * Commits the pending entries, then closes the log and deletes the
+	 * journal.
+	 *
+	 * @param loggerTypes The types of the loggers which made the entries.
+	 * @throws IOException If the log could not be finished.
+	 */
+	synchronized void close(Collection<String> loggerTypes) throws IOException {
+
+		if (closed)
+			return;
+
+		if (timerTask != null) {
+			timerTask.cancel(false);
+			timerTask = null;
+		}
+
+		try {
+			commit();
+		} finally {
+			closed = true;
+			writer.close(loggerTypes);
+		}
+
+		// NOTE kept if the log was not finished, to recover from
+		if (journal != null)
+			journal.delete();
+
+	}
+
+}
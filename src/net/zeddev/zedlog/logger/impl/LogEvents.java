@@ -45,6 +45,15 @@ public class LogEvents {
 	// the classes for the available log events types
 	private static final Map<String, Class> CLASSES = new HashMap<>();
 
+	/** The largest tag given to an event type. */
+	// NOTE 0x7F is the binary log's calibration record.
+	public static final int MAX_TAG = 0x7E;
+
+	// the binary log format tags of the log event types (and the reverse)
+	// NOTE Stored in the log files, so must never be changed or reused.
+	private static final Map<String, Integer> TAGS = new HashMap<>();
+	private static final String[] TAGGED_TYPES = new String[MAX_TAG + 1];
+
 	static {
 
 		// the list of available log event instances
@@ -64,6 +73,25 @@ public class LogEvents {
 			TYPES.add(eventInstance.type());
 		}
 
+		tag("KeyEvent", 1);
+		tag("MouseClicked", 2);
+		tag("MouseDragged", 3);
+		tag("MouseMoved", 4);
+		tag("MousePressed", 5);
+		tag("MouseReleased", 6);
+		tag("MouseWheelMoved", 7);
+
+	}
+
+	// sets the tag of the given event type
+	private static void tag(String type, int tag) {
+
+		assert(CLASSES.containsKey(type));
+		assert(tag > 0 && tag <= MAX_TAG && TAGGED_TYPES[tag] == null);
+
+		TAGS.put(type, tag);
+		TAGGED_TYPES[tag] = type;
+
 	}
 
 	private LogEvents() {
@@ -97,6 +125,41 @@ public class LogEvents {
 
 	}
 
+	/**
+	 * Returns the one byte tag identifying the given event type in the
+	 * binary log format.
+	 *
+	 * @param type The type of the {@code LogEvent}.
+	 * @return The tag (between 1 and {@code MAX_TAG}), or -1 if the given
+	 * type is not known.
+	 */
+	public static int tagOf(String type) {
+
+		assert(type != null);
+
+		Integer tag = TAGS.get(type);
+
+		return tag == null ? -1 : tag;
+
+	}
+
+	/**
+	 * Creates a new {@code LogEvent} of the type with the given binary log
+	 * format tag (see {@code tagOf()}).
+	 *
+	 * @param tag The tag of the {@code LogEvent} type.
+	 * @return The new {@code LogEvent} instance.  Or {@code null} if
+	 * the given tag is not known.
+	 */
+	public static LogEvent newLogEvent(int tag) {
+
+		if (tag <= 0 || tag > MAX_TAG || TAGGED_TYPES[tag] == null)
+			return null;
+
+		return newLogEvent(TAGGED_TYPES[tag]);
+
+	}
+
 	/**
 	 * Returns the list of available {@code LogEvent} types producable by
 	 * {@code newLogEvent()}.
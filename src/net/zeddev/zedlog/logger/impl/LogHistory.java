@@ -0,0 +1,61 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import net.zeddev.zedlog.logger.LogEntry;
+
+/**
+ * The history of {@code LogEntry}s retained by a {@code CompositeDataLogger}.
+ * Entries are only ever appended (or all cleared), so the entries before
+ * a given size never change.  See {@code LogHistoryView} for a {@code List}
+ * view of the history.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public interface LogHistory extends Closeable {
+
+	/**
+	 * Appends the given entries to the history.
+	 *
+	 * @param logEntries The entries to append (must not be {@code null}).
+	 * @throws IOException If the entries could not be stored.
+	 */
+	public void addAll(final List<LogEntry> logEntries) throws IOException;
+
+	/** Returns the number of entries in the history. */
+	public int size();
+
+	/**
+	 * Returns the entry at the given index.
+	 *
+	 * @param index The index of the entry (from {@code 0} to {@code size()}).
+	 * @return The entry.
+	 * @throws IOException If the entry could not be loaded.
+	 */
+	public LogEntry get(final int index) throws IOException;
+
+	/**
+	 * Removes all entries from the history.
+	 *
+	 * @throws IOException If the stored entries could not be released.
+	 */
+	public void clear() throws IOException;
+
+}
@@ -0,0 +1,78 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import net.zeddev.zedlog.logger.LogEntry;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * A read-only {@code List} view of the entries in a {@code LogHistory}, as
+ * they were when the view was created.
+ * Entries are loaded from the history as they are accessed, so the view
+ * is cheap to create regardless of the history's length.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class LogHistoryView extends AbstractList<LogEntry> implements RandomAccess {
+
+	private final LogHistory history;
+	private final int size;
+
+	/**
+	 * Creates a new view of the given history's current entries.
+	 *
+	 * @param history The history viewed (must not be {@code null}).
+	 */
+	public LogHistoryView(LogHistory history) {
+
+		requireNotNull(history);
+
+		this.history = history;
+		this.size = history.size();
+
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the entry at the given index.
+	 *
+	 * @throws IllegalStateException If the entry could not be loaded (e.g.
+	 * the history was cleared).
+	 */
+	@Override
+	public LogEntry get(int index) {
+
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException(String.format("Index %d of %d entries!", index, size));
+
+		try {
+			return history.get(index);
+		} catch (IOException | IndexOutOfBoundsException ex) {
+			throw new IllegalStateException("Failed to load log entry from history!", ex);
+		}
+
+	}
+
+}
@@ -0,0 +1,356 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import net.zeddev.zedlog.logger.BinaryDecoder;
+import net.zeddev.zedlog.logger.BinaryEncoder;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * A sparse index of a binary log, written alongside the log (see
+ * {@code indexFile()}) once it is closed.
+ * The log is divided into blocks of {@code BLOCK_SIZE} entries, each
+ * recording its file offset, entry number, timestamps and which event types
+ * it contains.
+ * Used to start reading a log at any timestamp or entry number, and to skip
+ * blocks without the event types of interest, without decoding the entries
+ * before them.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class LogIndex {
+
+	/** The file extension added to the log's file name. */
+	public static final String EXTENSION = ".zidx";
+
+	/** The number of entries in each block. */
+	public static final int BLOCK_SIZE = 256;
+
+	// the magic bytes starting an index, and the format version
+	private static final byte[] MAGIC = {'Z', 'I', 'D', 'X'};
+	private static final int VERSION = 1;
+
+	/** A block of consecutive entries in the log. */
+	public static final class Block {
+
+		private final long offset;
+		private final long firstEntry;
+		private final long baseTimestamp;
+
+		private int entryCount = 0;
+		private long firstTimestamp;
+		private long maxTimestamp;
+
+		private final BitSet eventTags = new BitSet();
+
+		Block(long offset, long firstEntry, long baseTimestamp) {
+			this.offset = offset;
+			this.firstEntry = firstEntry;
+			this.baseTimestamp = baseTimestamp;
+		}
+
+		/** Returns the file offset of the block's first entry. */
+		public long getOffset() {
+			return offset;
+		}
+
+		/** Returns the number of the block's first entry (from zero). */
+		public long getFirstEntry() {
+			return firstEntry;
+		}
+
+		/**
+		 * Returns the timestamp of the entry before the block (from which the
+		 * first entry's timestamp is encoded).
+		 */
+		public long getBaseTimestamp() {
+			return baseTimestamp;
+		}
+
+		/** Returns the number of entries in the block. */
+		public int getEntryCount() {
+			return entryCount;
+		}
+
+		/** Returns the timestamp of the block's first entry. */
+		public long getFirstTimestamp() {
+			return firstTimestamp;
+		}
+
+		/**
+		 * Returns the latest timestamp of any entry up to (and including) the
+		 * block.
+		 * Never decreases from block to block, even if the entries are not
+		 * in chronological order.
+		 */
+		public long getMaxTimestamp() {
+			return maxTimestamp;
+		}
+
+		/**
+		 * Whether the block contains any entries of the given event type.
+		 *
+		 * @param eventType The event type (see {@code LogEvent.type()}).
+		 */
+		public boolean contains(String eventType) {
+
+			int tag = LogEvents.tagOf(eventType);
+
+			return tag >= 0 && eventTags.get(tag);
+
+		}
+
+	}
+
+	private final List<Block> blocks = new ArrayList<>();
+
+	private long entryCount = 0;
+
+	/** Creates a new, empty {@code LogIndex}. */
+	LogIndex() {
+	}
+
+	/**
+	 * Indexes the next entry of the log.
+	 *
+	 * @param offset The file offset of the entry.
+	 * @param previousTimestamp The timestamp of the previous entry.
+	 * @param timestamp The timestamp of the entry.
+	 * @param eventTag The tag of the entry's event type.
+	 */
+	void add(long offset, long previousTimestamp, long timestamp, int eventTag) {
+
+		Block block;
+
+		if (entryCount % BLOCK_SIZE == 0) {
+
+			block = new Block(offset, entryCount, previousTimestamp);
+			block.firstTimestamp = timestamp;
+			block.maxTimestamp = blocks.isEmpty() ?
+				timestamp : Math.max(timestamp, blocks.get(blocks.size() - 1).maxTimestamp);
+
+			blocks.add(block);
+
+		} else {
+			block = blocks.get(blocks.size() - 1);
+		}
+
+		block.entryCount++;
+		block.maxTimestamp = Math.max(block.maxTimestamp, timestamp);
+		block.eventTags.set(eventTag);
+
+		entryCount++;
+
+	}
+
+	/** Returns the number of blocks. */
+	public int getBlockCount() {
+		return blocks.size();
+	}
+
+	/** Returns the block with the given number. */
+	public Block getBlock(int block) {
+		return blocks.get(block);
+	}
+
+	/** Returns the number of entries in the log. */
+	public long getEntryCount() {
+		return entryCount;
+	}
+
+	/**
+	 * Finds the block containing the first entry at (or after) the given
+	 * timestamp.
+	 *
+	 * @param timestamp The timestamp to find.
+	 * @return The block number, or {@code -1} if all entries are earlier.
+	 */
+	public int findTimestamp(long timestamp) {
+
+		// NOTE the max timestamps are ordered, so can be binary searched
+		int low = 0;
+		int high = blocks.size();
+
+		while (low < high) {
+
+			int mid = (low + high) >>> 1;
+
+			if (blocks.get(mid).maxTimestamp < timestamp)
+				low = mid + 1;
+			else
+				high = mid;
+
+		}
+
+		return low == blocks.size() ? -1 : low;
+
+	}
+
+	/**
+	 * Finds the block containing the given entry.
+	 *
+	 * @param entry The entry number (from zero).
+	 * @return The block number, or {@code -1} if there is no such entry.
+	 */
+	public int findEntry(long entry) {
+
+		if (entry < 0 || entry >= entryCount)
+			return -1;
+
+		return (int) (entry / BLOCK_SIZE);
+
+	}
+
+	/**
+	 * Finds the next block containing entries of the given event type.
+	 *
+	 * @param block The block to start from.
+	 * @param eventType The event type (see {@code LogEvent.type()}).
+	 * @return The block number, or {@code -1} if no later block contains
+	 * the type.
+	 */
+	public int findEventType(int block, String eventType) {
+
+		requireNotNull(eventType);
+
+		for (int i = Math.max(block, 0); i < blocks.size(); i++) {
+			if (blocks.get(i).contains(eventType))
+				return i;
+		}
+
+		return -1;
+
+	}
+
+	/**
+	 * Returns the index file of the given log.
+	 *
+	 * @param log The log file.
+	 */
+	public static File indexFile(File log) {
+
+		requireNotNull(log);
+
+		return new File(log.getPath() + EXTENSION);
+
+	}
+
+	/**
+	 * Writes the index of the given log.
+	 *
+	 * @param log The (closed) log file.
+	 * @throws IOException If the index could not be written.
+	 */
+	void write(File log) throws IOException {
+
+		BinaryEncoder encoder = new BinaryEncoder();
+
+		for (byte magic : MAGIC)
+			encoder.writeByte(magic);
+		encoder.writeByte(VERSION);
+
+		// NOTE identifies the log version indexed
+		encoder.writeVarLong(log.length());
+
+		encoder.writeVarInt(blocks.size());
+		for (Block block : blocks) {
+
+			encoder.writeVarLong(block.offset);
+			encoder.writeSignedVarLong(block.baseTimestamp);
+			encoder.writeVarInt(block.entryCount);
+			encoder.writeSignedVarLong(block.firstTimestamp);
+			encoder.writeSignedVarLong(block.maxTimestamp);
+
+			long[] eventTags = block.eventTags.toLongArray();
+			encoder.writeVarInt(eventTags.length);
+			for (long word : eventTags)
+				encoder.writeVarLong(word);
+
+		}
+
+		try (OutputStream output = new FileOutputStream(indexFile(log))) {
+			encoder.writeTo(output);
+		}
+
+	}
+
+	/**
+	 * Reads the index of the given log.
+	 *
+	 * @param log The log file.
+	 * @return The index, or {@code null} if the log has no (current) index.
+	 * @throws IOException If the index is malformed, or could not be read.
+	 */
+	public static LogIndex read(File log) throws IOException {
+
+		requireNotNull(log);
+
+		File file = indexFile(log);
+		if (!file.isFile())
+			return null;
+
+		BinaryDecoder input = new BinaryDecoder(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+
+		for (byte magic : MAGIC) {
+			if (input.readByte() != (magic & 0xFF))
+				throw new IOException(String.format("%s is not a log index!", file.getPath()));
+		}
+
+		int version = input.readByte();
+		if (version != VERSION)
+			throw new IOException(String.format("Unsupported log index version %d!", version));
+
+		// ignore the index if the log has since changed
+		if (input.readVarLong() != log.length())
+			return null;
+
+		LogIndex index = new LogIndex();
+
+		int blockCount = input.readVarInt();
+		for (int i = 0; i < blockCount; i++) {
+
+			Block block = new Block(input.readVarLong(), index.entryCount, input.readSignedVarLong());
+
+			block.entryCount = input.readVarInt();
+			block.firstTimestamp = input.readSignedVarLong();
+			block.maxTimestamp = input.readSignedVarLong();
+
+			long[] eventTags = new long[input.readVarInt()];
+			for (int j = 0; j < eventTags.length; j++)
+				eventTags[j] = input.readVarLong();
+			block.eventTags.or(BitSet.valueOf(eventTags));
+
+			index.blocks.add(block);
+			index.entryCount += block.entryCount;
+
+		}
+
+		return index;
+
+	}
+
+}
@@ -0,0 +1,514 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import net.zeddev.litelogger.Logger;
+import net.zeddev.zedlog.logger.BinaryDecoder;
+import net.zeddev.zedlog.logger.BinaryEncoder;
+import net.zeddev.zedlog.logger.CaptureClock;
+import net.zeddev.zedlog.logger.ClockCalibration;
+import net.zeddev.zedlog.logger.LogEntry;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * A write-ahead journal of the log entries not yet committed to a log file.
+ * Entries are appended to the journal before they are written to the log,
+ * and the journal is emptied (checkpointed) each time the log is committed,
+ * so on a crash the journal holds any entries the log may be missing (see
+ * {@code recover()}).
+ * The journal is;
+ * <ul>
+ *	<li>A fixed size header of the magic bytes {@code ZJNL}, the format
+ *	version, the number of the first journalled entry (i.e. the entries
+ *	committed to the log by this writer) and the first segment written (for
+ *	log stores).</li>
+ *	<li>A record per entry; the (variable length) length of the record, its
+ *	CRC32 checksum and the entry (as encoded in a binary log, relative to
+ *	timestamp 0).</li>
+ *	<li>Before the entries it applies to, a record (framed as the entries) of
+ *	the capture clock's calibration (see {@code CaptureClock}), as encoded in
+ *	a binary log; so recovered entries keep the calibration of the run which
+ *	captured them.</li>
+ * </ul>
+ * Records which are torn (i.e. partially written) or fail their checksum end
+ * the journal.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class LogJournal {
+
+	private static final Logger logger = Logger.getLogger(LogJournal.class);
+
+	/** The file extension added to the log's file name. */
+	public static final String EXTENSION = ".zjournal";
+
+	// the journal file of log stores (in the store directory)
+	private static final String STORE_JOURNAL = "journal";
+
+	// the magic bytes starting a journal, and the format version
+	private static final byte[] MAGIC = {'Z', 'J', 'N', 'L'};
+	private static final int VERSION = 3;
+
+	// the oldest format version read, and the first with calibration records
+	private static final int MIN_VERSION = 2;
+	private static final int CALIBRATION_VERSION = 3;
+
+	// the size of the header; magic, version, first entry and first segment
+	private static final int HEADER_SIZE = 4 + 1 + 8 + 4;
+
+	// the offset of the first entry number in the header
+	private static final int FIRST_ENTRY_OFFSET = 5;
+
+	private final File file;
+	private final FileChannel channel;
+
+	// the first segment written by the log (or 0 if not a log store)
+	private final int firstSegment;
+
+	// the end of the journal
+	private long position = HEADER_SIZE;
+
+	// encodes the records before they are written
+	private final BinaryEncoder encoder = new BinaryEncoder();
+	private final BinaryEncoder record = new BinaryEncoder();
+	private final CRC32 crc = new CRC32();
+
+	// the last calibration journalled (since the last checkpoint)
+	private ClockCalibration lastCalibration = null;
+
+	private boolean closed = false;
+
+	/**
+	 * Creates a new, empty journal for the given log (replacing any
+	 * existing journal).
+	 *
+	 * @param log The log file (or store directory) journalled.
+	 * @param firstSegment The first segment written to the log store (or
+	 * {@code 0} if not a log store).
+	 * @throws IOException If the journal could not be created.
+	 */
+	public LogJournal(File log, int firstSegment) throws IOException {
+
+		requireNotNull(log);
+		require(firstSegment >= 0);
+
+		this.file = journalFile(log);
+		this.firstSegment = firstSegment;
+
+		channel = FileChannel.open(
+			file.toPath(),
+			StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+			StandardOpenOption.TRUNCATE_EXISTING
+		);
+
+		try {
+			writeHeader(0);
+		} catch (IOException ex) {
+			channel.close();
+			throw ex;
+		}
+
+	}
+
+	/**
+	 * Returns the journal file of the given log.
+	 *
+	 * @param log The log file (or store directory).
+	 */
+	public static File journalFile(File log) {
+
+		requireNotNull(log);
+
+		if (log.isDirectory())
+			return new File(log, STORE_JOURNAL);
+
+		return new File(log.getPath() + EXTENSION);
+
+	}
+
+	/** Returns the journal file. */
+	public File getFile() {
+		return file;
+	}
+
+	// writes the header, with the given first entry number
+	private void writeHeader(long firstEntry) throws IOException {
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+		header.put(MAGIC);
+		header.put((byte) VERSION);
+		header.putLong(firstEntry);
+		header.putInt(firstSegment);
+		header.flip();
+
+		while (header.hasRemaining())
+			channel.write(header, header.position());
+
+	}
+
+	/**
+	 * Appends the given entries to the journal.
+	 * The entries are written directly to the file, so survive the program
+	 * crashing (but not the system, unless forced).
+	 *
+	 * @param logEntries The entries to append (must not be {@code null}).
+	 * @throws IOException If the entries could not be written.
+	 */
+	public void append(List<LogEntry> logEntries) throws IOException {
+		// NOTE the calibration the log's writer records with the entries
+		append(logEntries, CaptureClock.getCalibration());
+	}
+
+	/**
+	 * Appends the given entries, captured under the given calibration of the
+	 * capture clock.
+	 *
+	 * @param logEntries The entries to append (must not be {@code null}).
+	 * @param calibration The calibration (must not be {@code null}).
+	 * @throws IOException If the entries could not be written.
+	 */
+	synchronized void append(List<LogEntry> logEntries, ClockCalibration calibration) throws IOException {
+
+		requireNotNull(logEntries);
+		requireNotNull(calibration);
+		require(!closed);
+
+		encoder.clear();
+
+		for (LogEntry logEntry : logEntries) {
+
+			if (!calibration.equals(lastCalibration)) {
+
+				record.clear();
+				record.writeByte(BinaryLogWriter.CALIBRATION_RECORD);
+				record.writeVarLong(calibration.getCaptureTime());
+				record.writeVarLong(calibration.getWallClock());
+				encodeRecord();
+
+				lastCalibration = calibration;
+
+			}
+
+			record.clear();
+			BinaryLogWriter.encodeEntry(record, logEntry, 0, 0);
+			encodeRecord();
+
+		}
+
+		position += encoder.writeTo(channel, position);
+
+	}
+
+	// frames the encoded record, with its length and checksum
+	private void encodeRecord() {
+
+		byte[] bytes = record.toByteArray();
+
+		crc.reset();
+		crc.update(bytes, 0, bytes.length);
+		int checksum = (int) crc.getValue();
+
+		encoder.writeVarInt(bytes.length);
+		encoder.writeByte(checksum >>> 24);
+		encoder.writeByte(checksum >>> 16);
+		encoder.writeByte(checksum >>> 8);
+		encoder.writeByte(checksum);
+		encoder.writeBytes(bytes);
+
+	}
+
+	/**
+	 * Forces the journal to the storage device, so the entries survive a
+	 * system crash.
+	 *
+	 * @throws IOException If the journal could not be forced.
+	 */
+	public synchronized void force() throws IOException {
+
+		if (!closed)
+			channel.force(false);
+
+	}
+
+	/**
+	 * Empties the journal, once its entries are committed to the log.
+	 *
+	 * @param committedEntries The number of entries committed to the log by
+	 * its writer.
+	 * @throws IOException If the journal could not be emptied.
+	 */
+	public synchronized void checkpoint(long committedEntries) throws IOException {
+
+		require(committedEntries >= 0);
+
+		if (closed)
+			return;
+
+		// NOTE emptied before updating the header, so a crash in between
+		//      leaves an empty journal rather than misnumbered entries
+		channel.truncate(HEADER_SIZE);
+		position = HEADER_SIZE;
+		lastCalibration = null;
+
+		writeHeader(committedEntries);
+
+	}
+
+	/**
+	 * Closes and deletes the journal, once the log is finished.
+	 *
+	 * @throws IOException If the journal could not be deleted.
+	 */
+	public synchronized void delete() throws IOException {
+
+		if (closed)
+			return;
+
+		closed = true;
+
+		channel.close();
+		Files.deleteIfExists(file.toPath());
+
+	}
+
+	/** The contents of a journal left by a crash. */
+	static final class Contents {
+
+		long firstEntry;
+		int firstSegment;
+
+		final List<LogEntry> entries = new ArrayList<>();
+
+		// the calibration of each entry (or null if not journalled)
+		final List<ClockCalibration> calibrations = new ArrayList<>();
+
+		// the end of the last intact record
+		long end;
+
+		// whether the journal ended with a torn or corrupt record
+		boolean torn = false;
+
+	}
+
+	/**
+	 * Reads the intact entries of the given journal.
+	 *
+	 * @param file The journal file.
+	 * @return The journal's contents.
+	 * @throws IOException If the file is not a journal, or could not be read.
+	 */
+	static Contents read(File file) throws IOException {
+
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		Contents contents = new Contents();
+
+		// an empty (or partial) header has no entries
+		if (bytes.length < HEADER_SIZE) {
+			contents.end = 0;
+			contents.torn = bytes.length > 0;
+			return contents;
+		}
+
+		ByteBuffer header = ByteBuffer.wrap(bytes, 0, HEADER_SIZE);
+
+		byte[] magic = new byte[MAGIC.length];
+		header.get(magic);
+
+		if (!Arrays.equals(magic, MAGIC))
+			throw new IOException(String.format("%s is not a log journal!", file.getPath()));
+
+		int version = header.get() & 0xFF;
+		if (version < MIN_VERSION || version > VERSION)
+			throw new IOException(String.format("Unsupported log journal version %d!", version));
+
+		contents.firstEntry = header.getLong();
+		contents.firstSegment = header.getInt();
+
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		buffer.position(HEADER_SIZE);
+
+		BinaryDecoder input = new BinaryDecoder(buffer);
+		CRC32 crc = new CRC32();
+		ClockCalibration calibration = null;
+
+		contents.end = HEADER_SIZE;
+
+		while (input.hasRemaining()) {
+
+			try {
+
+				int length = input.readVarInt();
+
+				int checksum = 0;
+				for (int i = 0; i < 4; i++)
+					checksum = (checksum << 8) | input.readByte();
+
+				if (length < 1 || length > buffer.remaining())
+					throw new EOFException("Torn journal record!");
+
+				int start = buffer.position();
+
+				crc.reset();
+				crc.update(bytes, start, length);
+				if ((int) crc.getValue() != checksum)
+					throw new EOFException("Corrupt journal record!");
+
+				int tag = input.readByte();
+
+				if (tag == BinaryLogWriter.CALIBRATION_RECORD && version >= CALIBRATION_VERSION) {
+
+					ClockCalibration read = new ClockCalibration(input.readVarLong(), input.readVarLong());
+
+					if (buffer.position() != start + length)
+						throw new EOFException("Malformed journal record!");
+
+					calibration = read;
+					contents.end = buffer.position();
+
+					continue;
+
+				}
+
+				LogEntry logEntry = BinaryLogReader.decodeEntry(input, BinaryLogWriter.VERSION, tag, 0, 0);
+
+				if (buffer.position() != start + length)
+					throw new EOFException("Malformed journal record!");
+
+				contents.entries.add(logEntry);
+				contents.calibrations.add(calibration);
+				contents.end = buffer.position();
+
+			} catch (IOException ex) {
+				contents.torn = true;
+				break;
+			}
+
+		}
+
+		return contents;
+
+	}
+
+	/**
+	 * Recovers the given log after a crash, appending the entries of its
+	 * journal which the log is missing (with their journalled calibrations),
+	 * then deletes the journal.
+	 * Has no effect if the log has no journal.
+	 *
+	 * @param log The log file (or store directory).
+	 * @return The number of entries recovered.
+	 * @throws IOException If the log could not be recovered.
+	 */
+	public static int recover(File log) throws IOException {
+
+		requireNotNull(log);
+
+		File file = journalFile(log);
+		if (!file.isFile())
+			return 0;
+
+		Contents journal = read(file);
+
+		if (journal.torn) {
+			logger.warning(
+				"Discarded torn record at the end of journal %s.", null, file.getPath()
+			);
+		}
+
+		int recovered = 0;
+
+		if (!journal.entries.isEmpty() && log.exists()) {
+
+			LogWriter writer;
+			long logged; // the entries written to the log by its last writer
+
+			// NOTE the writers keep the log's existing loggers
+			if (log.isDirectory()) {
+
+				SegmentedLogStore.Manifest manifest = SegmentedLogStore.readManifest(log);
+				logged = countStoreEntries(log, manifest, journal.firstSegment);
+
+				writer = new SegmentedLogStore(log, Collections.<String>emptyList());
+
+			} else if (BinaryLogWriter.isBinaryLog(log)) {
+				writer = BinaryLogWriter.openForAppend(log);
+				logged = writer.getEntryCount();
+			} else {
+				writer = XmlLogWriter.openForAppend(log);
+				logged = writer.getEntryCount();
+			}
+
+			try {
+
+				// append the entries the log is missing
+				for (int i = 0; i < journal.entries.size(); i++) {
+					if (journal.firstEntry + i >= logged) {
+						writer.setCalibration(journal.calibrations.get(i));
+						writer.write(journal.entries.get(i));
+						recovered++;
+					}
+				}
+
+			} finally {
+				writer.close();
+			}
+
+		}
+
+		Files.delete(file.toPath());
+
+		return recovered;
+
+	}
+
+	// counts the entries in the store's segments, from the given segment
+	private static long countStoreEntries(File directory, SegmentedLogStore.Manifest manifest,
+			int firstSegment) throws IOException {
+
+		long count = 0;
+
+		for (SegmentedLogStore.Segment segment : manifest.segments) {
+
+			if (segment.number < firstSegment)
+				continue;
+
+			try (BinaryLogReader reader = new BinaryLogReader(new File(directory, segment.fileName()))) {
+				while (reader.next() != null)
+					count++;
+			}
+
+		}
+
+		return count;
+
+	}
+
+}
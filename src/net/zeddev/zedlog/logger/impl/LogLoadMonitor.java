@@ -0,0 +1,36 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Observes the loading of a log file (see
+ * {@code CompositeDataLogger.openLogFile()}).
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public interface LogLoadMonitor {
+
+	/**
+	 * Notifies the progress of the load, after each batch of entries.
+	 *
+	 * @param position The (approximate) number of bytes read.
+	 * @param size The size of the log file (in bytes).
+	 * @param entryCount The number of entries loaded.
+	 * @return Whether to continue loading ({@code false} cancels the load).
+	 */
+	public boolean loadProgress(long position, long size, long entryCount);
+
+}
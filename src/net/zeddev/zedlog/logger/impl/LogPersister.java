@@ -0,0 +1,344 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.zeddev.litelogger.Logger;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.LogEntryRingBuffer;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * Writes log entries to a {@code Target} (the log file) on its own thread,
+ * so disk stalls never delay the observers or loggers submitting them.
+ * The entries are queued in a bounded ring buffer and drained, all at once,
+ * into a second buffer which is written as a single batch; so entries keep
+ * being queued while a batch is written.  When the queue is full the
+ * submitting thread waits for room (the back-pressure of the stage) rather
+ * than entries being lost, and the waits are counted (see
+ * {@code PersistenceStatistics}).
+ * Pooled entries (see {@code LogEntryPool}) are retained while queued.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+final class LogPersister {
+
+	/** Writes the persisted entries, from the persister's thread. */
+	static interface Target {
+
+		/**
+		 * Writes the given entries.
+		 *
+		 * @param logEntries The entries, in the order they were submitted.
+		 */
+		public void write(final List<LogEntry> logEntries);
+
+	}
+
+	/** The default most entries queued to be written. */
+	public static final int QUEUE_SIZE = 8192;
+		// NOTE: Holds several seconds of the fastest mice, so only long disk
+		//	   stalls push back on the loggers.
+
+	private static final Logger logger = Logger.getLogger(LogPersister.class);
+
+	private final String name;
+	private final Target target;
+
+	// the entries waiting to be written (the front buffer)
+	private final LogEntryRingBuffer queue;
+
+	// the batch being written (the back buffer), only used by the thread
+	private final List<LogEntry> batch;
+	private final List<LogEntry> readOnlyBatch;
+
+	// the thread writing the batches, started when first needed
+	private Thread thread = null;
+
+	// whether entries are no longer accepted
+	private boolean closed = false;
+
+	// the counters, guarded by this
+	private final PersistenceStatistics statistics = new PersistenceStatistics();
+
+	/**
+	 * Creates a new {@code LogPersister} with the default queue size.
+	 *
+	 * @param name The name of the persister's thread (must not be {@code null}).
+	 * @param target The target of the entries (must not be {@code null}).
+	 */
+	LogPersister(String name, Target target) {
+		this(name, QUEUE_SIZE, target);
+	}
+
+	/**
+	 * Creates a new {@code LogPersister}.
+	 *
+	 * @param name The name of the persister's thread (must not be {@code null}).
+	 * @param capacity The most entries queued to be written (must be
+	 * positive).
+	 * @param target The target of the entries (must not be {@code null}).
+	 */
+	LogPersister(String name, int capacity, Target target) {
+
+		requireNotNull(name);
+		require(capacity > 0);
+		requireNotNull(target);
+
+		this.name = name;
+		this.target = target;
+
+		queue = new LogEntryRingBuffer(capacity);
+		batch = new ArrayList<>(queue.capacity());
+		readOnlyBatch = Collections.unmodifiableList(batch);
+
+		statistics.capacity = queue.capacity();
+
+	}
+
+	/**
+	 * Queues the given entries to be written, waiting for room if the queue
+	 * is full.
+	 * Ignored once closed.
+	 *
+	 * @param logEntries The entries to write (must not be {@code null}), so
+	 * may be reused once returned.
+	 */
+	void submit(List<LogEntry> logEntries) {
+
+		requireNotNull(logEntries);
+
+		if (logEntries.isEmpty())
+			return;
+
+		synchronized (this) {
+
+			if (closed) {
+				logger.warning("Ignored %d log entries submitted once closed.", null, logEntries.size());
+				return;
+			}
+
+			if (thread == null)
+				start();
+
+			// NOTE counted first, so flush() waits for them
+			statistics.submitted += logEntries.size();
+
+		}
+
+		for (int i = 0; i < logEntries.size(); i++) {
+
+			LogEntry logEntry = logEntries.get(i);
+
+			logEntry.retain();
+
+			if (!queue.offer(logEntry))
+				putBlocking(logEntry);
+
+		}
+
+	}
+
+	// queues the entry, waiting for room
+	private void putBlocking(LogEntry logEntry) {
+
+		long start = System.nanoTime();
+		boolean interrupted = false;
+
+		// NOTE never dropped, the entry must reach the log file
+		while (true) {
+			try {
+				queue.put(logEntry);
+				break;
+			} catch (InterruptedException ex) {
+				interrupted = true;
+			}
+		}
+
+		if (interrupted)
+			Thread.currentThread().interrupt();
+
+		long waited = System.nanoTime() - start;
+
+		synchronized (this) {
+			statistics.blocked++;
+			statistics.totalBlockedNanos += waited;
+			statistics.maxBlockedNanos = Math.max(statistics.maxBlockedNanos, waited);
+		}
+
+	}
+
+	// starts the persister's thread, lock must be held
+	private void start() {
+
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeBatches();
+			}
+		}, name);
+
+		thread.setDaemon(true);
+		thread.start();
+
+	}
+
+	// writes the queued entries, until closed
+	private void writeBatches() {
+
+		while (true) {
+
+			try {
+				queue.awaitDrainTo(batch);
+			} catch (InterruptedException ex) {
+
+				// NOTE only interrupted once closed and flushed
+				if (isClosed())
+					return;
+
+				continue;
+
+			}
+
+			long start = System.nanoTime();
+
+			// dont let a failing target stop the stage
+			try {
+				target.write(readOnlyBatch);
+			} catch (RuntimeException ex) {
+				logger.error("Failed to persist %d log entries!", ex, batch.size());
+			}
+
+			long elapsed = System.nanoTime() - start;
+			int size = batch.size();
+
+			for (int i = 0; i < size; i++)
+				batch.get(i).release();
+
+			batch.clear();
+
+			synchronized (this) {
+
+				statistics.written += size;
+				statistics.batches++;
+				statistics.lastBatchSize = size;
+				statistics.maxBatchSize = Math.max(statistics.maxBatchSize, size);
+				statistics.lastWriteNanos = elapsed;
+				statistics.totalWriteNanos += elapsed;
+				statistics.maxWriteNanos = Math.max(statistics.maxWriteNanos, elapsed);
+
+				notifyAll();
+
+			}
+
+		}
+
+	}
+
+	// whether entries are no longer accepted
+	private synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Waits until all entries submitted before the call are written.
+	 * Must not be called from the target (or while holding a lock it needs).
+	 */
+	void flush() {
+
+		long start = System.nanoTime();
+		boolean interrupted = false;
+
+		synchronized (this) {
+
+			long flushed = statistics.submitted;
+
+			while (statistics.written < flushed) {
+				try {
+					wait();
+				} catch (InterruptedException ex) {
+					interrupted = true;
+				}
+			}
+
+			long elapsed = System.nanoTime() - start;
+
+			statistics.flushes++;
+			statistics.maxFlushNanos = Math.max(statistics.maxFlushNanos, elapsed);
+
+		}
+
+		if (interrupted)
+			Thread.currentThread().interrupt();
+
+	}
+
+	/**
+	 * Writes the queued entries, then stops the persister's thread.
+	 * Entries submitted afterwards are ignored.
+	 */
+	void close() {
+
+		Thread stopped;
+
+		synchronized (this) {
+
+			if (closed)
+				return;
+
+			closed = true;
+			stopped = thread;
+
+		}
+
+		flush();
+
+		if (stopped != null)
+			stopped.interrupt();
+
+	}
+
+	/** Returns a snapshot of the persister's counters. */
+	synchronized PersistenceStatistics getStatistics() {
+
+		PersistenceStatistics snapshot = new PersistenceStatistics();
+
+		snapshot.capacity = statistics.capacity;
+		snapshot.queueSize = queue.size();
+		snapshot.peakQueueSize = queue.peakSize();
+		snapshot.submitted = statistics.submitted;
+		snapshot.written = statistics.written;
+		snapshot.batches = statistics.batches;
+		snapshot.lastBatchSize = statistics.lastBatchSize;
+		snapshot.maxBatchSize = statistics.maxBatchSize;
+		snapshot.lastWriteNanos = statistics.lastWriteNanos;
+		snapshot.totalWriteNanos = statistics.totalWriteNanos;
+		snapshot.maxWriteNanos = statistics.maxWriteNanos;
+		snapshot.blocked = statistics.blocked;
+		snapshot.totalBlockedNanos = statistics.totalBlockedNanos;
+		snapshot.maxBlockedNanos = statistics.maxBlockedNanos;
+		snapshot.flushes = statistics.flushes;
+		snapshot.maxFlushNanos = statistics.maxFlushNanos;
+
+		return snapshot;
+
+	}
+
+}
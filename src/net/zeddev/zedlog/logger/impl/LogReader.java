@@ -0,0 +1,76 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import net.zeddev.zedlog.logger.ClockCalibration;
+import net.zeddev.zedlog.logger.LogEntry;
+
+/**
+ * Reads the log entries of a log file, one at a time.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public interface LogReader extends Closeable {
+
+	/**
+	 * Reads the next entry.
+	 *
+	 * @return The entry, or {@code null} if there are no more entries.
+	 * @throws IOException If the log is malformed or could not be read.
+	 */
+	public LogEntry next() throws IOException;
+
+	/**
+	 * Moves to the first entry at (or after) the given timestamp, so it is
+	 * the next entry read.
+	 * Entries out of chronological order before that entry are skipped too.
+	 *
+	 * @param timestamp The timestamp to move to.
+	 * @throws IOException If the log is malformed or could not be read.
+	 */
+	public void seekToTimestamp(long timestamp) throws IOException;
+
+	/**
+	 * Returns the types of the loggers read so far.
+	 * Loggers may follow the entries, so is only complete once all entries
+	 * are read.
+	 */
+	public List<String> getLoggerTypes();
+
+	/**
+	 * Returns the calibration of the capture clock (see
+	 * {@code CaptureClock}) which applies to the entries last read, so their
+	 * capture times may be converted to wall-clock times.
+	 *
+	 * @return The calibration, or {@code null} if none has been read (e.g.
+	 * the log predates capture times).
+	 */
+	public ClockCalibration getCalibration();
+
+	/** Returns the (approximate) number of bytes read. */
+	public long getPosition();
+
+	/** Returns the size of the log (in bytes). */
+	public long getSize();
+
+	/** Whether the log ended with a partial entry (e.g. after a crash). */
+	public boolean isTruncated();
+
+}
@@ -0,0 +1,422 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import net.zeddev.zedlog.logger.DataLogger;
+import net.zeddev.zedlog.logger.LogEntry;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * Restores the capture order (see {@code LogEntry.getSequence()}) of the
+ * entries from many loggers, which arrive in the order their dispatch
+ * threads happen to run.
+ * The entries of each logger arrive in order, so are held as a run per
+ * logger, and released by a k-way merge of the runs.  The smallest held
+ * entry is released when;
+ * <ul>
+ *	<li>Every logger without held entries has delivered each entry it
+ *	logged, and holds no earlier event (see
+ *	{@code DataLogger.getLastSequence()} and
+ *	{@code DataLogger.getHeldSequence()}), so no smaller entry can
+ *	arrive.</li>
+ *	<li>Any held entry has waited the skew window (e.g. an entry was dropped
+ *	on its way), unless a logger still holds an earlier event.  Held events
+ *	are expired by their loggers (see {@code MotionFilter.MAX_HOLD}), so
+ *	are always waited for.</li>
+ *	<li>More than the maximum number of entries are held.</li>
+ * </ul>
+ * Loggers are remembered once seen (or added), so a logger with entries on
+ * their way holds back the others until they arrive or the skew window
+ * passes.  Sequence numbers need not be contiguous, as they are also given
+ * to events which are never logged (or logged elsewhere).
+ * Entries arriving after a larger entry was released are released at once
+ * (and counted as late).  Entries without sequence numbers are released
+ * in the order they arrive, after all held entries.
+ * Not thread-safe, the buffer must be used by a single thread at a time.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+final class LogReorderBuffer {
+
+	/** The default longest an entry is held (in ms). */
+	static final long DEFAULT_SKEW_WINDOW = 20;
+
+	/** The default most entries held. */
+	static final int DEFAULT_MAX_HELD = 4096;
+
+	// the entries of a single logger, in arrival (and sequence) order
+	private static final class Run {
+
+		// the logger (or null for entries without a parent), and the
+		// sequence number of its latest entry to arrive
+		private final DataLogger logger;
+		private long lastSequence = 0;
+
+		private LogEntry[] entries = new LogEntry[16];
+		private long[] arrivals = new long[16];
+		private int head = 0;
+		private int size = 0;
+
+		Run(DataLogger logger) {
+			this.logger = logger;
+		}
+
+		void add(LogEntry logEntry, long arrival) {
+
+			if (size == entries.length) {
+
+				LogEntry[] grownEntries = new LogEntry[size * 2];
+				long[] grownArrivals = new long[size * 2];
+
+				for (int i = 0; i < size; i++) {
+					grownEntries[i] = entries[(head + i) % entries.length];
+					grownArrivals[i] = arrivals[(head + i) % entries.length];
+				}
+
+				entries = grownEntries;
+				arrivals = grownArrivals;
+				head = 0;
+
+			}
+
+			int slot = (head + size) % entries.length;
+			entries[slot] = logEntry;
+			arrivals[slot] = arrival;
+			size++;
+
+		}
+
+		LogEntry peek() {
+			return entries[head];
+		}
+
+		long peekArrival() {
+			return arrivals[head];
+		}
+
+		LogEntry poll() {
+
+			LogEntry logEntry = entries[head];
+			entries[head] = null; // release for gc
+
+			head = (head + 1) % entries.length;
+			size--;
+
+			return logEntry;
+
+		}
+
+	}
+
+	private final long skewWindow; // in ns
+	private final int maxHeld;
+
+	// the runs of each logger
+	private final Map<DataLogger, Run> runsByLogger = new IdentityHashMap<>();
+	private final List<Run> runs = new ArrayList<>();
+
+	private int held = 0;
+
+	// the largest sequence number released
+	private long lastReleased = 0;
+
+	// whether the entries were last held back (past the skew window) by an
+	// event held by a logger, and when to check again
+	private boolean heldBack = false;
+	private long retryAt;
+
+	// the entries released out of order
+	private long lateEntries = 0;
+
+	/**
+	 * Creates a new {@code LogReorderBuffer}.
+	 *
+	 * @param skewWindow The longest an entry is held (in ms, must not be
+	 * negative).
+	 * @param maxHeld The most entries held (must not be negative).
+	 */
+	LogReorderBuffer(long skewWindow, int maxHeld) {
+
+		require(skewWindow >= 0);
+		require(maxHeld >= 0);
+
+		this.skewWindow = TimeUnit.MILLISECONDS.toNanos(skewWindow);
+		this.maxHeld = maxHeld;
+
+	}
+
+	// returns the run of the given logger, adding it if not yet seen
+	private Run runOf(DataLogger logger) {
+
+		Run run = runsByLogger.get(logger);
+
+		if (run == null) {
+			run = new Run(logger);
+			runsByLogger.put(logger, run);
+			runs.add(run);
+		}
+
+		return run;
+
+	}
+
+	/**
+	 * Adds a logger whose entries are expected, so its entries are waited
+	 * for before its first entry arrives.
+	 *
+	 * @param logger The logger (must not be {@code null}).
+	 */
+	void addLogger(DataLogger logger) {
+
+		requireNotNull(logger);
+
+		// NOTE entries logged before were never on their way here
+		if (!runsByLogger.containsKey(logger))
+			runOf(logger).lastSequence = logger.getLastSequence();
+
+	}
+
+	/**
+	 * Removes a logger, so its entries are no longer waited for.
+	 * Releases all held entries, as the logger's entries could otherwise be
+	 * released out of order.
+	 *
+	 * @param logger The logger (must not be {@code null}).
+	 * @param released The list to add the released entries to, in order.
+	 */
+	void removeLogger(DataLogger logger, List<LogEntry> released) {
+
+		requireNotNull(logger);
+
+		releaseAll(released);
+
+		Run run = runsByLogger.remove(logger);
+		if (run != null)
+			runs.remove(run);
+
+	}
+
+	/** Returns the number of entries held. */
+	int size() {
+		return held;
+	}
+
+	/** Returns the number of entries released out of order. */
+	long getLateEntries() {
+		return lateEntries;
+	}
+
+	/**
+	 * Adds the given entries, releasing those which are ready.
+	 *
+	 * @param logEntries The arriving entries (must not be {@code null}).
+	 * @param now The current time (as given by {@code System.nanoTime()}).
+	 * @param released The list to add the released entries to, in order.
+	 */
+	void add(List<LogEntry> logEntries, long now, List<LogEntry> released) {
+
+		requireNotNull(logEntries);
+		requireNotNull(released);
+
+		for (LogEntry logEntry : logEntries) {
+
+			long sequence = logEntry.getSequence();
+
+			if (sequence == 0) {
+				releaseAll(released);
+				released.add(logEntry);
+				continue;
+			}
+
+			Run run = runOf(logEntry.getParent());
+			run.lastSequence = Math.max(run.lastSequence, sequence);
+
+			if (sequence < lastReleased) {
+				lateEntries++;
+				released.add(logEntry);
+				continue;
+			}
+
+			run.add(logEntry, now);
+			held++;
+
+		}
+
+		release(now, released, false);
+
+	}
+
+	/**
+	 * Releases the entries which are ready.
+	 *
+	 * @param now The current time (as given by {@code System.nanoTime()}).
+	 * @param released The list to add the released entries to, in order.
+	 */
+	void release(long now, List<LogEntry> released) {
+
+		requireNotNull(released);
+
+		release(now, released, false);
+
+	}
+
+	/**
+	 * Releases all held entries.
+	 *
+	 * @param released The list to add the released entries to, in order.
+	 */
+	void releaseAll(List<LogEntry> released) {
+
+		requireNotNull(released);
+
+		release(0, released, true);
+
+	}
+
+	/**
+	 * Returns when the oldest held entry must be released.
+	 *
+	 * @return The time (as given by {@code System.nanoTime()}), or
+	 * {@code Long.MAX_VALUE} if no entries are held.
+	 */
+	long nextDeadline() {
+
+		if (held == 0)
+			return Long.MAX_VALUE;
+
+		long deadline = oldestArrival() + skewWindow;
+
+		// NOTE the held event is released on arrival, so only checked again
+		//	   in case it was merged (and never logged)
+		if (heldBack && retryAt - deadline > 0)
+			return retryAt;
+
+		return deadline;
+
+	}
+
+	// returns when the oldest held entry arrived (some entry must be held)
+	private long oldestArrival() {
+
+		boolean found = false;
+		long oldest = 0;
+
+		for (Run run : runs) {
+			if (run.size > 0 && (!found || run.peekArrival() - oldest < 0)) {
+				oldest = run.peekArrival();
+				found = true;
+			}
+		}
+
+		return oldest;
+
+	}
+
+	// whether the logger of the (empty) run may still deliver an entry
+	// before the given sequence number
+	private static boolean mayDeliverBefore(Run run, long sequence) {
+
+		if (run.logger == null)
+			return true;
+
+		long heldSequence = run.logger.getHeldSequence();
+
+		return run.logger.getLastSequence() > run.lastSequence
+			|| (heldSequence > 0 && heldSequence < sequence);
+
+	}
+
+	// whether the logger of an (empty) run holds an event before the given
+	// sequence number
+	private boolean holdsBefore(long sequence) {
+
+		for (Run run : runs) {
+
+			if (run.size > 0 || run.logger == null)
+				continue;
+
+			long heldSequence = run.logger.getHeldSequence();
+
+			if (heldSequence > 0 && heldSequence < sequence)
+				return true;
+
+		}
+
+		return false;
+
+	}
+
+	// merges the runs, releasing entries while ready
+	private void release(long now, List<LogEntry> released, boolean all) {
+
+		heldBack = false;
+
+		while (held > 0) {
+
+			Run smallest = null;
+
+			for (Run run : runs) {
+				if (run.size > 0 && (smallest == null || run.peek().getSequence() < smallest.peek().getSequence()))
+					smallest = run;
+			}
+
+			long sequence = smallest.peek().getSequence();
+
+			// whether no smaller entry can arrive from the quiet loggers
+			boolean settled = true;
+
+			for (Run run : runs) {
+				if (run.size == 0 && mayDeliverBefore(run, sequence)) {
+					settled = false;
+					break;
+				}
+			}
+
+			boolean ready = all
+				|| settled
+				|| held > maxHeld;
+
+			if (!ready && now - oldestArrival() >= skewWindow) {
+
+				if (holdsBefore(sequence)) {
+					heldBack = true;
+					retryAt = now + skewWindow;
+				} else {
+					ready = true;
+				}
+
+			}
+
+			if (!ready)
+				break;
+
+			released.add(smallest.poll());
+			held--;
+
+			lastReleased = Math.max(lastReleased, sequence);
+
+		}
+
+	}
+
+}
@@ -0,0 +1,79 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+
+import net.zeddev.zedlog.logger.ClockCalibration;
+import net.zeddev.zedlog.logger.LogEntry;
+
+/**
+ * Appends log entries to a log file (see {@code XmlLogWriter},
+ * {@code BinaryLogWriter} and {@code SegmentedLogStore}).
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public interface LogWriter extends Closeable {
+
+	/**
+	 * Appends the given entry.
+	 * The entry may be buffered until {@code flush()} is called.
+	 *
+	 * @param logEntry The entry to write (must not be {@code null}).
+	 * @throws IOException If the entry could not be written.
+	 */
+	public void write(final LogEntry logEntry) throws IOException;
+
+	/**
+	 * Sets the calibration of the capture clock recorded with the following
+	 * entries, in place of the clock's current calibration (e.g. for the
+	 * entries of an earlier run, recovered from its journal).
+	 *
+	 * @param calibration The calibration, or {@code null} to record the
+	 * clock's current calibration.
+	 */
+	public void setCalibration(final ClockCalibration calibration);
+
+	/**
+	 * Writes the buffered entries to the file.
+	 *
+	 * @throws IOException If the entries could not be written.
+	 */
+	public void flush() throws IOException;
+
+	/**
+	 * Writes the buffered entries to the file, then forces them to the
+	 * storage device so they survive a system crash.
+	 *
+	 * @throws IOException If the entries could not be written.
+	 */
+	public void force() throws IOException;
+
+	/**
+	 * Records the given logger types and finishes the log, then closes the
+	 * file.  Has no effect if already closed.
+	 *
+	 * @param loggerTypes The types of the loggers which made the entries.
+	 * @throws IOException If the log could not be finished.
+	 */
+	public void close(final Collection<String> loggerTypes) throws IOException;
+
+	/** Returns the number of entries written. */
+	public long getEntryCount();
+
+}
@@ -0,0 +1,532 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import net.zeddev.zedlog.logger.LogEntry;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * Reduces a stream of mouse motion samples to fewer samples which still
+ * follow the path within a pixel or time tolerance.
+ * Samples kept by the filter are passed to its {@code Sink}, the others are
+ * counted as merged.
+ * A sample may be held until the next sample shows whether it is needed, so
+ * when the mouse comes to rest the held samples must be expired (see
+ * {@code expire()}) once they have been held {@code MAX_HOLD}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class MotionFilter {
+
+	/** The ways motion samples may be reduced. */
+	public enum Mode {
+
+		/** Every sample is kept. */
+		NONE,
+
+		/**
+		 * At most one sample is kept per time interval (the interval
+		 * tolerance), the last sample in the interval.  So where the mouse
+		 * came to rest is always kept.
+		 */
+		TIME_BUCKET,
+
+		/**
+		 * A sample is only kept if it moved at least the pixel tolerance
+		 * from the last kept sample.
+		 */
+		DISTANCE,
+
+		/**
+		 * Samples are collected into a window (of at most {@code WINDOW_SIZE}
+		 * samples spanning at most the interval tolerance) and simplified with
+		 * the Douglas-Peucker algorithm, keeping the samples needed to follow
+		 * the path within the pixel tolerance.
+		 */
+		SIMPLIFY
+
+	}
+
+	/** Receives the samples kept by a {@code MotionFilter}. */
+	public interface Sink {
+
+		/**
+		 * Receives a kept sample.
+		 *
+		 * @param x The x position.
+		 * @param y The y position.
+		 * @param captureTime When the sample was captured (in nanoseconds,
+		 * see {@code CaptureClock}).
+		 * @param sequence The sequence number of the sample (see
+		 * {@code LogEntry.getSequence()}).
+		 */
+		public void emit(int x, int y, long captureTime, long sequence);
+
+	}
+
+	/** The maximum number of samples simplified at once. */
+	public static final int WINDOW_SIZE = 64;
+
+	/** The default pixel tolerance. */
+	public static final int DEFAULT_TOLERANCE = 2;
+
+	/** The default interval tolerance (in milliseconds). */
+	public static final long DEFAULT_INTERVAL = 20;
+
+	/** The longest a sample is held (in milliseconds), unless the interval tolerance is shorter. */
+	public static final long MAX_HOLD = LogReorderBuffer.DEFAULT_SKEW_WINDOW;
+		// NOTE: No longer than the skew window, so the entries captured after
+		//	   a held sample are not held back longer than usual.
+
+	private final Sink sink;
+
+	private Mode mode = Mode.NONE;
+	private int tolerance = DEFAULT_TOLERANCE;
+	private long interval = DEFAULT_INTERVAL;
+	private long intervalNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_INTERVAL);
+	private long holdNanos = holdNanos(DEFAULT_INTERVAL);
+
+	// the last kept sample
+	private boolean hasLast = false;
+	private int lastX, lastY;
+	private long lastTime;
+
+	// when the current time interval began (when in TIME_BUCKET mode)
+	private long bucketStart;
+
+	// the latest sample not yet kept (when in TIME_BUCKET or DISTANCE mode)
+	private boolean hasPending = false;
+	private int pendingX, pendingY;
+	private long pendingTime, pendingSequence;
+
+	// the simplification window, with the last kept sample as its anchor
+	private final int[] windowX = new int[WINDOW_SIZE + 1];
+	private final int[] windowY = new int[WINDOW_SIZE + 1];
+	private final long[] windowTime = new long[WINDOW_SIZE + 1];
+	private final long[] windowSequence = new long[WINDOW_SIZE + 1];
+	private final boolean[] keep = new boolean[WINDOW_SIZE + 1];
+	private int windowSize = 0;
+
+	// the number of window samples emitted (or merged) while simplifying
+	private int windowDone = 0;
+
+	// the sequence number of the oldest sample held (or 0 if none)
+	// NOTE read without the lock, as the filter may be emitting
+	private volatile long heldSequence = 0;
+
+	// the number of samples received and merged
+	private long samples = 0;
+	private long merged = 0;
+
+	/**
+	 * Creates a new {@code MotionFilter} (which initially keeps every sample).
+	 *
+	 * @param sink Receives the kept samples (must not be {@code null}).
+	 */
+	public MotionFilter(Sink sink) {
+
+		requireNotNull(sink);
+
+		this.sink = sink;
+
+	}
+
+	/**
+	 * Changes the filter mode and tolerances.
+	 * Any samples held by the previous mode are emitted first.
+	 *
+	 * @param mode The filter mode (must not be {@code null}).
+	 * @param tolerance The pixel tolerance (must not be negative).
+	 * @param interval The interval tolerance, in milliseconds (must not be
+	 * negative).
+	 */
+	public synchronized void configure(Mode mode, int tolerance, long interval) {
+
+		requireNotNull(mode);
+		require(tolerance >= 0);
+		require(interval >= 0);
+
+		flush();
+
+		this.mode = mode;
+		this.tolerance = tolerance;
+		this.interval = interval;
+		this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(interval);
+		this.holdNanos = holdNanos(interval);
+
+	}
+
+	// the longest a sample is held with the given interval tolerance
+	// NOTE an interval of 0 only means none in DISTANCE mode (the others
+	//	   hold nothing), so the samples are still held at most MAX_HOLD
+	private static long holdNanos(long interval) {
+		return TimeUnit.MILLISECONDS.toNanos(interval > 0 ? Math.min(interval, MAX_HOLD) : MAX_HOLD);
+	}
+
+	public synchronized Mode getMode() {
+		return mode;
+	}
+
+	public synchronized int getTolerance() {
+		return tolerance;
+	}
+
+	public synchronized long getInterval() {
+		return interval;
+	}
+
+	/** Returns the number of samples received. */
+	public synchronized long getSampleCount() {
+		return samples;
+	}
+
+	/** Returns the number of samples merged into (i.e. dropped in favour of) others. */
+	public synchronized long getMergedCount() {
+		return merged;
+	}
+
+	/**
+	 * Returns the sequence number of the oldest sample held by the filter
+	 * (not yet kept or merged), which may still be emitted.
+	 *
+	 * @return The sequence number, or {@code 0} if no sample is held.
+	 */
+	public long getHeldSequence() {
+		return heldSequence;
+	}
+
+	/**
+	 * Adds a motion sample, captured now.
+	 *
+	 * @param x The x position.
+	 * @param y The y position.
+	 * @param timestamp When the sample was captured (in nanoseconds, see
+	 * {@code CaptureClock}).
+	 */
+	public void add(int x, int y, long timestamp) {
+		add(x, y, timestamp, LogEntry.nextSequence());
+	}
+
+	/**
+	 * Adds a motion sample.
+	 *
+	 * @param x The x position.
+	 * @param y The y position.
+	 * @param timestamp When the sample was captured (in nanoseconds, see
+	 * {@code CaptureClock}).
+	 * @param sequence The sequence number of the sample (see
+	 * {@code LogEntry.getSequence()}).
+	 */
+	public synchronized void add(int x, int y, long timestamp, long sequence) {
+
+		samples++;
+
+		switch (mode) {
+
+			case NONE:
+				keep(x, y, timestamp, sequence);
+			break;
+
+			case TIME_BUCKET:
+				addToBucket(x, y, timestamp, sequence);
+			break;
+
+			case DISTANCE:
+				if (!hasLast || distanceSq(x, y, lastX, lastY) >= (long) tolerance * tolerance)
+					keepDroppingPending(x, y, timestamp, sequence);
+				else
+					hold(x, y, timestamp, sequence);
+			break;
+
+			case SIMPLIFY:
+				addToWindow(x, y, timestamp, sequence);
+			break;
+
+		}
+
+		updateHeldSequence();
+
+	}
+
+	/**
+	 * Returns when the oldest held sample expires (see {@code expire()}).
+	 *
+	 * @return The time (in nanoseconds, see {@code CaptureClock}), or
+	 * {@code Long.MAX_VALUE} if no sample is held.
+	 */
+	public synchronized long nextExpiry() {
+
+		if (hasPending)
+			return pendingTime + holdNanos;
+		else if (windowSize > 0)
+			return windowTime[0] + holdNanos;
+		else
+			return Long.MAX_VALUE;
+
+	}
+
+	/**
+	 * Emits the samples held at least {@code MAX_HOLD} (or the interval
+	 * tolerance, if shorter) at the given time, so where the mouse came to
+	 * rest is kept without waiting for it to move again.
+	 *
+	 * @param now The current time (in nanoseconds, see {@code CaptureClock}).
+	 */
+	public synchronized void expire(long now) {
+
+		if (hasPending && now - pendingTime >= holdNanos) {
+			hasPending = false;
+			keep(pendingX, pendingY, pendingTime, pendingSequence);
+		}
+
+		if (windowSize > 0 && now - windowTime[0] >= holdNanos)
+			simplifyWindow();
+
+		updateHeldSequence();
+
+	}
+
+	/**
+	 * Emits any held samples, so the last sample received is always kept.
+	 * Should be called when the motion ends (e.g. when recording stops).
+	 */
+	public synchronized void flush() {
+
+		if (hasPending) {
+			hasPending = false;
+			keep(pendingX, pendingY, pendingTime, pendingSequence);
+		}
+
+		if (windowSize > 0)
+			simplifyWindow();
+
+		updateHeldSequence();
+
+	}
+
+	// publishes the sequence number of the oldest held sample
+	private void updateHeldSequence() {
+
+		if (hasPending)
+			heldSequence = pendingSequence;
+		else if (windowDone < windowSize)
+			heldSequence = windowSequence[windowDone];
+		else
+			heldSequence = 0;
+
+	}
+
+	/** Forgets the last kept sample, so the next sample is always kept. */
+	public synchronized void reset() {
+
+		flush();
+
+		hasLast = false;
+
+	}
+
+	// emits the sample
+	private void keep(int x, int y, long timestamp, long sequence) {
+
+		hasLast = true;
+		lastX = x;
+		lastY = y;
+		lastTime = timestamp;
+
+		// NOTE published first, as the entry may be ordered before emit returns
+		updateHeldSequence();
+
+		sink.emit(x, y, timestamp, sequence);
+
+	}
+
+	// emits the sample, merging any held sample into it
+	private void keepDroppingPending(int x, int y, long timestamp, long sequence) {
+
+		if (hasPending) {
+			hasPending = false;
+			merged++;
+		}
+
+		keep(x, y, timestamp, sequence);
+
+	}
+
+	// keeps the last sample of each time interval
+	private void addToBucket(int x, int y, long timestamp, long sequence) {
+
+		// the first sample of the motion starts the intervals
+		if (!hasLast || intervalNanos == 0) {
+			keep(x, y, timestamp, sequence);
+			bucketStart = timestamp;
+			return;
+		}
+
+		if (timestamp - bucketStart >= intervalNanos) {
+
+			// the held sample was the last in its interval
+			if (hasPending) {
+				hasPending = false;
+				keep(pendingX, pendingY, pendingTime, pendingSequence);
+			}
+
+			bucketStart += (timestamp - bucketStart) / intervalNanos * intervalNanos;
+
+		}
+
+		hold(x, y, timestamp, sequence);
+
+	}
+
+	// holds the sample until it is kept or replaced
+	private void hold(int x, int y, long timestamp, long sequence) {
+
+		if (hasPending)
+			merged++;
+
+		hasPending = true;
+		pendingX = x;
+		pendingY = y;
+		pendingTime = timestamp;
+		pendingSequence = sequence;
+
+	}
+
+	// adds the sample to the simplification window
+	private void addToWindow(int x, int y, long timestamp, long sequence) {
+
+		if (!hasLast) {
+			keep(x, y, timestamp, sequence);
+			return;
+		}
+
+		windowX[windowSize] = x;
+		windowY[windowSize] = y;
+		windowTime[windowSize] = timestamp;
+		windowSequence[windowSize] = sequence;
+		windowSize++;
+
+		if (windowSize == WINDOW_SIZE || timestamp - lastTime >= intervalNanos)
+			simplifyWindow();
+
+	}
+
+	// simplifies the window from the last kept sample to the newest sample
+	private void simplifyWindow() {
+
+		// NOTE index -1 of the window is the last kept sample (the anchor)
+		int count = windowSize;
+
+		for (int i = 0; i < count; i++)
+			keep[i] = false;
+		keep[count - 1] = true;
+
+		simplify(-1, count - 1);
+
+		for (int i = 0; i < count; i++) {
+
+			windowDone = i + 1;
+
+			if (keep[i])
+				keep(windowX[i], windowY[i], windowTime[i], windowSequence[i]);
+			else
+				merged++;
+
+		}
+
+		windowSize = 0;
+		windowDone = 0;
+
+	}
+
+	// marks the samples needed between the given window indices
+	private void simplify(int first, int last) {
+
+		if (last - first < 2)
+			return;
+
+		int ax = pointX(first), ay = pointY(first);
+		int bx = windowX[last], by = windowY[last];
+
+		// find the sample furthest from the line between first and last
+		long furthestDist = -1;
+		int furthest = -1;
+
+		for (int i = first + 1; i < last; i++) {
+
+			long dist = lineDistanceSq(windowX[i], windowY[i], ax, ay, bx, by);
+
+			if (dist > furthestDist) {
+				furthestDist = dist;
+				furthest = i;
+			}
+
+		}
+
+		if (furthestDist > (long) tolerance * tolerance) {
+
+			keep[furthest] = true;
+
+			simplify(first, furthest);
+			simplify(furthest, last);
+
+		}
+
+	}
+
+	private int pointX(int index) {
+		return index < 0 ? lastX : windowX[index];
+	}
+
+	private int pointY(int index) {
+		return index < 0 ? lastY : windowY[index];
+	}
+
+	// the square of the distance between the points
+	private static long distanceSq(int x1, int y1, int x2, int y2) {
+
+		long dx = x1 - x2;
+		long dy = y1 - y2;
+
+		return dx * dx + dy * dy;
+
+	}
+
+	// the square of the distance from the point to the segment a-b (rounded down)
+	private static long lineDistanceSq(int px, int py, int ax, int ay, int bx, int by) {
+
+		long dx = bx - ax;
+		long dy = by - ay;
+		long lengthSq = dx * dx + dy * dy;
+
+		if (lengthSq == 0)
+			return distanceSq(px, py, ax, ay);
+
+		// the projection of the point onto the segment, clamped to its ends
+		double t = ((px - ax) * dx + (py - ay) * dy) / (double) lengthSq;
+		t = Math.max(0, Math.min(1, t));
+
+		double cx = ax + t * dx - px;
+		double cy = ay + t * dy - py;
+
+		return (long) (cx * cx + cy * cy);
+
+	}
+
+}
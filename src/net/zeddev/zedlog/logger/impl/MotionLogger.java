@@ -0,0 +1,210 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import net.zeddev.zedlog.logger.CaptureClock;
+import net.zeddev.zedlog.logger.DispatchScheduler;
+
+import org.jnativehook.NativeInputEvent;
+import org.jnativehook.mouse.NativeMouseEvent;
+
+/**
+ * Provides a skeletal implementation of a {@code DataLogger} for mouse
+ * motion events.
+ * The motion samples pass through a {@code MotionFilter}, so only the samples
+ * it keeps are logged.  The samples held by the filter are expired on a
+ * timer, so they are logged when the mouse comes to rest.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public abstract class MotionLogger extends NativeHookLogger {
+
+	// reduces the motion samples before they are logged
+	private final MotionFilter motionFilter = new MotionFilter(new MotionFilter.Sink() {
+
+		@Override
+		public void emit(int x, int y, long captureTime, long sequence) {
+			logMotion(x, y, captureTime, sequence);
+		}
+
+	});
+
+	// expires the held samples of all motion loggers
+	private static ScheduledExecutorService expiryTimer = null;
+
+	// the scheduled expiry of the held samples (guarded by the filter)
+	private ScheduledFuture<?> expiryTask = null;
+
+	/**
+	 * Creates a {@code MotionLogger} for the given type of native event.
+	 *
+	 * @param eventType The type of native motion event logged.
+	 */
+	protected MotionLogger(NativeEventType eventType) {
+		super(eventType);
+	}
+
+	/**
+	 * Creates a {@code MotionLogger} receiving native events from the given
+	 * demultiplexer, and dispatching on the given scheduler.
+	 *
+	 * @param eventType The type of native motion event logged.
+	 * @param demultiplexer The demultiplexer routing the native events.
+	 * @param scheduler The scheduler which notifies the observers.
+	 */
+	protected MotionLogger(NativeEventType eventType,
+			NativeHookDemultiplexer demultiplexer, DispatchScheduler scheduler) {
+		super(eventType, demultiplexer, scheduler);
+	}
+
+	/** Returns the filter applied to the motion samples. */
+	public MotionFilter getMotionFilter() {
+		return motionFilter;
+	}
+
+	@Override
+	public void handleNativeEvent(NativeInputEvent nativeEvent, long captureTime, long sequence) {
+
+		NativeMouseEvent event = (NativeMouseEvent) nativeEvent;
+
+		motionFilter.add(event.getX(), event.getY(), captureTime, sequence);
+
+		scheduleExpiry();
+
+	}
+
+	// schedules the expiry of the held samples (unless already scheduled)
+	private void scheduleExpiry() {
+
+		synchronized (motionFilter) {
+
+			if (expiryTask != null)
+				return;
+
+			long expiry = motionFilter.nextExpiry();
+			if (expiry == Long.MAX_VALUE)
+				return;
+
+			expiryTask = expiryTimer().schedule(new Runnable() {
+
+				@Override
+				public void run() {
+
+					synchronized (motionFilter) {
+						expiryTask = null;
+						motionFilter.expire(CaptureClock.now());
+					}
+
+					// NOTE later samples may be held meanwhile
+					scheduleExpiry();
+
+				}
+
+			}, Math.max(0, expiry - CaptureClock.now()), TimeUnit.NANOSECONDS);
+
+		}
+
+	}
+
+	// cancels the scheduled expiry (if any)
+	private void cancelExpiry() {
+
+		synchronized (motionFilter) {
+
+			if (expiryTask != null) {
+				expiryTask.cancel(false);
+				expiryTask = null;
+			}
+
+		}
+
+	}
+
+	// the timer expiring the held samples, created on first use
+	private static synchronized ScheduledExecutorService expiryTimer() {
+
+		if (expiryTimer == null) {
+
+			ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable task) {
+
+					Thread thread = new Thread(task, "motion expiry timer");
+					thread.setDaemon(true);
+
+					return thread;
+
+				}
+
+			});
+			executor.setRemoveOnCancelPolicy(true);
+
+			expiryTimer = executor;
+
+		}
+
+		return expiryTimer;
+
+	}
+
+	@Override
+	public long getHeldSequence() {
+		return motionFilter.getHeldSequence();
+	}
+
+	/**
+	 * Logs a motion sample kept by the filter.
+	 *
+	 * @param x The x position.
+	 * @param y The y position.
+	 * @param captureTime When the sample was captured (see
+	 * {@code CaptureClock}).
+	 * @param sequence The sequence number of the sample (see
+	 * {@code LogEntry.getSequence()}).
+	 */
+	protected abstract void logMotion(int x, int y, long captureTime, long sequence);
+
+	@Override
+	public void shutdown() {
+
+		// log the held samples, once no more can arrive
+		stopRouting();
+		cancelExpiry();
+		motionFilter.flush();
+
+		super.shutdown();
+
+	}
+
+	@Override
+	public void setRecording(boolean recording) {
+
+		// log the held samples before stopping
+		if (!recording)
+			motionFilter.reset();
+
+		super.setRecording(recording);
+
+	}
+
+}
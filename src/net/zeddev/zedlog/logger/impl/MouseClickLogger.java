@@ -15,32 +15,22 @@ package net.zeddev.zedlog.logger.impl;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
-import net.zeddev.zedlog.logger.AbstractDataLogger;
 import net.zeddev.zedlog.logger.LogEntry;
 import net.zeddev.zedlog.logger.impl.event.MouseClickedEvent;
 
-import org.jnativehook.GlobalScreen;
+import org.jnativehook.NativeInputEvent;
 import org.jnativehook.mouse.NativeMouseEvent;
-import org.jnativehook.mouse.NativeMouseListener;
 
 /**
  * A {@code DataLogger} for mouse click events.
  *
  * @author Zachary Scott <zscott.dev@gmail.com>
  */
-public final class MouseClickLogger extends AbstractDataLogger
-		implements NativeMouseListener {
+public final class MouseClickLogger extends NativeHookLogger {
 
-	/** Creates a new {@code MouseLogger}. */
+	/** Creates a new {@code MouseClickLogger}. */
 	public MouseClickLogger() {
-		super();
-		GlobalScreen.getInstance().addNativeMouseListener(this);
-	}
-
-	@Override
-	public void shutdown() {
-		super.shutdown();
-		GlobalScreen.getInstance().removeNativeMouseListener(this);
+		super(NativeEventType.MOUSE_CLICKED);
 	}
 
 	@Override
@@ -49,25 +39,16 @@ public final class MouseClickLogger extends AbstractDataLogger
 	}
 
 	@Override
-	public void nativeMouseClicked(final NativeMouseEvent event) {
+	public void handleNativeEvent(NativeInputEvent nativeEvent, long captureTime, long sequence) {
 
-		MouseClickedEvent clickEvent =
-			new MouseClickedEvent(event);
+		LogEntry logEntry = getEntryPool().claim(captureTime, sequence);
 
-		LogEntry logEntry = new LogEntry(this, clickEvent.toString(), clickEvent);
-		notifyDataLoggerObservers(this, logEntry);
-
-	}
+		MouseClickedEvent clickEvent = (MouseClickedEvent) logEntry.getEvent();
+		clickEvent.set((NativeMouseEvent) nativeEvent);
 
-	@Override
-	public void nativeMousePressed(NativeMouseEvent event) {
-		// IGNORED
-	}
+		notifyDataLoggerObservers(this, logEntry);
+		logEntry.release();
 
-	@Override
-	public void nativeMouseReleased(NativeMouseEvent event) {
-		// IGNORED
 	}
 
 }
-
@@ -15,54 +15,83 @@ package net.zeddev.zedlog.logger.impl;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
-import net.zeddev.zedlog.logger.AbstractDataLogger;
+import net.zeddev.zedlog.logger.DispatchScheduler;
 import net.zeddev.zedlog.logger.LogEntry;
 import net.zeddev.zedlog.logger.impl.event.MouseDraggedEvent;
 
-import org.jnativehook.GlobalScreen;
+import org.jnativehook.NativeInputEvent;
 import org.jnativehook.mouse.NativeMouseEvent;
-import org.jnativehook.mouse.NativeMouseMotionListener;
 
 /**
  * A {@code DataLogger} for mouse dragging events.
+ * The drag's held samples are logged when its button is released.
  *
  * @author Zachary Scott <zscott.dev@gmail.com>
  */
-public final class MouseDraggedLogger extends AbstractDataLogger
-		implements NativeMouseMotionListener {
+public final class MouseDraggedLogger extends MotionLogger {
+
+	// the button of the current drag
+	private int buttonCode = -1;
 
 	/** Creates a new {@code MouseDraggedLogger}. */
 	public MouseDraggedLogger() {
-		super();
-		GlobalScreen.getInstance().addNativeMouseMotionListener(this);
+		super(NativeEventType.MOUSE_DRAGGED);
+		addRoute(NativeEventType.MOUSE_RELEASED, releaseHandler);
 	}
 
-	@Override
-	public void shutdown() {
-		super.shutdown();
-		GlobalScreen.getInstance().removeNativeMouseMotionListener(this);
+	// creates a logger routed by the given demultiplexer (for testing)
+	MouseDraggedLogger(NativeHookDemultiplexer demultiplexer, DispatchScheduler scheduler) {
+		super(NativeEventType.MOUSE_DRAGGED, demultiplexer, scheduler);
+		addRoute(NativeEventType.MOUSE_RELEASED, releaseHandler);
 	}
 
+	// ends the current drag when its button is released
+	private final NativeEventHandler releaseHandler = new NativeEventHandler() {
+
+		@Override
+		public void handleNativeEvent(NativeInputEvent nativeEvent, long captureTime, long sequence) {
+
+			// NOTE reset before forgetting the button, the held samples are of this drag
+			getMotionFilter().reset();
+			buttonCode = -1;
+
+		}
+
+	};
+
 	@Override
 	public String type() {
 		return "MouseDrag";
 	}
 
 	@Override
-	public void nativeMouseMoved(NativeMouseEvent event) {
-		// IGNORED
+	public void handleNativeEvent(NativeInputEvent nativeEvent, long captureTime, long sequence) {
+
+		int button = ((NativeMouseEvent) nativeEvent).getButton();
+
+		// a different drag, so dont merge with the previous drag's samples
+		if (button != buttonCode) {
+			getMotionFilter().reset();
+			buttonCode = button;
+		}
+
+		super.handleNativeEvent(nativeEvent, captureTime, sequence);
+
 	}
 
 	@Override
-	public void nativeMouseDragged(NativeMouseEvent event) {
+	protected void logMotion(int x, int y, long captureTime, long sequence) {
+
+		LogEntry logEntry = getEntryPool().claim(captureTime, sequence);
 
-		MouseDraggedEvent draggedEvent =
-			new MouseDraggedEvent(event);
+		MouseDraggedEvent draggedEvent = (MouseDraggedEvent) logEntry.getEvent();
+		draggedEvent.setX(x);
+		draggedEvent.setY(y);
+		draggedEvent.setButtonCode(buttonCode);
 
-		LogEntry logEntry = new LogEntry(this, draggedEvent.toString(), draggedEvent);
 		notifyDataLoggerObservers(this, logEntry);
+		logEntry.release();
 
 	}
 
 }
-
@@ -15,32 +15,25 @@ package net.zeddev.zedlog.logger.impl;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
-import net.zeddev.zedlog.logger.AbstractDataLogger;
+import net.zeddev.zedlog.logger.DispatchScheduler;
 import net.zeddev.zedlog.logger.LogEntry;
 import net.zeddev.zedlog.logger.impl.event.MouseMovedEvent;
 
-import org.jnativehook.GlobalScreen;
-import org.jnativehook.mouse.NativeMouseEvent;
-import org.jnativehook.mouse.NativeMouseMotionListener;
-
 /**
  * A {@code DataLogger} for mouse movements events.
  *
  * @author Zachary Scott <zscott.dev@gmail.com>
  */
-public final class MouseMovementLogger extends AbstractDataLogger
-		implements NativeMouseMotionListener {
+public final class MouseMovementLogger extends MotionLogger {
 
 	/** Creates a new {@code MouseMovementLogger}. */
 	public MouseMovementLogger() {
-		super();
-		GlobalScreen.getInstance().addNativeMouseMotionListener(this);
+		super(NativeEventType.MOUSE_MOVED);
 	}
 
-	@Override
-	public void shutdown() {
-		super.shutdown();
-		GlobalScreen.getInstance().removeNativeMouseMotionListener(this);
+	// creates a logger routed by the given demultiplexer (for testing)
+	MouseMovementLogger(NativeHookDemultiplexer demultiplexer, DispatchScheduler scheduler) {
+		super(NativeEventType.MOUSE_MOVED, demultiplexer, scheduler);
 	}
 
 	@Override
@@ -49,19 +42,17 @@ public final class MouseMovementLogger extends AbstractDataLogger
 	}
 
 	@Override
-	public void nativeMouseMoved(NativeMouseEvent event) {
+	protected void logMotion(int x, int y, long captureTime, long sequence) {
 
-		MouseMovedEvent moveEvent = new MouseMovedEvent(event);
+		LogEntry logEntry = getEntryPool().claim(captureTime, sequence);
 
-		LogEntry logEntry = new LogEntry(this, moveEvent.toString(), moveEvent);
-		notifyDataLoggerObservers(this, logEntry);
+		MouseMovedEvent moveEvent = (MouseMovedEvent) logEntry.getEvent();
+		moveEvent.setX(x);
+		moveEvent.setY(y);
 
-	}
+		notifyDataLoggerObservers(this, logEntry);
+		logEntry.release();
 
-	@Override
-	public void nativeMouseDragged(NativeMouseEvent nme) {
-		// IGNORED
 	}
 
 }
-
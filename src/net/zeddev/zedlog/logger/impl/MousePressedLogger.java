@@ -15,32 +15,22 @@ package net.zeddev.zedlog.logger.impl;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
-import net.zeddev.zedlog.logger.AbstractDataLogger;
 import net.zeddev.zedlog.logger.LogEntry;
 import net.zeddev.zedlog.logger.impl.event.MousePressedEvent;
 
-import org.jnativehook.GlobalScreen;
+import org.jnativehook.NativeInputEvent;
 import org.jnativehook.mouse.NativeMouseEvent;
-import org.jnativehook.mouse.NativeMouseListener;
 
 /**
  * A {@code DataLogger} for mouse pressed events.
  *
  * @author Zachary Scott <zscott.dev@gmail.com>
  */
-public final class MousePressedLogger extends AbstractDataLogger
-		implements NativeMouseListener {
+public final class MousePressedLogger extends NativeHookLogger {
 
-	/** Creates a new {@code MouseLogger}. */
+	/** Creates a new {@code MousePressedLogger}. */
 	public MousePressedLogger() {
-		super();
-		GlobalScreen.getInstance().addNativeMouseListener(this);
-	}
-
-	@Override
-	public void shutdown() {
-		super.shutdown();
-		GlobalScreen.getInstance().removeNativeMouseListener(this);
+		super(NativeEventType.MOUSE_PRESSED);
 	}
 
 	@Override
@@ -49,24 +39,16 @@ public final class MousePressedLogger extends AbstractDataLogger
 	}
 
 	@Override
-	public void nativeMouseClicked(final NativeMouseEvent event) {
-		// IGNORED
-	}
+	public void handleNativeEvent(NativeInputEvent nativeEvent, long captureTime, long sequence) {
 
-	@Override
-	public void nativeMousePressed(NativeMouseEvent event) {
+		LogEntry logEntry = getEntryPool().claim(captureTime, sequence);
 
-		MousePressedEvent clickEvent =
-			new MousePressedEvent(event);
+		MousePressedEvent pressedEvent = (MousePressedEvent) logEntry.getEvent();
+		pressedEvent.set((NativeMouseEvent) nativeEvent);
 
-		LogEntry logEntry = new LogEntry(this, clickEvent.toString(), clickEvent);
 		notifyDataLoggerObservers(this, logEntry);
+		logEntry.release();
 
 	}
 
-	@Override
-	public void nativeMouseReleased(NativeMouseEvent event) {
-		// IGNORED
-	}
-
 }
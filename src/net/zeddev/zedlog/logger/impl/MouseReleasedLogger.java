@@ -15,32 +15,22 @@ package net.zeddev.zedlog.logger.impl;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
-import net.zeddev.zedlog.logger.AbstractDataLogger;
 import net.zeddev.zedlog.logger.LogEntry;
 import net.zeddev.zedlog.logger.impl.event.MouseReleasedEvent;
 
-import org.jnativehook.GlobalScreen;
+import org.jnativehook.NativeInputEvent;
 import org.jnativehook.mouse.NativeMouseEvent;
-import org.jnativehook.mouse.NativeMouseListener;
 
 /**
  * A {@code DataLogger} for mouse released events.
  *
  * @author Zachary Scott <zscott.dev@gmail.com>
  */
-public final class MouseReleasedLogger extends AbstractDataLogger
-		implements NativeMouseListener {
+public final class MouseReleasedLogger extends NativeHookLogger {
 
-	/** Creates a new {@code MouseLogger}. */
+	/** Creates a new {@code MouseReleasedLogger}. */
 	public MouseReleasedLogger() {
-		super();
-		GlobalScreen.getInstance().addNativeMouseListener(this);
-	}
-
-	@Override
-	public void shutdown() {
-		super.shutdown();
-		GlobalScreen.getInstance().removeNativeMouseListener(this);
+		super(NativeEventType.MOUSE_RELEASED);
 	}
 
 	@Override
@@ -49,23 +39,15 @@ public final class MouseReleasedLogger extends AbstractDataLogger
 	}
 
 	@Override
-	public void nativeMouseClicked(final NativeMouseEvent event) {
-		// IGNORED
-	}
-
-	@Override
-	public void nativeMousePressed(NativeMouseEvent event) {
-		// IGNORED
-	}
+	public void handleNativeEvent(NativeInputEvent nativeEvent, long captureTime, long sequence) {
 
-	@Override
-	public void nativeMouseReleased(NativeMouseEvent event) {
+		LogEntry logEntry = getEntryPool().claim(captureTime, sequence);
 
-		MouseReleasedEvent clickEvent =
-			new MouseReleasedEvent(event);
+		MouseReleasedEvent releasedEvent = (MouseReleasedEvent) logEntry.getEvent();
+		releasedEvent.set((NativeMouseEvent) nativeEvent);
 
-		LogEntry logEntry = new LogEntry(this, clickEvent.toString(), clickEvent);
 		notifyDataLoggerObservers(this, logEntry);
+		logEntry.release();
 
 	}
 
@@ -15,35 +15,22 @@ package net.zeddev.zedlog.logger.impl;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
-import net.zeddev.zedlog.logger.AbstractDataLogger;
 import net.zeddev.zedlog.logger.LogEntry;
 import net.zeddev.zedlog.logger.impl.event.MouseWheelMovedEvent;
 
-import org.jnativehook.GlobalScreen;
+import org.jnativehook.NativeInputEvent;
 import org.jnativehook.mouse.NativeMouseWheelEvent;
-import org.jnativehook.mouse.NativeMouseWheelListener;
 
 /**
  * A {@code DataLogger} for mouse wheel movement events.
  *
  * @author Zachary Scott <zscott.dev@gmail.com>
  */
-public final class MouseWheelLogger extends AbstractDataLogger
-		implements NativeMouseWheelListener {
+public final class MouseWheelLogger extends NativeHookLogger {
 
-	/**
-	 * Creates a new {@code MouseWheelLogger}.
-	 *
-	 */
+	/** Creates a new {@code MouseWheelLogger}. */
 	public MouseWheelLogger() {
-		super();
-		GlobalScreen.getInstance().addNativeMouseWheelListener(this);
-	}
-
-	@Override
-	public void shutdown() {
-		super.shutdown();
-		GlobalScreen.getInstance().removeNativeMouseWheelListener(this);
+		super(NativeEventType.MOUSE_WHEEL_MOVED);
 	}
 
 	@Override
@@ -52,13 +39,15 @@ public final class MouseWheelLogger extends AbstractDataLogger
 	}
 
 	@Override
-	public void nativeMouseWheelMoved(NativeMouseWheelEvent event) {
+	public void handleNativeEvent(NativeInputEvent nativeEvent, long captureTime, long sequence) {
+
+		LogEntry logEntry = getEntryPool().claim(captureTime, sequence);
 
-		MouseWheelMovedEvent wheelEvent =
-			new MouseWheelMovedEvent(event);
+		MouseWheelMovedEvent wheelEvent = (MouseWheelMovedEvent) logEntry.getEvent();
+		wheelEvent.set((NativeMouseWheelEvent) nativeEvent);
 
-		LogEntry logEntry = new LogEntry(this, wheelEvent.toString(), wheelEvent);
 		notifyDataLoggerObservers(this, logEntry);
+		logEntry.release();
 
 	}
 
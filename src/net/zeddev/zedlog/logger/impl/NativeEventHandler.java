@@ -0,0 +1,41 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import org.jnativehook.NativeInputEvent;
+
+/**
+ * Handles the native input events of a single {@code NativeEventType},
+ * as routed by the {@code NativeHookDemultiplexer}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public interface NativeEventHandler {
+
+	/**
+	 * Handles the given native event.
+	 * Called on the native hook thread, so must return quickly.
+	 *
+	 * @param event The native event (a {@code NativeKeyEvent} for key types,
+	 * otherwise a {@code NativeMouseEvent}).
+	 * @param captureTime When the event was received from the native hook
+	 * (see {@code CaptureClock}).
+	 * @param sequence The sequence number of the event (see
+	 * {@code LogEntry.getSequence()}), shared by every handler of the event.
+	 */
+	public void handleNativeEvent(final NativeInputEvent event, final long captureTime, final long sequence);
+
+}
@@ -0,0 +1,55 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import net.zeddev.zedlog.logger.LogEvent;
+import net.zeddev.zedlog.logger.impl.event.KeyEvent;
+import net.zeddev.zedlog.logger.impl.event.MouseClickedEvent;
+import net.zeddev.zedlog.logger.impl.event.MouseDraggedEvent;
+import net.zeddev.zedlog.logger.impl.event.MouseMovedEvent;
+import net.zeddev.zedlog.logger.impl.event.MousePressedEvent;
+import net.zeddev.zedlog.logger.impl.event.MouseReleasedEvent;
+import net.zeddev.zedlog.logger.impl.event.MouseWheelMovedEvent;
+
+/**
+ * The types of native input event routed by the {@code NativeHookDemultiplexer}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public enum NativeEventType {
+	KEY_PRESSED(KeyEvent.class),
+	KEY_RELEASED(KeyEvent.class),
+	KEY_TYPED(KeyEvent.class),
+	MOUSE_CLICKED(MouseClickedEvent.class),
+	MOUSE_PRESSED(MousePressedEvent.class),
+	MOUSE_RELEASED(MouseReleasedEvent.class),
+	MOUSE_MOVED(MouseMovedEvent.class),
+	MOUSE_DRAGGED(MouseDraggedEvent.class),
+	MOUSE_WHEEL_MOVED(MouseWheelMovedEvent.class);
+
+	// the type of event logged for the native event
+	private final Class<? extends LogEvent> eventClass;
+
+	private NativeEventType(Class<? extends LogEvent> eventClass) {
+		this.eventClass = eventClass;
+	}
+
+	/** Returns the class of the event logged for the native event. */
+	public Class<? extends LogEvent> getEventClass() {
+		return eventClass;
+	}
+
+}
@@ -0,0 +1,250 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.Arrays;
+
+import net.zeddev.litelogger.Logger;
+import net.zeddev.zedlog.logger.CaptureClock;
+import net.zeddev.zedlog.logger.LogEntry;
+
+import org.jnativehook.GlobalScreen;
+import org.jnativehook.NativeInputEvent;
+import org.jnativehook.keyboard.NativeKeyEvent;
+import org.jnativehook.keyboard.NativeKeyListener;
+import org.jnativehook.mouse.NativeMouseEvent;
+import org.jnativehook.mouse.NativeMouseInputListener;
+import org.jnativehook.mouse.NativeMouseWheelEvent;
+import org.jnativehook.mouse.NativeMouseWheelListener;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * The single listener registered with the native hook.
+ * Receives each native event once and routes it, through a dispatch table
+ * indexed by {@code NativeEventType}, to only the handlers registered for
+ * that type.
+ * Handlers may be added and removed at any time without re-registering with
+ * the native hook.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class NativeHookDemultiplexer implements NativeKeyListener,
+		NativeMouseInputListener, NativeMouseWheelListener {
+
+	private static final Logger logger = Logger.getLogger(NativeHookDemultiplexer.class);
+
+	// the instance registered with the native hook, created on first use
+	private static NativeHookDemultiplexer instance = null;
+
+	private static final NativeEventHandler[] NO_HANDLERS = new NativeEventHandler[0];
+
+	// the handlers of each event type, indexed by the type ordinal
+	// NOTE Replaced (never modified) when changed, so it may be read without locking.
+	private volatile NativeEventHandler[][] routes;
+
+	/** Creates a new (unregistered) {@code NativeHookDemultiplexer}. */
+	NativeHookDemultiplexer() {
+
+		routes = new NativeEventHandler[NativeEventType.values().length][];
+		Arrays.fill(routes, NO_HANDLERS);
+
+	}
+
+	/**
+	 * Returns the demultiplexer registered with the native hook.
+	 * It is registered when first requested and remains registered.
+	 *
+	 * @return The demultiplexer instance.
+	 */
+	public static synchronized NativeHookDemultiplexer getInstance() {
+
+		if (instance == null) {
+
+			instance = new NativeHookDemultiplexer();
+
+			GlobalScreen screen = GlobalScreen.getInstance();
+			screen.addNativeKeyListener(instance);
+			screen.addNativeMouseListener(instance);
+			screen.addNativeMouseMotionListener(instance);
+			screen.addNativeMouseWheelListener(instance);
+
+		}
+
+		return instance;
+
+	}
+
+	/**
+	 * Routes the native events of the given type to the given handler.
+	 * Has no effect if the handler is already registered for the type.
+	 *
+	 * @param type The type of event to route (must not be {@code null}).
+	 * @param handler The handler (must not be {@code null}).
+	 */
+	public synchronized void addHandler(NativeEventType type, NativeEventHandler handler) {
+
+		requireNotNull(type);
+		requireNotNull(handler);
+
+		NativeEventHandler[] handlers = routes[type.ordinal()];
+
+		for (NativeEventHandler existing : handlers) {
+			if (existing == handler)
+				return;
+		}
+
+		NativeEventHandler[] updated = Arrays.copyOf(handlers, handlers.length + 1);
+		updated[handlers.length] = handler;
+
+		replaceRoute(type, updated);
+
+	}
+
+	/**
+	 * Stops routing the native events of the given type to the given handler.
+	 *
+	 * @param type The type of event (must not be {@code null}).
+	 * @param handler The handler (must not be {@code null}).
+	 */
+	public synchronized void removeHandler(NativeEventType type, NativeEventHandler handler) {
+
+		requireNotNull(type);
+		requireNotNull(handler);
+
+		NativeEventHandler[] handlers = routes[type.ordinal()];
+
+		for (int i = 0; i < handlers.length; i++) {
+
+			if (handlers[i] == handler) {
+
+				NativeEventHandler[] updated = new NativeEventHandler[handlers.length - 1];
+				System.arraycopy(handlers, 0, updated, 0, i);
+				System.arraycopy(handlers, i + 1, updated, i, handlers.length - i - 1);
+
+				replaceRoute(type, updated);
+				return;
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Returns the number of handlers registered for the given event type.
+	 *
+	 * @param type The event type (must not be {@code null}).
+	 * @return The number of handlers.
+	 */
+	public int handlerCount(NativeEventType type) {
+
+		requireNotNull(type);
+
+		return routes[type.ordinal()].length;
+
+	}
+
+	// publishes a new dispatch table with the route replaced, lock must be held
+	private void replaceRoute(NativeEventType type, NativeEventHandler[] handlers) {
+
+		NativeEventHandler[][] updated = routes.clone();
+		updated[type.ordinal()] = handlers.length == 0 ? NO_HANDLERS : handlers;
+
+		routes = updated;
+
+	}
+
+	/**
+	 * Routes the given event to the handlers of the given type.
+	 * The event is stamped with its capture time and sequence number on
+	 * arrival, so every handler sees the same time however long the others
+	 * take, and the entries are ordered as captured however long they are
+	 * held before being logged.
+	 * Events without handlers are ignored before being stamped.
+	 *
+	 * @param type The type of the event.
+	 * @param event The native event.
+	 */
+	void dispatch(NativeEventType type, NativeInputEvent event) {
+
+		NativeEventHandler[] handlers = routes[type.ordinal()];
+
+		if (handlers.length == 0)
+			return;
+
+		long captureTime = CaptureClock.now();
+		long sequence = LogEntry.nextSequence();
+
+		for (NativeEventHandler handler : handlers) {
+
+			// dont let a failing handler stop the others (or the native hook)
+			try {
+				handler.handleNativeEvent(event, captureTime, sequence);
+			} catch (RuntimeException ex) {
+				logger.error("Handler of %s events failed!", ex, type);
+			}
+
+		}
+
+	}
+
+	@Override
+	public void nativeKeyPressed(NativeKeyEvent event) {
+		dispatch(NativeEventType.KEY_PRESSED, event);
+	}
+
+	@Override
+	public void nativeKeyReleased(NativeKeyEvent event) {
+		dispatch(NativeEventType.KEY_RELEASED, event);
+	}
+
+	@Override
+	public void nativeKeyTyped(NativeKeyEvent event) {
+		dispatch(NativeEventType.KEY_TYPED, event);
+	}
+
+	@Override
+	public void nativeMouseClicked(NativeMouseEvent event) {
+		dispatch(NativeEventType.MOUSE_CLICKED, event);
+	}
+
+	@Override
+	public void nativeMousePressed(NativeMouseEvent event) {
+		dispatch(NativeEventType.MOUSE_PRESSED, event);
+	}
+
+	@Override
+	public void nativeMouseReleased(NativeMouseEvent event) {
+		dispatch(NativeEventType.MOUSE_RELEASED, event);
+	}
+
+	@Override
+	public void nativeMouseMoved(NativeMouseEvent event) {
+		dispatch(NativeEventType.MOUSE_MOVED, event);
+	}
+
+	@Override
+	public void nativeMouseDragged(NativeMouseEvent event) {
+		dispatch(NativeEventType.MOUSE_DRAGGED, event);
+	}
+
+	@Override
+	public void nativeMouseWheelMoved(NativeMouseWheelEvent event) {
+		dispatch(NativeEventType.MOUSE_WHEEL_MOVED, event);
+	}
+
+}
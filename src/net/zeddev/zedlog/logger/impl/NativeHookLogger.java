@@ -0,0 +1,208 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import net.zeddev.zedlog.logger.AbstractDataLogger;
+import net.zeddev.zedlog.logger.DispatchScheduler;
+import net.zeddev.zedlog.logger.DispatchSchedulers;
+import net.zeddev.zedlog.logger.LogEntryPool;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * Provides a skeletal implementation of a {@code DataLogger} for a single
+ * type of native input event.
+ * The logger only receives events from the {@code NativeHookDemultiplexer}
+ * once started (see {@code start()}), while it is recording.
+ * The logged entries are claimed from the logger's {@code LogEntryPool},
+ * so capturing an event need not allocate.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public abstract class NativeHookLogger extends AbstractDataLogger
+		implements NativeEventHandler {
+
+	// the type of native event logged
+	private final NativeEventType eventType;
+
+	// the demultiplexer routing the native events
+	private final NativeHookDemultiplexer demultiplexer;
+
+	// the other event types routed to the logger, and their handlers
+	private final List<NativeEventType> extraTypes = new CopyOnWriteArrayList<>();
+	private final List<NativeEventHandler> extraHandlers = new CopyOnWriteArrayList<>();
+
+	// the recycled entries
+	private final LogEntryPool entryPool;
+
+	// whether the logger has been started, and shut-down
+	private volatile boolean started = false;
+	private volatile boolean released = false;
+
+	/**
+	 * Creates a {@code NativeHookLogger} for the given type of native event.
+	 *
+	 * @param eventType The type of native event logged (must not be {@code null}).
+	 */
+	protected NativeHookLogger(NativeEventType eventType) {
+		this(eventType, NativeHookDemultiplexer.getInstance());
+	}
+
+	/**
+	 * Creates a {@code NativeHookLogger} receiving native events from the
+	 * given demultiplexer.
+	 *
+	 * @param eventType The type of native event logged (must not be {@code null}).
+	 * @param demultiplexer The demultiplexer routing the native events (must
+	 * not be {@code null}).
+	 */
+	protected NativeHookLogger(NativeEventType eventType,
+			NativeHookDemultiplexer demultiplexer) {
+		this(eventType, demultiplexer, DispatchSchedulers.getDefault());
+	}
+
+	/**
+	 * Creates a {@code NativeHookLogger} receiving native events from the
+	 * given demultiplexer, and dispatching on the given scheduler.
+	 *
+	 * @param eventType The type of native event logged (must not be {@code null}).
+	 * @param demultiplexer The demultiplexer routing the native events (must
+	 * not be {@code null}).
+	 * @param scheduler The scheduler which notifies the observers (must not
+	 * be {@code null}).
+	 */
+	protected NativeHookLogger(NativeEventType eventType,
+			NativeHookDemultiplexer demultiplexer, DispatchScheduler scheduler) {
+
+		super(scheduler);
+
+		requireNotNull(eventType);
+		requireNotNull(demultiplexer);
+
+		this.eventType = eventType;
+		this.demultiplexer = demultiplexer;
+		this.entryPool = new LogEntryPool(this, eventType.getEventClass());
+
+	}
+
+	/**
+	 * Starts routing native events to the logger (while it is recording).
+	 * Must be called once the logger is constructed, rather than by its
+	 * constructor, so no event reaches a partially constructed subclass (see
+	 * {@code DataLoggers.newDataLogger()}).
+	 */
+	public synchronized void start() {
+
+		if (started || released)
+			return;
+
+		started = true;
+
+		if (isRecording())
+			addRoutes();
+
+	}
+
+	/** Returns the type of native event logged. */
+	public NativeEventType getEventType() {
+		return eventType;
+	}
+
+	/**
+	 * Also routes the native events of the given type to the given handler,
+	 * while the logger is recording.
+	 * For loggers which must observe other events (e.g. the end of a drag).
+	 *
+	 * @param type The type of event to route (must not be {@code null}).
+	 * @param handler The handler (must not be {@code null}).
+	 */
+	protected synchronized void addRoute(NativeEventType type, NativeEventHandler handler) {
+
+		requireNotNull(type);
+		requireNotNull(handler);
+
+		extraTypes.add(type);
+		extraHandlers.add(handler);
+
+		if (started && isRecording() && !released)
+			demultiplexer.addHandler(type, handler);
+
+	}
+
+	/** Returns the pool of the logged entries (see {@code LogEntryPool}). */
+	public LogEntryPool getEntryPool() {
+		return entryPool;
+	}
+
+	@Override
+	public void shutdown() {
+
+		// NOTE no more events are logged, so the queued events are the last
+		stopRouting();
+
+		super.shutdown();
+
+	}
+
+	/** Stops routing native events to the logger, for good. */
+	protected final synchronized void stopRouting() {
+
+		released = true;
+		removeRoutes();
+
+	}
+
+	@Override
+	public void setRecording(boolean recording) {
+
+		super.setRecording(recording);
+
+		// only route events while recording
+		synchronized (this) {
+
+			if (recording && started && !released)
+				addRoutes();
+			else
+				removeRoutes();
+
+		}
+
+	}
+
+	// routes the native events to the logger, lock must be held
+	private void addRoutes() {
+
+		demultiplexer.addHandler(eventType, this);
+
+		for (int i = 0; i < extraTypes.size(); i++)
+			demultiplexer.addHandler(extraTypes.get(i), extraHandlers.get(i));
+
+	}
+
+	// stops routing the native events to the logger, lock must be held
+	private void removeRoutes() {
+
+		demultiplexer.removeHandler(eventType, this);
+
+		for (int i = 0; i < extraTypes.size(); i++)
+			demultiplexer.removeHandler(extraTypes.get(i), extraHandlers.get(i));
+
+	}
+
+}
@@ -0,0 +1,391 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.zeddev.zedlog.logger.BinaryDecoder;
+import net.zeddev.zedlog.logger.BinaryEncoder;
+import net.zeddev.zedlog.logger.DataLogger;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.LogEvent;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * A {@code LogHistory} which keeps the entries outside of the Java heap, so
+ * the heap used does not grow with the length of the recording.
+ * Each entry is a fixed width record (addressed by its index) of its
+ * timestamp, capture time, event type tag, parent logger number and the event fields
+ * given by {@code LogEvent.packFields()}.  Entries with explicit messages
+ * are instead encoded as in a binary log, in a separate arena of variable
+ * length records.
+ * The arenas are either direct buffers or regions of a temporary file
+ * mapped into memory (which the operating system may page out).
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class OffHeapLogHistory implements LogHistory {
+
+	/** The size of each (fixed width) entry record. */
+	public static final int RECORD_SIZE = 8 + 8 + 1 + 1 + 4 * LogEvent.PACKED_FIELDS;
+
+	/** The size of each buffer allocated to the arenas. */
+	public static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+	// the number of records in each chunk
+	private static final int CHUNK_RECORDS = CHUNK_SIZE / RECORD_SIZE;
+
+	// the offsets of the record fields
+	private static final int CAPTURE_OFFSET = 8;
+	private static final int TAG_OFFSET = 16;
+	private static final int PARENT_OFFSET = 17;
+	private static final int FIELDS_OFFSET = 18;
+
+	// the tag of records encoded in the variable length arena, and the
+	// fields giving where (the length is negative if kept on the heap)
+	private static final int ENCODED_TAG = 0;
+	private static final int ENCODED_LENGTH = 0, ENCODED_CHUNK = 1, ENCODED_OFFSET = 2;
+
+	// the most parent loggers numbered in the records
+	private static final int MAX_PARENTS = 0xFF;
+
+	// the directory of the temporary file mapped (or null for the default)
+	private final File mappedDirectory;
+
+	// the temporary file mapped (or null if using direct buffers)
+	private File mappedPath = null;
+	private FileChannel mapped = null;
+	private long mappedEnd = 0;
+
+	// the fixed width records, and the variable length records
+	private final List<ByteBuffer> records = new ArrayList<>();
+	private final List<ByteBuffer> encoded = new ArrayList<>();
+	private int encodedEnd = 0; // in the last chunk
+
+	private int size = 0;
+
+	// the parent loggers (by their number, from 1)
+	private final List<DataLogger> parents = new ArrayList<>();
+	private final Map<DataLogger, Integer> parentIndex = new IdentityHashMap<>();
+
+	// the (rare) entries which could not be stored in the arenas
+	private final Map<Integer, LogEntry> onHeap = new HashMap<>();
+
+	// the fields of the event being packed or unpacked
+	private final int[] scratch = new int[LogEvent.PACKED_FIELDS];
+	private final BinaryEncoder encoder = new BinaryEncoder();
+
+	/** Creates a new {@code OffHeapLogHistory} using direct buffers. */
+	public OffHeapLogHistory() {
+		mappedDirectory = null;
+	}
+
+	/**
+	 * Creates a new {@code OffHeapLogHistory} mapping a temporary file in
+	 * the given directory.
+	 *
+	 * @param directory The directory of the temporary file (or {@code null}
+	 * for the default temporary directory).
+	 * @throws IOException If the file could not be created.
+	 */
+	public OffHeapLogHistory(File directory) throws IOException {
+
+		mappedDirectory = directory;
+
+		openMappedFile();
+
+	}
+
+	// creates and opens a new temporary file to map
+	private void openMappedFile() throws IOException {
+
+		File path = File.createTempFile("zedlog-arena", ".tmp", mappedDirectory);
+		path.deleteOnExit();
+
+		mapped = FileChannel.open(
+			path.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE
+		);
+		mappedPath = path;
+		mappedEnd = 0;
+
+	}
+
+	// closes and deletes the given mapped file
+	// NOTE its chunks may still be mapped, so it is never truncated; if it
+	//      cannot be deleted while mapped (e.g. on Windows), it is deleted on
+	//      exit
+	private static void deleteMappedFile(FileChannel channel, File path) throws IOException {
+
+		channel.close();
+		path.delete();
+
+	}
+
+	/** Returns whether the arenas are mapped from a file. */
+	public boolean isMapped() {
+		return mapped != null;
+	}
+
+	/** Returns the number of bytes allocated to the arenas. */
+	public synchronized long getArenaBytes() {
+		return (long) (records.size() + encoded.size()) * CHUNK_SIZE;
+	}
+
+	// allocates a chunk of arena
+	private ByteBuffer allocate() throws IOException {
+
+		if (mapped == null)
+			return ByteBuffer.allocateDirect(CHUNK_SIZE);
+
+		ByteBuffer chunk = mapped.map(FileChannel.MapMode.READ_WRITE, mappedEnd, CHUNK_SIZE);
+		mappedEnd += CHUNK_SIZE;
+
+		return chunk;
+
+	}
+
+	// returns the number of the parent logger (0 for none, -1 if too many)
+	private int parentNumber(DataLogger parent) {
+
+		if (parent == null)
+			return 0;
+
+		Integer number = parentIndex.get(parent);
+
+		if (number == null) {
+
+			if (parents.size() == MAX_PARENTS)
+				return -1;
+
+			parents.add(parent);
+			number = parents.size();
+			parentIndex.put(parent, number);
+
+		}
+
+		return number;
+
+	}
+
+	@Override
+	public synchronized void addAll(List<LogEntry> logEntries) throws IOException {
+
+		requireNotNull(logEntries);
+
+		for (LogEntry logEntry : logEntries)
+			add(logEntry);
+
+	}
+
+	// appends the entry to the arenas
+	private void add(LogEntry logEntry) throws IOException {
+
+		requireNotNull(logEntry);
+
+		if (size == records.size() * CHUNK_RECORDS)
+			records.add(allocate());
+
+		ByteBuffer chunk = records.get(size / CHUNK_RECORDS);
+		int offset = (size % CHUNK_RECORDS) * RECORD_SIZE;
+
+		LogEvent event = logEntry.getEvent();
+
+		int tag = event == null ? -1 : LogEvents.tagOf(event.type());
+		int parent = parentNumber(logEntry.getParent());
+
+		Arrays.fill(scratch, 0);
+
+		boolean packed = tag > 0 && parent >= 0
+			&& logEntry.getExplicitMessage() == null
+			&& event.packFields(scratch);
+
+		if (!packed) {
+
+			Arrays.fill(scratch, 0);
+			scratch[ENCODED_LENGTH] = -1;
+
+			// NOTE unknown events and parents are kept on the heap
+			if (tag > 0 && parent >= 0)
+				storeEncoded(logEntry);
+
+			if (scratch[ENCODED_LENGTH] < 0)
+				onHeap.put(size, logEntry.detach());
+
+			tag = ENCODED_TAG;
+			parent = Math.max(0, parent);
+
+		}
+
+		chunk.putLong(offset, logEntry.getTimestamp());
+		chunk.putLong(offset + CAPTURE_OFFSET, logEntry.getCaptureTime());
+		chunk.put(offset + TAG_OFFSET, (byte) tag);
+		chunk.put(offset + PARENT_OFFSET, (byte) parent);
+
+		for (int field = 0; field < LogEvent.PACKED_FIELDS; field++)
+			chunk.putInt(offset + FIELDS_OFFSET + 4 * field, scratch[field]);
+
+		size++;
+
+	}
+
+	// appends the entry to the variable length arena, setting where it is
+	// stored in the record fields (unless too large)
+	// NOTE records never span chunks, so each record is a single buffer
+	private void storeEncoded(LogEntry logEntry) throws IOException {
+
+		encoder.clear();
+		BinaryLogWriter.encodeEntry(encoder, logEntry, 0, 0);
+
+		int length = encoder.length();
+		if (length > CHUNK_SIZE)
+			return;
+
+		if (encoded.isEmpty() || encodedEnd + length > CHUNK_SIZE) {
+			encoded.add(allocate());
+			encodedEnd = 0;
+		}
+
+		ByteBuffer chunk = encoded.get(encoded.size() - 1).duplicate();
+		chunk.position(encodedEnd);
+		chunk.put(encoder.toByteArray());
+
+		scratch[ENCODED_LENGTH] = length;
+		scratch[ENCODED_CHUNK] = encoded.size() - 1;
+		scratch[ENCODED_OFFSET] = encodedEnd;
+
+		encodedEnd += length;
+
+	}
+
+	@Override
+	public synchronized int size() {
+		return size;
+	}
+
+	@Override
+	public synchronized LogEntry get(int index) throws IOException {
+
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException(String.format("Index %d of %d entries!", index, size));
+
+		ByteBuffer chunk = records.get(index / CHUNK_RECORDS);
+		int offset = (index % CHUNK_RECORDS) * RECORD_SIZE;
+
+		for (int field = 0; field < LogEvent.PACKED_FIELDS; field++)
+			scratch[field] = chunk.getInt(offset + FIELDS_OFFSET + 4 * field);
+
+		int tag = chunk.get(offset + TAG_OFFSET);
+		LogEntry logEntry;
+
+		if (tag == ENCODED_TAG) {
+
+			if (scratch[ENCODED_LENGTH] < 0)
+				return onHeap.get(index);
+
+			logEntry = loadEncoded(
+				scratch[ENCODED_CHUNK], scratch[ENCODED_OFFSET], scratch[ENCODED_LENGTH]
+			);
+
+		} else {
+
+			LogEvent event = LogEvents.newLogEvent(tag);
+			event.unpackFields(scratch);
+
+			logEntry = new LogEntry();
+			logEntry.setTimestamp(chunk.getLong(offset));
+			logEntry.setCaptureTime(chunk.getLong(offset + CAPTURE_OFFSET));
+			logEntry.setEvent(event);
+
+		}
+
+		int parent = chunk.get(offset + PARENT_OFFSET) & 0xFF;
+		if (parent > 0)
+			logEntry.setParent(parents.get(parent - 1));
+
+		return logEntry;
+
+	}
+
+	// decodes the entry in the variable length arena
+	private LogEntry loadEncoded(int chunk, int offset, int length) throws IOException {
+
+		ByteBuffer record = encoded.get(chunk).duplicate();
+		record.limit(offset + length);
+		record.position(offset);
+
+		BinaryDecoder input = new BinaryDecoder(record.slice());
+
+		return BinaryLogReader.decodeEntry(input, BinaryLogWriter.VERSION, input.readByte(), 0, 0);
+
+	}
+
+	@Override
+	public synchronized void clear() throws IOException {
+
+		clearArenas();
+
+		// NOTE the old file is replaced rather than truncated, as its
+		//      chunks stay mapped until collected
+		if (mapped != null) {
+
+			FileChannel oldMapped = mapped;
+			File oldPath = mappedPath;
+
+			openMappedFile();
+			deleteMappedFile(oldMapped, oldPath);
+
+		}
+
+	}
+
+	// releases the arenas and the entries
+	private void clearArenas() {
+
+		// NOTE the buffers are released once unreachable
+		records.clear();
+		encoded.clear();
+		encodedEnd = 0;
+
+		size = 0;
+
+		parents.clear();
+		parentIndex.clear();
+		onHeap.clear();
+
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+
+		clearArenas();
+
+		if (mapped != null)
+			deleteMappedFile(mapped, mappedPath);
+
+	}
+
+}
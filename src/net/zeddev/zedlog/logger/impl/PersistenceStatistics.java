@@ -0,0 +1,153 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A snapshot of the counters of the persistence stage of a
+ * {@code CompositeDataLogger} (see {@code LogPersister}).
+ * Separate from the {@code DispatchStatistics} of the observers, as the log
+ * file is written on its own thread.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class PersistenceStatistics {
+
+	// NOTE set by LogPersister when taking the snapshot
+	int capacity;
+	int queueSize;
+	int peakQueueSize;
+	long submitted;
+	long written;
+	long batches;
+	int lastBatchSize;
+	int maxBatchSize;
+	long lastWriteNanos;
+	long totalWriteNanos;
+	long maxWriteNanos;
+	long blocked;
+	long totalBlockedNanos;
+	long maxBlockedNanos;
+	long flushes;
+	long maxFlushNanos;
+
+	PersistenceStatistics() {
+	}
+
+	/** Returns the most entries which may be queued to be written. */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/** Returns the number of entries queued to be written. */
+	public int getQueueSize() {
+		return queueSize;
+	}
+
+	/** Returns the most entries ever queued at once. */
+	public int getPeakQueueSize() {
+		return peakQueueSize;
+	}
+
+	/** Returns the number of entries submitted to be written. */
+	public long getSubmitted() {
+		return submitted;
+	}
+
+	/** Returns the number of entries written. */
+	public long getWritten() {
+		return written;
+	}
+
+	/** Returns the number of batches written. */
+	public long getBatches() {
+		return batches;
+	}
+
+	/** Returns the number of entries in the last batch. */
+	public int getLastBatchSize() {
+		return lastBatchSize;
+	}
+
+	/** Returns the most entries in a single batch. */
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	/** Returns the mean number of entries in each batch. */
+	public double getMeanBatchSize() {
+		return batches == 0 ? 0 : (double) written / batches;
+	}
+
+	/** Returns the time taken to write the last batch (in nanoseconds). */
+	public long getLastWriteNanos() {
+		return lastWriteNanos;
+	}
+
+	/** Returns the mean time taken to write a batch (in nanoseconds). */
+	public long getMeanWriteNanos() {
+		return batches == 0 ? 0 : totalWriteNanos / batches;
+	}
+
+	/** Returns the longest time taken to write a batch (in nanoseconds). */
+	public long getMaxWriteNanos() {
+		return maxWriteNanos;
+	}
+
+	/**
+	 * Returns the number of entries whose submission waited for room in the
+	 * queue (the back-pressure of the stage).
+	 */
+	public long getBlocked() {
+		return blocked;
+	}
+
+	/** Returns the total time spent waiting for room (in nanoseconds). */
+	public long getTotalBlockedNanos() {
+		return totalBlockedNanos;
+	}
+
+	/** Returns the longest time spent waiting for room (in nanoseconds). */
+	public long getMaxBlockedNanos() {
+		return maxBlockedNanos;
+	}
+
+	/** Returns the number of times the queued entries were flushed. */
+	public long getFlushes() {
+		return flushes;
+	}
+
+	/** Returns the longest time taken by a flush (in nanoseconds). */
+	public long getMaxFlushNanos() {
+		return maxFlushNanos;
+	}
+
+	@Override
+	public String toString() {
+
+		return String.format(
+			"%d of %d entries written, %d/%d queued (peak %d), " +
+			"batch %.1f/%d, write %.3f/%.3f ms (mean/max), " +
+			"%d blocked for %.3f ms (max %.3f ms), %d flushes (max %.3f ms)",
+			written, submitted, queueSize, capacity, peakQueueSize,
+			getMeanBatchSize(), maxBatchSize,
+			getMeanWriteNanos() / 1e6, maxWriteNanos / 1e6,
+			blocked, totalBlockedNanos / 1e6, maxBlockedNanos / 1e6,
+			flushes, maxFlushNanos / 1e6
+		);
+
+	}
+
+}
@@ -0,0 +1,185 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.zeddev.zedlog.logger.ClockCalibration;
+import net.zeddev.zedlog.logger.LogEntry;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * Reads the log entries of a {@code SegmentedLogStore}, segment by segment.
+ * Only the current segment is mapped, and its entries are read without
+ * copying.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class SegmentedLogReader implements LogReader {
+
+	private final File directory;
+
+	// the segments to read (in order)
+	private final List<SegmentedLogStore.Segment> segments;
+
+	// the logger types read so far
+	private final Set<String> loggerTypes;
+
+	// the total size of the segments, and of those already read
+	private final long size;
+	private long readSize = 0;
+
+	// the reader of the current segment (if any), and the next segment
+	private BinaryLogReader segmentLog = null;
+	private int nextSegment = 0;
+
+	// whether any segment ended with a partial record
+	private boolean truncated = false;
+
+	// the calibration of the last entry read
+	private ClockCalibration calibration = null;
+
+	/**
+	 * Opens the given log store.
+	 *
+	 * @param directory The store directory (must have a manifest).
+	 * @throws IOException If the store could not be read.
+	 */
+	public SegmentedLogReader(File directory) throws IOException {
+
+		requireNotNull(directory);
+
+		SegmentedLogStore.Manifest manifest = SegmentedLogStore.readManifest(directory);
+
+		this.directory = directory;
+		segments = manifest.segments;
+		loggerTypes = manifest.loggerTypes;
+
+		long size = 0;
+		for (SegmentedLogStore.Segment segment : segments)
+			size += segmentFile(segment).length();
+
+		this.size = size;
+
+	}
+
+	// the file of the given segment
+	private File segmentFile(SegmentedLogStore.Segment segment) {
+		return new File(directory, segment.fileName());
+	}
+
+	@Override
+	public List<String> getLoggerTypes() {
+		return new ArrayList<>(loggerTypes);
+	}
+
+	@Override
+	public ClockCalibration getCalibration() {
+		return calibration;
+	}
+
+	@Override
+	public long getPosition() {
+		return readSize + (segmentLog == null ? 0 : segmentLog.getPosition());
+	}
+
+	@Override
+	public long getSize() {
+		return size;
+	}
+
+	@Override
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	@Override
+	public void seekToTimestamp(long timestamp) throws IOException {
+
+		close();
+
+		readSize = 0;
+		nextSegment = 0;
+
+		// skip the segments entirely before the timestamp
+		// NOTE the open segment of an unfinished store has no entry count
+		while (nextSegment < segments.size()) {
+
+			SegmentedLogStore.Segment segment = segments.get(nextSegment);
+			if (segment.entryCount == 0 || segment.maxTimestamp >= timestamp)
+				break;
+
+			readSize += segmentFile(segment).length();
+			nextSegment++;
+
+		}
+
+		if (nextSegment < segments.size()) {
+			segmentLog = new BinaryLogReader(segmentFile(segments.get(nextSegment++)));
+			segmentLog.seekToTimestamp(timestamp);
+		}
+
+	}
+
+	@Override
+	public LogEntry next() throws IOException {
+
+		while (true) {
+
+			if (segmentLog != null) {
+
+				LogEntry logEntry = segmentLog.next();
+				if (logEntry != null) {
+					calibration = segmentLog.getCalibration();
+					return logEntry;
+				}
+
+				// finished the segment
+				loggerTypes.addAll(segmentLog.getLoggerTypes());
+				truncated |= segmentLog.isTruncated();
+				readSize += segmentLog.getSize();
+
+				segmentLog.close();
+				segmentLog = null;
+
+			}
+
+			if (nextSegment == segments.size())
+				return null;
+
+			segmentLog = new BinaryLogReader(segmentFile(segments.get(nextSegment++)));
+
+		}
+
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		if (segmentLog != null) {
+			segmentLog.close();
+			segmentLog = null;
+		}
+
+	}
+
+}
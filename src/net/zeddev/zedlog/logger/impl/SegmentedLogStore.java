@@ -0,0 +1,410 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.zeddev.zedlog.logger.ClockCalibration;
+import net.zeddev.zedlog.logger.LogEntry;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * Stores the log entries in a directory of binary log segments, so long
+ * recordings never sit in a single file.
+ * A new segment is started once the current segment reaches the segment
+ * size, or spans the segment duration.
+ * Each segment is a complete binary log (see {@code BinaryLogWriter}),
+ * listed in order in the store's manifest with its entry count and
+ * timestamp range.
+ * Opening an existing store appends new segments after the existing ones.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class SegmentedLogStore implements LogWriter {
+
+	/** The file extension of segmented log store directories. */
+	public static final String EXTENSION = ".zstore";
+
+	/** The default size at which segments are rolled (in bytes). */
+	public static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+
+	/** The default duration at which segments are rolled (in milliseconds). */
+	public static final long DEFAULT_SEGMENT_DURATION = 60L * 60 * 1000;
+
+	// the name of the manifest file, and its first line
+	static final String MANIFEST = "manifest";
+	static final String MANIFEST_HEADER = "zedlog-store 1";
+
+	private final File directory;
+
+	private final long segmentSize;
+	private final long segmentDuration;
+
+	// the segments of the store (in order), and the known logger types
+	private final List<Segment> segments;
+	private final Set<String> loggerTypes;
+
+	// the first segment written by this store
+	private final int firstSegment;
+
+	// the segment currently written (if any)
+	private Segment segment = null;
+	private BinaryLogWriter segmentLog = null;
+
+	// the calibration recorded (or null for the capture clock's)
+	private ClockCalibration calibration = null;
+
+	private long entryCount = 0;
+
+	private boolean closed = false;
+
+	/**
+	 * Opens (or creates) the given store, with the default segment size and
+	 * duration.
+	 *
+	 * @param directory The store directory (must not be {@code null}).
+	 * @param loggerTypes The types of the loggers whose entries are logged.
+	 * @throws IOException If the store could not be opened.
+	 */
+	public SegmentedLogStore(File directory, Collection<String> loggerTypes) throws IOException {
+		this(directory, loggerTypes, DEFAULT_SEGMENT_SIZE, DEFAULT_SEGMENT_DURATION);
+	}
+
+	/**
+	 * Opens (or creates) the given store.
+	 *
+	 * @param directory The store directory (must not be {@code null}).
+	 * @param loggerTypes The types of the loggers whose entries are logged.
+	 * @param segmentSize The size at which segments are rolled (in bytes,
+	 * must be positive).
+	 * @param segmentDuration The time spanned by each segment (in
+	 * milliseconds, or {@code 0} to roll by size only).
+	 * @throws IOException If the store could not be opened.
+	 */
+	public SegmentedLogStore(File directory, Collection<String> loggerTypes,
+			long segmentSize, long segmentDuration) throws IOException {
+
+		requireNotNull(directory);
+		requireNotNull(loggerTypes);
+		require(segmentSize > 0);
+		require(segmentDuration >= 0);
+
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException(String.format("Failed to create log store %s!", directory.getPath()));
+
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.segmentDuration = segmentDuration;
+
+		if (isStore(directory)) {
+
+			Manifest manifest = readManifest(directory);
+
+			segments = manifest.segments;
+			this.loggerTypes = manifest.loggerTypes;
+
+		} else {
+
+			segments = new ArrayList<>();
+			this.loggerTypes = new LinkedHashSet<>();
+
+		}
+
+		this.loggerTypes.addAll(loggerTypes);
+
+		firstSegment = nextSegmentNumber();
+
+		writeManifest();
+
+	}
+
+	/**
+	 * Whether the given file name has the store extension.
+	 *
+	 * @param file The store directory.
+	 */
+	public static boolean hasExtension(File file) {
+
+		requireNotNull(file);
+
+		return file.getName().toLowerCase().endsWith(EXTENSION);
+
+	}
+
+	/**
+	 * Whether the given file is a store directory (i.e. has a manifest).
+	 *
+	 * @param file The file to check.
+	 */
+	public static boolean isStore(File file) {
+
+		requireNotNull(file);
+
+		return new File(file, MANIFEST).isFile();
+
+	}
+
+	/** Returns the store directory. */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/** Returns the number of the first segment written by this store. */
+	public int getFirstSegment() {
+		return firstSegment;
+	}
+
+	/** Returns the number of segments in the store. */
+	public synchronized int getSegmentCount() {
+		return segments.size();
+	}
+
+	@Override
+	public synchronized long getEntryCount() {
+		return entryCount;
+	}
+
+	@Override
+	public synchronized void setCalibration(ClockCalibration calibration) {
+
+		this.calibration = calibration;
+
+		if (segmentLog != null)
+			segmentLog.setCalibration(calibration);
+
+	}
+
+	@Override
+	public synchronized void write(LogEntry logEntry) throws IOException {
+
+		requireNotNull(logEntry);
+		require(!closed);
+
+		long timestamp = logEntry.getTimestamp();
+
+		if (segmentLog == null || segmentLog.getSize() >= segmentSize ||
+				(segmentDuration > 0 && segment.entryCount > 0 &&
+				 timestamp - segment.firstTimestamp >= segmentDuration)) {
+			rollSegment();
+		}
+
+		segmentLog.write(logEntry);
+
+		if (segment.entryCount == 0) {
+			segment.firstTimestamp = timestamp;
+			segment.maxTimestamp = timestamp;
+		} else {
+			segment.maxTimestamp = Math.max(segment.maxTimestamp, timestamp);
+		}
+		segment.entryCount++;
+
+		entryCount++;
+
+	}
+
+	// the number of the next segment
+	private int nextSegmentNumber() {
+		return segments.isEmpty() ? 1 : segments.get(segments.size() - 1).number + 1;
+	}
+
+	// finishes the current segment (if any) and starts the next
+	private void rollSegment() throws IOException {
+
+		closeSegment();
+
+		Segment next = new Segment(nextSegmentNumber());
+		segmentLog = new BinaryLogWriter(new File(directory, next.fileName()), loggerTypes);
+		segmentLog.setCalibration(calibration);
+		segment = next;
+
+		segments.add(next);
+
+		// NOTE lists the segment before written, so is found after a crash
+		writeManifest();
+
+	}
+
+	// finishes the current segment (if any)
+	private void closeSegment() throws IOException {
+
+		if (segmentLog != null) {
+			segmentLog.close(loggerTypes);
+			segmentLog = null;
+		}
+
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+
+		if (segmentLog != null)
+			segmentLog.flush();
+
+	}
+
+	@Override
+	public synchronized void force() throws IOException {
+
+		if (segmentLog != null)
+			segmentLog.force();
+
+	}
+
+	@Override
+	public synchronized void close(Collection<String> loggerTypes) throws IOException {
+
+		requireNotNull(loggerTypes);
+
+		if (closed)
+			return;
+
+		closed = true;
+
+		this.loggerTypes.addAll(loggerTypes);
+
+		try {
+			closeSegment();
+		} finally {
+			writeManifest();
+		}
+
+	}
+
+	@Override
+	public void close() throws IOException {
+		close(new ArrayList<String>());
+	}
+
+	// replaces the manifest with the current segments and loggers
+	private void writeManifest() throws IOException {
+
+		File tmp = new File(directory, MANIFEST + ".tmp");
+
+		try (Writer output = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+
+			output.write(MANIFEST_HEADER);
+			output.write('\n');
+
+			for (String type : loggerTypes)
+				output.write(String.format("logger %s\n", type));
+
+			for (Segment segment : segments) {
+				output.write(String.format(
+					"segment %d %d %d %d\n",
+					segment.number, segment.entryCount,
+					segment.firstTimestamp, segment.maxTimestamp
+				));
+			}
+
+		}
+
+		// NOTE replaced atomically, so is never seen partially written
+		Files.move(
+			tmp.toPath(), new File(directory, MANIFEST).toPath(),
+			StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE
+		);
+
+	}
+
+	/**
+	 * Reads the manifest of the given store.
+	 *
+	 * @param directory The store directory.
+	 * @throws IOException If the manifest is missing or malformed.
+	 */
+	static Manifest readManifest(File directory) throws IOException {
+
+		Manifest manifest = new Manifest();
+
+		try (BufferedReader input = Files.newBufferedReader(
+				new File(directory, MANIFEST).toPath(), StandardCharsets.UTF_8)) {
+
+			if (!MANIFEST_HEADER.equals(input.readLine()))
+				throw new IOException(String.format("%s is not a log store!", directory.getPath()));
+
+			String line;
+			while ((line = input.readLine()) != null) {
+
+				if (line.startsWith("logger ")) {
+					manifest.loggerTypes.add(line.substring("logger ".length()));
+				} else if (line.startsWith("segment ")) {
+
+					String[] fields = line.split(" ");
+					if (fields.length != 5)
+						throw new IOException(String.format("Malformed log store manifest line '%s'!", line));
+
+					Segment segment = new Segment(Integer.parseInt(fields[1]));
+					segment.entryCount = Long.parseLong(fields[2]);
+					segment.firstTimestamp = Long.parseLong(fields[3]);
+					segment.maxTimestamp = Long.parseLong(fields[4]);
+
+					manifest.segments.add(segment);
+
+				} else if (!line.isEmpty()) {
+					throw new IOException(String.format("Malformed log store manifest line '%s'!", line));
+				}
+
+			}
+
+		} catch (NumberFormatException ex) {
+			throw new IOException("Malformed log store manifest!", ex);
+		}
+
+		return manifest;
+
+	}
+
+	/** The contents of a store's manifest. */
+	static final class Manifest {
+
+		final Set<String> loggerTypes = new LinkedHashSet<>();
+		final List<Segment> segments = new ArrayList<>();
+
+	}
+
+	/** A segment of the store. */
+	static final class Segment {
+
+		final int number;
+
+		long entryCount = 0;
+		long firstTimestamp = 0;
+		long maxTimestamp = 0;
+
+		Segment(int number) {
+			this.number = number;
+		}
+
+		/** Returns the name of the segment's file. */
+		String fileName() {
+			return String.format("segment-%08d%s", number, BinaryLogWriter.EXTENSION);
+		}
+
+	}
+
+}
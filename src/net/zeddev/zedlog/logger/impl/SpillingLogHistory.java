@@ -0,0 +1,395 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.zeddev.zedlog.logger.BinaryDecoder;
+import net.zeddev.zedlog.logger.BinaryEncoder;
+import net.zeddev.zedlog.logger.DataLogger;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.LogEvent;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * A {@code LogHistory} which keeps a window of the most recent entries in
+ * memory, and pages older entries to a temporary spill file.
+ * The window is bounded by a number of entries and an (estimated) number
+ * of bytes.  Spilled entries are encoded as in a binary log, in blocks of
+ * {@code BLOCK_SIZE} entries, and read back a block at a time.  Entries
+ * which cannot be encoded (e.g. of unknown event types) are kept on the heap
+ * when spilled.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class SpillingLogHistory implements LogHistory {
+
+	/** The default most entries kept in memory. */
+	public static final int DEFAULT_MAX_ENTRIES = 65536;
+
+	/** The default most (estimated) bytes of entries kept in memory. */
+	public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+	/** The number of entries spilled (and loaded) at once. */
+	public static final int BLOCK_SIZE = 64;
+
+	// the estimated heap size of an entry (and its event), without message
+	private static final int ENTRY_BYTES = 128;
+
+	// the bounds of the in-memory window
+	private int maxEntries;
+	private long maxBytes;
+
+	// the in-memory entries (a ring of the entries after the spilled entries)
+	private LogEntry[] window = new LogEntry[BLOCK_SIZE];
+	private int windowHead = 0;
+	private int windowSize = 0;
+	private long windowBytes = 0;
+
+	// the spill file (created on first use)
+	private File spillPath = null;
+	private FileChannel spill = null;
+	private long spillEnd = 0;
+
+	// the number of spilled entries, and where each spilled block starts
+	private int spilled = 0;
+	private long[] blockOffsets = new long[16];
+
+	// the spilled entries which could not be encoded (by their index)
+	private final Map<Integer, LogEntry> onHeap = new HashMap<>();
+
+	// the parent loggers of the spilled entries (by their number)
+	private final List<DataLogger> parents = new ArrayList<>();
+	private final Map<DataLogger, Integer> parentNumbers = new IdentityHashMap<>();
+
+	// the most recently loaded block
+	private final LogEntry[] loadedBlock = new LogEntry[BLOCK_SIZE];
+	private int loadedBlockNumber = -1;
+
+	private final BinaryEncoder encoder = new BinaryEncoder();
+	private ByteBuffer readBuffer = ByteBuffer.allocate(4096);
+
+	/**
+	 * Creates a new {@code SpillingLogHistory} with the default window.
+	 */
+	public SpillingLogHistory() {
+		this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * Creates a new {@code SpillingLogHistory}.
+	 *
+	 * @param maxEntries The most entries kept in memory (must be positive).
+	 * @param maxBytes The most (estimated) bytes of entries kept in memory
+	 * (must be positive).
+	 */
+	public SpillingLogHistory(int maxEntries, long maxBytes) {
+		setWindow(maxEntries, maxBytes);
+	}
+
+	/**
+	 * Sets the bounds of the in-memory window.
+	 * Entries which no longer fit are spilled when entries are next added.
+	 * Entries are spilled in whole blocks, so the window may exceed the
+	 * bounds by less than a block.
+	 *
+	 * @param maxEntries The most entries kept in memory (must be positive).
+	 * @param maxBytes The most (estimated) bytes of entries kept in memory
+	 * (must be positive).
+	 */
+	public synchronized void setWindow(int maxEntries, long maxBytes) {
+
+		require(maxEntries > 0);
+		require(maxBytes > 0);
+
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+
+	}
+
+	/** Returns the most entries kept in memory. */
+	public synchronized int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/** Returns the most (estimated) bytes of entries kept in memory. */
+	public synchronized long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/** Returns the number of entries kept in memory. */
+	public synchronized int getWindowSize() {
+		return windowSize;
+	}
+
+	/** Returns the number of entries spilled to disk. */
+	public synchronized int getSpilledSize() {
+		return spilled;
+	}
+
+	// estimates the heap size of the entry
+	private static long estimateBytes(LogEntry logEntry) {
+
+		String message = logEntry.getExplicitMessage();
+
+		return ENTRY_BYTES + (message == null ? 0 : 40 + 2 * message.length());
+
+	}
+
+	@Override
+	public synchronized void addAll(List<LogEntry> logEntries) throws IOException {
+
+		requireNotNull(logEntries);
+
+		for (LogEntry logEntry : logEntries) {
+
+			if (windowSize == window.length)
+				growWindow();
+
+			// NOTE pooled entries are recycled, so a copy is kept
+			window[(windowHead + windowSize) & (window.length - 1)] = logEntry.detach();
+			windowSize++;
+			windowBytes += estimateBytes(logEntry);
+
+		}
+
+		while ((windowSize > maxEntries || windowBytes > maxBytes) && windowSize >= BLOCK_SIZE)
+			spillBlock();
+
+	}
+
+	// doubles the capacity of the window, keeping the entries in order
+	private void growWindow() {
+
+		LogEntry[] grown = new LogEntry[window.length * 2];
+
+		for (int i = 0; i < windowSize; i++)
+			grown[i] = window[(windowHead + i) & (window.length - 1)];
+
+		window = grown;
+		windowHead = 0;
+
+	}
+
+	// whether the entry can be encoded in the spill file
+	private static boolean isEncodable(LogEntry logEntry) {
+
+		LogEvent event = logEntry.getEvent();
+
+		return event != null && LogEvents.tagOf(event.type()) > 0;
+
+	}
+
+	// moves the oldest block of the window to the spill file
+	// NOTE the whole block is written before the window is changed, so a
+	//      failure leaves the history intact
+	private void spillBlock() throws IOException {
+
+		if (spill == null) {
+			spillPath = File.createTempFile("zedlog-history", ".tmp");
+			spillPath.deleteOnExit();
+			spill = FileChannel.open(spillPath.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		}
+
+		int blockNumber = spilled / BLOCK_SIZE;
+		if (blockNumber + 1 >= blockOffsets.length)
+			blockOffsets = Arrays.copyOf(blockOffsets, blockOffsets.length * 2);
+
+		encoder.clear();
+		long previousTimestamp = 0;
+		long previousCaptureTime = 0;
+
+		for (int i = 0; i < BLOCK_SIZE; i++) {
+
+			LogEntry logEntry = window[(windowHead + i) & (window.length - 1)];
+
+			// NOTE 0 marks an entry kept on the heap, else the parent's
+			//      number (or 0 for none) plus one
+			if (!isEncodable(logEntry)) {
+				encoder.writeVarInt(0);
+				continue;
+			}
+
+			encoder.writeVarInt(parentNumber(logEntry.getParent()) + 1);
+			BinaryLogWriter.encodeEntry(encoder, logEntry, previousTimestamp, previousCaptureTime);
+
+			previousTimestamp = logEntry.getTimestamp();
+			previousCaptureTime = logEntry.getCaptureTime();
+
+		}
+
+		blockOffsets[blockNumber] = spillEnd;
+		spillEnd += encoder.writeTo(spill, spillEnd);
+		blockOffsets[blockNumber + 1] = spillEnd;
+
+		for (int i = 0; i < BLOCK_SIZE; i++) {
+
+			int slot = (windowHead + i) & (window.length - 1);
+			LogEntry logEntry = window[slot];
+
+			if (!isEncodable(logEntry))
+				onHeap.put(spilled + i, logEntry);
+
+			windowBytes -= estimateBytes(logEntry);
+			window[slot] = null; // release for gc
+
+		}
+
+		windowHead = (windowHead + BLOCK_SIZE) & (window.length - 1);
+		windowSize -= BLOCK_SIZE;
+		spilled += BLOCK_SIZE;
+
+	}
+
+	// returns the number recording the parent logger (0 for none)
+	private int parentNumber(DataLogger parent) {
+
+		if (parent == null)
+			return 0;
+
+		Integer number = parentNumbers.get(parent);
+
+		if (number == null) {
+			parents.add(parent);
+			number = parents.size();
+			parentNumbers.put(parent, number);
+		}
+
+		return number;
+
+	}
+
+	@Override
+	public synchronized int size() {
+		return spilled + windowSize;
+	}
+
+	@Override
+	public synchronized LogEntry get(int index) throws IOException {
+
+		if (index < 0 || index >= size())
+			throw new IndexOutOfBoundsException(String.format("Index %d of %d entries!", index, size()));
+
+		if (index >= spilled)
+			return window[(windowHead + index - spilled) & (window.length - 1)];
+
+		int blockNumber = index / BLOCK_SIZE;
+		if (blockNumber != loadedBlockNumber)
+			loadBlock(blockNumber);
+
+		return loadedBlock[index % BLOCK_SIZE];
+
+	}
+
+	// reads the given spilled block
+	private void loadBlock(int blockNumber) throws IOException {
+
+		long start = blockOffsets[blockNumber];
+		int length = (int) (blockOffsets[blockNumber + 1] - start);
+
+		if (readBuffer.capacity() < length)
+			readBuffer = ByteBuffer.allocate(Math.max(length, readBuffer.capacity() * 2));
+
+		readBuffer.clear();
+		readBuffer.limit(length);
+
+		while (readBuffer.hasRemaining()) {
+			if (spill.read(readBuffer, start + readBuffer.position()) < 0)
+				throw new IOException("Log history spill file was truncated!");
+		}
+
+		readBuffer.flip();
+
+		BinaryDecoder input = new BinaryDecoder(readBuffer);
+		long previousTimestamp = 0;
+		long previousCaptureTime = 0;
+
+		// NOTE marked unloaded first, in case decoding fails
+		loadedBlockNumber = -1;
+
+		for (int i = 0; i < BLOCK_SIZE; i++) {
+
+			int parentNumber = input.readVarInt() - 1;
+
+			if (parentNumber < 0) {
+				loadedBlock[i] = onHeap.get(blockNumber * BLOCK_SIZE + i);
+				continue;
+			}
+
+			LogEntry logEntry = BinaryLogReader.decodeEntry(
+				input, BinaryLogWriter.VERSION, input.readByte(),
+				previousTimestamp, previousCaptureTime
+			);
+			if (parentNumber > 0)
+				logEntry.setParent(parents.get(parentNumber - 1));
+
+			loadedBlock[i] = logEntry;
+			previousTimestamp = logEntry.getTimestamp();
+			previousCaptureTime = logEntry.getCaptureTime();
+
+		}
+
+		loadedBlockNumber = blockNumber;
+
+	}
+
+	@Override
+	public synchronized void clear() throws IOException {
+
+		Arrays.fill(window, null);
+		windowHead = windowSize = 0;
+		windowBytes = 0;
+
+		Arrays.fill(loadedBlock, null);
+		loadedBlockNumber = -1;
+
+		spilled = 0;
+		spillEnd = 0;
+		if (spill != null)
+			spill.truncate(0);
+
+		onHeap.clear();
+		parents.clear();
+		parentNumbers.clear();
+
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+
+		clear();
+
+		if (spill != null) {
+			spill.close();
+			Files.deleteIfExists(spillPath.toPath());
+			spill = null;
+		}
+
+	}
+
+}
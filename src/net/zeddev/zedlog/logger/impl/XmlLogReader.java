@@ -0,0 +1,360 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import net.zeddev.zedlog.logger.ClockCalibration;
+import net.zeddev.zedlog.logger.LogEntry;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Reads the log entries of an xml log file with a pull parser, so only the
+ * current entry is held in memory.
+ * Loggers are accepted before, among or after the entries, and are also
+ * taken from the entries themselves.
+ * A log left unterminated (e.g. by a crash) is read up to its last complete
+ * entry, without modifying the file.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class XmlLogReader implements LogReader {
+
+	private final CountingInputStream input;
+	private final XMLStreamReader xml;
+
+	// the size of the log file
+	private final long size;
+
+	// whether the log was unterminated
+	private final boolean truncated;
+
+	// builds the (detached) element of the current entry
+	private final Document scratch;
+
+	// the logger types read so far
+	private final List<String> loggerTypes = new ArrayList<>();
+
+	// the last calibration read
+	private ClockCalibration calibration = null;
+
+	// an entry read ahead by a seek, returned by the next read
+	private LogEntry pending = null;
+
+	/**
+	 * Opens the given xml log.
+	 *
+	 * @param file The log file (must exist).
+	 * @throws IOException If the file could not be read.
+	 */
+	public XmlLogReader(File file) throws IOException {
+
+		requireNotNull(file);
+
+		size = file.length();
+		truncated = !XmlLogWriter.isTerminated(file);
+
+		InputStream log = new FileInputStream(file);
+
+		// read only the complete entries, as if the log was repaired
+		if (truncated) {
+			log = new SequenceInputStream(
+				new BoundedInputStream(log, XmlLogWriter.entriesEnd(file)),
+				new ByteArrayInputStream(XmlLogWriter.REPAIRED_TAIL.getBytes(StandardCharsets.US_ASCII))
+			);
+		}
+
+		input = new CountingInputStream(new BufferedInputStream(log, 64 * 1024));
+
+		try {
+
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+			xml = factory.createXMLStreamReader(input, "UTF-8");
+
+			scratch = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+
+		} catch (XMLStreamException | ParserConfigurationException ex) {
+			input.close();
+			throw new IOException("Failed to create xml reader!", ex);
+		}
+
+	}
+
+	@Override
+	public List<String> getLoggerTypes() {
+		return new ArrayList<>(loggerTypes);
+	}
+
+	@Override
+	public ClockCalibration getCalibration() {
+		return calibration;
+	}
+
+	@Override
+	public long getPosition() {
+		return Math.min(input.count, size); // NOTE includes any repaired tail
+	}
+
+	@Override
+	public long getSize() {
+		return size;
+	}
+
+	@Override
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	@Override
+	public void seekToTimestamp(long timestamp) throws IOException {
+
+		// NOTE can only read ahead, as the log has no index
+		LogEntry logEntry = pending;
+		if (logEntry == null)
+			logEntry = readEntry();
+
+		while (logEntry != null && logEntry.getTimestamp() < timestamp)
+			logEntry = readEntry();
+
+		pending = logEntry;
+
+	}
+
+	@Override
+	public LogEntry next() throws IOException {
+
+		if (pending != null) {
+
+			LogEntry logEntry = pending;
+			pending = null;
+
+			return logEntry;
+
+		}
+
+		return readEntry();
+
+	}
+
+	// parses the next entry
+	private LogEntry readEntry() throws IOException {
+
+		try {
+
+			while (xml.hasNext()) {
+
+				if (xml.next() != XMLStreamConstants.START_ELEMENT)
+					continue;
+
+				String tag = xml.getLocalName();
+
+				if (tag.equals("logger")) {
+					addLoggerType(xml.getAttributeValue(null, "type"));
+				} else if (tag.equals("calibration")) {
+					calibration = new ClockCalibration(
+						Long.parseLong(xml.getAttributeValue(null, "capture")),
+						Long.parseLong(xml.getAttributeValue(null, "wallclock"))
+					);
+				} else if (tag.equals("entry")) {
+
+					String loggerType = xml.getAttributeValue(null, "logger");
+					if (loggerType != null)
+						addLoggerType(loggerType);
+
+					Element entry = readElement();
+
+					LogEntry logEntry = new LogEntry();
+					logEntry.fromXML(entry);
+
+					return logEntry;
+
+				}
+
+			}
+
+			return null;
+
+		} catch (IOException ex) {
+			throw ex;
+		} catch (Exception ex) {
+			throw new IOException(String.format(
+				"Malformed xml log entry near line %d!",
+				xml.getLocation().getLineNumber()
+			), ex);
+		}
+
+	}
+
+	// records the logger type, if not already known
+	private void addLoggerType(String type) {
+
+		if (type != null && !loggerTypes.contains(type))
+			loggerTypes.add(type);
+
+	}
+
+	// reads the current element (and its children) into a detached element
+	private Element readElement() throws XMLStreamException {
+
+		Element element = scratch.createElement(xml.getLocalName());
+
+		for (int i = 0; i < xml.getAttributeCount(); i++)
+			element.setAttribute(xml.getAttributeLocalName(i), xml.getAttributeValue(i));
+
+		while (true) {
+
+			int event = xml.next();
+
+			if (event == XMLStreamConstants.START_ELEMENT)
+				element.appendChild(readElement());
+			else if (event == XMLStreamConstants.CHARACTERS)
+				element.appendChild(scratch.createTextNode(xml.getText()));
+			else if (event == XMLStreamConstants.END_ELEMENT)
+				return element;
+
+		}
+
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		try {
+			xml.close();
+		} catch (XMLStreamException ex) {
+			throw new IOException("Failed to close xml reader!", ex);
+		} finally {
+			input.close();
+		}
+
+	}
+
+	// reads at most the given number of bytes from the stream
+	private static final class BoundedInputStream extends FilterInputStream {
+
+		private long remaining;
+
+		public BoundedInputStream(InputStream input, long limit) {
+			super(input);
+			remaining = limit;
+		}
+
+		@Override
+		public int read() throws IOException {
+
+			if (remaining <= 0)
+				return -1;
+
+			int b = super.read();
+			if (b >= 0)
+				remaining--;
+
+			return b;
+
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+
+			if (remaining <= 0)
+				return -1;
+
+			int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+			if (read > 0)
+				remaining -= read;
+
+			return read;
+
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+
+			long skipped = super.skip(Math.min(n, remaining));
+			remaining -= skipped;
+
+			return skipped;
+
+		}
+
+	}
+
+	// counts the bytes read from the stream
+	private static final class CountingInputStream extends FilterInputStream {
+
+		private long count = 0;
+
+		public CountingInputStream(InputStream input) {
+			super(input);
+		}
+
+		@Override
+		public int read() throws IOException {
+
+			int b = super.read();
+			if (b >= 0)
+				count++;
+
+			return b;
+
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+
+			int read = super.read(buffer, offset, length);
+			if (read > 0)
+				count += read;
+
+			return read;
+
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+
+			long skipped = super.skip(n);
+			count += skipped;
+
+			return skipped;
+
+		}
+
+	}
+
+}
@@ -0,0 +1,566 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import net.zeddev.zedlog.logger.CaptureClock;
+import net.zeddev.zedlog.logger.ClockCalibration;
+import net.zeddev.zedlog.logger.LogEntry;
+
+import org.w3c.dom.*;
+
+import static net.zeddev.zedlog.util.Assertions.*;
+
+/**
+ * Writes log entries to an XML log file as they are logged.
+ * Only the new entries are appended, the file is never re-written.
+ * The file has the form;
+ * <pre>
+ * &lt;zedlog&gt;
+ *     &lt;loggers&gt; &lt;logger type="..." /&gt; ... &lt;/loggers&gt;
+ *     &lt;entries&gt; &lt;entry logger="..." ...&gt; ... &lt;/entries&gt;
+ * &lt;/zedlog&gt;
+ * </pre>
+ * where the closing tags are written when the writer is closed.  Each entry
+ * names its logger, and a logger added after the file was created (or
+ * re-opened) is declared by a {@code <logger type="..." />} among the
+ * entries, before its first entry.  The entries are preceded by a
+ * {@code <calibration capture="..." wallclock="..." />} of the capture
+ * clock (see {@code CaptureClock}), and another whenever it is re-calibrated.
+ * A file left unterminated (e.g. by a crash) is still read by
+ * {@code XmlLogReader}, and may be finished with {@code repair()}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class XmlLogWriter implements LogWriter {
+
+	// the end of a complete entry, and of the log
+	private static final String ENTRY_END = "</entry>";
+	private static final String ENTRIES_START = "<entries>";
+	private static final String ENTRIES_END = "</entries>";
+	private static final String LOG_END = "</zedlog>";
+
+	// the tail written to finish an unterminated log
+	static final String REPAIRED_TAIL = ENTRIES_END + LOG_END;
+
+	private final FileOutputStream file;
+	private final OutputStream output;
+	private final XMLStreamWriter writer;
+
+	// the scratch document used to encode the entries
+	private final Element scratch;
+
+	// the number of entries written
+	private long entryCount = 0;
+
+	// the logger types declared in the log
+	private final Set<String> loggerTypes = new HashSet<>();
+
+	// the calibration recorded (or null for the capture clock's), and the
+	// last calibration written
+	private ClockCalibration calibration = null;
+	private ClockCalibration lastCalibration = null;
+
+	// whether appending to an existing log (i.e. the opening tags were not
+	// written by this writer)
+	private final boolean appending;
+
+	private boolean closed = false;
+
+	/**
+	 * Creates a new log file (replacing any existing file) without any
+	 * loggers, and writes the opening tags.
+	 *
+	 * @param file The log file (must not be {@code null}).
+	 * @throws IOException If the file could not be created.
+	 */
+	public XmlLogWriter(File file) throws IOException {
+		this(file, Collections.<String>emptyList());
+	}
+
+	/**
+	 * Creates a new log file (replacing any existing file) and writes the
+	 * loggers and opening tags.
+	 *
+	 * @param file The log file (must not be {@code null}).
+	 * @param loggerTypes The types of the loggers whose entries are logged.
+	 * @throws IOException If the file could not be created.
+	 */
+	public XmlLogWriter(File file, Collection<String> loggerTypes) throws IOException {
+
+		requireNotNull(file);
+		requireNotNull(loggerTypes);
+
+		appending = false;
+		scratch = newScratch();
+
+		this.file = new FileOutputStream(file);
+		output = new BufferedOutputStream(this.file);
+
+		try {
+
+			writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
+
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.writeStartElement("zedlog");
+
+			writer.writeStartElement("loggers");
+			for (String type : new LinkedHashSet<>(loggerTypes)) {
+				this.loggerTypes.add(type);
+				writer.writeEmptyElement("logger");
+				writer.writeAttribute("type", type);
+			}
+			writer.writeEndElement();
+
+			writer.writeStartElement("entries");
+			writer.writeCharacters(""); // close the start tag
+
+		} catch (XMLStreamException ex) {
+			output.close();
+			throw new IOException("Failed to start XML log!", ex);
+		}
+
+	}
+
+	// re-opens the log, to append after the given position
+	private XmlLogWriter(File file, long end, long entryCount, Collection<String> loggerTypes) throws IOException {
+
+		appending = true;
+		scratch = newScratch();
+
+		this.loggerTypes.addAll(loggerTypes);
+
+		try (RandomAccessFile log = new RandomAccessFile(file, "rw")) {
+			log.setLength(end);
+		}
+
+		this.file = new FileOutputStream(file, true);
+		output = new BufferedOutputStream(this.file);
+
+		try {
+			writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
+		} catch (XMLStreamException ex) {
+			output.close();
+			throw new IOException("Failed to append to XML log!", ex);
+		}
+
+		this.entryCount = entryCount;
+
+	}
+
+	// creates the scratch element used to encode the entries
+	private static Element newScratch() throws IOException {
+
+		try {
+
+			Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+			Element scratch = doc.createElement("entries");
+			doc.appendChild(scratch);
+
+			return scratch;
+
+		} catch (ParserConfigurationException ex) {
+			throw new IOException("Failed to create XML encoder!", ex);
+		}
+
+	}
+
+	/**
+	 * Opens an existing log file to append further entries.
+	 * The loggers of the log are kept, any partially written entry (and the
+	 * closing tags) are discarded.  Loggers not yet in the log are declared
+	 * with their first entry.
+	 *
+	 * @param file The log file (must exist).
+	 * @return The writer, positioned after the last complete entry.
+	 * @throws IOException If the file is not a log, or could not be opened.
+	 */
+	public static XmlLogWriter openForAppend(File file) throws IOException {
+
+		requireNotNull(file);
+
+		// count the existing entries, and find the loggers declared
+		// NOTE the reader accepts unterminated logs, without changing them
+		long entryCount = 0;
+		List<String> loggerTypes;
+
+		try (XmlLogReader reader = new XmlLogReader(file)) {
+
+			while (reader.next() != null)
+				entryCount++;
+
+			loggerTypes = reader.getLoggerTypes();
+
+		}
+
+		return new XmlLogWriter(file, entriesEnd(file), entryCount, loggerTypes);
+
+	}
+
+	@Override
+	public synchronized long getEntryCount() {
+		return entryCount;
+	}
+
+	@Override
+	public synchronized void setCalibration(ClockCalibration calibration) {
+		this.calibration = calibration;
+	}
+
+	@Override
+	public synchronized void write(LogEntry logEntry) throws IOException {
+
+		requireNotNull(logEntry);
+		require(!closed);
+
+		try {
+
+			ClockCalibration calibration = this.calibration != null ? this.calibration : CaptureClock.getCalibration();
+			if (!calibration.equals(lastCalibration)) {
+
+				writer.writeEmptyElement("calibration");
+				writer.writeAttribute("capture", Long.toString(calibration.getCaptureTime()));
+				writer.writeAttribute("wallclock", Long.toString(calibration.getWallClock()));
+
+				lastCalibration = calibration;
+
+			}
+
+			String loggerType = logEntry.getParent() != null ? logEntry.getParent().type() : null;
+			if (loggerType != null)
+				declareLogger(loggerType);
+
+			logEntry.toXML(scratch);
+
+			Element entry = (Element) scratch.getLastChild();
+			if (loggerType != null)
+				entry.setAttribute("logger", loggerType);
+
+			writeElement(entry);
+			scratch.removeChild(entry);
+
+		} catch (IOException ex) {
+			throw ex;
+		} catch (Exception ex) {
+			throw new IOException("Failed to encode log entry to XML!", ex);
+		}
+
+		entryCount++;
+
+	}
+
+	// declares the logger in the entries, if not already declared
+	private void declareLogger(String type) throws XMLStreamException {
+
+		if (loggerTypes.add(type)) {
+			writer.writeEmptyElement("logger");
+			writer.writeAttribute("type", type);
+		}
+
+	}
+
+	// writes the (ASCII) text to the stream, after any pending xml
+	private void writeRaw(String text) throws XMLStreamException, IOException {
+
+		writer.flush();
+		output.write(text.getBytes(StandardCharsets.US_ASCII));
+
+	}
+
+	// writes the element (and its children) to the stream
+	private void writeElement(Element element) throws XMLStreamException {
+
+		writer.writeStartElement(element.getTagName());
+
+		NamedNodeMap attributes = element.getAttributes();
+		for (int i = 0; i < attributes.getLength(); i++) {
+			Attr attribute = (Attr) attributes.item(i);
+			writer.writeAttribute(attribute.getName(), attribute.getValue());
+		}
+
+		for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+
+			if (child instanceof Element)
+				writeElement((Element) child);
+			else if (child instanceof Text)
+				writer.writeCharacters(child.getNodeValue());
+
+		}
+
+		writer.writeEndElement();
+
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+
+		if (closed)
+			return;
+
+		try {
+			writer.flush();
+		} catch (XMLStreamException ex) {
+			throw new IOException("Failed to flush XML log!", ex);
+		}
+
+		output.flush();
+
+	}
+
+	@Override
+	public synchronized void force() throws IOException {
+
+		if (closed)
+			return;
+
+		flush();
+		file.getChannel().force(false);
+
+	}
+
+	/**
+	 * Writes the closing tags and closes the file.
+	 * The given loggers not yet declared are declared after the entries.
+	 *
+	 * @param loggerTypes The types of the loggers which made the entries.
+	 * @throws IOException If the log could not be finished.
+	 */
+	@Override
+	public synchronized void close(Collection<String> loggerTypes) throws IOException {
+
+		requireNotNull(loggerTypes);
+
+		if (closed)
+			return;
+
+		closed = true;
+
+		try {
+
+			for (String type : loggerTypes)
+				declareLogger(type);
+
+			// NOTE the writer did not open the tags when appending
+			if (appending) {
+				writeRaw(REPAIRED_TAIL);
+			} else {
+				writer.writeEndElement(); // entries
+				writer.writeEndDocument();
+			}
+
+			writer.close();
+
+		} catch (XMLStreamException ex) {
+			throw new IOException("Failed to finish XML log!", ex);
+		} finally {
+			output.close();
+		}
+
+	}
+
+	/**
+	 * Writes the closing tags and closes the file.
+	 *
+	 * @throws IOException If the log could not be finished.
+	 */
+	@Override
+	public void close() throws IOException {
+		close(Collections.<String>emptyList());
+	}
+
+	/**
+	 * Whether the given log file was finished (i.e. has its closing tags).
+	 *
+	 * @param file The log file (must exist).
+	 * @return Whether the file is terminated.
+	 * @throws IOException If the file could not be read.
+	 */
+	public static boolean isTerminated(File file) throws IOException {
+
+		requireNotNull(file);
+
+		try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+
+			// the closing tag must be last, ignoring any trailing whitespace
+			long end = lastNonWhitespace(input) + 1;
+			byte[] target = LOG_END.getBytes(StandardCharsets.US_ASCII);
+
+			if (end < target.length)
+				return false;
+
+			byte[] tail = new byte[target.length];
+			input.seek(end - target.length);
+			input.readFully(tail);
+
+			return Arrays.equals(tail, target);
+
+		}
+
+	}
+
+	/**
+	 * Finishes an unterminated log file (e.g. left by a crash) in place, so
+	 * other programs may read it.  Any partially written entry is discarded,
+	 * the loggers are kept.
+	 * Only called on request, as {@code XmlLogReader} reads unterminated logs
+	 * without repairing them.
+	 *
+	 * @param file The log file (must exist).
+	 * @return Whether the file needed repair.
+	 * @throws IOException If the file could not be repaired.
+	 */
+	public static boolean repair(File file) throws IOException {
+
+		requireNotNull(file);
+
+		if (isTerminated(file))
+			return false;
+
+		long end = entriesEnd(file);
+
+		try (RandomAccessFile log = new RandomAccessFile(file, "rw")) {
+
+			log.setLength(end);
+			log.seek(end);
+			log.write(REPAIRED_TAIL.getBytes(StandardCharsets.UTF_8));
+
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Finds the end of the last complete entry of the given log (or the start
+	 * of its entries, if there are none).
+	 *
+	 * @param file The log file (must exist).
+	 * @return The position after the last entry.
+	 * @throws IOException If the file is not a log, or could not be read.
+	 */
+	static long entriesEnd(File file) throws IOException {
+
+		try (RandomAccessFile log = new RandomAccessFile(file, "r")) {
+			return entriesEnd(log, file);
+		}
+
+	}
+
+	// finds the end of the last complete entry (or the start of the entries)
+	private static long entriesEnd(RandomAccessFile log, File file) throws IOException {
+
+		long end = lastIndexOf(log, ENTRY_END);
+
+		if (end >= 0)
+			return end + ENTRY_END.length();
+
+		end = lastIndexOf(log, ENTRIES_START);
+
+		if (end < 0)
+			throw new IOException(String.format("%s is not a ZedLog XML log!", file.getPath()));
+
+		return end + ENTRIES_START.length();
+
+	}
+
+	// finds the position of the last byte which is not whitespace, or -1
+	private static long lastNonWhitespace(RandomAccessFile file) throws IOException {
+
+		byte[] block = new byte[8192];
+
+		long blockEnd = file.length();
+
+		while (blockEnd > 0) {
+
+			long blockStart = Math.max(0, blockEnd - block.length);
+			int length = (int) (blockEnd - blockStart);
+
+			file.seek(blockStart);
+			file.readFully(block, 0, length);
+
+			for (int i = length - 1; i >= 0; i--) {
+				if (!Character.isWhitespace(block[i]))
+					return blockStart + i;
+			}
+
+			blockEnd = blockStart;
+
+		}
+
+		return -1;
+
+	}
+
+	// finds the position of the last occurance of the (ASCII) marker, or -1
+	private static long lastIndexOf(RandomAccessFile file, String marker) throws IOException {
+
+		byte[] target = marker.getBytes(StandardCharsets.US_ASCII);
+		byte[] block = new byte[8192];
+
+		long blockEnd = file.length();
+
+		while (blockEnd > 0) {
+
+			// overlap the blocks so markers spanning two blocks are found
+			long blockStart = Math.max(0, blockEnd - block.length);
+			int length = (int) (blockEnd - blockStart);
+
+			file.seek(blockStart);
+			file.readFully(block, 0, length);
+
+			for (int i = length - target.length; i >= 0; i--) {
+
+				int j = 0;
+				while (j < target.length && block[i + j] == target[j])
+					j++;
+
+				if (j == target.length)
+					return blockStart + i;
+
+			}
+
+			if (blockStart == 0)
+				break;
+
+			blockEnd = blockStart + target.length - 1;
+
+		}
+
+		return -1;
+
+	}
+
+}
@@ -15,8 +15,11 @@ package net.zeddev.zedlog.logger.impl.event;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import java.io.IOException;
 import java.io.Writer;
 import java.util.Scanner;
+import net.zeddev.zedlog.logger.BinaryDecoder;
+import net.zeddev.zedlog.logger.BinaryEncoder;
 import net.zeddev.zedlog.logger.LogEvent;
 import org.jnativehook.keyboard.NativeKeyEvent;
 import org.w3c.dom.*;
@@ -165,6 +168,58 @@ public class KeyEvent extends LogEvent {
 
 	}
 
+	@Override
+	public void encode(BinaryEncoder output) {
+
+		requireNotNull(output);
+
+		output.writeByte(getEventType().ordinal());
+		output.writeSignedVarInt(getKeyCode());
+		output.writeVarInt(getChar());
+
+	}
+
+	@Override
+	public void decode(BinaryDecoder input) throws IOException {
+
+		requireNotNull(input);
+
+		int typeIndex = input.readByte();
+		if (typeIndex >= Type.values().length)
+			throw new IOException(String.format("Unknown key event type %d.", typeIndex));
+
+		setEventType(Type.values()[typeIndex]);
+		setKeyCode(input.readSignedVarInt());
+		setChar((char) input.readVarInt());
+
+	}
+
+	@Override
+	public boolean packFields(int[] fields) {
+
+		requireNotNull(fields);
+
+		if (getEventType() == null)
+			return false;
+
+		fields[PACKED_CODE] = getKeyCode();
+		fields[PACKED_DETAIL] = (getEventType().ordinal() << 16) | getChar();
+
+		return true;
+
+	}
+
+	@Override
+	public void unpackFields(int[] fields) {
+
+		requireNotNull(fields);
+
+		setEventType(Type.values()[fields[PACKED_DETAIL] >>> 16]);
+		setKeyCode(fields[PACKED_CODE]);
+		setChar((char) fields[PACKED_DETAIL]);
+
+	}
+
 	private void readEventType(Scanner scanner) {
 
 		String type = scanner.next();
@@ -179,6 +234,23 @@ public class KeyEvent extends LogEvent {
 
 	}
 
+	@Override
+	public String message() {
+
+		if (eventType != Type.TYPED)
+			return String.format("%s ", NativeKeyEvent.getKeyText(keyCode));
+
+		// add spacing if not alphanumeric char
+		if (ch == '\n' || ch == '\r') {
+			return "[Return]";
+		} else if (ch == '\t') {
+			return "[Tab]";
+		} else {
+			return Character.toString(ch);
+		}
+
+	}
+
 	@Override
 	public String toString() {
 
@@ -15,6 +15,7 @@ package net.zeddev.zedlog.logger.impl.event;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import java.io.IOException;
 import java.io.Writer;
 import java.util.Objects;
 import java.util.Scanner;
@@ -23,6 +24,8 @@ import org.jnativehook.mouse.NativeMouseEvent;
 
 import org.w3c.dom.*;
 
+import net.zeddev.zedlog.logger.BinaryDecoder;
+import net.zeddev.zedlog.logger.BinaryEncoder;
 import net.zeddev.zedlog.logger.impl.event.MouseEvent;
 import static net.zeddev.zedlog.util.Assertions.*;
 import net.zeddev.zedlog.util.HashUtil;
@@ -42,7 +45,12 @@ public final class MouseClickedEvent extends MouseEvent {
 	}
 
 	public MouseClickedEvent(final NativeMouseEvent event) {
-		super(event);
+		set(event);
+	}
+
+	@Override
+	public void set(final NativeMouseEvent event) {
+		super.set(event);
 		setButtonCode(event.getButton());
 		setButton(buttonName(event.getButton()));
 		setClickCount(event.getClickCount());
@@ -132,6 +140,48 @@ public final class MouseClickedEvent extends MouseEvent {
 
 	}
 
+	@Override
+	public void encode(BinaryEncoder output) {
+
+		output.writeSignedVarInt(getButtonCode());
+		output.writeSignedVarInt(getClickCount());
+
+		super.encode(output);
+
+	}
+
+	@Override
+	public void decode(BinaryDecoder input) throws IOException {
+
+		setButtonCode(input.readSignedVarInt());
+		setButton(buttonName(getButtonCode()));
+		setClickCount(input.readSignedVarInt());
+
+		super.decode(input);
+
+	}
+
+	@Override
+	public boolean packFields(int[] fields) {
+
+		fields[PACKED_CODE] = getButtonCode();
+		fields[PACKED_DETAIL] = getClickCount();
+
+		return super.packFields(fields);
+
+	}
+
+	@Override
+	public void unpackFields(int[] fields) {
+
+		setButtonCode(fields[PACKED_CODE]);
+		setButton(buttonName(getButtonCode()));
+		setClickCount(fields[PACKED_DETAIL]);
+
+		super.unpackFields(fields);
+
+	}
+
 	@Override
 	public String toString() {
 
@@ -15,9 +15,14 @@ package net.zeddev.zedlog.logger.impl.event;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import java.io.IOException;
 import java.io.Writer;
 import java.util.Scanner;
 
+import net.zeddev.zedlog.logger.BinaryDecoder;
+import net.zeddev.zedlog.logger.BinaryEncoder;
+import net.zeddev.zedlog.logger.LogEvent;
+
 import org.jnativehook.mouse.NativeMouseEvent;
 
 import org.w3c.dom.*;
@@ -37,7 +42,12 @@ public final class MouseDraggedEvent extends MouseEvent {
 	}
 
 	public MouseDraggedEvent(final NativeMouseEvent event) {
-		super(event);
+		set(event);
+	}
+
+	@Override
+	public void set(final NativeMouseEvent event) {
+		super.set(event);
 		setButtonCode(event.getButton());
 	}
 
@@ -99,6 +109,50 @@ public final class MouseDraggedEvent extends MouseEvent {
 
 	}
 
+	@Override
+	public void encode(BinaryEncoder output) {
+
+		output.writeSignedVarInt(getButtonCode());
+
+		super.encode(output);
+
+	}
+
+	@Override
+	public void decode(BinaryDecoder input) throws IOException {
+
+		setButtonCode(input.readSignedVarInt());
+
+		super.decode(input);
+
+	}
+
+	@Override
+	public boolean packFields(int[] fields) {
+
+		fields[PACKED_CODE] = getButtonCode();
+
+		return super.packFields(fields);
+
+	}
+
+	@Override
+	public void unpackFields(int[] fields) {
+
+		setButtonCode(fields[PACKED_CODE]);
+
+		super.unpackFields(fields);
+
+	}
+
+	@Override
+	public boolean coalesces(LogEvent older) {
+		
+		return older instanceof MouseDraggedEvent &&
+			((MouseDraggedEvent) older).getButtonCode() == getButtonCode();
+		
+	}
+
 	@Override
 	public String toString() {
 
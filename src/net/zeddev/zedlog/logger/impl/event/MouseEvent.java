@@ -15,9 +15,12 @@ package net.zeddev.zedlog.logger.impl.event;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import java.io.IOException;
 import java.io.Writer;
 import java.util.Scanner;
 
+import net.zeddev.zedlog.logger.BinaryDecoder;
+import net.zeddev.zedlog.logger.BinaryEncoder;
 import net.zeddev.zedlog.logger.LogEvent;
 
 import org.jnativehook.mouse.NativeMouseEvent;
@@ -44,6 +47,21 @@ public abstract class MouseEvent extends LogEvent {
 	   setY(event.getY());
    }
 
+	/**
+	 * Sets the event's fields from the given native event (so pooled events
+	 * may be reused).
+	 *
+	 * @param event The native event (must not be {@code null}).
+	 */
+	public void set(final NativeMouseEvent event) {
+
+		requireNotNull(event);
+
+		setX(event.getX());
+		setY(event.getY());
+
+	}
+
    public final int getX() {
 	   return x;
    }
@@ -158,6 +176,48 @@ public abstract class MouseEvent extends LogEvent {
 
 	}
 
+	@Override
+	public void encode(BinaryEncoder output) {
+
+		requireNotNull(output);
+
+		output.writeSignedVarInt(getX());
+		output.writeSignedVarInt(getY());
+
+	}
+
+	@Override
+	public void decode(BinaryDecoder input) throws IOException {
+
+		requireNotNull(input);
+
+		setX(input.readSignedVarInt());
+		setY(input.readSignedVarInt());
+
+	}
+
+	@Override
+	public boolean packFields(int[] fields) {
+
+		requireNotNull(fields);
+
+		fields[PACKED_X] = getX();
+		fields[PACKED_Y] = getY();
+
+		return true;
+
+	}
+
+	@Override
+	public void unpackFields(int[] fields) {
+
+		requireNotNull(fields);
+
+		setX(fields[PACKED_X]);
+		setY(fields[PACKED_Y]);
+
+	}
+
 	@Override
 	public int hashCode() {
 		
@@ -15,6 +15,8 @@ package net.zeddev.zedlog.logger.impl.event;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import net.zeddev.zedlog.logger.LogEvent;
+
 import org.jnativehook.mouse.NativeMouseEvent;
 
 import org.w3c.dom.*;
@@ -40,6 +42,11 @@ public final class MouseMovedEvent extends MouseEvent {
 		return "MouseMoved";
 	}
 
+	@Override
+	public boolean coalesces(LogEvent older) {
+		return older instanceof MouseMovedEvent;
+	}
+
 	@Override
 	public String toString() {
 
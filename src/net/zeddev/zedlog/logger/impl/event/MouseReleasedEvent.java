@@ -15,6 +15,7 @@ package net.zeddev.zedlog.logger.impl.event;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import java.io.IOException;
 import java.io.Writer;
 import java.util.Objects;
 import java.util.Scanner;
@@ -22,6 +23,8 @@ import java.util.Scanner;
 import org.jnativehook.mouse.NativeMouseEvent;
 
 import org.w3c.dom.*;
+import net.zeddev.zedlog.logger.BinaryDecoder;
+import net.zeddev.zedlog.logger.BinaryEncoder;
 import static net.zeddev.zedlog.util.Assertions.*;
 import net.zeddev.zedlog.util.HashUtil;
 
@@ -39,7 +42,12 @@ public final class MouseReleasedEvent extends MouseEvent {
 	}
 
 	public MouseReleasedEvent(final NativeMouseEvent event) {
-		super(event);
+		set(event);
+	}
+
+	@Override
+	public void set(final NativeMouseEvent event) {
+		super.set(event);
 		setButtonCode(event.getButton());
 		setButton(buttonName(event.getButton()));
 	}
@@ -115,6 +123,44 @@ public final class MouseReleasedEvent extends MouseEvent {
 
 	}
 
+	@Override
+	public void encode(BinaryEncoder output) {
+
+		output.writeSignedVarInt(getButtonCode());
+
+		super.encode(output);
+
+	}
+
+	@Override
+	public void decode(BinaryDecoder input) throws IOException {
+
+		setButtonCode(input.readSignedVarInt());
+		setButton(buttonName(getButtonCode()));
+
+		super.decode(input);
+
+	}
+
+	@Override
+	public boolean packFields(int[] fields) {
+
+		fields[PACKED_CODE] = getButtonCode();
+
+		return super.packFields(fields);
+
+	}
+
+	@Override
+	public void unpackFields(int[] fields) {
+
+		setButtonCode(fields[PACKED_CODE]);
+		setButton(buttonName(getButtonCode()));
+
+		super.unpackFields(fields);
+
+	}
+
 	@Override
 	public String toString() {
 
@@ -15,12 +15,15 @@ package net.zeddev.zedlog.logger.impl.event;
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import java.io.IOException;
 import java.io.Writer;
 import java.util.Scanner;
 
 import org.jnativehook.mouse.NativeMouseWheelEvent;
 
 import org.w3c.dom.*;
+import net.zeddev.zedlog.logger.BinaryDecoder;
+import net.zeddev.zedlog.logger.BinaryEncoder;
 import static net.zeddev.zedlog.util.Assertions.*;
 import net.zeddev.zedlog.util.HashUtil;
 
@@ -37,7 +40,17 @@ public final class MouseWheelMovedEvent extends MouseEvent {
 	}
 
 	public MouseWheelMovedEvent(final NativeMouseWheelEvent event) {
-		super(event);
+		set(event);
+	}
+
+	/**
+	 * Sets the event's fields from the given native event (so pooled events
+	 * may be reused).
+	 *
+	 * @param event The native event (must not be {@code null}).
+	 */
+	public void set(final NativeMouseWheelEvent event) {
+		super.set(event);
 		setRotation(event.getWheelRotation());
 	}
 
@@ -100,6 +113,42 @@ public final class MouseWheelMovedEvent extends MouseEvent {
 
 	}
 
+	@Override
+	public void encode(BinaryEncoder output) {
+
+		output.writeSignedVarInt(getRotation());
+
+		super.encode(output);
+
+	}
+
+	@Override
+	public void decode(BinaryDecoder input) throws IOException {
+
+		setRotation(input.readSignedVarInt());
+
+		super.decode(input);
+
+	}
+
+	@Override
+	public boolean packFields(int[] fields) {
+
+		fields[PACKED_CODE] = getRotation();
+
+		return super.packFields(fields);
+
+	}
+
+	@Override
+	public void unpackFields(int[] fields) {
+
+		setRotation(fields[PACKED_CODE]);
+
+		super.unpackFields(fields);
+
+	}
+
 	@Override
 	public String toString() {
 
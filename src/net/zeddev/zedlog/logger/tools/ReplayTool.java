@@ -20,6 +20,7 @@ import java.awt.Robot;
 import java.awt.event.InputEvent;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import net.zeddev.litelogger.Logger;
 import net.zeddev.zedlog.logger.LogEntry;
@@ -58,6 +59,9 @@ public final class ReplayTool {
 
 	private boolean running = false;
 
+	// the index of the first entry to replay
+	private int startIndex = 0;
+
 	/**
 	 * Creates a new {@code ReplayTool} for the given {@code LogEntry} set.
 	 *
@@ -65,7 +69,7 @@ public final class ReplayTool {
 	 */
 	public ReplayTool(final List<LogEntry> logEntries) {
 		this.logEntries = logEntries;
-			// TODO sort chronologically
+		// NOTE already in capture order, as restored by the CompositeDataLogger
 	}
 
 	/**
@@ -77,6 +81,34 @@ public final class ReplayTool {
 		this(loggers.logEntries());
 	}
 
+	/**
+	 * Starts the replay from the first entry at (or after) the given
+	 * timestamp.
+	 * NOTE the log entries are in capture (so chronological) order.
+	 *
+	 * @param timestamp The timestamp to start replaying from.
+	 */
+	public void seekTo(final long timestamp) {
+
+		int low = 0;
+		int high = logEntries.size();
+
+		// binary search for the first entry at the timestamp
+		while (low < high) {
+
+			int mid = (low + high) >>> 1;
+
+			if (logEntries.get(mid).getTimestamp() < timestamp)
+				low = mid + 1;
+			else
+				high = mid;
+
+		}
+
+		startIndex = low;
+
+	}
+
 	/**
 	 * Adds a {@code ReplayToolObserver}.
 	 *
@@ -236,6 +268,27 @@ public final class ReplayTool {
 		return new ReplayFast();
 	}
 
+	// returns the time between the entries (in nanoseconds), from their
+	// capture times if known
+	private static long interval(LogEntry from, LogEntry to) {
+
+		long interval = TimeUnit.MILLISECONDS.toNanos(to.getTimestamp() - from.getTimestamp());
+
+		// NOTE the capture times of different recordings are unrelated, so
+		//      only used if they agree with the timestamps
+		if (from.getCaptureTime() != 0 && to.getCaptureTime() != 0) {
+
+			long captured = to.getCaptureTime() - from.getCaptureTime();
+
+			if (captured >= 0 && Math.abs(captured - interval) < TimeUnit.SECONDS.toNanos(1))
+				return captured;
+
+		}
+
+		return interval;
+
+	}
+
 	// Replays the events, timed the same as the original events
 	private class ReplayTimed implements Runnable {
 
@@ -253,26 +306,27 @@ public final class ReplayTool {
 
 			running = true;
 
+			// when the current event was due
+			long dueTime = System.nanoTime();
+
 			// simulate each logged event
-			for (int i = 0; running && i < logEntries.size(); i++) {
+			for (int i = startIndex; running && i < logEntries.size(); i++) {
 				// NOTE it is assumed that the log entries are in chronological order
 
-				long startTime = System.currentTimeMillis();
-
 				simEvent(robot, logEntries.get(i).getEvent());
 
-				long timeTaken = System.currentTimeMillis() - startTime;
-
 				// time the next event correctly
+				// NOTE timed from when this event was due, so the time taken
+				//      simulating the events does not accumulate
 				if ((i + 1) < logEntries.size()) {
 
-					long delayTime = logEntries.get(i + 1).getTimestamp() - logEntries.get(i).getTimestamp();
-					delayTime -= timeTaken; // compensate for time taken simulating event
+					dueTime += interval(logEntries.get(i), logEntries.get(i + 1));
+					long delayTime = dueTime - System.nanoTime();
 
 					if (delayTime > 0) {
 
 						try {
-							Thread.sleep((int) delayTime);
+							TimeUnit.NANOSECONDS.sleep(delayTime);
 						} catch (InterruptedException ex) { }
 
 					}
@@ -308,7 +362,7 @@ public final class ReplayTool {
 			running = true;
 
 			// simulate each logged event
-			for (int i = 0; running && i < logEntries.size(); i++) {
+			for (int i = startIndex; running && i < logEntries.size(); i++) {
 				// NOTE it is assumed that the log entries are in chronological order
 
 				simEvent(robot, logEntries.get(i).getEvent());
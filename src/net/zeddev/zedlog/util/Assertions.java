@@ -106,6 +106,10 @@ import java.util.List;
  */
 public final class Assertions {
     
+	// the (shared) arguments of a description without any
+	// NOTE so the assertions without a description never allocate
+	private static final Object[] NO_ARGS = new Object[0];
+	
 	/**
 	 * Checks a precondition.
 	 * 
@@ -137,7 +141,7 @@ public final class Assertions {
 	 * @param cond The condition that should be met.
 	 */
 	public static boolean require(boolean cond) {
-		return require(cond, "");
+		return require(cond, "", NO_ARGS);
 	}
 	
 	/**
@@ -300,7 +304,7 @@ public final class Assertions {
 	 * @param cond The condition that should be met.
 	 */
 	public static boolean check(boolean cond) {
-		return check(cond, "");
+		return check(cond, "", NO_ARGS);
 	}
 	
 	/**
@@ -463,7 +467,7 @@ public final class Assertions {
 	 * @param cond The condition that should be met.
 	 */
 	public static boolean ensure(boolean cond) {
-		return ensure(cond, "");
+		return ensure(cond, "", NO_ARGS);
 	}
 	
 	/**
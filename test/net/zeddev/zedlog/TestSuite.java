@@ -16,10 +16,32 @@ package net.zeddev.zedlog;
  */
 
 import net.zeddev.litelogger.Logger;
+import net.zeddev.zedlog.logger.CaptureClockTest;
+import net.zeddev.zedlog.logger.LogEntryPoolTest;
+import net.zeddev.zedlog.logger.LogEntryRingBufferTest;
 import net.zeddev.zedlog.logger.LogEntryTest;
+import net.zeddev.zedlog.logger.ObserverMailboxTest;
+import net.zeddev.zedlog.logger.ObserverRegistryTest;
+import net.zeddev.zedlog.logger.impl.BinaryLogTest;
+import net.zeddev.zedlog.logger.impl.CaptureAllocationTest;
+import net.zeddev.zedlog.logger.impl.ColumnarLogHistoryTest;
 import net.zeddev.zedlog.logger.impl.CompositeDataLoggerTest;
+import net.zeddev.zedlog.logger.impl.DataLoggersTest;
+import net.zeddev.zedlog.logger.impl.LogAppenderTest;
+import net.zeddev.zedlog.logger.impl.LogCommitterTest;
+import net.zeddev.zedlog.logger.impl.LogIndexTest;
+import net.zeddev.zedlog.logger.impl.LogJournalTest;
+import net.zeddev.zedlog.logger.impl.LogPersisterTest;
+import net.zeddev.zedlog.logger.impl.LogReorderBufferTest;
 import net.zeddev.zedlog.logger.impl.KeyDataLoggers;
+import net.zeddev.zedlog.logger.impl.MotionFilterTest;
 import net.zeddev.zedlog.logger.impl.MouseDataLoggers;
+import net.zeddev.zedlog.logger.impl.NativeHookDemultiplexerTest;
+import net.zeddev.zedlog.logger.impl.OffHeapLogHistoryTest;
+import net.zeddev.zedlog.logger.impl.SegmentedLogStoreTest;
+import net.zeddev.zedlog.logger.impl.SpillingLogHistoryTest;
+import net.zeddev.zedlog.logger.impl.XmlLogReaderTest;
+import net.zeddev.zedlog.logger.impl.XmlLogWriterTest;
 import net.zeddev.zedlog.logger.impl.event.KeyEventTest;
 import net.zeddev.zedlog.logger.impl.event.MouseClickedEventTest;
 import net.zeddev.zedlog.logger.impl.event.MouseDraggedEventTest;
@@ -54,9 +76,31 @@ public final class TestSuite {
 		AssertionsTest.class,
 		IOUtilTest.class,
 		LogEntryTest.class,
+		LogEntryPoolTest.class,
+		LogEntryRingBufferTest.class,
+		CaptureClockTest.class,
+		ObserverMailboxTest.class,
+		ObserverRegistryTest.class,
 		KeyDataLoggers.class,
 		MouseDataLoggers.class,
+		BinaryLogTest.class,
+		CaptureAllocationTest.class,
+		ColumnarLogHistoryTest.class,
 		CompositeDataLoggerTest.class,
+		DataLoggersTest.class,
+		LogAppenderTest.class,
+		LogCommitterTest.class,
+		LogIndexTest.class,
+		LogJournalTest.class,
+		LogPersisterTest.class,
+		LogReorderBufferTest.class,
+		MotionFilterTest.class,
+		NativeHookDemultiplexerTest.class,
+		OffHeapLogHistoryTest.class,
+		SegmentedLogStoreTest.class,
+		SpillingLogHistoryTest.class,
+		XmlLogReaderTest.class,
+		XmlLogWriterTest.class,
 		KeyEventTest.class,
 		MouseClickedEventTest.class,
 		MouseDraggedEventTest.class,
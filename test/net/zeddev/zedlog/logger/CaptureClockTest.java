@@ -0,0 +1,106 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import net.zeddev.zedlog.logger.impl.event.KeyEvent;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.CaptureClock} and
+ * {@link net.zeddev.zedlog.logger.ClockCalibration}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class CaptureClockTest {
+
+	/** Tests the capture times are positive and monotonic. */
+	@Test
+	public void testNow() throws Throwable {
+
+		long last = CaptureClock.now();
+		assertTrue(last > 0);
+
+		for (int i = 0; i < 1000; i++) {
+
+			long now = CaptureClock.now();
+			assertTrue(now >= last);
+
+			last = now;
+
+		}
+
+	}
+
+	/** Tests capture times are converted to the wall-clock. */
+	@Test
+	public void testToWallClock() throws Throwable {
+
+		ClockCalibration inst = new ClockCalibration(TimeUnit.SECONDS.toNanos(10), 5000);
+
+		assertEquals(inst.toWallClock(TimeUnit.SECONDS.toNanos(10)), 5000);
+		assertEquals(inst.toWallClock(TimeUnit.MILLISECONDS.toNanos(10250) + 999), 5250);
+		assertEquals(inst.toWallClock(TimeUnit.SECONDS.toNanos(9)), 4000);
+
+		assertEquals(inst, new ClockCalibration(TimeUnit.SECONDS.toNanos(10), 5000));
+		assertFalse(inst.equals(new ClockCalibration(TimeUnit.SECONDS.toNanos(10), 5001)));
+
+	}
+
+	/** Tests the calibration follows the wall-clock. */
+	@Test
+	public void testCalibration() throws Throwable {
+
+		long before = System.currentTimeMillis();
+		long wallClock = CaptureClock.toWallClock(CaptureClock.now());
+		long after = System.currentTimeMillis();
+
+		// NOTE allows for the resolution of the wall-clock
+		assertTrue(wallClock >= before - CaptureClock.DRIFT_TOLERANCE - 1);
+		assertTrue(wallClock <= after + CaptureClock.DRIFT_TOLERANCE + 1);
+
+	}
+
+	/** Tests captured entries are stamped with the capture time. */
+	@Test
+	public void testCapturedEntry() throws Throwable {
+
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+		KeyEvent event = new KeyEvent(KeyEvent.Type.TYPED, -1, 'a');
+
+		long before = CaptureClock.now();
+		LogEntry logEntry = new LogEntry(thelogger, event);
+		long after = CaptureClock.now();
+
+		assertTrue(logEntry.getCaptureTime() >= before);
+		assertTrue(logEntry.getCaptureTime() <= after);
+		assertEquals(logEntry.getTimestamp(), CaptureClock.toWallClock(logEntry.getCaptureTime()));
+
+		// stamped at the native hook
+		logEntry = new LogEntry(thelogger, event, before);
+
+		assertEquals(logEntry.getCaptureTime(), before);
+		assertEquals(logEntry.getTimestamp(), CaptureClock.toWallClock(before));
+
+		// not captured
+		assertEquals(new LogEntry().getCaptureTime(), 0);
+
+	}
+
+}
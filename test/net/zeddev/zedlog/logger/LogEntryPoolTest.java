@@ -0,0 +1,197 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.zeddev.zedlog.logger.impl.event.KeyEvent;
+import net.zeddev.zedlog.util.Assertions.PreconditionException;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.LogEntryPool}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class LogEntryPoolTest {
+
+	// claims an entry for the given key code
+	private static LogEntry claim(LogEntryPool pool, int keyCode) {
+
+		LogEntry logEntry = pool.claim(CaptureClock.now());
+
+		KeyEvent event = (KeyEvent) logEntry.getEvent();
+		event.setEventType(KeyEvent.Type.PRESSED);
+		event.setKeyCode(keyCode);
+		event.setChar('a');
+
+		return logEntry;
+
+	}
+
+	/** Tests a released entry is reused by the next claim. */
+	@Test
+	public void testRecycle() throws Throwable {
+
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+		LogEntryPool inst = new LogEntryPool(thelogger, KeyEvent.class);
+
+		LogEntry first = claim(inst, 1);
+		String message = first.getMessage();
+		long sequence = first.getSequence();
+
+		assertTrue(first.isPooled());
+		assertTrue(first.getParent() == thelogger);
+
+		first.release();
+		assertEquals(inst.getRecycled(), 1L);
+
+		LogEntry second = claim(inst, 2);
+
+		assertTrue(second == first);
+		assertTrue(second.getSequence() > sequence);
+		assertFalse(second.getMessage().equals(message)); // derived again
+		assertEquals(inst.getClaimed(), 2L);
+		assertEquals(inst.getAllocated(), 1L);
+
+	}
+
+	/** Tests an entry is only recycled once all references are released. */
+	@Test
+	public void testReferences() throws Throwable {
+
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+		LogEntryPool inst = new LogEntryPool(thelogger, KeyEvent.class);
+
+		LogEntry logEntry = claim(inst, 1);
+		logEntry.retain();
+
+		logEntry.release();
+		assertEquals(inst.getRecycled(), 0L);
+
+		logEntry.release();
+		assertEquals(inst.getRecycled(), 1L);
+
+		// can not be retained (or released) once recycled
+		try {
+			logEntry.retain();
+			fail("Retained a recycled entry!");
+		} catch (PreconditionException ex) { }
+
+	}
+
+	/** Tests entries which are not pooled ignore their references. */
+	@Test
+	public void testNotPooled() throws Throwable {
+
+		LogEntry logEntry = new LogEntry();
+
+		assertFalse(logEntry.isPooled());
+		assertTrue(logEntry.detach() == logEntry);
+
+		logEntry.retain();
+		logEntry.release();
+		logEntry.release();
+
+	}
+
+	/** Tests a detached entry is unaffected by the entry being recycled. */
+	@Test
+	public void testDetach() throws Throwable {
+
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+		LogEntryPool inst = new LogEntryPool(thelogger, KeyEvent.class);
+
+		LogEntry logEntry = claim(inst, 1);
+		LogEntry copy = logEntry.detach();
+
+		assertFalse(copy.isPooled());
+		assertEquals(copy, logEntry);
+		assertEquals(copy.getCaptureTime(), logEntry.getCaptureTime());
+		assertEquals(copy.getSequence(), logEntry.getSequence());
+		assertNull(copy.getExplicitMessage());
+
+		logEntry.release();
+		claim(inst, 2);
+
+		assertEquals(((KeyEvent) copy.getEvent()).getKeyCode(), 1);
+
+	}
+
+	/** Tests the mailboxes hold the entries until their observers are notified. */
+	@Test
+	public void testMailboxReferences() throws Throwable {
+
+		ManualScheduler scheduler = new ManualScheduler();
+		TestDataLogger thelogger = new TestDataLogger("Test", scheduler);
+		LogEntryPool inst = new LogEntryPool(thelogger, KeyEvent.class);
+
+		final List<Integer> keyCodes = new ArrayList<>();
+		thelogger.addObserver(new DataLoggerObserver() {
+			@Override
+			public void notifyLog(DataLogger logger, LogEntry logEntry) {
+				keyCodes.add(((KeyEvent) logEntry.getEvent()).getKeyCode());
+			}
+		});
+
+		LogEntry logEntry = claim(inst, 42);
+		thelogger.notifyDataLoggerObservers(thelogger, logEntry);
+		logEntry.release();
+
+		assertEquals(inst.getRecycled(), 0L); // still queued
+
+		scheduler.runAll();
+
+		assertEquals(keyCodes.size(), 1);
+		assertEquals((int) keyCodes.get(0), 42);
+		assertEquals(inst.getRecycled(), 1L);
+
+	}
+
+	/** Tests the entries dropped by a full mailbox are recycled. */
+	@Test
+	public void testDroppedRecycled() throws Throwable {
+
+		ManualScheduler scheduler = new ManualScheduler();
+		TestDataLogger thelogger = new TestDataLogger("Test", scheduler);
+		LogEntryPool inst = new LogEntryPool(thelogger, KeyEvent.class);
+
+		thelogger.addObserver(new DataLoggerObserver() {
+			@Override
+			public void notifyLog(DataLogger logger, LogEntry logEntry) {
+			}
+		});
+
+		for (int i = 0; i <= ObserverMailbox.QUEUE_SIZE; i++) {
+
+			LogEntry logEntry = claim(inst, i);
+			thelogger.notifyDataLoggerObservers(thelogger, logEntry);
+			logEntry.release();
+
+		}
+
+		assertEquals(inst.getRecycled(), 1L); // the newest
+
+		scheduler.runAll();
+
+		assertEquals(inst.getRecycled(), ObserverMailbox.QUEUE_SIZE + 1L);
+
+	}
+
+}
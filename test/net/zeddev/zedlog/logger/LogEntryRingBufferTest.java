@@ -0,0 +1,134 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.LogEntryRingBuffer}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class LogEntryRingBufferTest {
+
+	// creates a log entry with the given timestamp
+	private static LogEntry entry(long timestamp) {
+
+		LogEntry logEntry = new LogEntry();
+		logEntry.setTimestamp(timestamp);
+
+		return logEntry;
+
+	}
+
+	/** Tests the capacity is rounded to a power of two. */
+	@Test
+	public void testCapacity() throws Throwable {
+
+		assertEquals(new LogEntryRingBuffer(1).capacity(), 1);
+		assertEquals(new LogEntryRingBuffer(25).capacity(), 32);
+		assertEquals(new LogEntryRingBuffer(1024).capacity(), 1024);
+
+	}
+
+	/** Tests all entries are drained in order, across the wrap around. */
+	@Test
+	public void testDrainInOrder() throws Throwable {
+
+		LogEntryRingBuffer inst = new LogEntryRingBuffer(4);
+		List<LogEntry> batch = new ArrayList<>();
+
+		// move the head part way around the buffer
+		inst.offer(entry(0));
+		inst.offer(entry(1));
+		inst.drainTo(batch);
+		batch.clear();
+
+		for (int i = 0; i < 4; i++)
+			assertTrue(inst.offer(entry(i)));
+
+		assertFalse(inst.offer(entry(4))); // full
+		assertEquals(inst.size(), 4);
+
+		assertEquals(inst.drainTo(batch), 4);
+		assertEquals(inst.size(), 0);
+
+		for (int i = 0; i < 4; i++)
+			assertEquals(batch.get(i).getTimestamp(), i);
+
+	}
+
+	/** Tests a waiting consumer is woken by a producer. */
+	@Test(timeout = 5000)
+	public void testAwaitDrain() throws Throwable {
+
+		final LogEntryRingBuffer inst = new LogEntryRingBuffer(8);
+
+		Thread producer = new Thread() {
+			@Override
+			public void run() {
+
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException ex) { }
+
+				inst.offer(entry(42));
+
+			}
+		};
+		producer.start();
+
+		List<LogEntry> batch = new ArrayList<>();
+		assertEquals(inst.awaitDrainTo(batch), 1);
+		assertEquals(batch.get(0).getTimestamp(), 42);
+
+		producer.join();
+
+	}
+
+	/** Tests a blocked producer is released once the buffer is drained. */
+	@Test(timeout = 5000)
+	public void testPutBlocksWhenFull() throws Throwable {
+
+		final LogEntryRingBuffer inst = new LogEntryRingBuffer(1);
+		inst.offer(entry(0));
+
+		Thread producer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					inst.put(entry(1));
+				} catch (InterruptedException ex) { }
+			}
+		};
+		producer.start();
+
+		Thread.sleep(50);
+		assertTrue(producer.isAlive()); // still waiting for room
+
+		List<LogEntry> batch = new ArrayList<>();
+		inst.drainTo(batch);
+		producer.join();
+
+		assertEquals(inst.size(), 1);
+
+	}
+
+}
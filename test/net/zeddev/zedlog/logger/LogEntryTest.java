@@ -20,6 +20,7 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import net.zeddev.zedlog.logger.impl.DataLoggers;
 import net.zeddev.zedlog.logger.impl.LogEvents;
 import net.zeddev.zedlog.logger.impl.event.KeyEvent;
+import net.zeddev.zedlog.logger.impl.event.MouseMovedEvent;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import org.w3c.dom.Document;
@@ -82,4 +83,31 @@ public final class LogEntryTest {
 		
 	}
 
-}
\ No newline at end of file
+	/** Tests the message is derived from the event when not given. */
+	@Test
+	public void testDerivedMessage() throws Throwable {
+		
+		DataLogger dl = new TestDataLogger("Test", DispatchSchedulers.direct());
+		
+		MouseMovedEvent moveEvent = new MouseMovedEvent();
+		moveEvent.setX(10);
+		moveEvent.setY(20);
+		
+		LogEntry inst = new LogEntry(dl, moveEvent);
+		
+		assertNull(inst.getExplicitMessage());
+		assertEquals(inst.getMessage(), moveEvent.toString());
+		assertNull(inst.getExplicitMessage());
+		
+		// typed keys are formatted for display
+		LogEntry typed = new LogEntry(dl, new KeyEvent(KeyEvent.Type.TYPED, -1, '\t'));
+		assertEquals(typed.getMessage(), "[Tab]");
+		
+		// explicit messages are kept
+		typed.setMessage("Tab");
+		assertEquals(typed.getMessage(), "Tab");
+		assertEquals(typed.getExplicitMessage(), "Tab");
+		
+	}
+
+}
@@ -0,0 +1,48 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@code DispatchScheduler} for unit tests, which only runs the scheduled
+ * tasks when asked.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class ManualScheduler implements DispatchScheduler {
+
+	private final List<Runnable> tasks = new ArrayList<>();
+
+	@Override
+	public void schedule(Runnable task) {
+		tasks.add(task);
+	}
+
+	/** Runs the scheduled tasks (and any they schedule). */
+	public void runAll() {
+
+		while (!tasks.isEmpty())
+			tasks.remove(0).run();
+
+	}
+
+	@Override
+	public void shutdown() {
+	}
+
+}
@@ -0,0 +1,417 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import net.zeddev.zedlog.logger.impl.event.MouseMovedEvent;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.ObserverMailbox}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class ObserverMailboxTest {
+
+	// the number of loggers and the events logged by each
+	private static final int LOGGERS = 8;
+	private static final int EVENTS = 20000;
+
+	// records the timestamps received from a single logger
+	private static class OrderObserver implements DataLoggerObserver {
+
+		public final List<Long> timestamps = new ArrayList<>();
+		public final CountDownLatch done;
+
+		private final DataLogger thelogger;
+
+		public OrderObserver(DataLogger thelogger, int expected) {
+			this.thelogger = thelogger;
+			this.done = new CountDownLatch(expected);
+		}
+
+		@Override
+		public void notifyLog(DataLogger logger, LogEntry logEntry) {
+
+			assertTrue(logger == thelogger);
+
+			timestamps.add(logEntry.getTimestamp());
+			done.countDown();
+
+		}
+
+	}
+
+	// fills a logger with a stalled queue to one past its capacity
+	private OrderObserver overflow(TestDataLogger thelogger, ManualScheduler scheduler,
+			OverflowPolicy policy) {
+
+		OrderObserver observer = new OrderObserver(thelogger, 0);
+		thelogger.addObserver(observer);
+		thelogger.setOverflowPolicy(policy);
+
+		for (int i = 0; i <= ObserverMailbox.QUEUE_SIZE; i++) {
+
+			MouseMovedEvent event = new MouseMovedEvent();
+			event.setX(i);
+			event.setY(i);
+
+			thelogger.log(i, event);
+
+		}
+
+		assertEquals(thelogger.getOverflowPolicy(), policy);
+		scheduler.runAll();
+
+		return observer;
+
+	}
+
+	/** Tests the {@code DROP_NEWEST} policy discards (and counts) the newest event. */
+	@Test
+	public void testDropNewest() throws Throwable {
+
+		ManualScheduler scheduler = new ManualScheduler();
+		TestDataLogger thelogger = new TestDataLogger("Test", scheduler);
+
+		OrderObserver observer = overflow(thelogger, scheduler, OverflowPolicy.DROP_NEWEST);
+		DispatchStatistics stats = thelogger.getDispatchStatistics();
+
+		assertEquals(observer.timestamps.size(), ObserverMailbox.QUEUE_SIZE);
+		assertEquals((long) observer.timestamps.get(0), 0);
+		assertEquals(stats.getDropped(), 1);
+		assertEquals(stats.getDelivered(), ObserverMailbox.QUEUE_SIZE);
+		assertEquals(stats.getPeakQueueSize(), ObserverMailbox.QUEUE_SIZE);
+
+	}
+
+	/** Tests the {@code DROP_OLDEST} policy discards (and counts) the oldest event. */
+	@Test
+	public void testDropOldest() throws Throwable {
+
+		ManualScheduler scheduler = new ManualScheduler();
+		TestDataLogger thelogger = new TestDataLogger("Test", scheduler);
+
+		OrderObserver observer = overflow(thelogger, scheduler, OverflowPolicy.DROP_OLDEST);
+
+		assertEquals(observer.timestamps.size(), ObserverMailbox.QUEUE_SIZE);
+		assertEquals((long) observer.timestamps.get(0), 1);
+		assertEquals(thelogger.getDispatchStatistics().getDropped(), 1);
+
+	}
+
+	/** Tests the {@code COALESCE} policy replaces the superseded newest event. */
+	@Test
+	public void testCoalesce() throws Throwable {
+
+		ManualScheduler scheduler = new ManualScheduler();
+		TestDataLogger thelogger = new TestDataLogger("Test", scheduler);
+
+		OrderObserver observer = overflow(thelogger, scheduler, OverflowPolicy.COALESCE);
+		DispatchStatistics stats = thelogger.getDispatchStatistics();
+
+		int last = ObserverMailbox.QUEUE_SIZE;
+		assertEquals(observer.timestamps.size(), last);
+		assertEquals((long) observer.timestamps.get(last - 1), last); // the newest kept
+		assertEquals(stats.getCoalesced(), 1);
+		assertEquals(stats.getDropped(), 0);
+
+	}
+
+	/** Tests the {@code SPILL} policy loses no events, and keeps their order. */
+	@Test
+	public void testSpill() throws Throwable {
+
+		ManualScheduler scheduler = new ManualScheduler();
+		TestDataLogger thelogger = new TestDataLogger("Test", scheduler);
+
+		OrderObserver observer = overflow(thelogger, scheduler, OverflowPolicy.SPILL);
+		DispatchStatistics stats = thelogger.getDispatchStatistics();
+
+		int count = ObserverMailbox.QUEUE_SIZE + 1;
+		assertEquals(observer.timestamps.size(), count);
+
+		for (int i = 0; i < count; i++)
+			assertEquals((long) observer.timestamps.get(i), i);
+
+		assertEquals(stats.getSpilled(), 1);
+		assertEquals(stats.getDropped(), 0);
+		assertEquals(stats.getDelivered(), count);
+
+		thelogger.shutdown();
+
+	}
+
+	/** Tests the {@code BLOCK} policy waits for room rather than losing events. */
+	@Test(timeout = 10000)
+	public void testBlock() throws Throwable {
+
+		DispatchScheduler scheduler = DispatchSchedulers.newPool(1);
+		TestDataLogger thelogger = new TestDataLogger("Test", scheduler);
+
+		final int count = ObserverMailbox.QUEUE_SIZE * 4;
+
+		// a slow observer, so the queue fills
+		OrderObserver observer = new OrderObserver(thelogger, count) {
+			@Override
+			public void notifyLog(DataLogger logger, LogEntry logEntry) {
+
+				if (timestamps.size() % 256 == 0)
+					Thread.yield();
+
+				super.notifyLog(logger, logEntry);
+
+			}
+		};
+		thelogger.addObserver(observer);
+		thelogger.setOverflowPolicy(OverflowPolicy.BLOCK);
+
+		for (int i = 0; i < count; i++)
+			thelogger.log(i);
+
+		assertTrue(observer.done.await(5, TimeUnit.SECONDS));
+		assertEquals(thelogger.getDispatchStatistics().getDropped(), 0);
+
+		scheduler.shutdown();
+
+	}
+
+	/** Tests waiting events are delivered as one batch to batch observers. */
+	@Test
+	public void testBatchDelivery() throws Throwable {
+
+		ManualScheduler scheduler = new ManualScheduler();
+		final TestDataLogger thelogger = new TestDataLogger("Test", scheduler);
+
+		final List<Integer> batchSizes = new ArrayList<>();
+		BatchDataLoggerObserver batchObserver = new BatchDataLoggerObserver() {
+
+			@Override
+			public void notifyLog(DataLogger logger, LogEntry logEntry) {
+				batchSizes.add(1);
+			}
+
+			@Override
+			public void notifyLogBatch(DataLogger logger, List<LogEntry> logEntries) {
+
+				assertTrue(logger == thelogger);
+
+				batchSizes.add(logEntries.size());
+
+				for (int i = 0; i < logEntries.size(); i++)
+					assertEquals(logEntries.get(i).getTimestamp(), i);
+
+			}
+
+		};
+
+		OrderObserver singleObserver = new OrderObserver(thelogger, 5);
+
+		thelogger.addObserver(batchObserver);
+		thelogger.addObserver(singleObserver);
+
+		for (int i = 0; i < 5; i++)
+			thelogger.log(i);
+
+		scheduler.runAll();
+
+		assertEquals(batchSizes.size(), 1);
+		assertEquals((int) batchSizes.get(0), 5);
+		assertEquals(singleObserver.timestamps.size(), 5); // one call per entry
+
+		// a lone entry is delivered singly
+		thelogger.log(5);
+		scheduler.runAll();
+
+		assertEquals(batchSizes.size(), 2);
+		assertEquals((int) batchSizes.get(1), 1);
+
+	}
+
+	/** Tests events are delivered in order when many loggers share a pool. */
+	@Test(timeout = 30000)
+	public void testPerLoggerOrdering() throws Throwable {
+
+		DispatchScheduler scheduler = DispatchSchedulers.newPool(4);
+
+		final TestDataLogger[] loggers = new TestDataLogger[LOGGERS];
+		final OrderObserver[] observers = new OrderObserver[LOGGERS];
+		Thread[] producers = new Thread[LOGGERS];
+
+		for (int i = 0; i < LOGGERS; i++) {
+
+			loggers[i] = new TestDataLogger("Test" + i, scheduler);
+			observers[i] = new OrderObserver(loggers[i], EVENTS);
+			loggers[i].addObserver(observers[i]);
+
+			final TestDataLogger thelogger = loggers[i];
+			final OrderObserver observer = observers[i];
+			producers[i] = new Thread() {
+				@Override
+				public void run() {
+
+					for (int timestamp = 0; timestamp < EVENTS; timestamp++) {
+
+						// dont overrun the queue, only ordering is under test
+						while (timestamp - (EVENTS - observer.done.getCount())
+								>= ObserverMailbox.QUEUE_SIZE)
+							Thread.yield();
+
+						thelogger.log(timestamp);
+
+					}
+
+				}
+			};
+
+		}
+
+		for (Thread producer : producers)
+			producer.start();
+
+		for (int i = 0; i < LOGGERS; i++) {
+
+			producers[i].join();
+			assertTrue(observers[i].done.await(20, TimeUnit.SECONDS));
+
+			// the received events must be strictly increasing
+			List<Long> timestamps = observers[i].timestamps;
+			for (int j = 1; j < timestamps.size(); j++)
+				assertTrue(timestamps.get(j - 1) < timestamps.get(j));
+
+		}
+
+		for (TestDataLogger thelogger : loggers)
+			thelogger.shutdown();
+		scheduler.shutdown();
+
+	}
+
+	/** Tests the direct scheduler notifies within the logging thread. */
+	@Test
+	public void testDirectScheduler() throws Throwable {
+
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+		OrderObserver observer = new OrderObserver(thelogger, 3);
+		thelogger.addObserver(observer);
+
+		thelogger.log(1);
+		thelogger.log(2);
+		thelogger.log(3);
+
+		assertEquals(observer.done.getCount(), 0);
+		assertEquals(observer.timestamps.size(), 3);
+
+		thelogger.shutdown();
+		thelogger.log(4);
+
+		assertEquals(observer.timestamps.size(), 3);
+
+	}
+
+	/** Tests the queued events are delivered when the logger is shutdown. */
+	@Test
+	public void testShutdownDrains() throws Throwable {
+
+		ManualScheduler scheduler = new ManualScheduler();
+		TestDataLogger thelogger = new TestDataLogger("Test", scheduler);
+		OrderObserver observer = new OrderObserver(thelogger, 3);
+		thelogger.addObserver(observer);
+
+		thelogger.log(1);
+		thelogger.log(2);
+		thelogger.log(3);
+
+		assertEquals(observer.timestamps.size(), 0); // never dispatched
+
+		thelogger.shutdown();
+
+		assertEquals(observer.timestamps, Arrays.asList(1L, 2L, 3L));
+
+		// NOTE the stale dispatch task finds nothing to deliver
+		scheduler.runAll();
+		assertEquals(observer.timestamps.size(), 3);
+
+	}
+
+	/** Tests a stalled observer does not hold back (or drop events for) the others. */
+	@Test(timeout = 10000)
+	public void testObserverIsolation() throws Throwable {
+
+		final CountDownLatch stalled = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		DispatchScheduler scheduler = DispatchSchedulers.newPool(2);
+		TestDataLogger thelogger = new TestDataLogger("Test", scheduler);
+
+		DataLoggerObserver slowObserver = new DataLoggerObserver() {
+			@Override
+			public void notifyLog(DataLogger logger, LogEntry logEntry) {
+
+				stalled.countDown();
+
+				try {
+					release.await();
+				} catch (InterruptedException ex) { }
+
+			}
+		};
+
+		int events = ObserverMailbox.QUEUE_SIZE * 2;
+		OrderObserver fastObserver = new OrderObserver(thelogger, events);
+
+		thelogger.addObserver(slowObserver);
+		thelogger.addObserver(fastObserver);
+
+		thelogger.log(0);
+		assertTrue(stalled.await(5, TimeUnit.SECONDS));
+
+		for (int timestamp = 1; timestamp < events; timestamp++) {
+
+			// keep within the fast observer's mailbox
+			while (timestamp - (events - fastObserver.done.getCount())
+					>= ObserverMailbox.QUEUE_SIZE)
+				Thread.yield();
+
+			thelogger.log(timestamp);
+
+		}
+
+		// the fast observer receives everything while the slow one is stalled
+		assertTrue(fastObserver.done.await(5, TimeUnit.SECONDS));
+		assertEquals(thelogger.getDispatchStatistics(fastObserver).getDropped(), 0);
+
+		DispatchStatistics slowStats = thelogger.getDispatchStatistics(slowObserver);
+		assertEquals(slowStats.getQueueSize(), ObserverMailbox.QUEUE_SIZE);
+		assertEquals(slowStats.getDropped(), events - 1 - ObserverMailbox.QUEUE_SIZE);
+
+		// the combined statistics include both observers
+		assertEquals(thelogger.getDispatchStatistics().getDropped(), slowStats.getDropped());
+
+		release.countDown();
+		thelogger.shutdown();
+		scheduler.shutdown();
+
+	}
+
+}
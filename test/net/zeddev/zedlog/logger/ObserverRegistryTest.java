@@ -0,0 +1,154 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.ObserverRegistry}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class ObserverRegistryTest {
+
+	// an observer which does nothing
+	private static final class NullObserver implements DataLoggerObserver {
+
+		@Override
+		public void notifyLog(DataLogger logger, LogEntry logEntry) {
+		}
+
+	}
+
+	// the logger owning the test mailboxes
+	private static final DataLogger LOGGER =
+		new TestDataLogger("Test", DispatchSchedulers.direct());
+
+	// creates a mailbox for the given observer
+	private static ObserverMailbox mailbox(DataLoggerObserver observer) {
+		return new ObserverMailbox(
+			LOGGER, observer, DispatchSchedulers.direct(), OverflowPolicy.DROP_NEWEST
+		);
+	}
+
+	/** Tests adding and removing observers. */
+	@Test
+	public void testAddRemove() throws Throwable {
+
+		ObserverRegistry inst = new ObserverRegistry();
+		DataLoggerObserver first = new NullObserver();
+		DataLoggerObserver second = new NullObserver();
+
+		inst.add(mailbox(first));
+		inst.add(mailbox(second));
+
+		ObserverMailbox[] before = inst.snapshot();
+
+		assertTrue(inst.find(first) == before[0]);
+		assertTrue(inst.remove(first) == before[0]);
+		assertNull(inst.remove(first));
+		assertNull(inst.find(first));
+
+		assertEquals(inst.size(), 1);
+		assertTrue(inst.snapshot()[0].getObserver() == second);
+
+		// earlier snapshots are unaffected
+		assertEquals(before.length, 2);
+
+	}
+
+	/** Tests concurrent registrations are not lost. */
+	@Test(timeout = 10000)
+	public void testConcurrentAdd() throws Throwable {
+
+		final ObserverRegistry inst = new ObserverRegistry();
+		final int perThread = 500;
+
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+
+					for (int j = 0; j < perThread; j++) {
+
+						DataLoggerObserver observer = new NullObserver();
+
+						inst.add(mailbox(observer));
+						inst.add(mailbox(new NullObserver()));
+						inst.remove(observer);
+
+					}
+
+				}
+			};
+
+			threads[i].start();
+
+		}
+
+		for (Thread thread : threads)
+			thread.join();
+
+		assertEquals(inst.size(), threads.length * perThread);
+
+	}
+
+	/** Tests observers can be (un)registered while a slow observer is notified. */
+	@Test(timeout = 10000)
+	public void testRegisterDuringDispatch() throws Throwable {
+
+		final CountDownLatch notified = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		DispatchScheduler scheduler = DispatchSchedulers.newPool(1);
+		TestDataLogger thelogger = new TestDataLogger("Test", scheduler);
+
+		DataLoggerObserver slowObserver = new DataLoggerObserver() {
+			@Override
+			public void notifyLog(DataLogger logger, LogEntry logEntry) {
+
+				notified.countDown();
+
+				try {
+					release.await();
+				} catch (InterruptedException ex) { }
+
+			}
+		};
+
+		thelogger.addObserver(slowObserver);
+		thelogger.log(0);
+
+		assertTrue(notified.await(5, TimeUnit.SECONDS));
+
+		// must not wait for the slow observer
+		DataLoggerObserver other = new NullObserver();
+		thelogger.addObserver(other);
+		thelogger.removeObserver(other);
+		thelogger.removeObserver(slowObserver);
+
+		release.countDown();
+		scheduler.shutdown();
+
+	}
+
+}
@@ -0,0 +1,116 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import net.zeddev.zedlog.logger.impl.event.KeyEvent;
+
+/**
+ * A {@code DataLogger} for unit tests, which logs entries on request rather
+ * than from the native hook.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class TestDataLogger extends AbstractDataLogger {
+
+	private final String type;
+
+	public TestDataLogger(String type, DispatchScheduler scheduler) {
+		super(scheduler);
+		this.type = type;
+	}
+
+	@Override
+	public String type() {
+		return type;
+	}
+
+	/**
+	 * Creates an entry of the logger for the given event, with the given
+	 * timestamp (and a derived message), without logging it.
+	 *
+	 * @param timestamp The timestamp of the entry.
+	 * @param event The event of the entry.
+	 * @return The new entry.
+	 */
+	public LogEntry entry(long timestamp, LogEvent event) {
+
+		LogEntry logEntry = new LogEntry(this, event);
+		logEntry.setTimestamp(timestamp);
+
+		return logEntry;
+
+	}
+
+	/**
+	 * Creates a typed key entry of the logger, with the given timestamp,
+	 * without logging it.
+	 *
+	 * @param timestamp The timestamp of the entry.
+	 * @return The new entry.
+	 */
+	public LogEntry entry(long timestamp) {
+		return entry(timestamp, new KeyEvent(KeyEvent.Type.TYPED, -1, 'a'));
+	}
+
+	/**
+	 * Logs a new entry, with the given timestamp.
+	 *
+	 * @param timestamp The timestamp of the entry.
+	 * @return The logged entry.
+	 */
+	public LogEntry log(long timestamp) {
+		return log(timestamp, new KeyEvent(KeyEvent.Type.TYPED, -1, 'a'));
+	}
+
+	/**
+	 * Logs a new entry, with the given sequence number (also used as its
+	 * timestamp).
+	 *
+	 * @param sequence The sequence number of the entry.
+	 * @return The logged entry.
+	 */
+	public LogEntry logSequenced(long sequence) {
+
+		LogEntry logEntry = new LogEntry(this, type + " " + sequence,
+			new KeyEvent(KeyEvent.Type.TYPED, -1, 'a'));
+		logEntry.setTimestamp(sequence);
+		logEntry.setSequence(sequence);
+
+		notifyDataLoggerObservers(this, logEntry);
+
+		return logEntry;
+
+	}
+
+	/**
+	 * Logs a new entry for the given event, with the given timestamp.
+	 *
+	 * @param timestamp The timestamp of the entry.
+	 * @param event The logged event.
+	 * @return The logged entry.
+	 */
+	public LogEntry log(long timestamp, LogEvent event) {
+
+		LogEntry logEntry = new LogEntry(this, type + " " + timestamp, event);
+		logEntry.setTimestamp(timestamp);
+
+		notifyDataLoggerObservers(this, logEntry);
+
+		return logEntry;
+
+	}
+
+}
@@ -0,0 +1,61 @@
+package net.zeddev.zedlog.logger;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.Writer;
+import java.util.Scanner;
+
+import org.w3c.dom.Element;
+
+/**
+ * A {@code LogEvent} for unit tests, of a type unknown to the log formats
+ * (so it can be neither packed nor encoded in a binary log).
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class TestLogEvent extends LogEvent {
+
+	@Override
+	public void toXML(Element parent) { }
+
+	@Override
+	public void fromXML(Element parent) { }
+
+	@Override
+	@Deprecated
+	public void write(Writer output) { }
+
+	@Override
+	@Deprecated
+	public void read(Scanner scanner) { }
+
+	@Override
+	public void encode(BinaryEncoder output) { }
+
+	@Override
+	public void decode(BinaryDecoder input) { }
+
+	@Override
+	public String message() {
+		return "Unknown";
+	}
+
+	@Override
+	public String type() {
+		return "Unknown";
+	}
+
+}
@@ -0,0 +1,321 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.zeddev.zedlog.logger.BinaryEncoder;
+import net.zeddev.zedlog.logger.CaptureClock;
+import net.zeddev.zedlog.logger.DispatchSchedulers;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.TestDataLogger;
+import net.zeddev.zedlog.logger.impl.event.MouseClickedEvent;
+import net.zeddev.zedlog.logger.impl.event.MouseWheelMovedEvent;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.impl.BinaryLogWriter} and
+ * {@link net.zeddev.zedlog.logger.impl.BinaryLogReader}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class BinaryLogTest {
+
+	// the number of entries written
+	private static final int ENTRIES = 100;
+
+	// creates the test entries, alternating explicit and derived messages
+	private static List<LogEntry> entries() {
+
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+		List<LogEntry> entries = new ArrayList<>();
+
+		for (int i = 0; i < ENTRIES; i++) {
+
+			if (i % 2 == 0) {
+				entries.add(thelogger.log(1000000L + i * 7));
+				continue;
+			}
+
+			MouseClickedEvent click = new MouseClickedEvent();
+			click.setButtonCode(1);
+			click.setButton("left");
+			click.setClickCount(i % 3 + 1);
+			click.setX(-i);
+			click.setY(i * 13);
+
+			LogEntry logEntry = new LogEntry(thelogger, click);
+			logEntry.setTimestamp(1000000L + i * 7);
+
+			entries.add(logEntry);
+
+		}
+
+		// timestamps may go backwards
+		MouseWheelMovedEvent wheel = new MouseWheelMovedEvent();
+		wheel.setRotation(-3);
+
+		LogEntry logEntry = new LogEntry(thelogger, wheel);
+		logEntry.setTimestamp(5);
+		entries.add(logEntry);
+
+		return entries;
+
+	}
+
+	// writes the entries to a new binary log
+	private static File write(List<LogEntry> entries) throws Exception {
+
+		File tmp = File.createTempFile("BinaryLogTest", BinaryLogWriter.EXTENSION);
+		tmp.deleteOnExit();
+
+		BinaryLogWriter inst = new BinaryLogWriter(tmp, Arrays.asList("CharTyped"));
+		for (LogEntry logEntry : entries)
+			inst.write(logEntry);
+		inst.close(Arrays.asList("CharTyped", "MouseClick"));
+
+		assertEquals(inst.getEntryCount(), entries.size());
+
+		return tmp;
+
+	}
+
+	// reads all entries of the binary log
+	private static List<LogEntry> read(BinaryLogReader reader) throws Exception {
+
+		List<LogEntry> entries = new ArrayList<>();
+
+		LogEntry logEntry;
+		while ((logEntry = reader.next()) != null)
+			entries.add(logEntry);
+
+		return entries;
+
+	}
+
+	/** Tests the entries and loggers are read as written. */
+	@Test
+	public void testRoundTrip() throws Throwable {
+
+		List<LogEntry> entries = entries();
+		File tmp = write(entries);
+
+		assertTrue(BinaryLogWriter.isBinaryLog(tmp));
+		assertTrue(BinaryLogWriter.hasExtension(tmp));
+
+		BinaryLogReader reader = new BinaryLogReader(tmp);
+		List<LogEntry> read = read(reader);
+
+		assertFalse(reader.isTruncated());
+		assertEquals(reader.getPosition(), reader.getSize());
+		assertEquals(reader.getLoggerTypes(), Arrays.asList("CharTyped", "MouseClick"));
+
+		assertEquals(read.size(), entries.size());
+		for (int i = 0; i < entries.size(); i++) {
+
+			LogEntry expected = entries.get(i);
+			LogEntry actual = read.get(i);
+
+			assertEquals(actual.getTimestamp(), expected.getTimestamp());
+			assertEquals(actual.getCaptureTime(), expected.getCaptureTime());
+			assertEquals(actual.getEvent(), expected.getEvent());
+			assertEquals(actual.getMessage(), expected.getMessage());
+
+		}
+
+		assertEquals(reader.getCalibration(), CaptureClock.getCalibration());
+
+	}
+
+	/** Tests the capture times are read after seeking into the log. */
+	@Test
+	public void testSeekCaptureTimes() throws Throwable {
+
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+		List<LogEntry> entries = new ArrayList<>();
+
+		for (int i = 0; i < 3 * LogIndex.BLOCK_SIZE; i++) {
+
+			LogEntry logEntry = new LogEntry(thelogger, new MouseWheelMovedEvent(), 1000 + i * 1000000L);
+			logEntry.setTimestamp(i);
+
+			entries.add(logEntry);
+
+		}
+
+		File tmp = write(entries);
+
+		for (int entry : new int[] {0, LogIndex.BLOCK_SIZE, 2 * LogIndex.BLOCK_SIZE + 7}) {
+
+			BinaryLogReader reader = new BinaryLogReader(tmp);
+			reader.seekToEntry(entry);
+
+			assertEquals(reader.next().getCaptureTime(), entries.get(entry).getCaptureTime());
+			assertNotNull(reader.getCalibration());
+
+		}
+
+	}
+
+	/** Tests logs written before capture times are still read. */
+	@Test
+	public void testVersion1() throws Throwable {
+
+		File tmp = File.createTempFile("BinaryLogTest", BinaryLogWriter.EXTENSION);
+		tmp.deleteOnExit();
+
+		MouseWheelMovedEvent wheel = new MouseWheelMovedEvent();
+		wheel.setRotation(2);
+
+		BinaryEncoder encoder = new BinaryEncoder();
+		encoder.writeBytes(BinaryLogWriter.MAGIC);
+		encoder.writeByte(1);
+		encoder.writeVarInt(0);
+		encoder.writeByte(LogEvents.tagOf(wheel.type()));
+		encoder.writeSignedVarLong(1234);
+		wheel.encode(encoder);
+
+		try (FileOutputStream output = new FileOutputStream(tmp)) {
+			encoder.writeTo(output);
+		}
+
+		BinaryLogReader reader = new BinaryLogReader(tmp);
+		LogEntry logEntry = reader.next();
+
+		assertEquals(reader.getVersion(), 1);
+		assertEquals(logEntry.getTimestamp(), 1234);
+		assertEquals(logEntry.getCaptureTime(), 0);
+		assertEquals(logEntry.getEvent(), wheel);
+		assertNull(reader.getCalibration());
+
+		// NOTE appending would mix the versions
+		try {
+			BinaryLogWriter.openForAppend(tmp);
+			fail("Appended to a version 1 log!");
+		} catch (IOException ex) { }
+
+	}
+
+	/** Tests records spanning (or larger than) the read window are read. */
+	@Test
+	public void testLargeRecords() throws Throwable {
+
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+		List<LogEntry> entries = new ArrayList<>();
+
+		char[] large = new char[200 * 1024];
+		Arrays.fill(large, 'x');
+
+		for (int i = 0; i < 3 * LogIndex.BLOCK_SIZE; i++) {
+
+			String message = i % 500 == 7 ? new String(large) : "Test " + i;
+
+			LogEntry logEntry = new LogEntry(thelogger, message, new MouseWheelMovedEvent());
+			logEntry.setTimestamp(i);
+
+			entries.add(logEntry);
+
+		}
+
+		File tmp = write(entries);
+
+		try (BinaryLogReader reader = new BinaryLogReader(tmp)) {
+
+			List<LogEntry> read = read(reader);
+
+			assertFalse(reader.isTruncated());
+			assertEquals(reader.getPosition(), reader.getSize());
+			assertEquals(read.size(), entries.size());
+
+			for (int i = 0; i < entries.size(); i++)
+				assertEquals(read.get(i).getMessage(), entries.get(i).getMessage());
+
+			// back to before the window
+			reader.seekToEntry(7);
+			assertEquals(reader.next().getMessage(), entries.get(7).getMessage());
+
+		}
+
+		// the reader is closed before the log is truncated for appending
+		BinaryLogWriter inst = BinaryLogWriter.openForAppend(tmp);
+		assertEquals(inst.getEntryCount(), entries.size());
+		inst.close();
+
+	}
+
+	/** Tests a partial record at the end of the log is ignored. */
+	@Test
+	public void testTruncated() throws Throwable {
+
+		List<LogEntry> entries = entries();
+		File tmp = write(entries);
+
+		// cut the last record in half
+		try (RandomAccessFile log = new RandomAccessFile(tmp, "rw")) {
+			log.setLength(log.length() - 2);
+		}
+
+		BinaryLogReader reader = new BinaryLogReader(tmp);
+		List<LogEntry> read = read(reader);
+
+		assertTrue(reader.isTruncated());
+		assertTrue(read.size() >= entries.size() - 1);
+
+	}
+
+	/** Tests other files are not taken for binary logs. */
+	@Test
+	public void testNotBinaryLog() throws Throwable {
+
+		File tmp = File.createTempFile("BinaryLogTest", ".xml");
+		tmp.deleteOnExit();
+
+		try (FileOutputStream output = new FileOutputStream(tmp)) {
+			output.write("<zedlog>".getBytes("UTF-8"));
+		}
+
+		assertFalse(BinaryLogWriter.isBinaryLog(tmp));
+
+	}
+
+	/** Tests the binary log is smaller than the xml log. */
+	@Test
+	public void testSize() throws Throwable {
+
+		List<LogEntry> entries = entries();
+		File binary = write(entries);
+
+		File xml = File.createTempFile("BinaryLogTest", ".xml");
+		xml.deleteOnExit();
+
+		XmlLogWriter inst = new XmlLogWriter(xml);
+		for (LogEntry logEntry : entries)
+			inst.write(logEntry);
+		inst.close(Arrays.asList("CharTyped", "MouseClick"));
+
+		assertTrue(binary.length() * 4 < xml.length());
+
+	}
+
+}
@@ -0,0 +1,160 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import net.zeddev.zedlog.logger.CaptureClock;
+import net.zeddev.zedlog.logger.DataLogger;
+import net.zeddev.zedlog.logger.DataLoggerObserver;
+import net.zeddev.zedlog.logger.DispatchSchedulers;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.impl.event.MouseMovedEvent;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the capture path of the native loggers allocates (next to) nothing,
+ * as the entries are pooled (see {@link net.zeddev.zedlog.logger.LogEntryPool}).
+ * The samples are added to the logger's motion filter, as native events
+ * can not be created without the native hook.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class CaptureAllocationTest {
+
+	// the samples captured before, and while, measuring
+	private static final int WARMUP = 200000;
+	private static final int SAMPLES = 100000;
+
+	// the most bytes allocated for each captured sample
+	private static final double MAX_BYTES_PER_SAMPLE = 1.0;
+
+	// reads the captured events, without keeping them
+	private static final class ReadingObserver implements DataLoggerObserver {
+
+		public long count = 0;
+		public long total = 0;
+
+		@Override
+		public void notifyLog(DataLogger logger, LogEntry logEntry) {
+
+			count++;
+			total += ((MouseMovedEvent) logEntry.getEvent()).getX();
+
+		}
+
+	}
+
+	// returns the bytes allocated by the current thread, or -1 if unknown
+	private static long allocatedBytes() {
+
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+		if (!(threads instanceof com.sun.management.ThreadMXBean))
+			return -1;
+
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+
+		if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled())
+			return -1;
+
+		return allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+
+	}
+
+	// captures the given number of samples (along a line)
+	private static void capture(MouseMovementLogger thelogger, int samples) {
+
+		for (int i = 0; i < samples; i++)
+			thelogger.getMotionFilter().add(i & 1023, i & 511, CaptureClock.now());
+
+	}
+
+	/** Tests capturing mouse motion allocates nothing once warmed up. */
+	@Test
+	public void testMotionCapture() throws Throwable {
+
+		MouseMovementLogger thelogger = new MouseMovementLogger(
+			new NativeHookDemultiplexer(), DispatchSchedulers.direct()
+		);
+
+		ReadingObserver observer = new ReadingObserver();
+		thelogger.addObserver(observer);
+
+		capture(thelogger, WARMUP);
+
+		long start = allocatedBytes();
+		capture(thelogger, SAMPLES);
+		long end = allocatedBytes();
+
+		assertEquals(observer.count, (long) (WARMUP + SAMPLES));
+		assertTrue(thelogger.getEntryPool().getAllocated() <= 2);
+
+		if (start >= 0) {
+
+			double bytes = (double) (end - start) / SAMPLES;
+
+			assertTrue(
+				String.format("Allocated %.2f bytes per sample!", bytes),
+				bytes <= MAX_BYTES_PER_SAMPLE
+			);
+
+		}
+
+		thelogger.shutdown();
+
+	}
+
+	/** Tests the composite recycles the entries once stored, keeping copies. */
+	@Test(timeout = 10000)
+	public void testCompositeRecycles() throws Throwable {
+
+		final int count = 2000;
+
+		MouseMovementLogger thelogger = new MouseMovementLogger(
+			new NativeHookDemultiplexer(), DispatchSchedulers.direct()
+		);
+
+		CompositeDataLogger composite = new CompositeDataLogger();
+		composite.addLogger(thelogger);
+
+		for (int i = 0; i < count; i++)
+			thelogger.getMotionFilter().add(i, 0, CaptureClock.now());
+
+		// wait for the held entries to be stored
+		while (composite.getHistory().size() < count)
+			Thread.sleep(10);
+
+		for (int i = 0; i < count; i++) {
+
+			LogEntry logEntry = composite.getHistory().get(i);
+
+			assertFalse(logEntry.isPooled());
+			assertEquals(((MouseMovedEvent) logEntry.getEvent()).getX(), i);
+
+		}
+
+		assertEquals(thelogger.getEntryPool().getRecycled(), (long) count);
+		assertTrue(thelogger.getEntryPool().getAllocated() < count);
+
+		composite.shutdown();
+
+	}
+
+}
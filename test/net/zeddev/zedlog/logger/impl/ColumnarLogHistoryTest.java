@@ -0,0 +1,201 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.zeddev.zedlog.logger.DispatchSchedulers;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.TestDataLogger;
+import net.zeddev.zedlog.logger.TestLogEvent;
+import net.zeddev.zedlog.logger.impl.event.KeyEvent;
+import net.zeddev.zedlog.logger.impl.event.MouseClickedEvent;
+import net.zeddev.zedlog.logger.impl.event.MouseDraggedEvent;
+import net.zeddev.zedlog.logger.impl.event.MouseMovedEvent;
+import net.zeddev.zedlog.logger.impl.event.MousePressedEvent;
+import net.zeddev.zedlog.logger.impl.event.MouseReleasedEvent;
+import net.zeddev.zedlog.logger.impl.event.MouseWheelMovedEvent;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.impl.ColumnarLogHistory}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class ColumnarLogHistoryTest {
+
+	private final TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+
+	// creates an entry of each event type
+	private List<LogEntry> entries() {
+
+		List<LogEntry> entries = new ArrayList<>();
+
+		entries.add(thelogger.log(1)); // explicit message
+		entries.add(thelogger.entry(2, new KeyEvent(KeyEvent.Type.PRESSED, 65, 'A')));
+		entries.add(thelogger.entry(3, new KeyEvent(KeyEvent.Type.RELEASED, -1, (char) -1)));
+
+		MouseClickedEvent click = new MouseClickedEvent();
+		click.setButtonCode(1);
+		click.setButton("left");
+		click.setClickCount(2);
+		click.setX(-5);
+		click.setY(7);
+		entries.add(thelogger.entry(4, click));
+
+		MouseDraggedEvent drag = new MouseDraggedEvent();
+		drag.setButtonCode(2);
+		drag.setX(100);
+		drag.setY(200);
+		entries.add(thelogger.entry(5, drag));
+
+		MouseMovedEvent move = new MouseMovedEvent();
+		move.setX(Integer.MAX_VALUE);
+		move.setY(Integer.MIN_VALUE);
+		entries.add(thelogger.entry(6, move));
+
+		MousePressedEvent press = new MousePressedEvent();
+		press.setButtonCode(3);
+		press.setButton("middle");
+		entries.add(thelogger.entry(7, press));
+
+		MouseReleasedEvent release = new MouseReleasedEvent();
+		release.setButtonCode(3);
+		release.setButton("middle");
+		entries.add(thelogger.entry(8, release));
+
+		MouseWheelMovedEvent wheel = new MouseWheelMovedEvent();
+		wheel.setRotation(-3);
+		entries.add(thelogger.entry(Long.MAX_VALUE, wheel));
+
+		return entries;
+
+	}
+
+	/** Tests each event type is packed and created again as added. */
+	@Test
+	public void testRoundTrip() throws Throwable {
+
+		List<LogEntry> entries = entries();
+
+		ColumnarLogHistory inst = new ColumnarLogHistory();
+		inst.addAll(entries);
+
+		assertEquals(inst.size(), entries.size());
+
+		for (int i = 0; i < entries.size(); i++) {
+
+			LogEntry logEntry = inst.get(i);
+
+			assertNotSame(logEntry, entries.get(i));
+			assertEquals(logEntry, entries.get(i));
+			assertEquals(logEntry.getExplicitMessage(), entries.get(i).getExplicitMessage());
+			assertEquals(logEntry.getCaptureTime(), entries.get(i).getCaptureTime());
+			assertSame(logEntry.getParent(), thelogger);
+
+		}
+
+	}
+
+	/** Tests entries which cannot be packed are kept as they are, and entries without parents. */
+	@Test
+	public void testUnpackable() throws Throwable {
+
+		LogEntry unknown = thelogger.entry(1, new TestLogEvent());
+		LogEntry noParent = new LogEntry();
+		noParent.setEvent(new KeyEvent(KeyEvent.Type.TYPED, 1, 'b'));
+		noParent.setTimestamp(2);
+
+		ColumnarLogHistory inst = new ColumnarLogHistory();
+		inst.addAll(Arrays.asList(unknown, noParent));
+
+		assertSame(inst.get(0), unknown);
+		assertEquals(inst.get(1), noParent);
+		assertNull(inst.get(1).getParent());
+
+	}
+
+	/** Tests the columns are allocated (and released) a chunk at a time. */
+	@Test
+	public void testClear() throws Throwable {
+
+		ColumnarLogHistory inst = new ColumnarLogHistory();
+
+		for (int i = 0; i < 100; i++)
+			inst.addAll(entries());
+
+		assertTrue(inst.getColumnBytes() >= 900 * ColumnarLogHistory.COLUMN_BYTES);
+
+		inst.clear();
+
+		assertEquals(inst.size(), 0);
+		assertEquals(inst.getColumnBytes(), 0);
+
+		inst.addAll(entries());
+		assertEquals(inst.get(3), entries().get(3));
+
+	}
+
+	// adds the given number of mouse movements, without retaining the entries
+	private static void addMoves(LogHistory history, int count) throws IOException {
+
+		List<LogEntry> batch = new ArrayList<>();
+
+		for (int i = 0; i < count; i++) {
+
+			MouseMovedEvent move = new MouseMovedEvent();
+			move.setX(i % 1920);
+			move.setY(i % 1080);
+
+			LogEntry logEntry = new LogEntry();
+			logEntry.setEvent(move);
+			logEntry.setTimestamp(i);
+
+			batch.add(logEntry);
+
+			if (batch.size() == 1024) {
+				history.addAll(batch);
+				batch.clear();
+			}
+
+		}
+
+		history.addAll(batch);
+
+	}
+
+	/** Tests the columns allocated per entry are close to the column size. */
+	@Test
+	public void testBytesPerEntry() throws Throwable {
+
+		final int count = 500000;
+
+		ColumnarLogHistory inst = new ColumnarLogHistory();
+		addMoves(inst, count);
+
+		long perEntry = inst.getColumnBytes() / count;
+
+		assertTrue("Used " + perEntry + " bytes per entry!", perEntry < 2 * ColumnarLogHistory.COLUMN_BYTES);
+		assertEquals(inst.size(), count);
+
+	}
+
+}
@@ -18,8 +18,11 @@ package net.zeddev.zedlog.logger.impl;
 import java.awt.AWTException;
 import java.awt.Robot;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import net.zeddev.zedlog.logger.DataLogger;
 import net.zeddev.zedlog.logger.LogEvent;
 import net.zeddev.zedlog.logger.impl.event.KeyEvent;
 import static org.junit.Assert.*;
@@ -92,13 +95,15 @@ public class CompositeDataLoggerTest {
 		
 		// test reading of logger instances
 		
-		assertTrue(readLogger.containsLogger(
-			DataLoggers.newDataLogger("CharTyped")
-		));
+		// NOTE each logger is a new instance, so compare the types
+		List<String> loggerTypes = new ArrayList<>();
+		for (DataLogger logger : readLogger.getLoggers())
+			loggerTypes.add(logger.type());
 		
-		assertTrue(readLogger.containsLogger(
-			DataLoggers.newDataLogger("MouseClick")
-		));
+		assertTrue(loggerTypes.contains("CharTyped"));
+		assertTrue(loggerTypes.contains("MouseClick"));
+		
+		readLogger.shutdown();
 		
 	}
 	
@@ -0,0 +1,72 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.List;
+
+import net.zeddev.zedlog.logger.DataLogger;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.impl.DataLoggers}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class DataLoggersTest {
+
+	/** Tests the available types are listed in order. */
+	@Test
+	public void testTypeList() throws Throwable {
+
+		List<String> types = DataLoggers.typeList();
+
+		assertEquals(types.size(), 9);
+		assertEquals(types.get(0), "CharTyped");
+		assertTrue(types.contains("MouseMovement"));
+
+	}
+
+	/** Tests unknown types are not created. */
+	@Test
+	public void testUnknownType() throws Throwable {
+		assertNull(DataLoggers.newDataLogger("NotALogger"));
+	}
+
+	/** Tests each request creates a new logger, which is routed until shutdown. */
+	@Test
+	public void testNewInstances() throws Throwable {
+
+		NativeHookDemultiplexer demux = NativeHookDemultiplexer.getInstance();
+		int routed = demux.handlerCount(NativeEventType.MOUSE_CLICKED);
+
+		DataLogger first = DataLoggers.newDataLogger("MouseClick");
+		DataLogger second = DataLoggers.newDataLogger("MouseClick");
+
+		assertNotSame(first, second);
+		assertEquals(demux.handlerCount(NativeEventType.MOUSE_CLICKED), routed + 2);
+
+		// shutting one down leaves the other routed
+		first.shutdown();
+		assertEquals(demux.handlerCount(NativeEventType.MOUSE_CLICKED), routed + 1);
+
+		second.shutdown();
+		assertEquals(demux.handlerCount(NativeEventType.MOUSE_CLICKED), routed);
+
+	}
+
+}
@@ -74,7 +74,8 @@ public final class KeyDataLoggers {
 	@Test
 	public void testCharTyped() throws Throwable {
 		
-		final DataLogger thelogger = new CharTypedLogger();
+		final NativeHookLogger thelogger = new CharTypedLogger();
+		thelogger.start();
 
 		// the observer which receives events
 		TestObserver observer = new TestObserver(thelogger);
@@ -94,7 +95,8 @@ public final class KeyDataLoggers {
 	@Test
 	public void testKeyPressed() throws Throwable {
 		
-		final DataLogger thelogger = new KeyPressedLogger();
+		final NativeHookLogger thelogger = new KeyPressedLogger();
+		thelogger.start();
 		
 		// the observer which receives events
 		TestObserver observer = new TestObserver(thelogger);
@@ -117,7 +119,8 @@ public final class KeyDataLoggers {
 	@Test
 	public void testKeyReleased() throws Throwable {
 		
-		final DataLogger thelogger = new KeyReleasedLogger();
+		final NativeHookLogger thelogger = new KeyReleasedLogger();
+		thelogger.start();
 
 		// the observer which receives events
 		TestObserver observer = new TestObserver(thelogger);
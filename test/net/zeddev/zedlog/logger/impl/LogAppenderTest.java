@@ -0,0 +1,206 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.zeddev.zedlog.logger.DispatchSchedulers;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.TestDataLogger;
+import net.zeddev.zedlog.logger.impl.event.KeyEvent;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.impl.LogAppender}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class LogAppenderTest {
+
+	// the number of producer threads, and batches each appends
+	private static final int PRODUCERS = 8;
+	private static final int BATCHES = 2000;
+
+	private final TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+
+	// appends batches of entries from each producer concurrently, returning
+	// the number of entries appended
+	private int produce(final BatchAppender appender) throws Exception {
+
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicInteger produced = new AtomicInteger();
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+		List<Thread> producers = new ArrayList<>();
+
+		for (int p = 0; p < PRODUCERS; p++) {
+
+			final int producer = p;
+
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+
+					try {
+
+						start.await();
+
+						// NOTE the batch is reused, as the dispatch threads do
+						List<LogEntry> batch = new ArrayList<>();
+						int i = 0;
+
+						for (int b = 0; b < BATCHES; b++) {
+
+							batch.clear();
+
+							for (int n = 0; n <= b % 8; n++)
+								batch.add(thelogger.entry(i++, new KeyEvent(KeyEvent.Type.TYPED, producer, 'a')));
+
+							appender.append(batch);
+
+						}
+
+						produced.addAndGet(i);
+
+					} catch (Throwable ex) {
+						failures.add(ex);
+					}
+
+				}
+			};
+
+			thread.start();
+			producers.add(thread);
+
+		}
+
+		start.countDown();
+
+		for (Thread thread : producers)
+			thread.join();
+
+		assertEquals(failures, Collections.emptyList());
+
+		return produced.get();
+
+	}
+
+	// appends a batch (from a producer thread)
+	private static interface BatchAppender {
+		public void append(List<LogEntry> batch) throws Exception;
+	}
+
+	// checks each producer's entries are all present, in order
+	private static void assertProduced(List<LogEntry> entries, int count) {
+
+		assertEquals(entries.size(), count);
+
+		int[] next = new int[PRODUCERS];
+
+		for (LogEntry logEntry : entries) {
+
+			int producer = ((KeyEvent) logEntry.getEvent()).getKeyCode();
+
+			assertEquals(logEntry.getTimestamp(), next[producer]);
+			next[producer]++;
+
+		}
+
+	}
+
+	/** Tests concurrently appended entries are written once each, by a single writer. */
+	@Test(timeout = 60000)
+	public void testSingleWriter() throws Throwable {
+
+		final List<LogEntry> written = new ArrayList<>();
+		final AtomicInteger writers = new AtomicInteger();
+		final AtomicInteger overlaps = new AtomicInteger();
+
+		final LogAppender inst = new LogAppender(new LogAppender.Target() {
+			@Override
+			public void append(List<LogEntry> logEntries) {
+
+				if (writers.incrementAndGet() > 1)
+					overlaps.incrementAndGet();
+
+				written.addAll(logEntries);
+
+				writers.decrementAndGet();
+
+			}
+		});
+
+		int count = produce(new BatchAppender() {
+			@Override
+			public void append(List<LogEntry> batch) {
+				inst.append(batch);
+			}
+		});
+
+		assertEquals(overlaps.get(), 0);
+		assertEquals(inst.getEntriesWritten(), count);
+		assertTrue(inst.getBatchesWritten() <= PRODUCERS * BATCHES);
+
+		assertProduced(written, count);
+
+	}
+
+	/** Tests the composite logger's history and log file hold the same entries, in order. */
+	@Test(timeout = 60000)
+	public void testCompositeStress() throws Throwable {
+
+		File log = File.createTempFile("LogAppenderTest", BinaryLogWriter.EXTENSION);
+		log.deleteOnExit();
+
+		final CompositeDataLogger loggers = new CompositeDataLogger();
+		loggers.setLogFile(log);
+
+		int count = produce(new BatchAppender() {
+			@Override
+			public void append(List<LogEntry> batch) {
+				loggers.notifyLogBatch(thelogger, batch);
+			}
+		});
+
+		List<LogEntry> history = new ArrayList<>(loggers.logEntries());
+		assertProduced(history, count);
+
+		loggers.shutdown();
+
+		List<LogEntry> logged = new ArrayList<>();
+		try (BinaryLogReader reader = new BinaryLogReader(log)) {
+			LogEntry logEntry;
+			while ((logEntry = reader.next()) != null)
+				logged.add(logEntry);
+		}
+
+		assertEquals(logged.size(), count);
+
+		for (int i = 0; i < count; i++) {
+			assertEquals(logged.get(i).getTimestamp(), history.get(i).getTimestamp());
+			assertEquals(logged.get(i).getEvent(), history.get(i).getEvent());
+		}
+
+	}
+
+}
@@ -0,0 +1,163 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import net.zeddev.zedlog.logger.ClockCalibration;
+import net.zeddev.zedlog.logger.DispatchSchedulers;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.TestDataLogger;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.impl.LogCommitter}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class LogCommitterTest {
+
+	// counts the entries, flushes and forces
+	private static final class CountingLogWriter implements LogWriter {
+
+		volatile long entries = 0;
+		volatile int flushes = 0;
+		volatile int forces = 0;
+		volatile boolean closed = false;
+
+		@Override
+		public void write(LogEntry logEntry) {
+			entries++;
+		}
+
+		@Override
+		public void setCalibration(ClockCalibration calibration) {
+		}
+
+		@Override
+		public void flush() {
+			flushes++;
+		}
+
+		@Override
+		public void force() {
+			forces++;
+		}
+
+		@Override
+		public void close(Collection<String> loggerTypes) {
+			closed = true;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+
+		@Override
+		public long getEntryCount() {
+			return entries;
+		}
+
+	}
+
+	// creates the given number of entries
+	private static List<LogEntry> entries(int count) {
+
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+		List<LogEntry> entries = new ArrayList<>();
+
+		for (int i = 0; i < count; i++)
+			entries.add(thelogger.log(i));
+
+		return entries;
+
+	}
+
+	/** Tests entries are committed once the entry limit is reached. */
+	@Test
+	public void testEntryLimit() throws Throwable {
+
+		CountingLogWriter writer = new CountingLogWriter();
+		LogCommitter inst = new LogCommitter(writer, null, new CommitPolicy(10, 0, 0, false));
+
+		inst.write(entries(6));
+		assertEquals(writer.flushes, 0);
+
+		inst.write(entries(6));
+		assertEquals(writer.flushes, 1);
+
+		CommitStatistics stats = inst.getStatistics();
+		assertEquals(stats.getCommits(), 1);
+		assertEquals(stats.getCommits(CommitStatistics.Trigger.ENTRIES), 1);
+		assertEquals(stats.getLastBatchSize(), 12);
+		assertEquals(stats.getPendingEntries(), 0);
+
+		// the rest are committed on close
+		inst.write(entries(3));
+		inst.close(Collections.<String>emptyList());
+
+		assertTrue(writer.closed);
+		assertEquals(writer.flushes, 2);
+		assertEquals(inst.getStatistics().getCommittedEntries(), 15);
+
+	}
+
+	/** Tests waiting entries are committed after the maximum delay. */
+	@Test(timeout = 5000)
+	public void testMaxDelay() throws Throwable {
+
+		CountingLogWriter writer = new CountingLogWriter();
+		LogCommitter inst = new LogCommitter(writer, null, new CommitPolicy(1000, 50, 0, false));
+
+		inst.write(entries(1));
+
+		while (writer.flushes == 0)
+			Thread.sleep(10);
+
+		assertEquals(inst.getStatistics().getCommits(CommitStatistics.Trigger.DELAY), 1);
+
+		inst.close(Collections.<String>emptyList());
+
+	}
+
+	/** Tests waiting entries are committed when idle, and forced if set. */
+	@Test(timeout = 5000)
+	public void testIdleForced() throws Throwable {
+
+		CountingLogWriter writer = new CountingLogWriter();
+		LogCommitter inst = new LogCommitter(writer, null, new CommitPolicy(1000, 0, 20, true));
+
+		inst.write(entries(5));
+
+		while (writer.forces == 0)
+			Thread.sleep(10);
+
+		CommitStatistics stats = inst.getStatistics();
+		assertEquals(stats.getCommits(CommitStatistics.Trigger.IDLE), 1);
+		assertEquals(stats.getForcedCommits(), 1);
+		assertEquals(writer.flushes, 0);
+
+		inst.close(Collections.<String>emptyList());
+
+	}
+
+}
@@ -0,0 +1,137 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Collections;
+
+import net.zeddev.zedlog.logger.DispatchSchedulers;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.TestDataLogger;
+import net.zeddev.zedlog.logger.impl.event.MouseClickedEvent;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.impl.LogIndex}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class LogIndexTest {
+
+	// the number of entries written
+	private static final int ENTRIES = LogIndex.BLOCK_SIZE * 4 - 10;
+
+	// the entry with a mouse click
+	private static final int CLICK_ENTRY = LogIndex.BLOCK_SIZE * 2 + 5;
+
+	// writes a binary log with an entry every 10ms
+	private static File writeLog() throws Exception {
+
+		File tmp = File.createTempFile("LogIndexTest", BinaryLogWriter.EXTENSION);
+		tmp.deleteOnExit();
+		LogIndex.indexFile(tmp).deleteOnExit();
+
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+
+		BinaryLogWriter inst = new BinaryLogWriter(tmp, Collections.<String>emptyList());
+		for (int i = 0; i < ENTRIES; i++) {
+
+			if (i == CLICK_ENTRY)
+				inst.write(thelogger.log(i * 10, new MouseClickedEvent()));
+			else
+				inst.write(thelogger.log(i * 10));
+
+		}
+		inst.close();
+
+		return tmp;
+
+	}
+
+	/** Tests the index is written with the blocks of the log. */
+	@Test
+	public void testIndex() throws Throwable {
+
+		File tmp = writeLog();
+
+		LogIndex index = LogIndex.read(tmp);
+		assertNotNull(index);
+
+		assertEquals(index.getEntryCount(), ENTRIES);
+		assertEquals(index.getBlockCount(), 4);
+		assertEquals(index.getBlock(3).getEntryCount(), LogIndex.BLOCK_SIZE - 10);
+		assertEquals(index.getBlock(1).getFirstTimestamp(), LogIndex.BLOCK_SIZE * 10);
+
+		assertEquals(index.findTimestamp(0), 0);
+		assertEquals(index.findTimestamp(LogIndex.BLOCK_SIZE * 10 + 5), 1);
+		assertEquals(index.findTimestamp(ENTRIES * 10), -1);
+
+		assertEquals(index.findEntry(LogIndex.BLOCK_SIZE * 3), 3);
+		assertEquals(index.findEntry(ENTRIES), -1);
+
+		assertEquals(index.findEventType(0, "MouseClicked"), 2);
+		assertEquals(index.findEventType(3, "MouseClicked"), -1);
+
+	}
+
+	/** Tests the reader seeks to timestamps and entries using the index. */
+	@Test
+	public void testSeek() throws Throwable {
+
+		File tmp = writeLog();
+
+		BinaryLogReader reader = new BinaryLogReader(tmp);
+		assertNotNull(reader.getIndex());
+
+		reader.seekToTimestamp(LogIndex.BLOCK_SIZE * 20 + 43);
+		assertEquals(reader.getEntryNumber(), LogIndex.BLOCK_SIZE * 2 + 5);
+		assertEquals(reader.next().getTimestamp(), LogIndex.BLOCK_SIZE * 20 + 50);
+		assertTrue(reader.next().getTimestamp() > LogIndex.BLOCK_SIZE * 20 + 50);
+
+		reader.seekToEntry(CLICK_ENTRY);
+		assertTrue(reader.next().getEvent() instanceof MouseClickedEvent);
+
+		reader.seekToEntry(0);
+		assertEquals(reader.next().getTimestamp(), 0);
+
+		reader.seekToTimestamp(ENTRIES * 10);
+		assertNull(reader.next());
+
+	}
+
+	/** Tests the index is ignored once the log has changed. */
+	@Test
+	public void testStaleIndex() throws Throwable {
+
+		File tmp = writeLog();
+
+		try (FileOutputStream output = new FileOutputStream(tmp, true)) {
+			output.write(0);
+		}
+
+		assertNull(LogIndex.read(tmp));
+
+		// seeks without the index
+		BinaryLogReader reader = new BinaryLogReader(tmp);
+		reader.seekToTimestamp(100);
+		assertEquals(reader.next().getTimestamp(), 100);
+
+	}
+
+}
@@ -0,0 +1,332 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import net.zeddev.zedlog.logger.ClockCalibration;
+import net.zeddev.zedlog.logger.DispatchSchedulers;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.TestDataLogger;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.impl.LogJournal}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class LogJournalTest {
+
+	// never commits unless asked, so entries are left in the journal
+	private static final CommitPolicy MANUAL = new CommitPolicy(100000, 0, 0, false);
+
+	// creates the given number of entries, from the given timestamp
+	private static List<LogEntry> entries(long from, int count) {
+
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+		List<LogEntry> entries = new ArrayList<>();
+
+		for (int i = 0; i < count; i++)
+			entries.add(thelogger.log(from + i));
+
+		return entries;
+
+	}
+
+	// creates a temporary log file, removing the journal on exit
+	private static File tempLog(String extension) throws Exception {
+
+		File tmp = File.createTempFile("LogJournalTest", extension);
+		tmp.deleteOnExit();
+		LogJournal.journalFile(tmp).deleteOnExit();
+
+		return tmp;
+
+	}
+
+	// checks the entries have consecutive timestamps, from the given timestamp
+	private static void assertEntries(List<LogEntry> entries, long from, int count) {
+
+		assertEquals(entries.size(), count);
+
+		for (int i = 0; i < count; i++) {
+			assertEquals(entries.get(i).getTimestamp(), from + i);
+			assertEquals(entries.get(i).getMessage(), "Test " + (from + i));
+		}
+
+	}
+
+	// reads all entries of the log
+	private static List<LogEntry> read(LogReader reader) throws Exception {
+
+		List<LogEntry> entries = new ArrayList<>();
+
+		try {
+
+			LogEntry logEntry;
+			while ((logEntry = reader.next()) != null)
+				entries.add(logEntry);
+
+		} finally {
+			reader.close();
+		}
+
+		return entries;
+
+	}
+
+	/** Tests the journalled entries are read as written. */
+	@Test
+	public void testRoundTrip() throws Throwable {
+
+		File log = tempLog(BinaryLogWriter.EXTENSION);
+
+		LogJournal inst = new LogJournal(log, 0);
+		inst.append(entries(100, 10));
+		inst.append(entries(110, 5));
+
+		LogJournal.Contents contents = LogJournal.read(inst.getFile());
+
+		assertFalse(contents.torn);
+		assertEquals(contents.firstEntry, 0);
+		assertEquals(contents.end, inst.getFile().length());
+		assertEntries(contents.entries, 100, 15);
+
+		// checkpointing empties the journal
+		inst.checkpoint(15);
+		inst.append(entries(115, 2));
+
+		contents = LogJournal.read(inst.getFile());
+		assertEquals(contents.firstEntry, 15);
+		assertEntries(contents.entries, 115, 2);
+
+		inst.delete();
+		assertFalse(inst.getFile().exists());
+
+	}
+
+	/** Tests the journal is cut at a record torn at every possible offset. */
+	@Test
+	public void testTornRecord() throws Throwable {
+
+		File log = tempLog(BinaryLogWriter.EXTENSION);
+
+		LogJournal inst = new LogJournal(log, 0);
+		inst.append(entries(0, 8));
+		byte[] bytes = Files.readAllBytes(inst.getFile().toPath());
+		inst.delete();
+
+		File torn = tempLog(LogJournal.EXTENSION);
+		int previousCount = 0;
+
+		for (int length = 0; length <= bytes.length; length++) {
+
+			Files.write(torn.toPath(), Arrays.copyOf(bytes, length));
+			LogJournal.Contents contents = LogJournal.read(torn);
+
+			int count = contents.entries.size();
+
+			// never loses an intact record, nor includes a partial one
+			assertTrue(count >= previousCount);
+			assertEntries(contents.entries, 0, count);
+			assertEquals(contents.torn, contents.end != length);
+
+			previousCount = count;
+
+		}
+
+		assertEquals(previousCount, 8);
+
+	}
+
+	/** Tests the journal ends at a record which fails its checksum. */
+	@Test
+	public void testCorruptRecord() throws Throwable {
+
+		File log = tempLog(BinaryLogWriter.EXTENSION);
+
+		LogJournal inst = new LogJournal(log, 0);
+		inst.append(entries(0, 4));
+		long corruptAt = inst.getFile().length() - 3; // in the last message
+		inst.append(entries(4, 4));
+
+		File journal = inst.getFile();
+		byte[] bytes = Files.readAllBytes(journal.toPath());
+
+		// NOTE the record is flipped directly, the journal is left open
+		try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+			file.seek(corruptAt);
+			file.write(bytes[(int) corruptAt] ^ 0x01);
+		}
+
+		LogJournal.Contents contents = LogJournal.read(journal);
+
+		assertTrue(contents.torn);
+		assertEntries(contents.entries, 0, 3);
+
+		inst.delete();
+
+	}
+
+	// writes entries through a committer which is never closed (i.e. crashes),
+	// committing the first and leaving the rest in the journal
+	private static void crash(LogWriter writer, File log, int committed, int uncommitted)
+			throws Exception {
+
+		LogCommitter committer = new LogCommitter(writer, new LogJournal(log, 0), MANUAL);
+
+		committer.write(entries(0, committed));
+		committer.commit();
+
+		committer.write(entries(committed, uncommitted));
+
+	}
+
+	/** Tests the uncommitted entries are recovered into a binary log. */
+	@Test
+	public void testRecoverBinary() throws Throwable {
+
+		File log = tempLog(BinaryLogWriter.EXTENSION);
+		crash(new BinaryLogWriter(log, Arrays.asList("Test")), log, 20, 30);
+
+		assertEquals(LogJournal.recover(log), 30);
+		assertFalse(LogJournal.journalFile(log).exists());
+
+		BinaryLogReader reader = new BinaryLogReader(log);
+		assertFalse(reader.isTruncated());
+		assertEntries(read(reader), 0, 50);
+
+	}
+
+	/** Tests the entries are recovered with the calibration they were journalled with. */
+	@Test
+	public void testRecoverCalibration() throws Throwable {
+
+		File log = tempLog(BinaryLogWriter.EXTENSION);
+		new BinaryLogWriter(log, Arrays.asList("Test")).close(Arrays.asList("Test"));
+
+		// NOTE as if journalled by an earlier run
+		ClockCalibration earlier = new ClockCalibration(1000, 5000);
+
+		LogJournal journal = new LogJournal(log, 0);
+		journal.append(entries(0, 5), earlier);
+
+		LogJournal.Contents contents = LogJournal.read(journal.getFile());
+		assertEquals(contents.calibrations, Collections.nCopies(5, earlier));
+
+		assertEquals(LogJournal.recover(log), 5);
+
+		BinaryLogReader reader = new BinaryLogReader(log);
+		assertEntries(read(reader), 0, 5);
+		assertEquals(reader.getCalibration(), earlier);
+
+	}
+
+	/** Tests the uncommitted entries are recovered into an XML log. */
+	@Test
+	public void testRecoverXml() throws Throwable {
+
+		File log = tempLog(".xml");
+		crash(new XmlLogWriter(log), log, 20, 30);
+
+		assertEquals(LogJournal.recover(log), 30);
+		assertFalse(LogJournal.journalFile(log).exists());
+
+		assertEntries(read(new XmlLogReader(log)), 0, 50);
+
+	}
+
+	/** Tests entries reaching the log before the checkpoint are not duplicated. */
+	@Test
+	public void testRecoverNoDuplicates() throws Throwable {
+
+		File log = tempLog(BinaryLogWriter.EXTENSION);
+
+		LogJournal journal = new LogJournal(log, 0);
+		BinaryLogWriter writer = new BinaryLogWriter(log, Arrays.asList("Test"));
+
+		// crash after writing the log, but before the checkpoint
+		List<LogEntry> entries = entries(0, 10);
+		journal.append(entries);
+		for (LogEntry logEntry : entries)
+			writer.write(logEntry);
+		writer.flush();
+
+		assertEquals(LogJournal.recover(log), 0);
+		assertEntries(read(new BinaryLogReader(log)), 0, 10);
+
+	}
+
+	/** Tests a log without a journal is left alone. */
+	@Test
+	public void testRecoverWithoutJournal() throws Throwable {
+
+		File log = tempLog(BinaryLogWriter.EXTENSION);
+
+		BinaryLogWriter writer = new BinaryLogWriter(log, Arrays.asList("Test"));
+		writer.write(entries(0, 1).get(0));
+		writer.close();
+
+		long length = log.length();
+
+		assertEquals(LogJournal.recover(log), 0);
+		assertEquals(log.length(), length);
+
+	}
+
+	/** Writes a log, then kills the process before committing the last entries. */
+	public static final class Crasher {
+
+		public static void main(String[] args) throws Exception {
+
+			File log = new File(args[0]);
+			crash(new BinaryLogWriter(log, Arrays.asList("Test")), log, 10, 15);
+
+			Runtime.getRuntime().halt(1);
+
+		}
+
+	}
+
+	/** Tests the entries are recovered after the writing process is killed. */
+	@Test(timeout = 60000)
+	public void testRecoverKilledProcess() throws Throwable {
+
+		File log = tempLog(BinaryLogWriter.EXTENSION);
+
+		File java = new File(new File(System.getProperty("java.home"), "bin"), "java");
+
+		Process process = new ProcessBuilder(
+			java.getPath(), "-cp", System.getProperty("java.class.path"),
+			Crasher.class.getName(), log.getPath()
+		).inheritIO().start();
+
+		assertEquals(process.waitFor(), 1);
+
+		assertEquals(LogJournal.recover(log), 15);
+		assertEntries(read(new BinaryLogReader(log)), 0, 25);
+
+	}
+
+}
@@ -0,0 +1,223 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import net.zeddev.zedlog.logger.CaptureClock;
+import net.zeddev.zedlog.logger.DispatchSchedulers;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.LogEntryPool;
+import net.zeddev.zedlog.logger.TestDataLogger;
+import net.zeddev.zedlog.logger.impl.event.KeyEvent;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.impl.LogPersister}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class LogPersisterTest {
+
+	private final TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+
+	// records the written timestamps, and the threads which wrote them
+	private static class RecordingTarget implements LogPersister.Target {
+
+		public final List<Long> timestamps = Collections.synchronizedList(new ArrayList<Long>());
+		public volatile Thread writer = null;
+
+		@Override
+		public void write(List<LogEntry> logEntries) {
+
+			writer = Thread.currentThread();
+
+			for (LogEntry logEntry : logEntries)
+				timestamps.add(logEntry.getTimestamp());
+
+		}
+
+	}
+
+	/** Tests the entries are written in order, by the persister's own thread. */
+	@Test(timeout = 10000)
+	public void testWriteInOrder() throws Throwable {
+
+		RecordingTarget target = new RecordingTarget();
+		LogPersister inst = new LogPersister("test persister", 64, target);
+
+		List<LogEntry> batch = new ArrayList<>();
+		for (int i = 0; i < 10000; i++) {
+
+			batch.add(thelogger.entry(i));
+
+			if (batch.size() == 7) {
+				inst.submit(batch);
+				batch.clear();
+			}
+
+		}
+
+		inst.submit(batch);
+		inst.flush();
+
+		assertEquals(target.timestamps.size(), 10000);
+		for (int i = 0; i < 10000; i++)
+			assertEquals((long) target.timestamps.get(i), i);
+
+		assertTrue(target.writer != Thread.currentThread());
+		assertEquals(target.writer.getName(), "test persister");
+
+		PersistenceStatistics stats = inst.getStatistics();
+		assertEquals(stats.getSubmitted(), 10000L);
+		assertEquals(stats.getWritten(), 10000L);
+		assertEquals(stats.getQueueSize(), 0);
+		assertEquals(stats.getFlushes(), 1L);
+		assertTrue(stats.getBatches() > 0);
+		assertTrue(stats.getMaxBatchSize() <= 64);
+
+		inst.close();
+
+	}
+
+	/** Tests submitting waits (and is counted) while the queue is full. */
+	@Test(timeout = 10000)
+	public void testBackPressure() throws Throwable {
+
+		final CountDownLatch stalled = new CountDownLatch(1);
+		final CountDownLatch resume = new CountDownLatch(1);
+
+		RecordingTarget target = new RecordingTarget() {
+			@Override
+			public void write(List<LogEntry> logEntries) {
+
+				// stall the first batch, as a slow disk would
+				stalled.countDown();
+				try {
+					resume.await();
+				} catch (InterruptedException ex) { }
+
+				super.write(logEntries);
+
+			}
+		};
+
+		final LogPersister inst = new LogPersister("test persister", 4, target);
+
+		inst.submit(Collections.singletonList(thelogger.entry(0)));
+		stalled.await();
+
+		// fills the queue, then waits for room
+		Thread producer = new Thread() {
+			@Override
+			public void run() {
+				for (int i = 1; i <= 5; i++)
+					inst.submit(Collections.singletonList(thelogger.entry(i)));
+			}
+		};
+		producer.start();
+
+		while (inst.getStatistics().getQueueSize() < 4)
+			Thread.sleep(5);
+
+		Thread.sleep(50);
+		assertTrue(producer.isAlive()); // still waiting for room
+
+		resume.countDown();
+		producer.join();
+		inst.flush();
+
+		assertEquals(target.timestamps.size(), 6);
+		for (int i = 0; i <= 5; i++)
+			assertEquals((long) target.timestamps.get(i), i);
+
+		PersistenceStatistics stats = inst.getStatistics();
+		assertEquals(stats.getBlocked(), 1L);
+		assertTrue(stats.getMaxBlockedNanos() > 0);
+		assertEquals(stats.getPeakQueueSize(), 4);
+
+		inst.close();
+
+	}
+
+	/** Tests pooled entries are held until written. */
+	@Test(timeout = 10000)
+	public void testPooledEntries() throws Throwable {
+
+		final CountDownLatch resume = new CountDownLatch(1);
+
+		RecordingTarget target = new RecordingTarget() {
+			@Override
+			public void write(List<LogEntry> logEntries) {
+
+				try {
+					resume.await();
+				} catch (InterruptedException ex) { }
+
+				super.write(logEntries);
+
+			}
+		};
+
+		LogPersister inst = new LogPersister("test persister", 16, target);
+		LogEntryPool pool = new LogEntryPool(thelogger, KeyEvent.class);
+
+		LogEntry logEntry = pool.claim(CaptureClock.now());
+		inst.submit(Collections.singletonList(logEntry));
+		logEntry.release();
+
+		assertEquals(pool.getRecycled(), 0L); // still queued
+
+		resume.countDown();
+		inst.flush();
+
+		assertEquals(pool.getRecycled(), 1L);
+
+		inst.close();
+
+	}
+
+	/** Tests closing writes the queued entries, and later entries are ignored. */
+	@Test(timeout = 10000)
+	public void testClose() throws Throwable {
+
+		RecordingTarget target = new RecordingTarget();
+		LogPersister inst = new LogPersister("test persister", 16, target);
+
+		for (int i = 0; i < 100; i++)
+			inst.submit(Collections.singletonList(thelogger.entry(i)));
+
+		inst.close();
+
+		assertEquals(target.timestamps.size(), 100);
+
+		inst.submit(Collections.singletonList(thelogger.entry(100)));
+		inst.flush();
+
+		assertEquals(target.timestamps.size(), 100);
+		assertEquals(inst.getStatistics().getSubmitted(), 100L);
+
+		target.writer.join(5000);
+		assertFalse(target.writer.isAlive());
+
+	}
+
+}
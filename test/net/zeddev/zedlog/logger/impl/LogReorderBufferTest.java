@@ -0,0 +1,304 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.zeddev.zedlog.logger.DataLogger;
+import net.zeddev.zedlog.logger.DataLoggerObserver;
+import net.zeddev.zedlog.logger.DispatchSchedulers;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.ManualScheduler;
+import net.zeddev.zedlog.logger.TestDataLogger;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.impl.LogReorderBuffer}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class LogReorderBufferTest {
+
+	// the skew window used (in ms)
+	private static final long WINDOW = 10;
+
+	private final TestDataLogger loggerA = new TestDataLogger("A", DispatchSchedulers.direct());
+	private final TestDataLogger loggerB = new TestDataLogger("B", DispatchSchedulers.direct());
+
+	// logs an entry of the logger, with the given sequence number
+	// NOTE the entry is on its way until added to the buffer
+	private static LogEntry entry(TestDataLogger logger, long sequence) {
+		return logger.logSequenced(sequence);
+	}
+
+	// returns the sequence numbers of the entries
+	private static List<Long> sequences(List<LogEntry> entries) {
+
+		List<Long> sequences = new ArrayList<>();
+
+		for (LogEntry logEntry : entries)
+			sequences.add(logEntry.getSequence());
+
+		return sequences;
+
+	}
+
+	/** Tests the runs of each logger are merged back into sequence order. */
+	@Test
+	public void testMerge() throws Throwable {
+
+		LogReorderBuffer inst = new LogReorderBuffer(WINDOW, 1000);
+		inst.addLogger(loggerA);
+		inst.addLogger(loggerB);
+
+		List<LogEntry> released = new ArrayList<>();
+
+		List<LogEntry> entriesA = Arrays.asList(entry(loggerA, 1), entry(loggerA, 3));
+		List<LogEntry> entriesB = Arrays.asList(entry(loggerB, 2), entry(loggerB, 4), entry(loggerB, 5));
+
+		inst.add(entriesB, 0, released);
+		assertEquals(inst.size(), 3); // waiting for A
+
+		inst.add(entriesA, 0, released);
+		assertEquals(sequences(released), Arrays.asList(1L, 2L, 3L, 4L, 5L));
+		assertEquals(inst.size(), 0);
+
+	}
+
+	/** Tests entries are released at once when no earlier entry is on its way. */
+	@Test
+	public void testSettled() throws Throwable {
+
+		LogReorderBuffer inst = new LogReorderBuffer(WINDOW, 1000);
+		inst.addLogger(loggerA);
+		inst.addLogger(loggerB);
+
+		List<LogEntry> released = new ArrayList<>();
+
+		LogEntry a1 = loggerA.log(1);
+		LogEntry b1 = loggerB.log(2);
+		LogEntry a2 = loggerA.log(3);
+
+		inst.add(Arrays.asList(b1), 0, released);
+		assertEquals(released, Collections.emptyList()); // a1 is on its way
+
+		inst.add(Arrays.asList(a1, a2), 0, released);
+		assertEquals(released, Arrays.asList(a1, b1, a2));
+
+		// B has delivered each entry, so is not waited for
+		released.clear();
+		LogEntry a3 = loggerA.log(4);
+		inst.add(Arrays.asList(a3), 0, released);
+		assertEquals(released, Arrays.asList(a3));
+
+	}
+
+	/** Tests a motion held by the filter holds back later entries, until it expires. */
+	@Test
+	public void testHeldMotion() throws Throwable {
+
+		final LogReorderBuffer inst = new LogReorderBuffer(WINDOW, 1000);
+		final List<LogEntry> released = new ArrayList<>();
+
+		NativeHookDemultiplexer demux = new NativeHookDemultiplexer();
+		MouseDraggedLogger dragged = new MouseDraggedLogger(demux, DispatchSchedulers.direct());
+		dragged.getMotionFilter().configure(MotionFilter.Mode.TIME_BUCKET, 0, 1000);
+
+		dragged.addObserver(new DataLoggerObserver() {
+			@Override
+			public void notifyLog(DataLogger logger, LogEntry logEntry) {
+				inst.add(Arrays.asList(logEntry), 0, released);
+			}
+		});
+
+		inst.addLogger(dragged);
+		inst.addLogger(loggerA);
+
+		dragged.getMotionFilter().add(0, 0, 1); // kept
+		assertEquals(released.size(), 1);
+		released.clear();
+
+		dragged.getMotionFilter().add(1, 0, 2); // held
+		long heldSequence = dragged.getHeldSequence();
+		assertTrue(heldSequence > 0);
+
+		LogEntry a1 = loggerA.log(3);
+		inst.add(Arrays.asList(a1), 0, released);
+		assertEquals(released, Collections.emptyList()); // the motion came first
+
+		// the held motion is waited for past the skew window
+		long window = TimeUnit.MILLISECONDS.toNanos(WINDOW);
+		inst.release(window, released);
+		assertEquals(released, Collections.emptyList());
+		assertEquals(inst.nextDeadline(), 2 * window);
+
+		dragged.getMotionFilter().expire(2 + TimeUnit.MILLISECONDS.toNanos(MotionFilter.MAX_HOLD));
+		assertEquals(released.size(), 2);
+		assertEquals(released.get(0).getSequence(), heldSequence);
+		assertSame(released.get(1), a1);
+		assertEquals(inst.getLateEntries(), 0);
+
+		dragged.shutdown();
+
+	}
+
+	/** Tests entries are held no longer than the skew window for a missing entry. */
+	@Test
+	public void testSkewWindow() throws Throwable {
+
+		LogReorderBuffer inst = new LogReorderBuffer(WINDOW, 1000);
+		inst.addLogger(loggerA);
+		inst.addLogger(loggerB);
+
+		long window = TimeUnit.MILLISECONDS.toNanos(WINDOW);
+		List<LogEntry> released = new ArrayList<>();
+
+		// 3 is delayed
+		LogEntry delayed = entry(loggerB, 3);
+
+		// the first entry is held, as B has an entry on its way
+		inst.add(Arrays.asList(entry(loggerA, 1), entry(loggerA, 2)), 0, released);
+		assertEquals(released, Collections.emptyList());
+		assertEquals(inst.nextDeadline(), window);
+
+		inst.release(window, released);
+		assertEquals(sequences(released), Arrays.asList(1L, 2L));
+		released.clear();
+
+		long now = 2 * window;
+		inst.add(Arrays.asList(entry(loggerA, 4)), now, released);
+		assertEquals(released, Collections.emptyList());
+		assertEquals(inst.nextDeadline(), now + window);
+
+		inst.release(now + window - 1, released);
+		assertEquals(released, Collections.emptyList());
+
+		inst.release(now + window, released);
+		assertEquals(sequences(released), Arrays.asList(4L));
+		assertEquals(inst.nextDeadline(), Long.MAX_VALUE);
+
+		// a late entry is released at once
+		released.clear();
+		inst.add(Arrays.asList(delayed), now + window, released);
+		assertEquals(sequences(released), Arrays.asList(3L));
+		assertEquals(inst.getLateEntries(), 1);
+
+	}
+
+	/** Tests entries are released once too many are held. */
+	@Test
+	public void testMaxHeld() throws Throwable {
+
+		LogReorderBuffer inst = new LogReorderBuffer(WINDOW, 2);
+		inst.addLogger(loggerA);
+		inst.addLogger(loggerB);
+
+		List<LogEntry> released = new ArrayList<>();
+
+		entry(loggerB, 11); // never delivered
+
+		inst.add(Arrays.asList(entry(loggerA, 10), entry(loggerA, 12)), 0, released);
+		assertEquals(inst.size(), 2);
+
+		inst.add(Arrays.asList(entry(loggerA, 14)), 0, released);
+		assertEquals(sequences(released), Arrays.asList(10L));
+		assertEquals(inst.size(), 2); // still waiting for 11
+
+		released.clear();
+		inst.releaseAll(released);
+		assertEquals(sequences(released), Arrays.asList(12L, 14L));
+
+	}
+
+	/** Tests entries without sequence numbers keep their arrival order. */
+	@Test
+	public void testUnsequenced() throws Throwable {
+
+		LogReorderBuffer inst = new LogReorderBuffer(WINDOW, 1000);
+		inst.addLogger(loggerA);
+		inst.addLogger(loggerB);
+
+		List<LogEntry> released = new ArrayList<>();
+
+		LogEntry loaded = new LogEntry();
+		loaded.setTimestamp(1);
+
+		inst.add(Arrays.asList(entry(loggerA, 5), loaded), 0, released);
+
+		assertEquals(released.size(), 2);
+		assertSame(released.get(1), loaded);
+
+	}
+
+	/** Tests removing a logger stops its entries being waited for. */
+	@Test
+	public void testRemoveLogger() throws Throwable {
+
+		LogReorderBuffer inst = new LogReorderBuffer(WINDOW, 1000);
+		inst.addLogger(loggerA);
+		inst.addLogger(loggerB);
+
+		List<LogEntry> released = new ArrayList<>();
+
+		entry(loggerB, 8); // never delivered
+
+		inst.add(Arrays.asList(entry(loggerA, 7)), 0, released);
+		assertEquals(inst.size(), 1);
+
+		inst.removeLogger(loggerB, released);
+		assertEquals(sequences(released), Arrays.asList(7L));
+
+		released.clear();
+		inst.add(Arrays.asList(entry(loggerA, 9)), 0, released);
+		assertEquals(sequences(released), Arrays.asList(9L)); // only A remains
+
+	}
+
+	/** Tests the composite logger stores entries in capture order. */
+	@Test
+	public void testCompositeOrder() throws Throwable {
+
+		CompositeDataLogger loggers = new CompositeDataLogger();
+
+		// NOTE the entries of a are delivered late, once its queue is run
+		ManualScheduler scheduler = new ManualScheduler();
+		TestDataLogger a = new TestDataLogger("A", scheduler);
+		TestDataLogger b = new TestDataLogger("B", DispatchSchedulers.direct());
+
+		loggers.addLogger(a);
+		loggers.addLogger(b);
+
+		LogEntry a1 = a.log(1);
+		LogEntry b1 = b.log(2);
+		LogEntry a2 = a.log(3);
+		LogEntry b2 = b.log(4);
+
+		assertEquals(loggers.logEntries(), Collections.emptyList()); // waiting for a
+
+		scheduler.runAll();
+		assertEquals(loggers.logEntries(), Arrays.asList(a1, b1, a2, b2));
+
+		loggers.shutdown();
+
+	}
+
+}
@@ -0,0 +1,260 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.impl.MotionFilter}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class MotionFilterTest {
+
+	// records the kept samples
+	private static final class PathSink implements MotionFilter.Sink {
+
+		public final List<int[]> points = new ArrayList<>();
+		public final List<Long> times = new ArrayList<>();
+		public final List<Long> sequences = new ArrayList<>();
+
+		@Override
+		public void emit(int x, int y, long timestamp, long sequence) {
+			points.add(new int[] {x, y});
+			times.add(timestamp);
+			sequences.add(sequence);
+		}
+
+	}
+
+	// checks every sample was either kept or merged
+	private static void assertAccounted(MotionFilter inst, PathSink sink) {
+		assertEquals(inst.getSampleCount(), sink.points.size() + inst.getMergedCount());
+	}
+
+	/** Tests every sample is kept by default. */
+	@Test
+	public void testNone() throws Throwable {
+
+		PathSink sink = new PathSink();
+		MotionFilter inst = new MotionFilter(sink);
+
+		for (int i = 0; i < 10; i++)
+			inst.add(i, i, i);
+
+		assertEquals(sink.points.size(), 10);
+		assertEquals(inst.getMergedCount(), 0);
+
+	}
+
+	/** Tests at most one sample is kept per interval, plus the final sample. */
+	@Test
+	public void testTimeBucket() throws Throwable {
+
+		PathSink sink = new PathSink();
+		MotionFilter inst = new MotionFilter(sink);
+		inst.configure(MotionFilter.Mode.TIME_BUCKET, 0, 20);
+
+		// NOTE the samples are in nanoseconds, the interval in milliseconds
+		for (int t = 0; t < 100; t += 5)
+			inst.add(t, 0, TimeUnit.MILLISECONDS.toNanos(t));
+
+		assertEquals(sink.times.size(), 5); // 0, 20, 40, 60 and 80
+
+		inst.flush();
+
+		assertEquals(sink.times.size(), 6);
+		assertEquals((long) sink.times.get(5), TimeUnit.MILLISECONDS.toNanos(95));
+		assertAccounted(inst, sink);
+
+	}
+
+	/** Tests the sample where the mouse rested is kept when it moves again. */
+	@Test
+	public void testTimeBucketKeepsRest() throws Throwable {
+
+		PathSink sink = new PathSink();
+		MotionFilter inst = new MotionFilter(sink);
+		inst.configure(MotionFilter.Mode.TIME_BUCKET, 0, 20);
+
+		inst.add(0, 0, 0);
+		inst.add(5, 0, TimeUnit.MILLISECONDS.toNanos(5));
+		inst.add(10, 0, TimeUnit.MILLISECONDS.toNanos(10)); // comes to rest
+
+		assertEquals(sink.points.size(), 1);
+
+		// moves again, long after
+		inst.add(11, 0, TimeUnit.MILLISECONDS.toNanos(500));
+
+		assertEquals(sink.points.size(), 2);
+		assertArrayEquals(sink.points.get(1), new int[] {10, 0});
+		assertEquals((long) sink.times.get(1), TimeUnit.MILLISECONDS.toNanos(10));
+
+		inst.flush();
+
+		assertEquals(sink.points.size(), 3);
+		assertArrayEquals(sink.points.get(2), new int[] {11, 0});
+		assertAccounted(inst, sink);
+
+	}
+
+	/** Tests kept samples keep the sequence number given at capture. */
+	@Test
+	public void testSequence() throws Throwable {
+
+		PathSink sink = new PathSink();
+		MotionFilter inst = new MotionFilter(sink);
+		inst.configure(MotionFilter.Mode.TIME_BUCKET, 0, 20);
+
+		inst.add(0, 0, 0, 3);
+		inst.add(5, 0, TimeUnit.MILLISECONDS.toNanos(5), 7); // held
+
+		assertEquals(sink.sequences, Arrays.asList(3L));
+		assertEquals(inst.getHeldSequence(), 7);
+
+		inst.flush();
+
+		assertEquals(sink.sequences, Arrays.asList(3L, 7L));
+		assertEquals(inst.getHeldSequence(), 0);
+
+	}
+
+	/** Tests where the mouse came to rest is kept, once held too long, without a further sample. */
+	@Test
+	public void testExpire() throws Throwable {
+
+		long hold = TimeUnit.MILLISECONDS.toNanos(MotionFilter.MAX_HOLD);
+
+		for (MotionFilter.Mode mode : new MotionFilter.Mode[] {
+				MotionFilter.Mode.TIME_BUCKET, MotionFilter.Mode.DISTANCE, MotionFilter.Mode.SIMPLIFY}) {
+
+			PathSink sink = new PathSink();
+			MotionFilter inst = new MotionFilter(sink);
+			inst.configure(mode, 3, 1000);
+
+			inst.add(0, 0, 1);
+			inst.add(1, 0, 2); // comes to rest
+
+			assertEquals(sink.points.size(), 1);
+			assertEquals(inst.nextExpiry(), 2 + hold);
+
+			inst.expire(1 + hold);
+			assertEquals(sink.points.size(), 1); // not yet
+
+			inst.expire(2 + hold);
+			assertEquals(sink.points.size(), 2);
+			assertArrayEquals(sink.points.get(1), new int[] {1, 0});
+			assertEquals(inst.nextExpiry(), Long.MAX_VALUE);
+			assertEquals(inst.getHeldSequence(), 0);
+
+		}
+
+	}
+
+	/** Tests a short interval tolerance expires the held samples sooner. */
+	@Test
+	public void testExpireInterval() throws Throwable {
+
+		PathSink sink = new PathSink();
+		MotionFilter inst = new MotionFilter(sink);
+		inst.configure(MotionFilter.Mode.TIME_BUCKET, 0, 5);
+
+		inst.add(0, 0, 1);
+		inst.add(1, 0, 2);
+
+		assertEquals(inst.nextExpiry(), 2 + TimeUnit.MILLISECONDS.toNanos(5));
+
+	}
+
+	/** Tests samples within the pixel tolerance are merged. */
+	@Test
+	public void testDistance() throws Throwable {
+
+		PathSink sink = new PathSink();
+		MotionFilter inst = new MotionFilter(sink);
+		inst.configure(MotionFilter.Mode.DISTANCE, 3, 0);
+
+		// jitter around the start
+		inst.add(100, 100, 0);
+		inst.add(101, 100, 1);
+		inst.add(100, 102, 2);
+		inst.add(102, 101, 3);
+
+		assertEquals(sink.points.size(), 1);
+
+		inst.add(110, 100, 4);
+
+		assertEquals(sink.points.size(), 2);
+		assertEquals(inst.getMergedCount(), 3);
+		assertAccounted(inst, sink);
+
+	}
+
+	/** Tests a straight path is reduced to its ends, keeping the corners. */
+	@Test
+	public void testSimplify() throws Throwable {
+
+		PathSink sink = new PathSink();
+		MotionFilter inst = new MotionFilter(sink);
+		inst.configure(MotionFilter.Mode.SIMPLIFY, 1, 1000);
+
+		// along, then down (an L shape)
+		for (int i = 0; i <= 20; i++)
+			inst.add(i, 0, i);
+		for (int i = 1; i <= 20; i++)
+			inst.add(20, i, 20 + i);
+
+		inst.flush();
+
+		assertEquals(sink.points.size(), 3);
+		assertArrayEquals(sink.points.get(0), new int[] {0, 0});
+		assertArrayEquals(sink.points.get(1), new int[] {20, 0});
+		assertArrayEquals(sink.points.get(2), new int[] {20, 20});
+
+		assertEquals(inst.getMergedCount(), 38);
+		assertAccounted(inst, sink);
+
+	}
+
+	/** Tests the simplified path stays within the tolerance of every sample. */
+	@Test
+	public void testSimplifyTolerance() throws Throwable {
+
+		PathSink sink = new PathSink();
+		MotionFilter inst = new MotionFilter(sink);
+		inst.configure(MotionFilter.Mode.SIMPLIFY, 2, 1000);
+
+		// a gentle curve, spanning several windows
+		int samples = MotionFilter.WINDOW_SIZE * 3;
+		for (int i = 0; i < samples; i++)
+			inst.add(i, (int) (20 * Math.sin(i / 20.0)), i);
+
+		inst.flush();
+
+		assertTrue(sink.points.size() < samples / 4);
+		assertArrayEquals(sink.points.get(sink.points.size() - 1),
+			new int[] {samples - 1, (int) (20 * Math.sin((samples - 1) / 20.0))});
+		assertAccounted(inst, sink);
+
+	}
+
+}
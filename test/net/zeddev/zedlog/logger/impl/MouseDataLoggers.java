@@ -100,7 +100,8 @@ public final class MouseDataLoggers {
 	@Test
 	public void testMouseClick() throws Throwable {
 		
-		final DataLogger thelogger = new MouseClickLogger();
+		final NativeHookLogger thelogger = new MouseClickLogger();
+		thelogger.start();
 
 		// the observer which receives events
 		TestObserver observer = new TestObserver(thelogger) {
@@ -127,7 +128,8 @@ public final class MouseDataLoggers {
 	@Test
 	public void testMousePress() throws Throwable {
 		
-		final DataLogger thelogger = new MousePressedLogger();
+		final NativeHookLogger thelogger = new MousePressedLogger();
+		thelogger.start();
 
 		// the observer which receives events
 		TestObserver observer = new TestObserver(thelogger) {
@@ -157,7 +159,8 @@ public final class MouseDataLoggers {
 	@Test
 	public void testMouseRelease() throws Throwable {
 		
-		final DataLogger thelogger = new MouseReleasedLogger();
+		final NativeHookLogger thelogger = new MouseReleasedLogger();
+		thelogger.start();
 
 		// the observer which receives events
 		TestObserver observer = new TestObserver(thelogger) {
@@ -186,7 +189,8 @@ public final class MouseDataLoggers {
 	@Test
 	public void testMouseMovement() throws Throwable {
 		
-		final DataLogger thelogger = new MouseMovementLogger();
+		final NativeHookLogger thelogger = new MouseMovementLogger();
+		thelogger.start();
 
 		// the observer which receives events
 		TestObserver observer = new TestObserver(thelogger) {
@@ -213,7 +217,8 @@ public final class MouseDataLoggers {
 	@Test
 	public void testMouseDragged() throws Throwable {
 		
-		final DataLogger thelogger = new MouseDraggedLogger();
+		final NativeHookLogger thelogger = new MouseDraggedLogger();
+		thelogger.start();
 
 		// the observer which receives events
 		TestObserver observer = new TestObserver(thelogger) {
@@ -240,7 +245,8 @@ public final class MouseDataLoggers {
 	@Test
 	public void testMouseWheelMove() throws Throwable {
 		
-		final DataLogger thelogger = new MouseWheelLogger();
+		final NativeHookLogger thelogger = new MouseWheelLogger();
+		thelogger.start();
 
 		// the observer which receives events
 		TestObserver observer = new TestObserver(thelogger) {
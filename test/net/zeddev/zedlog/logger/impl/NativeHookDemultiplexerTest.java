@@ -0,0 +1,200 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.zeddev.zedlog.logger.DataLogger;
+import net.zeddev.zedlog.logger.DataLoggerObserver;
+import net.zeddev.zedlog.logger.DispatchSchedulers;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.impl.event.MouseDraggedEvent;
+
+import org.jnativehook.NativeInputEvent;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.impl.NativeHookDemultiplexer}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class NativeHookDemultiplexerTest {
+
+	// records the events it handles
+	private static final class CountingHandler implements NativeEventHandler {
+
+		public final List<NativeInputEvent> events = new ArrayList<>();
+
+		@Override
+		public void handleNativeEvent(NativeInputEvent event, long captureTime, long sequence) {
+			events.add(event);
+		}
+
+	}
+
+	// a logger which records the events routed to it
+	private static final class CountingLogger extends NativeHookLogger {
+
+		public int handled = 0;
+
+		public CountingLogger(NativeEventType eventType,
+				NativeHookDemultiplexer demultiplexer) {
+			super(eventType, demultiplexer);
+		}
+
+		@Override
+		public String type() {
+			return "Counting";
+		}
+
+		@Override
+		public void handleNativeEvent(NativeInputEvent event, long captureTime, long sequence) {
+			handled++;
+		}
+
+	}
+
+	/** Tests events are routed to only the handlers of their type. */
+	@Test
+	public void testRouting() throws Throwable {
+
+		NativeHookDemultiplexer inst = new NativeHookDemultiplexer();
+		CountingHandler moved = new CountingHandler();
+		CountingHandler typed = new CountingHandler();
+
+		inst.addHandler(NativeEventType.MOUSE_MOVED, moved);
+		inst.addHandler(NativeEventType.MOUSE_MOVED, moved); // ignored duplicate
+		inst.addHandler(NativeEventType.KEY_TYPED, typed);
+
+		assertEquals(inst.handlerCount(NativeEventType.MOUSE_MOVED), 1);
+		assertEquals(inst.handlerCount(NativeEventType.MOUSE_DRAGGED), 0);
+
+		inst.dispatch(NativeEventType.MOUSE_MOVED, null);
+		inst.dispatch(NativeEventType.MOUSE_MOVED, null);
+		inst.dispatch(NativeEventType.KEY_TYPED, null);
+		inst.dispatch(NativeEventType.MOUSE_DRAGGED, null);
+
+		assertEquals(moved.events.size(), 2);
+		assertEquals(typed.events.size(), 1);
+
+		inst.removeHandler(NativeEventType.MOUSE_MOVED, moved);
+		inst.dispatch(NativeEventType.MOUSE_MOVED, null);
+
+		assertEquals(moved.events.size(), 2);
+		assertEquals(inst.handlerCount(NativeEventType.MOUSE_MOVED), 0);
+
+	}
+
+	/** Tests a failing handler does not stop the others receiving the event. */
+	@Test
+	public void testFailingHandler() throws Throwable {
+
+		NativeHookDemultiplexer inst = new NativeHookDemultiplexer();
+		CountingHandler counted = new CountingHandler();
+
+		inst.addHandler(NativeEventType.MOUSE_CLICKED, new NativeEventHandler() {
+			@Override
+			public void handleNativeEvent(NativeInputEvent event, long captureTime, long sequence) {
+				throw new IllegalStateException("Expected failure.");
+			}
+		});
+		inst.addHandler(NativeEventType.MOUSE_CLICKED, counted);
+
+		inst.dispatch(NativeEventType.MOUSE_CLICKED, null);
+
+		assertEquals(counted.events.size(), 1);
+
+	}
+
+	/** Tests events without handlers do not use up sequence numbers. */
+	@Test
+	public void testIgnoredNotSequenced() throws Throwable {
+
+		NativeHookDemultiplexer inst = new NativeHookDemultiplexer();
+
+		long before = LogEntry.nextSequence();
+		inst.dispatch(NativeEventType.MOUSE_MOVED, null);
+
+		assertEquals(LogEntry.nextSequence(), before + 1);
+
+	}
+
+	/** Tests a logger only receives events while recording. */
+	@Test
+	public void testLoggerRecording() throws Throwable {
+
+		NativeHookDemultiplexer inst = new NativeHookDemultiplexer();
+		CountingLogger thelogger = new CountingLogger(NativeEventType.MOUSE_CLICKED, inst);
+		assertEquals(inst.handlerCount(NativeEventType.MOUSE_CLICKED), 0); // not yet started
+
+		thelogger.start();
+
+		inst.dispatch(NativeEventType.MOUSE_CLICKED, null);
+		assertEquals(thelogger.handled, 1);
+
+		thelogger.setRecording(false);
+		assertEquals(inst.handlerCount(NativeEventType.MOUSE_CLICKED), 0);
+
+		inst.dispatch(NativeEventType.MOUSE_CLICKED, null);
+		assertEquals(thelogger.handled, 1);
+
+		thelogger.setRecording(true);
+		inst.dispatch(NativeEventType.MOUSE_CLICKED, null);
+		assertEquals(thelogger.handled, 2);
+
+		thelogger.shutdown();
+		assertEquals(inst.handlerCount(NativeEventType.MOUSE_CLICKED), 0);
+
+	}
+
+	/** Tests the held samples of a drag are logged when it is released. */
+	@Test
+	public void testDragReleaseFlushes() throws Throwable {
+
+		NativeHookDemultiplexer inst = new NativeHookDemultiplexer();
+		MouseDraggedLogger thelogger = new MouseDraggedLogger(inst, DispatchSchedulers.direct());
+		thelogger.start();
+		thelogger.getMotionFilter().configure(MotionFilter.Mode.TIME_BUCKET, 0, 1000);
+
+		final List<Integer> positions = new ArrayList<>();
+		thelogger.addObserver(new DataLoggerObserver() {
+			@Override
+			public void notifyLog(DataLogger logger, LogEntry logEntry) {
+				positions.add(((MouseDraggedEvent) logEntry.getEvent()).getX());
+			}
+		});
+
+		assertEquals(inst.handlerCount(NativeEventType.MOUSE_RELEASED), 1);
+
+		for (int x = 0; x < 5; x++)
+			thelogger.getMotionFilter().add(x, 0, x + 1);
+
+		assertEquals(positions.size(), 1); // the rest are held
+
+		inst.dispatch(NativeEventType.MOUSE_RELEASED, null);
+
+		assertEquals(positions.size(), 2);
+		assertEquals((int) positions.get(1), 4);
+
+		thelogger.shutdown();
+		assertEquals(inst.handlerCount(NativeEventType.MOUSE_RELEASED), 0);
+
+	}
+
+}
@@ -0,0 +1,248 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.zeddev.zedlog.logger.DispatchSchedulers;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.TestDataLogger;
+import net.zeddev.zedlog.logger.impl.event.KeyEvent;
+import net.zeddev.zedlog.logger.impl.event.MouseClickedEvent;
+import net.zeddev.zedlog.logger.impl.event.MouseMovedEvent;
+import net.zeddev.zedlog.logger.impl.event.MouseWheelMovedEvent;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.impl.OffHeapLogHistory}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class OffHeapLogHistoryTest {
+
+	private final TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+
+	// creates the i'th test entry, cycling through the event types
+	private LogEntry entry(int i) {
+
+		LogEntry logEntry;
+
+		if (i % 4 == 0) {
+
+			logEntry = thelogger.log(i); // explicit message
+
+		} else if (i % 4 == 1) {
+
+			logEntry = thelogger.entry(i, new KeyEvent(KeyEvent.Type.PRESSED, i, 'k'));
+
+		} else if (i % 4 == 2) {
+
+			MouseClickedEvent click = new MouseClickedEvent();
+			click.setButtonCode(1);
+			click.setButton("left");
+			click.setClickCount(1);
+			click.setX(i);
+			click.setY(-i);
+
+			logEntry = thelogger.entry(i, click);
+
+		} else {
+
+			MouseWheelMovedEvent wheel = new MouseWheelMovedEvent();
+			wheel.setRotation(i % 5 - 2);
+			wheel.setX(-i);
+			wheel.setY(i);
+
+			logEntry = thelogger.entry(i, wheel);
+
+		}
+
+		logEntry.setCaptureTime(i * 1000L + 1);
+
+		return logEntry;
+
+	}
+
+	// adds the given number of test entries
+	private void addEntries(LogHistory history, int count) throws IOException {
+
+		List<LogEntry> entries = new ArrayList<>();
+
+		for (int i = 0; i < count; i++)
+			entries.add(entry(i));
+
+		history.addAll(entries);
+
+	}
+
+	// checks the history holds the test entries
+	private void assertEntries(LogHistory history, int count) throws IOException {
+
+		assertEquals(history.size(), count);
+
+		for (int i = 0; i < count; i++) {
+
+			LogEntry logEntry = history.get(i);
+
+			assertEquals(logEntry, entry(i));
+			assertEquals(logEntry.getCaptureTime(), i * 1000L + 1);
+			assertSame(logEntry.getParent(), thelogger);
+
+		}
+
+	}
+
+	/** Tests the entries are read as added, from direct buffers. */
+	@Test
+	public void testDirect() throws Throwable {
+
+		OffHeapLogHistory inst = new OffHeapLogHistory();
+		assertFalse(inst.isMapped());
+
+		addEntries(inst, 1000);
+		assertEntries(inst, 1000);
+
+		inst.close();
+
+	}
+
+	/** Tests the entries are read as added, from a mapped file. */
+	@Test
+	public void testMapped() throws Throwable {
+
+		File directory = Files.createTempDirectory("OffHeapLogHistoryTest").toFile();
+		directory.deleteOnExit();
+
+		OffHeapLogHistory inst = new OffHeapLogHistory(directory);
+		assertTrue(inst.isMapped());
+
+		addEntries(inst, 1000);
+		assertEntries(inst, 1000);
+
+		// the mapped file is replaced, not truncated
+		File[] before = directory.listFiles();
+
+		inst.clear();
+		assertEquals(inst.size(), 0);
+		assertEquals(inst.getArenaBytes(), 0);
+
+		File[] after = directory.listFiles();
+		assertEquals(after.length, 1);
+		assertFalse(after[0].equals(before[0]));
+
+		addEntries(inst, 10);
+		assertEntries(inst, 10);
+
+		inst.close();
+		assertEquals(directory.listFiles().length, 0);
+
+	}
+
+	/** Tests entries are addressed across the arena chunks. */
+	@Test
+	public void testChunks() throws Throwable {
+
+		OffHeapLogHistory inst = new OffHeapLogHistory(null);
+
+		final int count = 2 * OffHeapLogHistory.CHUNK_SIZE / OffHeapLogHistory.RECORD_SIZE;
+		addEntries(inst, count);
+
+		assertTrue(inst.getArenaBytes() > 2 * OffHeapLogHistory.CHUNK_SIZE);
+		assertEntries(inst, count);
+
+		inst.close();
+
+	}
+
+	// returns the heap in use, after collecting garbage
+	private static long usedHeap() throws InterruptedException {
+
+		Runtime runtime = Runtime.getRuntime();
+
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+
+		return runtime.totalMemory() - runtime.freeMemory();
+
+	}
+
+	/** Tests the heap used does not grow with the number of entries. */
+	@Test
+	public void testHeapIsFlat() throws Throwable {
+
+		final int count = 1000000;
+
+		OffHeapLogHistory inst = new OffHeapLogHistory(null);
+		List<LogEntry> batch = new ArrayList<>();
+
+		long before = usedHeap();
+
+		for (int i = 0; i < count; i++) {
+
+			MouseMovedEvent move = new MouseMovedEvent();
+			move.setX(i % 1920);
+			move.setY(i % 1080);
+
+			LogEntry logEntry = new LogEntry(thelogger, move);
+			logEntry.setTimestamp(i);
+
+			batch.add(logEntry);
+
+			if (batch.size() == 1024) {
+				inst.addAll(batch);
+				batch.clear();
+			}
+
+		}
+
+		long used = usedHeap() - before;
+
+		assertTrue("Used " + used + " bytes of heap!", used < 1024 * 1024);
+		assertEquals(inst.get(count - 1000).getTimestamp(), count - 1000);
+
+		inst.close();
+
+	}
+
+	/** Tests the composite logger's entries are moved to, and read from, the arena. */
+	@Test
+	public void testCompositeHistory() throws Throwable {
+
+		CompositeDataLogger loggers = new CompositeDataLogger();
+
+		List<LogEntry> entries = new ArrayList<>();
+		for (int i = 0; i < 100; i++)
+			entries.add(entry(i));
+
+		loggers.notifyLogBatch(thelogger, entries.subList(0, 50));
+		loggers.setHistory(new OffHeapLogHistory());
+		loggers.notifyLogBatch(thelogger, entries.subList(50, 100));
+
+		assertEquals(loggers.logEntries(), entries);
+
+		loggers.shutdown();
+
+	}
+
+}
@@ -0,0 +1,148 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import net.zeddev.zedlog.logger.DispatchSchedulers;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.TestDataLogger;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.impl.SegmentedLogStore} and
+ * {@link net.zeddev.zedlog.logger.impl.SegmentedLogReader}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class SegmentedLogStoreTest {
+
+	// creates an empty store directory
+	private static File newStore() throws Exception {
+
+		File directory = Files.createTempDirectory("SegmentedLogStoreTest").toFile();
+		directory.deleteOnExit();
+
+		return directory;
+
+	}
+
+	// reads all entries of the store
+	private static List<LogEntry> read(File directory) throws Exception {
+
+		List<LogEntry> entries = new ArrayList<>();
+
+		try (SegmentedLogReader reader = new SegmentedLogReader(directory)) {
+
+			LogEntry logEntry;
+			while ((logEntry = reader.next()) != null)
+				entries.add(logEntry);
+
+			assertFalse(reader.isTruncated());
+			assertEquals(reader.getPosition(), reader.getSize());
+
+		}
+
+		return entries;
+
+	}
+
+	/** Tests segments are rolled by size and read back in order. */
+	@Test
+	public void testRollBySize() throws Throwable {
+
+		File directory = newStore();
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+
+		SegmentedLogStore inst = new SegmentedLogStore(
+			directory, Arrays.asList("CharTyped"), 256, 0
+		);
+
+		for (int i = 0; i < 100; i++)
+			inst.write(thelogger.log(i));
+		inst.close(Arrays.asList("CharTyped", "MouseClick"));
+
+		assertTrue(SegmentedLogStore.isStore(directory));
+		assertTrue(inst.getSegmentCount() > 1);
+		assertEquals(inst.getEntryCount(), 100);
+
+		List<LogEntry> entries = read(directory);
+		assertEquals(entries.size(), 100);
+		for (int i = 0; i < 100; i++)
+			assertEquals(entries.get(i).getTimestamp(), i);
+
+		SegmentedLogStore.Manifest manifest = SegmentedLogStore.readManifest(directory);
+		assertEquals(manifest.segments.size(), inst.getSegmentCount());
+		assertEquals(new ArrayList<>(manifest.loggerTypes), Arrays.asList("CharTyped", "MouseClick"));
+
+	}
+
+	/** Tests segments are rolled by the time they span. */
+	@Test
+	public void testRollByDuration() throws Throwable {
+
+		File directory = newStore();
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+
+		SegmentedLogStore inst = new SegmentedLogStore(
+			directory, Collections.<String>emptyList(),
+			SegmentedLogStore.DEFAULT_SEGMENT_SIZE, 1000
+		);
+
+		for (int i = 0; i < 10; i++)
+			inst.write(thelogger.log(i * 250));
+		inst.close();
+
+		assertEquals(inst.getSegmentCount(), 3); // 0-750, 1000-1750, 2000-2250
+
+		SegmentedLogStore.Segment first = SegmentedLogStore.readManifest(directory).segments.get(0);
+		assertEquals(first.entryCount, 4);
+		assertEquals(first.firstTimestamp, 0);
+		assertEquals(first.maxTimestamp, 750);
+
+	}
+
+	/** Tests re-opening a store appends to the existing segments. */
+	@Test
+	public void testAppend() throws Throwable {
+
+		File directory = newStore();
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+
+		SegmentedLogStore inst = new SegmentedLogStore(directory, Collections.<String>emptyList());
+		inst.write(thelogger.log(1));
+		inst.close();
+
+		inst = new SegmentedLogStore(directory, Collections.<String>emptyList());
+		inst.write(thelogger.log(2));
+		inst.close();
+
+		assertEquals(inst.getSegmentCount(), 2);
+
+		List<LogEntry> entries = read(directory);
+		assertEquals(entries.size(), 2);
+		assertEquals(entries.get(1).getTimestamp(), 2);
+
+	}
+
+}
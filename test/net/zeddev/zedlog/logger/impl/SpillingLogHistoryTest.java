@@ -0,0 +1,198 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.zeddev.zedlog.logger.DispatchSchedulers;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.TestDataLogger;
+import net.zeddev.zedlog.logger.TestLogEvent;
+import net.zeddev.zedlog.logger.impl.event.MouseMovedEvent;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.impl.SpillingLogHistory}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class SpillingLogHistoryTest {
+
+	private final TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+
+	// creates the given number of entries, alternating explicit and derived messages
+	private List<LogEntry> entries(int from, int count) {
+
+		List<LogEntry> entries = new ArrayList<>();
+
+		for (int i = from; i < from + count; i++) {
+
+			LogEntry logEntry;
+
+			if (i % 2 == 0) {
+				logEntry = thelogger.log(i * 10);
+			} else {
+
+				MouseMovedEvent move = new MouseMovedEvent();
+				move.setX(i);
+				move.setY(-i);
+
+				logEntry = thelogger.entry(i * 10, move);
+
+			}
+
+			logEntry.setCaptureTime(i * 1000 + 1);
+			entries.add(logEntry);
+
+		}
+
+		return entries;
+
+	}
+
+	// checks the entry matches the one made by entries()
+	private void assertEntry(LogEntry logEntry, int i) {
+
+		assertEquals(logEntry.getTimestamp(), i * 10);
+		assertEquals(logEntry.getCaptureTime(), i * 1000 + 1);
+		assertSame(logEntry.getParent(), thelogger);
+
+		if (i % 2 == 0) {
+			assertEquals(logEntry.getMessage(), "Test " + (i * 10));
+		} else {
+			MouseMovedEvent move = (MouseMovedEvent) logEntry.getEvent();
+			assertEquals(move.getX(), i);
+			assertEquals(move.getY(), -i);
+		}
+
+	}
+
+	/** Tests the oldest entries are spilled, and read back as added. */
+	@Test
+	public void testSpill() throws Throwable {
+
+		SpillingLogHistory inst = new SpillingLogHistory(100, Long.MAX_VALUE);
+
+		for (int i = 0; i < 1000; i += 50)
+			inst.addAll(entries(i, 50));
+
+		assertEquals(inst.size(), 1000);
+		assertTrue(inst.getWindowSize() <= 100);
+		assertEquals(inst.getSpilledSize() % SpillingLogHistory.BLOCK_SIZE, 0);
+		assertEquals(inst.getSpilledSize() + inst.getWindowSize(), 1000);
+
+		// in order, then jumping between blocks
+		for (int i = 0; i < 1000; i++)
+			assertEntry(inst.get(i), i);
+		for (int i = 999; i >= 0; i -= 37)
+			assertEntry(inst.get(i), i);
+
+		inst.close();
+
+	}
+
+	/** Tests entries which cannot be encoded are kept on the heap when spilled. */
+	@Test
+	public void testSpillUnencodable() throws Throwable {
+
+		SpillingLogHistory inst = new SpillingLogHistory(SpillingLogHistory.BLOCK_SIZE, Long.MAX_VALUE);
+
+		List<LogEntry> block = entries(0, SpillingLogHistory.BLOCK_SIZE);
+		LogEntry unencodable = new LogEntry(thelogger, new TestLogEvent(), 1);
+		block.set(5, unencodable);
+
+		inst.addAll(block);
+		inst.addAll(entries(SpillingLogHistory.BLOCK_SIZE, SpillingLogHistory.BLOCK_SIZE));
+
+		assertEquals(inst.size(), 2 * SpillingLogHistory.BLOCK_SIZE);
+		assertEquals(inst.getSpilledSize(), SpillingLogHistory.BLOCK_SIZE);
+
+		for (int i = 0; i < 2 * SpillingLogHistory.BLOCK_SIZE; i++) {
+			if (i == 5)
+				assertSame(inst.get(i), unencodable);
+			else
+				assertEntry(inst.get(i), i);
+		}
+
+		inst.close();
+
+	}
+
+	/** Tests the window is bounded by the size of the entries. */
+	@Test
+	public void testByteWindow() throws Throwable {
+
+		SpillingLogHistory inst = new SpillingLogHistory(Integer.MAX_VALUE, 16 * 1024);
+		inst.addAll(entries(0, 1000));
+
+		assertTrue(inst.getSpilledSize() > 0);
+		assertTrue(inst.getWindowSize() < 1000);
+
+		for (int i = 0; i < 1000; i++)
+			assertEntry(inst.get(i), i);
+
+		inst.close();
+
+	}
+
+	/** Tests the history is emptied, and reused after clearing. */
+	@Test
+	public void testClear() throws Throwable {
+
+		SpillingLogHistory inst = new SpillingLogHistory(10, Long.MAX_VALUE);
+		inst.addAll(entries(0, 200));
+
+		inst.clear();
+		assertEquals(inst.size(), 0);
+		assertEquals(inst.getSpilledSize(), 0);
+
+		inst.addAll(entries(0, 200));
+		for (int i = 0; i < 200; i++)
+			assertEntry(inst.get(i), i);
+
+		inst.close();
+
+	}
+
+	/** Tests the view holds the entries when created, loading them lazily. */
+	@Test
+	public void testView() throws Throwable {
+
+		SpillingLogHistory inst = new SpillingLogHistory(10, Long.MAX_VALUE);
+		inst.addAll(entries(0, 200));
+
+		LogHistoryView view = new LogHistoryView(inst);
+		inst.addAll(entries(200, 10));
+
+		assertEquals(view.size(), 200);
+
+		int i = 0;
+		for (LogEntry logEntry : view)
+			assertEntry(logEntry, i++);
+
+		try {
+			view.get(200);
+			fail("Read past the end of the view!");
+		} catch (IndexOutOfBoundsException ex) { }
+
+		inst.close();
+
+	}
+
+}
@@ -0,0 +1,220 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import net.zeddev.zedlog.logger.CaptureClock;
+import net.zeddev.zedlog.logger.DispatchSchedulers;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.TestDataLogger;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.impl.XmlLogReader}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class XmlLogReaderTest {
+
+	// writes a log of the given number of entries, without loggers
+	private static File writeLog(int entries) throws Exception {
+
+		File tmp = File.createTempFile("XmlLogReaderTest", ".xml");
+		tmp.deleteOnExit();
+
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+
+		XmlLogWriter inst = new XmlLogWriter(tmp);
+		for (int i = 0; i < entries; i++)
+			inst.write(thelogger.log(i));
+		inst.close(Collections.<String>emptyList());
+
+		return tmp;
+
+	}
+
+	/** Tests the entries and loggers are read in order. */
+	@Test
+	public void testRead() throws Throwable {
+
+		File tmp = File.createTempFile("XmlLogReaderTest", ".xml");
+		tmp.deleteOnExit();
+
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+
+		List<LogEntry> written = new ArrayList<>();
+
+		XmlLogWriter writer = new XmlLogWriter(tmp, Arrays.asList("CharTyped", "MouseClick"));
+		for (int i = 0; i < 10; i++) {
+			written.add(thelogger.log(i));
+			writer.write(written.get(i));
+		}
+		writer.close(Arrays.asList("CharTyped", "MouseClick"));
+
+		XmlLogReader inst = new XmlLogReader(tmp);
+
+		List<LogEntry> read = new ArrayList<>();
+		LogEntry logEntry;
+		while ((logEntry = inst.next()) != null)
+			read.add(logEntry);
+
+		inst.close();
+
+		assertEquals(read.size(), 10);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(read.get(i).getTimestamp(), i);
+			assertEquals(read.get(i).getCaptureTime(), written.get(i).getCaptureTime());
+			assertEquals(read.get(i).getMessage(), "Test " + i);
+		}
+
+		assertEquals(inst.getCalibration(), CaptureClock.getCalibration());
+		assertEquals(inst.getLoggerTypes(), Arrays.asList("CharTyped", "MouseClick", "Test"));
+		assertEquals(inst.getPosition(), inst.getSize());
+
+	}
+
+	/** Tests logs with the loggers before the entries are read. */
+	@Test
+	public void testLoggersFirst() throws Throwable {
+
+		File tmp = File.createTempFile("XmlLogReaderTest", ".xml");
+		tmp.deleteOnExit();
+
+		try (FileWriter output = new FileWriter(tmp)) {
+			output.write(
+				"<zedlog><logger type=\"CharTyped\"/>" +
+				"<entry msg=\"a\" timestamp=\"42\" type=\"KeyEvent\">" +
+				"<event type=\"typed\" keycode=\"-1\" char=\"97\"/></entry>" +
+				"</zedlog>"
+			);
+		}
+
+		XmlLogReader inst = new XmlLogReader(tmp);
+
+		assertEquals(inst.next().getTimestamp(), 42);
+		assertEquals(inst.getLoggerTypes(), Arrays.asList("CharTyped"));
+		assertNull(inst.next());
+
+		inst.close();
+
+	}
+
+	/** Tests an unterminated log is read without modifying it. */
+	@Test
+	public void testReadUnterminated() throws Throwable {
+
+		File tmp = File.createTempFile("XmlLogReaderTest", ".xml");
+		tmp.deleteOnExit();
+
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+		TestDataLogger later = new TestDataLogger("Later", DispatchSchedulers.direct());
+
+		// crash part way through an entry
+		XmlLogWriter writer = new XmlLogWriter(tmp, Arrays.asList("Test"));
+		for (int i = 0; i < 10; i++)
+			writer.write((i < 5 ? thelogger : later).log(i));
+		writer.flush();
+
+		try (FileWriter partial = new FileWriter(tmp, true)) {
+			partial.write("<entry msg=\"Test 9");
+		}
+
+		long length = tmp.length();
+
+		XmlLogReader inst = new XmlLogReader(tmp);
+
+		int count = 0;
+		while (inst.next() != null)
+			count++;
+
+		inst.close();
+
+		assertEquals(count, 10);
+		assertTrue(inst.isTruncated());
+		assertTrue(inst.getPosition() <= inst.getSize());
+
+		// the logger added after the log was created is known by its entries
+		assertEquals(inst.getLoggerTypes(), Arrays.asList("Test", "Later"));
+
+		assertEquals(tmp.length(), length);
+		assertFalse(XmlLogWriter.isTerminated(tmp));
+
+	}
+
+	/** Tests the load is batched and can be cancelled. */
+	@Test
+	public void testLoadCancelled() throws Throwable {
+
+		File tmp = writeLog(CompositeDataLogger.LOAD_BATCH_SIZE * 3);
+
+		final List<Long> progress = new ArrayList<>();
+
+		CompositeDataLogger composite = new CompositeDataLogger();
+		boolean completed = composite.openLogFile(tmp, new LogLoadMonitor() {
+			@Override
+			public boolean loadProgress(long position, long size, long entryCount) {
+
+				assertTrue(position <= size);
+				progress.add(entryCount);
+
+				return entryCount < 2 * CompositeDataLogger.LOAD_BATCH_SIZE;
+
+			}
+		});
+
+		assertFalse(completed);
+		assertEquals(progress, Arrays.asList(
+			(long) CompositeDataLogger.LOAD_BATCH_SIZE,
+			(long) CompositeDataLogger.LOAD_BATCH_SIZE * 2
+		));
+		assertEquals(composite.logEntries().size(), CompositeDataLogger.LOAD_BATCH_SIZE * 2);
+
+		composite.shutdown();
+
+	}
+
+	/** Tests the loaded entries are not written to the current log file. */
+	@Test
+	public void testLoadNotPersisted() throws Throwable {
+
+		File tmp = writeLog(10);
+
+		File out = File.createTempFile("XmlLogReaderTest", ".xml");
+		out.deleteOnExit();
+
+		CompositeDataLogger composite = new CompositeDataLogger();
+		composite.setLogFile(out);
+
+		assertTrue(composite.openLogFile(tmp, null));
+		assertEquals(composite.logEntries().size(), 10);
+
+		composite.shutdown();
+
+		XmlLogReader inst = new XmlLogReader(out);
+		assertNull(inst.next());
+		inst.close();
+
+	}
+
+}
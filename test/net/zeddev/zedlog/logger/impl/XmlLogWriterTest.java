@@ -0,0 +1,234 @@
+package net.zeddev.zedlog.logger.impl;
+/* Copyright (C) 2013  Zachary Scott <zscott.dev@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Arrays;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import net.zeddev.zedlog.logger.DispatchSchedulers;
+import net.zeddev.zedlog.logger.LogEntry;
+import net.zeddev.zedlog.logger.TestDataLogger;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import org.w3c.dom.*;
+
+/**
+ * Unit test for {@link net.zeddev.zedlog.logger.impl.XmlLogWriter}.
+ *
+ * @author Zachary Scott <zscott.dev@gmail.com>
+ */
+public final class XmlLogWriterTest {
+
+	// the number of entries written
+	private static final int ENTRIES = 25;
+
+	// writes the test entries to the log
+	private static TestDataLogger writeEntries(XmlLogWriter inst) throws Exception {
+
+		TestDataLogger thelogger = new TestDataLogger("Test", DispatchSchedulers.direct());
+
+		for (int i = 0; i < ENTRIES; i++)
+			inst.write(thelogger.log(i));
+
+		return thelogger;
+
+	}
+
+	// parses the log file
+	private static Document parse(File file) throws Exception {
+		return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+	}
+
+	/** Tests the written log has the loggers, then the entries. */
+	@Test
+	public void testWrite() throws Throwable {
+
+		File tmp = File.createTempFile("XmlLogWriterTest", ".xml");
+		tmp.deleteOnExit();
+
+		XmlLogWriter inst = new XmlLogWriter(tmp, Arrays.asList("CharTyped", "MouseClick"));
+		writeEntries(inst);
+		inst.close(Arrays.asList("CharTyped", "MouseClick"));
+
+		assertEquals(inst.getEntryCount(), ENTRIES);
+		assertTrue(XmlLogWriter.isTerminated(tmp));
+		assertFalse(XmlLogWriter.repair(tmp));
+
+		Document doc = parse(tmp);
+		assertEquals(doc.getDocumentElement().getTagName(), "zedlog");
+
+		// the original <zedlog><loggers><entries> layout
+		NodeList sections = doc.getDocumentElement().getChildNodes();
+		assertEquals(sections.getLength(), 2);
+		assertEquals(((Element) sections.item(0)).getTagName(), "loggers");
+		assertEquals(((Element) sections.item(1)).getTagName(), "entries");
+
+		NodeList loggers = doc.getElementsByTagName("logger");
+		assertEquals(loggers.getLength(), 3);
+		assertEquals(((Element) loggers.item(1)).getAttribute("type"), "MouseClick");
+
+		// the logger not in the header is declared among the entries
+		Element added = (Element) loggers.item(2);
+		assertEquals(added.getAttribute("type"), "Test");
+		assertEquals(((Element) added.getParentNode()).getTagName(), "entries");
+
+		// the entries are read back the same
+		NodeList entries = doc.getElementsByTagName("entry");
+		assertEquals(entries.getLength(), ENTRIES);
+
+		LogEntry readEntry = new LogEntry();
+		readEntry.fromXML((Element) entries.item(3));
+
+		assertEquals(readEntry.getTimestamp(), 3);
+		assertEquals(readEntry.getMessage(), "Test 3");
+
+	}
+
+	/** Tests an unterminated log (with a partial entry) is repaired. */
+	@Test
+	public void testRepair() throws Throwable {
+
+		File tmp = File.createTempFile("XmlLogWriterTest", ".xml");
+		tmp.deleteOnExit();
+
+		// write without closing (as if crashed)
+		XmlLogWriter inst = new XmlLogWriter(tmp);
+		writeEntries(inst);
+		inst.flush();
+
+		try (FileWriter partial = new FileWriter(tmp, true)) {
+			partial.write("<entry msg=\"Test 9");
+		}
+
+		assertFalse(XmlLogWriter.isTerminated(tmp));
+		assertTrue(XmlLogWriter.repair(tmp));
+		assertTrue(XmlLogWriter.isTerminated(tmp));
+
+		Document doc = parse(tmp);
+		assertEquals(doc.getElementsByTagName("entry").getLength(), ENTRIES);
+
+	}
+
+	/** Tests trailing whitespace does not hide the closing tag. */
+	@Test
+	public void testTerminatedWhitespace() throws Throwable {
+
+		File tmp = File.createTempFile("XmlLogWriterTest", ".xml");
+		tmp.deleteOnExit();
+
+		XmlLogWriter inst = new XmlLogWriter(tmp);
+		writeEntries(inst);
+		inst.close();
+
+		try (FileWriter trailing = new FileWriter(tmp, true)) {
+			for (int i = 0; i < 10000; i++)
+				trailing.write(" \n");
+		}
+
+		assertTrue(XmlLogWriter.isTerminated(tmp));
+
+	}
+
+	/** Tests appending keeps the loggers and layout of the log. */
+	@Test
+	public void testAppend() throws Throwable {
+
+		File tmp = File.createTempFile("XmlLogWriterTest", ".xml");
+		tmp.deleteOnExit();
+
+		// crash part way through
+		XmlLogWriter inst = new XmlLogWriter(tmp, Arrays.asList("Test"));
+		writeEntries(inst);
+		inst.flush();
+
+		inst = XmlLogWriter.openForAppend(tmp);
+		assertEquals(inst.getEntryCount(), ENTRIES);
+
+		writeEntries(inst);
+		inst.close();
+
+		Document doc = parse(tmp);
+		assertEquals(doc.getElementsByTagName("entry").getLength(), 2 * ENTRIES);
+		assertEquals(doc.getElementsByTagName("logger").getLength(), 1);
+
+		Element first = (Element) doc.getDocumentElement().getFirstChild();
+		assertEquals(first.getTagName(), "loggers");
+
+	}
+
+	/** Tests loggers added after the log was re-opened are declared. */
+	@Test
+	public void testAppendDeclaresLoggers() throws Throwable {
+
+		File tmp = File.createTempFile("XmlLogWriterTest", ".xml");
+		tmp.deleteOnExit();
+
+		XmlLogWriter inst = new XmlLogWriter(tmp, Arrays.asList("Test"));
+		writeEntries(inst);
+		inst.close();
+
+		TestDataLogger later = new TestDataLogger("Later", DispatchSchedulers.direct());
+
+		// each re-open declares only the loggers not yet in the log
+		for (int run = 0; run < 2; run++) {
+
+			inst = XmlLogWriter.openForAppend(tmp);
+			inst.write(later.log(run));
+			writeEntries(inst);
+			inst.close(Arrays.asList("Test", "Later"));
+
+		}
+
+		Document doc = parse(tmp);
+		assertEquals(doc.getElementsByTagName("entry").getLength(), 3 * ENTRIES + 2);
+
+		NodeList loggers = doc.getElementsByTagName("logger");
+		assertEquals(loggers.getLength(), 2);
+		assertEquals(((Element) loggers.item(1)).getAttribute("type"), "Later");
+
+		try (XmlLogReader reader = new XmlLogReader(tmp)) {
+
+			reader.next();
+			assertEquals(reader.getLoggerTypes(), Arrays.asList("Test"));
+
+			while (reader.next() != null);
+			assertEquals(reader.getLoggerTypes(), Arrays.asList("Test", "Later"));
+
+		}
+
+	}
+
+	/** Tests an unterminated log without entries is repaired. */
+	@Test
+	public void testRepairEmpty() throws Throwable {
+
+		File tmp = File.createTempFile("XmlLogWriterTest", ".xml");
+		tmp.deleteOnExit();
+
+		XmlLogWriter inst = new XmlLogWriter(tmp);
+		inst.flush();
+
+		assertTrue(XmlLogWriter.repair(tmp));
+		assertEquals(parse(tmp).getElementsByTagName("entry").getLength(), 0);
+
+	}
+
+}